@@ -2,28 +2,42 @@ package de.unisb.cs.depend.ccs_sem.commandline;
 
 import gov.nasa.ltl.trans.ParseErrorException;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
+import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.io.PushbackReader;
 import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Timer;
+import java.util.TimerTask;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
+import ltlcheck.CheckResult;
 import ltlcheck.Counterexample;
+import ltlcheck.LtlModelChecker;
 
+import de.unisb.cs.depend.ccs_sem.evaluators.CheckpointingEvaluator;
+import de.unisb.cs.depend.ccs_sem.evaluators.EvaluationBudget;
 import de.unisb.cs.depend.ccs_sem.evaluators.EvaluationMonitor;
 import de.unisb.cs.depend.ccs_sem.evaluators.Evaluator;
 import de.unisb.cs.depend.ccs_sem.evaluators.ParallelEvaluator;
 import de.unisb.cs.depend.ccs_sem.evaluators.SequentialEvaluator;
 import de.unisb.cs.depend.ccs_sem.evaluators.ThreadBasedEvaluator;
+import de.unisb.cs.depend.ccs_sem.evaluators.distributed.DistributedCoordinator;
+import de.unisb.cs.depend.ccs_sem.evaluators.distributed.DistributedWorker;
 import de.unisb.cs.depend.ccs_sem.exceptions.ExportException;
 import de.unisb.cs.depend.ccs_sem.exceptions.LexException;
+import de.unisb.cs.depend.ccs_sem.exceptions.ParseException;
 import de.unisb.cs.depend.ccs_sem.exporters.AiSeeGraphExporter;
 import de.unisb.cs.depend.ccs_sem.exporters.CCSExporter;
 import de.unisb.cs.depend.ccs_sem.exporters.ETMCCExporter;
@@ -33,31 +47,74 @@ import de.unisb.cs.depend.ccs_sem.exporters.bcg.BCGExporter;
 import de.unisb.cs.depend.ccs_sem.exporters.helpers.FileWrapperExporter;
 import de.unisb.cs.depend.ccs_sem.lexer.CCSLexer;
 import de.unisb.cs.depend.ccs_sem.lexer.tokens.categories.Token;
+import de.unisb.cs.depend.ccs_sem.metrics.EvaluationMetrics;
+import de.unisb.cs.depend.ccs_sem.metrics.StripedCounter;
 import de.unisb.cs.depend.ccs_sem.parser.CCSParser;
 import de.unisb.cs.depend.ccs_sem.parser.IParsingProblemListener;
 import de.unisb.cs.depend.ccs_sem.parser.ParsingProblem;
 import de.unisb.cs.depend.ccs_sem.semantics.types.Program;
+import de.unisb.cs.depend.ccs_sem.semantics.types.Transition;
 import de.unisb.cs.depend.ccs_sem.utils.Globals;
+import de.unisb.cs.depend.ccs_sem.utils.OnTheFlyBisimulation;
+import de.unisb.cs.depend.ccs_sem.utils.RandomSimulation;
+import de.unisb.cs.depend.ccs_sem.utils.StateSearch;
+import de.unisb.cs.depend.ccs_sem.utils.VisitedSet;
+import de.unisb.cs.depend.ccs_sem.utils.TraceConformanceChecker;
+import de.unisb.cs.depend.ccs_sem.utils.TraceRefinementChecker;
+import de.unisb.cs.depend.ccs_sem.utils.Bisimulation.Equivalence;
 import de.unisb.cs.depend.ltlchecker.ExpressionLTLChecker;
 import de.unisb.cs.depend.ltlchecker.LTLSyntaxChecker;
+import de.unisb.cs.depend.mucalculus.MuCalculusChecker;
+import de.unisb.cs.depend.mucalculus.MuFormula;
+import de.unisb.cs.depend.mucalculus.MuFormulaParser;
 
 
 public class Main implements IParsingProblemListener {
 
     private static AtomicLong startTime = new AtomicLong(0);
     private File inputFile = null;
+    // the file whose parsing problems are reported
+    private File parsedFile = null;
     private Evaluator evaluator = null;
     private final List<FileWrapperExporter> exporters = new ArrayList<FileWrapperExporter>(2);
     private boolean minimizeWeak = false;
     private boolean minimizeStrong = false;
+    private boolean minimizeBranching = false;
     private int[] lineOffsets = null;
     private boolean errorsOccured = false;
+    private boolean stats = false;
+    private int statsInterval = 10;
+    private File statsFile = null;
+    private Timer statsTimer = null;
+    private final EvaluationBudget budget = new EvaluationBudget();
+    private StateSearch.Goal searchGoal = null;
+    private VisitedSet visitedSet = null;
+    private long simulationWalks = 0;
+    private int walkLength = 100;
+    // null: use the current time
+    private Long simulationSeed = null;
+    private int simulationThreads = 0;
+    private File conformanceLog = null;
+    private File refinementFile = null;
+    private boolean traceEquivalence = false;
+    private File bisimulationFile = null;
+    private boolean strongBisimulation = false;
+    private int coordinatorPort = -1;
+    private int workerCount = 2;
+    private File distributedOutput = null;
+    private String coordinatorAddress = null;
+    private File checkpointFile = null;
+    private long checkpointInterval = -1;
+    private long checkpointStates = 0;
+    private File resumeFile = null;
 
     // TODO add parameter for controlling this
     private static final boolean allowUnguarded = true; // false;
     private static final boolean allowUnregular = true; // false;
 
     private String ltlFormula = null;
+    private List<String> ltlFormulas = null;
+    private final List<MuFormula> muFormulas = new ArrayList<MuFormula>();
 
     public Main(String[] args) {
         parseCommandLine(args);
@@ -73,41 +130,12 @@ public class Main implements IParsingProblemListener {
     private boolean run() throws InterruptedException {
         checkCommandLine();
 
-        FileReader inputFileReader;
-        try {
-            inputFileReader = new FileReader(inputFile);
-        } catch (final FileNotFoundException e) {
-            System.err.println("File " + inputFile.getAbsolutePath()
-                    + " not found.");
-            return false;
-        }
-
-        log("Lexing...");
-        final List<Token> tokens;
-        try {
-            try {
-                tokens = new CCSLexer().lex(inputFileReader);
-            } finally {
-                try {
-                    inputFileReader.close();
-                } catch (final IOException e) {
-                    // ignore
-                }
-            }
-        } catch (final LexException e) {
-            // for conformity, we use the method reportParsingProblem
-            reportParsingProblem(new ParsingProblem(ParsingProblem.ERROR,
-                    e.getMessage(), e.getPosition(), e.getPosition()));
-            return false;
-        }
-        log("Parsing...");
-        final CCSParser parser = new CCSParser();
-        parser.addProblemListener(this);
-        final Program program = parser.parse(tokens);
+        if (coordinatorAddress != null)
+            return runWorker();
 
-        if (errorsOccured) {
+        final Program program = parse(inputFile);
+        if (program == null)
             return false;
-        }
 
         log("Checking regularity/guardedness...");
         if (!program.isGuarded()) {
@@ -132,12 +160,105 @@ public class Main implements IParsingProblemListener {
         }
 
 
+        if (stats) {
+            EvaluationMetrics.setEnabled(true);
+            EvaluationMetrics.registerMBean();
+            if (statsInterval > 0) {
+                statsTimer = new Timer("statistics", true);
+                statsTimer.schedule(new TimerTask() {
+                    @Override
+                    public void run() {
+                        log("Statistics: " + EvaluationMetrics.getInstance().getReport());
+                    }
+                }, statsInterval * 1000L, statsInterval * 1000L);
+            }
+        }
+
+        try {
+            return process(program);
+        } finally {
+            // the periodic reports end with the run, also on the early returns
+            stopStatistics();
+        }
+    }
+
+    private boolean process(Program program) throws InterruptedException {
+        if (coordinatorPort != -1) {
+            final boolean success = runCoordinator();
+            log("Ready.");
+            return success;
+        }
+
+        if (bisimulationFile != null) {
+            final boolean bisimilar = checkBisimilarity(program);
+            log("Ready.");
+            return bisimilar;
+        }
+
+        if (refinementFile != null) {
+            final boolean refines = checkRefinement(program);
+            log("Ready.");
+            return refines;
+        }
+
+        if (conformanceLog != null) {
+            final boolean conforms = checkConformance(program);
+            finishStatistics();
+            log("Ready.");
+            return conforms;
+        }
+
+        if (simulationWalks > 0) {
+            final boolean success = simulate(program);
+            log("Ready.");
+            return success;
+        }
+
+        if (searchGoal != null) {
+            final boolean found = search(program);
+            finishStatistics();
+            log("Ready.");
+            return found;
+        }
+
+        Evaluator stateSpaceEvaluator = evaluator;
+        CheckpointingEvaluator checkpointing = null;
+        if (checkpointFile != null || resumeFile != null) {
+            checkpointing = new CheckpointingEvaluator(evaluator,
+                checkpointFile != null ? checkpointFile : resumeFile);
+            // by default, write a checkpoint every 10 minutes
+            checkpointing.setIntervalMillis(1000L * (checkpointInterval != -1
+                ? checkpointInterval : checkpointStates > 0 ? 0 : 600));
+            checkpointing.setIntervalStates(checkpointStates);
+            if (resumeFile != null) {
+                log("Restoring the evaluation from " + resumeFile.getPath() + "...");
+                try {
+                    checkpointing.resume(resumeFile, program);
+                } catch (final IOException e) {
+                    log("ERROR: The checkpoint cannot be restored: " + e.getMessage());
+                    return false;
+                }
+                log(checkpointing.getStateCount() + " states restored, "
+                    + (checkpointing.getStateCount() - checkpointing.getExploredStateCount())
+                    + " of them still have to be explored.");
+            }
+            stateSpaceEvaluator = checkpointing;
+        }
+
         log("Evaluating...");
         final EvaluationMonitor monitor = new EvalMonitor(false);
-        if (!program.evaluate(evaluator, monitor)) {
+        if (budget.isLimited())
+            log("Limits: " + budget);
+        if (!program.evaluate(stateSpaceEvaluator, monitor, budget)) {
+            if (checkpointing != null && checkpointing.getCheckpointError() != null)
+                System.err.println("Error writing the checkpoint: "
+                    + checkpointing.getCheckpointError().getMessage());
             System.err.println("Exiting due to a severe error.");
             System.exit(-1);
         }
+        if (program.isTruncated())
+            log("Warning: The " + budget.getExceededLimit() + " was hit. Only a partial LTS was built, "
+                + program.getFrontier().size() + " states were not explored.");
 
         /*
         log("Counting...");
@@ -154,12 +275,30 @@ public class Main implements IParsingProblemListener {
             log("Minimizing (w.r.t. strong bisimulation)...");
             final EvaluationMonitor minimizationMonitor = new EvalMonitor(true);
             program.minimizeTransitions(evaluator, minimizationMonitor, true);
+        } else if (minimizeBranching) {
+            log("Minimizing (w.r.t. branching bisimulation)...");
+            final EvaluationMonitor minimizationMonitor = new EvalMonitor(true);
+            program.minimizeTransitions(evaluator, minimizationMonitor, Equivalence.BRANCHING);
         }
         
         /*
          * check the LTL formula
          */
-        if( ltlFormula != null) {
+        if( ltlFormulas != null ) {
+        	if( ltlFormula != null )
+        		ltlFormulas.add(0, ltlFormula);
+        	log("Checking " + ltlFormulas.size() + " LTL-formulas...");
+        	final List<CheckResult> results = ExpressionLTLChecker.checkAll(
+        			program.getMainExpression(), ltlFormulas, null);
+        	int violated = 0;
+        	for( final CheckResult result : results ) {
+        		log("    Result: " + result);
+        		if( !result.isSatisfied() )
+        			violated++;
+        	}
+        	log("    " + (results.size() - violated) + " of " + results.size()
+        			+ " formulas satisfied.");
+        } else if( ltlFormula != null) {
         	log("Checking LTL-formula...");
         	try {
 				Counterexample ce = ExpressionLTLChecker.check(
@@ -176,6 +315,16 @@ public class Main implements IParsingProblemListener {
 			}
         }
 
+        if (!muFormulas.isEmpty()) {
+            log("Checking " + muFormulas.size() + " mu-calculus formula"
+                + (muFormulas.size() == 1 ? "" : "s") + "...");
+            final int threads = evaluator instanceof SequentialEvaluator ? 1
+                : Runtime.getRuntime().availableProcessors();
+            final MuCalculusChecker checker = new MuCalculusChecker(program.getExpression(), threads);
+            for (final MuFormula formula: muFormulas)
+                log("    Result: " + checker.check(formula));
+        }
+
         log("Exporting...");
         boolean errors = false;
         for (final FileWrapperExporter exporter: exporters) {
@@ -189,6 +338,8 @@ public class Main implements IParsingProblemListener {
             }
         }
 
+        finishStatistics();
+
         log("Ready." + (errors ? " There were errors." : ""));
 
         // get used memory information
@@ -201,8 +352,300 @@ public class Main implements IParsingProblemListener {
         return errors;
     }
 
+    private boolean runCoordinator() throws InterruptedException {
+        final File output = distributedOutput != null ? distributedOutput
+            : new File(inputFile.getPath().replaceFirst("(\\.ccs)?$", ".aut"));
+        final StringBuilder source = new StringBuilder();
+        try {
+            final Reader reader = new FileReader(inputFile);
+            try {
+                final char[] buf = new char[4096];
+                int read;
+                while ((read = reader.read(buf)) != -1)
+                    source.append(buf, 0, read);
+            } finally {
+                reader.close();
+            }
+        } catch (final IOException e) {
+            System.err.println("Error reading " + inputFile.getPath() + ": " + e.getMessage());
+            return false;
+        }
+
+        try {
+            final DistributedCoordinator coordinator =
+                new DistributedCoordinator(coordinatorPort, workerCount);
+            log("Waiting for " + workerCount + " workers on port " + coordinator.getPort() + "...");
+            coordinator.run(source.toString(), output);
+            log("Evaluated " + coordinator.getStateCount() + " states and "
+                + coordinator.getTransitionCount() + " transitions, written to "
+                + output.getPath() + ".");
+            return true;
+        } catch (final IOException e) {
+            System.err.println("Error in the distributed evaluation: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean runWorker() throws InterruptedException {
+        final int colon = coordinatorAddress.lastIndexOf(':');
+        final String host = colon == -1 ? "localhost" : coordinatorAddress.substring(0, colon);
+        final int port;
+        try {
+            port = Integer.parseInt(coordinatorAddress.substring(colon + 1));
+        } catch (final NumberFormatException e) {
+            System.err.println("Port expected after \"--worker\" switch.");
+            return false;
+        }
+        log("Connecting to " + host + ":" + port + "...");
+        final DistributedWorker worker = new DistributedWorker(host, port, evaluator);
+        try {
+            worker.run();
+        } catch (final IOException e) {
+            System.err.println("Error in the distributed evaluation: " + e.getMessage());
+            return false;
+        }
+        log("Worker " + worker.getIndex() + " evaluated " + worker.getStateCount()
+            + " states and " + worker.getTransitionCount() + " transitions.");
+        return true;
+    }
+
+    private boolean search(Program program) throws InterruptedException {
+        log("Searching for a " + searchGoal + "...");
+        final StateSearch search = visitedSet != null
+            ? new StateSearch(searchGoal, visitedSet)
+            : new StateSearch(evaluator, searchGoal);
+        final List<Transition> trace;
+        try {
+            trace = search.search(program.getMainExpression());
+        } catch (final IllegalStateException e) {
+            System.err.println("Exiting due to a severe error.");
+            System.exit(-1);
+            return false;
+        }
+        if (trace == null) {
+            log("No " + searchGoal + " found (" + search.getExploredStates()
+                + " states explored).");
+            return false;
+        }
+        log("Found a " + searchGoal + " after " + trace.size() + " steps ("
+            + search.getExploredStates() + " states explored):");
+        System.out.println(program.getMainExpression());
+        System.out.print(StateSearch.traceToString(trace));
+        return true;
+    }
+
+    private boolean simulate(Program program) throws InterruptedException {
+        final RandomSimulation simulation = new RandomSimulation();
+        simulation.setWalks(simulationWalks);
+        simulation.setMaxLength(walkLength);
+        simulation.setThreads(simulationThreads);
+        // print the seed, so that the simulation can be reproduced
+        final long seed = simulationSeed != null ? simulationSeed.longValue() : System.currentTimeMillis();
+        simulation.setSeed(seed);
+        log("Simulating " + simulationWalks + " random walks of at most " + walkLength
+            + " steps (seed " + seed + ")...");
+        final RandomSimulation.Result result;
+        try {
+            result = simulation.run(program.getMainExpression());
+        } catch (final IllegalStateException e) {
+            System.err.println("Exiting due to a severe error: " + e.getCause());
+            System.exit(-1);
+            return false;
+        }
+        System.out.print(result);
+        return true;
+    }
+
+    /**
+     * Lexes and parses a file, reporting the problems.
+     *
+     * @return the program, or <code>null</code> if there were errors
+     */
+    private Program parse(File file) {
+        parsedFile = file;
+        lineOffsets = null;
+
+        FileReader fileReader;
+        try {
+            fileReader = new FileReader(file);
+        } catch (final FileNotFoundException e) {
+            System.err.println("File " + file.getAbsolutePath()
+                    + " not found.");
+            return null;
+        }
+
+        log("Lexing...");
+        final List<Token> tokens;
+        try {
+            try {
+                tokens = new CCSLexer().lex(fileReader);
+            } finally {
+                try {
+                    fileReader.close();
+                } catch (final IOException e) {
+                    // ignore
+                }
+            }
+        } catch (final LexException e) {
+            // for conformity, we use the method reportParsingProblem
+            reportParsingProblem(new ParsingProblem(ParsingProblem.ERROR,
+                    e.getMessage(), e.getPosition(), e.getPosition()));
+            return null;
+        }
+        log("Parsing...");
+        final CCSParser parser = new CCSParser();
+        parser.addProblemListener(this);
+        final Program program = parser.parse(tokens);
+
+        return errorsOccured ? null : program;
+    }
+
+    private boolean checkRefinement(Program program) throws InterruptedException {
+        log("Reading the " + (traceEquivalence ? "other program" : "specification")
+            + " from " + refinementFile.getPath() + "...");
+        final Program other = parse(refinementFile);
+        if (other == null)
+            return false;
+
+        log(traceEquivalence ? "Checking trace equivalence..."
+            : "Checking trace refinement...");
+        final TraceRefinementChecker checker = new TraceRefinementChecker(evaluator);
+        final List<Transition> trace;
+        try {
+            trace = traceEquivalence
+                ? checker.checkEquivalence(program.getMainExpression(), other.getMainExpression())
+                : checker.check(program.getMainExpression(), other.getMainExpression());
+        } catch (final IllegalStateException e) {
+            System.err.println("Exiting due to a severe error.");
+            System.exit(-1);
+            return false;
+        }
+        if (trace == null) {
+            log((traceEquivalence ? "The programs are trace equivalent"
+                : "The implementation refines the specification") + " ("
+                + checker.getExploredPairs() + " pairs explored).");
+            return true;
+        }
+        log("Found a trace of " + trace.size() + " steps that "
+            + (traceEquivalence ? "only one of the programs can perform" : "the specification does not allow")
+            + " (" + checker.getExploredPairs() + " pairs explored). Instead of the last step, "
+            + (checker.getAllowedLabels().isEmpty() ? "no step"
+                : "only " + checker.getAllowedLabels()) + " would be possible:");
+        System.out.print(StateSearch.traceToString(trace));
+        return false;
+    }
+
+    private boolean checkBisimilarity(Program program) throws InterruptedException {
+        log("Reading the other program from " + bisimulationFile.getPath() + "...");
+        final Program other = parse(bisimulationFile);
+        if (other == null)
+            return false;
+
+        log("Checking " + (strongBisimulation ? "strong" : "weak") + " bisimilarity...");
+        final OnTheFlyBisimulation checker = new OnTheFlyBisimulation(evaluator, !strongBisimulation);
+        final boolean bisimilar;
+        try {
+            bisimilar = checker.check(program.getMainExpression(), other.getMainExpression());
+        } catch (final IllegalStateException e) {
+            System.err.println("Exiting due to a severe error.");
+            System.exit(-1);
+            return false;
+        }
+        final String explored = checker.getExploredPairs() + " pairs explored in "
+            + checker.getRounds() + (checker.getRounds() == 1 ? " round" : " rounds");
+        if (bisimilar) {
+            log("The programs are " + (strongBisimulation ? "strongly" : "weakly")
+                + " bisimilar (" + explored + ").");
+            return true;
+        }
+        log("The programs are not " + (strongBisimulation ? "strongly" : "weakly")
+            + " bisimilar (" + explored + "). Distinguishing trace:");
+        for (final OnTheFlyBisimulation.Step step: checker.getDistinguishingTrace())
+            System.out.println(step);
+        return false;
+    }
+
+    private boolean checkConformance(Program program) throws InterruptedException {
+        final boolean stdin = "-".equals(conformanceLog.getPath());
+        log("Checking conformance of " + (stdin ? "standard input" : conformanceLog.getPath()) + "...");
+        final long startTime = System.nanoTime();
+        final TraceConformanceChecker checker;
+        final boolean conforms;
+        try {
+            checker = new TraceConformanceChecker(evaluator, program.getMainExpression());
+            final ReadableByteChannel channel = stdin ? Channels.newChannel(System.in)
+                : new FileInputStream(conformanceLog).getChannel();
+            try {
+                conforms = checker.check(channel);
+            } finally {
+                channel.close();
+            }
+        } catch (final IOException e) {
+            System.err.println("Error reading " + conformanceLog.getPath() + ": " + e.getMessage());
+            return false;
+        } catch (final IllegalStateException e) {
+            System.err.println("Exiting due to a severe error.");
+            System.exit(-1);
+            return false;
+        }
+        final long time = Math.max(1, (System.nanoTime() - startTime) / 1000000);
+        final String summary = checker.getEventCount() + " events in " + time + " ms ("
+            + (checker.getEventCount() * 1000 / time) + " events/s, "
+            + checker.getStateCount() + " states evaluated)";
+        if (conforms) {
+            log("The log conforms to the specification: " + summary + ".");
+        } else {
+            log("Event " + checker.getEventCount() + " in line " + checker.getFailedLine()
+                + " (\"" + checker.getFailedLabel() + "\") does not conform to the specification.");
+            log("Possible events at this point: " + (checker.getExpectedLabels().isEmpty()
+                ? "none" : checker.getExpectedLabels().toString()));
+            log("Checked " + summary + ".");
+        }
+        return conforms;
+    }
+
+    // stops the periodic reports and prints the final one
+    private void finishStatistics() {
+        if (!stats)
+            return;
+        stopStatistics();
+        printStatistics();
+    }
+
+    private void stopStatistics() {
+        if (statsTimer != null) {
+            statsTimer.cancel();
+            statsTimer = null;
+        }
+    }
+
+    private void printStatistics() {
+        final EvaluationMetrics metrics = EvaluationMetrics.getInstance();
+        log("Statistics: " + metrics.getReport());
+        for (final String operatorTime: metrics.getOperatorTimes())
+            log("  - " + operatorTime);
+        if (statsFile != null) {
+            FileWriter writer = null;
+            try {
+                writer = new FileWriter(statsFile);
+                writer.write(metrics.toJSON());
+                writer.write(Globals.getNewline());
+            } catch (final IOException e) {
+                System.err.println("Error writing statistics to "
+                    + statsFile.getAbsolutePath() + ": " + e.getMessage());
+            } finally {
+                if (writer != null)
+                    try {
+                        writer.close();
+                    } catch (final IOException e) {
+                        // ignore
+                    }
+            }
+        }
+    }
+
     private void checkCommandLine() {
-        if (inputFile == null) {
+        if (coordinatorAddress == null && inputFile == null) {
             System.err.println("You didn't specify an input file.");
             printHelp(System.err);
             System.exit(-1);
@@ -258,6 +701,204 @@ public class Main implements IParsingProblemListener {
                 minimizeWeak = true;
             } else if ("--minimizeStrong".equals(arg)) {
                 minimizeStrong = true;
+            } else if ("--minimizeBranching".equals(arg)) {
+                minimizeBranching = true;
+            } else if ("--stats".equals(arg)) {
+                stats = true;
+            } else if ("--statsInterval".equals(arg)) {
+                if (next == null) {
+                    System.err.println("Expecting argument for \"--statsInterval\" switch.");
+                    System.exit(-1);
+                }
+                try {
+                    statsInterval = Integer.parseInt(next);
+                } catch (final NumberFormatException e) {
+                    System.err.println("Integer expected after \"--statsInterval\" switch.");
+                    System.exit(-1);
+                }
+                stats = true;
+                next = null;
+            } else if ("--statsFile".equals(arg)) {
+                if (next == null) {
+                    System.err.println("Expecting argument for \"--statsFile\" switch.");
+                    System.exit(-1);
+                }
+                statsFile = new File(next);
+                stats = true;
+                next = null;
+            } else if ("--ltlFile".equals(arg)) {
+                if (next == null) {
+                    System.err.println("Expecting argument for \"--ltlFile\" switch.");
+                    System.exit(-1);
+                }
+                readFormulaFile(new File(next));
+                next = null;
+            } else if ("--ltlThreads".equals(arg)) {
+                if (next == null) {
+                    System.err.println("Expecting argument for \"--ltlThreads\" switch.");
+                    System.exit(-1);
+                }
+                try {
+                    final int threads = Integer.parseInt(next);
+                    if (threads < 0)
+                        throw new NumberFormatException();
+                    LtlModelChecker.setCycleSearchThreads(threads);
+                } catch (final NumberFormatException e) {
+                    System.err.println("Non-negative integer expected after \"--ltlThreads\" switch.");
+                    System.exit(-1);
+                }
+                next = null;
+            } else if ("--mu".equals(arg)) {
+                if (next == null) {
+                    System.err.println("Expecting argument for \"--mu\" switch.");
+                    System.exit(-1);
+                }
+                try {
+                    muFormulas.add(MuFormulaParser.parse(next));
+                } catch (final ParseException e) {
+                    System.err.println("Invalid mu-calculus formula: " + e.getMessage());
+                    System.exit(-1);
+                }
+                next = null;
+            } else if ("--bisimilar".equals(arg) || "--strongBisimilar".equals(arg)) {
+                if (next == null) {
+                    System.err.println("Expecting argument for \"" + arg + "\" switch.");
+                    System.exit(-1);
+                }
+                bisimulationFile = new File(next);
+                strongBisimulation = "--strongBisimilar".equals(arg);
+                next = null;
+            } else if ("--refines".equals(arg) || "--traceEquivalent".equals(arg)) {
+                if (next == null) {
+                    System.err.println("Expecting argument for \"" + arg + "\" switch.");
+                    System.exit(-1);
+                }
+                refinementFile = new File(next);
+                traceEquivalence = "--traceEquivalent".equals(arg);
+                next = null;
+            } else if ("--coordinator".equals(arg)) {
+                coordinatorPort = (int) Math.min(65535, parseLimit(arg, next));
+                next = null;
+            } else if ("--workers".equals(arg)) {
+                workerCount = (int) Math.min(Integer.MAX_VALUE, parseLimit(arg, next));
+                if (workerCount < 1) {
+                    System.err.println("Positive integer expected after \"--workers\" switch.");
+                    System.exit(-1);
+                }
+                next = null;
+            } else if ("--distributedOutput".equals(arg)) {
+                if (next == null) {
+                    System.err.println("Expecting argument for \"--distributedOutput\" switch.");
+                    System.exit(-1);
+                }
+                distributedOutput = new File(next);
+                next = null;
+            } else if ("--worker".equals(arg)) {
+                if (next == null) {
+                    System.err.println("Expecting argument for \"--worker\" switch.");
+                    System.exit(-1);
+                }
+                coordinatorAddress = next;
+                next = null;
+            } else if ("--checkpoint".equals(arg)) {
+                if (next == null) {
+                    System.err.println("Expecting argument for \"--checkpoint\" switch.");
+                    System.exit(-1);
+                }
+                checkpointFile = new File(next);
+                next = null;
+            } else if ("--checkpointInterval".equals(arg)) {
+                checkpointInterval = parseLimit(arg, next);
+                next = null;
+            } else if ("--checkpointStates".equals(arg)) {
+                checkpointStates = parseLimit(arg, next);
+                next = null;
+            } else if ("--resume".equals(arg)) {
+                if (next == null) {
+                    System.err.println("Expecting argument for \"--resume\" switch.");
+                    System.exit(-1);
+                }
+                resumeFile = new File(next);
+                next = null;
+            } else if ("--conform".equals(arg)) {
+                if (next == null) {
+                    System.err.println("Expecting argument for \"--conform\" switch.");
+                    System.exit(-1);
+                }
+                conformanceLog = new File(next);
+                next = null;
+            } else if ("--find-deadlock".equals(arg)) {
+                searchGoal = StateSearch.DEADLOCK;
+            } else if ("--find-error".equals(arg)) {
+                searchGoal = StateSearch.ERROR;
+            } else if ("--simulate".equals(arg)) {
+                simulationWalks = parseLimit(arg, next);
+                if (simulationWalks < 1) {
+                    System.err.println("Positive integer expected after \"--simulate\" switch.");
+                    System.exit(-1);
+                }
+                next = null;
+            } else if ("--walkLength".equals(arg)) {
+                walkLength = (int) Math.min(Integer.MAX_VALUE, parseLimit(arg, next));
+                next = null;
+            } else if ("--seed".equals(arg)) {
+                if (next == null) {
+                    System.err.println("Expecting argument for \"--seed\" switch.");
+                    System.exit(-1);
+                }
+                try {
+                    simulationSeed = Long.valueOf(next);
+                } catch (final NumberFormatException e) {
+                    System.err.println("Integer expected after \"--seed\" switch.");
+                    System.exit(-1);
+                }
+                next = null;
+            } else if ("--simulationThreads".equals(arg)) {
+                simulationThreads = (int) Math.min(Integer.MAX_VALUE, parseLimit(arg, next));
+                next = null;
+            } else if ("--visitedSet".equals(arg)) {
+                if ("full".equals(next))
+                    visitedSet = new VisitedSet.Full();
+                else if ("compacted".equals(next))
+                    visitedSet = new VisitedSet.HashCompacted();
+                else if ("none".equals(next))
+                    visitedSet = new VisitedSet.None();
+                else {
+                    System.err.println("Expecting \"full\", \"compacted\" or \"none\" after \"--visitedSet\" switch.");
+                    System.exit(-1);
+                }
+                next = null;
+            } else if ("--maxStates".equals(arg)) {
+                budget.setMaxStates(parseLimit(arg, next));
+                next = null;
+            } else if ("--maxTransitions".equals(arg)) {
+                budget.setMaxTransitions(parseLimit(arg, next));
+                next = null;
+            } else if ("--maxDepth".equals(arg)) {
+                budget.setMaxDepth((int) Math.min(Integer.MAX_VALUE, parseLimit(arg, next)));
+                next = null;
+            } else if ("--timeLimit".equals(arg)) {
+                budget.setMaxMillis(1000L * parseLimit(arg, next));
+                next = null;
+            } else if ("--maxHeap".equals(arg)) {
+                if (next == null) {
+                    System.err.println("Expecting argument for \"--maxHeap\" switch.");
+                    System.exit(-1);
+                }
+                try {
+                    final boolean percent = next.endsWith("%");
+                    double fraction = Double.parseDouble(percent
+                        ? next.substring(0, next.length()-1) : next);
+                    if (percent || fraction > 1)
+                        fraction /= 100;
+                    if (fraction <= 0 || fraction > 1)
+                        throw new NumberFormatException();
+                    budget.setMaxHeapFraction(fraction);
+                } catch (final NumberFormatException e) {
+                    System.err.println("Percentage expected after \"--maxHeap\" switch.");
+                    System.exit(-1);
+                }
+                next = null;
             } else if (arg.length() >= 2 && arg.charAt(0) == '-'
                     && arg.charAt(1) != '-') {
                 arg = arg.substring(1);
@@ -336,6 +977,43 @@ public class Main implements IParsingProblemListener {
         }
     }
 
+    /**
+     * Reads one LTL formula per line. Empty lines and lines starting with
+     * <code>#</code> are ignored.
+     */
+    private void readFormulaFile(File file) {
+        if (ltlFormulas == null)
+            ltlFormulas = new ArrayList<String>();
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new FileReader(file));
+            String line;
+            int lineNr = 0;
+            while ((line = reader.readLine()) != null) {
+                ++lineNr;
+                line = line.trim();
+                if (line.length() == 0 || line.startsWith("#"))
+                    continue;
+                if (LTLSyntaxChecker.correctSyntax(line))
+                    ltlFormulas.add(line);
+                else
+                    System.err.println("Ignoring invalid LTL formula in line "
+                        + lineNr + " of " + file.getPath() + ": " + line);
+            }
+        } catch (final IOException e) {
+            System.err.println("Error reading " + file.getAbsolutePath()
+                + ": " + e.getMessage());
+            System.exit(-1);
+        } finally {
+            if (reader != null)
+                try {
+                    reader.close();
+                } catch (final IOException e) {
+                    // ignore
+                }
+        }
+    }
+
     private void setPolicy(int policy) {
         if (policy == 0)
             evaluator = Globals.getDefaultEvaluator();
@@ -391,6 +1069,23 @@ public class Main implements IParsingProblemListener {
         }
     }
 
+    private static long parseLimit(String arg, String value) {
+        if (value == null) {
+            System.err.println("Expecting argument for \"" + arg + "\" switch.");
+            System.exit(-1);
+        }
+        try {
+            final long limit = Long.parseLong(value);
+            if (limit >= 0)
+                return limit;
+        } catch (final NumberFormatException e) {
+            // error message below
+        }
+        System.err.println("Non-negative integer expected after \"" + arg + "\" switch.");
+        System.exit(-1);
+        return 0;
+    }
+
     private void printHelp(PrintStream out) {
         out.println("usage: java " + getClass().getName() + " <parameter> <input file> [<LTL Formula>]");
         out.println("  where <parameter> can be:");
@@ -404,6 +1099,101 @@ public class Main implements IParsingProblemListener {
         out.println("  -M, --minimizeStrong");
         out.println("     minimize the graph after evaluation w.r.t. strong bisimulation");
         out.println();
+        out.println("  --minimizeBranching");
+        out.println("     minimize the graph after evaluation w.r.t. branching bisimulation. This is a bit");
+        out.println("     finer than weak bisimulation, but much faster for big graphs.");
+        out.println();
+        out.println("  --find-deadlock, --find-error");
+        out.println("     instead of evaluating the whole graph, search for the first deadlock (a state");
+        out.println("     without transitions) or error state, and print a shortest trace to it");
+        out.println();
+        out.println("  --simulate=<integer>");
+        out.println("     instead of evaluating the whole graph, simulate the given number of random walks");
+        out.println("     and print the probabilities to reach an error state or a deadlock, and how often");
+        out.println("     each action was taken");
+        out.println();
+        out.println("  --walkLength=<integer>, --seed=<integer>, --simulationThreads=<integer>");
+        out.println("     the maximum number of steps of a random walk (default: 100), the seed of the");
+        out.println("     simulation (default: the current time, which is printed), and the number of threads");
+        out.println("     (default: 0, one per available processor). The result only depends on the seed.");
+        out.println();
+        out.println("  --visitedSet=<full|compacted|none>");
+        out.println("     let --find-deadlock and --find-error compute the transitions on demand instead of");
+        out.println("     storing them, and only remember the visited states (full), 64 bit fingerprints of");
+        out.println("     them (compacted, may miss states with a tiny probability) or nothing (none, only");
+        out.println("     terminates on acyclic graphs)");
+        out.println();
+        out.println("  --bisimilar=<filename>, --strongBisimilar=<filename>");
+        out.println("     instead of evaluating the whole graph, check whether the input file is weakly");
+        out.println("     (strongly) bisimilar to the program in the given file. The graphs are only");
+        out.println("     evaluated as far as needed; prints a distinguishing trace.");
+        out.println();
+        out.println("  --refines=<filename>");
+        out.println("     instead of evaluating the whole graph, check whether every trace of the input file");
+        out.println("     is a trace of the specification in the given file (tau steps are ignored). The");
+        out.println("     graphs are only evaluated as far as needed; prints a shortest violating trace.");
+        out.println();
+        out.println("  --traceEquivalent=<filename>");
+        out.println("     like --refines, but checks both directions");
+        out.println();
+        out.println("  --conform=<filename>");
+        out.println("     instead of evaluating the whole graph, check whether the log in the given file");
+        out.println("     (\"-\" for standard input) is a trace of the specification. The log contains action");
+        out.println("     labels separated by whitespace; tau steps are added as needed. Reports the first");
+        out.println("     event that is not allowed.");
+        out.println();
+        out.println("  --coordinator=<port>");
+        out.println("     instead of evaluating the graph in this process, wait for the workers (see --worker)");
+        out.println("     on the given port (0 for any free port), distribute the evaluation among them, and");
+        out.println("     write the merged graph in Aldebaran format to the file given by --distributedOutput");
+        out.println("     (default: the input file with the extension .aut). Every worker owns the states");
+        out.println("     whose hash falls into its partition.");
+        out.println();
+        out.println("  --workers=<integer>");
+        out.println("     sets the number of workers the coordinator waits for (default: 2)");
+        out.println();
+        out.println("  --worker=[<host>:]<port>");
+        out.println("     take part in a distributed evaluation as a worker of the coordinator on the given");
+        out.println("     host (default: localhost) and port. No input file is needed, the coordinator sends");
+        out.println("     the program.");
+        out.println();
+        out.println("  --ltlFile=<filename>");
+        out.println("     checks all LTL formulas in the given file (one per line, lines starting with #");
+        out.println("     are ignored). The graph is built once, and the formulas are checked concurrently.");
+        out.println();
+        out.println("  --ltlThreads=<integer>");
+        out.println("     sets the number of threads searching for accepting cycles when checking an LTL formula.");
+        out.println("     1 (the default) means a sequential nested depth-first search, 0 means one thread per");
+        out.println("     available processor.");
+        out.println();
+        out.println("  --mu=<formula>");
+        out.println("     checks a formula of the alternation-free modal mu-calculus on the (minimized) graph,");
+        out.println("     e.g. \"nu X. [req]<ack>true && [-]X\" (after every req, an ack is possible). Prints a");
+        out.println("     trace to a witness or counter-witness state. Can be given several times.");
+        out.println();
+        out.println("  --maxStates=<integer>, --maxTransitions=<integer>, --maxDepth=<integer>");
+        out.println("     stop the evaluation after the given number of states or transitions, or don't");
+        out.println("     explore states that are farther away from the initial state (0 means no limit).");
+        out.println("     If a limit is hit, the partial graph is exported, with the unexplored states marked.");
+        out.println();
+        out.println("  --timeLimit=<seconds>");
+        out.println("     stop the evaluation after the given time");
+        out.println();
+        out.println("  --maxHeap=<percent>");
+        out.println("     stop the evaluation if more than the given percentage of the maximum heap is used");
+        out.println();
+        out.println("  --checkpoint=<file>");
+        out.println("     periodically write a checkpoint of the evaluation (the states found so far, the");
+        out.println("     unexplored ones and the transitions) to the given file");
+        out.println();
+        out.println("  --checkpointInterval=<seconds>, --checkpointStates=<integer>");
+        out.println("     write a checkpoint after the given time or number of explored states");
+        out.println("     (default: every 600 seconds, 0 means never)");
+        out.println();
+        out.println("  --resume=<file>");
+        out.println("     continue the evaluation from the given checkpoint. The checkpoints are written to");
+        out.println("     the same file, unless --checkpoint is given.");
+        out.println();
         out.println("  -o, --output=<format>:<filename>.<extension>");
         out.println("     sets the output file. This parameter can occure several times to several output files.");
         out.println("     If the format is omitted, it is assumed to be the same as the extension.");
@@ -413,6 +1203,16 @@ public class Main implements IParsingProblemListener {
         out.println("       - gdl (for aiSee)");
         out.println("       - tra (for ETMCC)");
         out.println();
+        out.println("  --stats");
+        out.println("     collect evaluation statistics, report them periodically and at the end,");
+        out.println("     and export them via JMX");
+        out.println();
+        out.println("  --statsInterval=<seconds>");
+        out.println("     sets the interval of the periodic statistics reports (default: 10, 0 disables them)");
+        out.println();
+        out.println("  --statsFile=<filename>");
+        out.println("     writes the final statistics as JSON to the given file");
+        out.println();
         out.println("  -t, --threads=<integer>");
         out.println("     sets the number of threads used to evaluate the ccs expression.");
         out.println("     There are some special numbers:");
@@ -449,7 +1249,7 @@ public class Main implements IParsingProblemListener {
         System.out.println(problem.getMessage());
         System.out.print("at location: ");
         if (lineOffsets == null) {
-            lineOffsets = readLineOffsets(inputFile);
+            lineOffsets = readLineOffsets(parsedFile);
         }
         assert lineOffsets != null;
         final int startLine = getLineOfOffset(problem.getStartPosition());
@@ -473,7 +1273,7 @@ public class Main implements IParsingProblemListener {
                 System.out.print("context:     ");
                 Reader reader = null;
                 try {
-                    reader = new FileReader(inputFile);
+                    reader = new FileReader(parsedFile);
                     if (startLine > 1)
                         reader.skip(lineOffsets[startLine - 2]);
                     int ch;
@@ -502,7 +1302,7 @@ public class Main implements IParsingProblemListener {
                     System.out.println(sb.toString());
                 } catch (final IOException e) {
                     System.err.println("Error reading input file \""
-                            + inputFile + "\": " + e.getMessage());
+                            + parsedFile + "\": " + e.getMessage());
                     System.exit(-1);
                 }
                 if (reader != null)
@@ -521,7 +1321,7 @@ public class Main implements IParsingProblemListener {
                     try {
                         if (line != startLine)
                             System.out.print("             ");
-                        reader = new FileReader(inputFile);
+                        reader = new FileReader(parsedFile);
                         if (line > 1)
                             reader.skip(lineOffsets[line - 2]);
                         int ch;
@@ -547,7 +1347,7 @@ public class Main implements IParsingProblemListener {
 
     private int getLineOfOffset(int startPosition) {
         if (lineOffsets == null) {
-            lineOffsets = readLineOffsets(inputFile);
+            lineOffsets = readLineOffsets(parsedFile);
         }
         if (lineOffsets.length == 0)
             return 1;
@@ -632,7 +1432,7 @@ public class Main implements IParsingProblemListener {
 
         private static final int EVALUATION_INTERVAL = 10000;
         private static final int MINIMIZATION_INTERVAL = 1000000;
-        private final AtomicInteger transitions = new AtomicInteger(0);
+        private final StripedCounter transitions = new StripedCounter();
         private final AtomicInteger states = new AtomicInteger(0);
         private final boolean isMinimization;
         private final int showInterval;
@@ -644,7 +1444,7 @@ public class Main implements IParsingProblemListener {
         }
 
         public void newTransitions(int count) {
-            transitions.addAndGet(count);
+            transitions.add(count);
         }
 
         public void newState() {
@@ -0,0 +1,437 @@
+package de.unisb.cs.depend.ccs_sem.evaluators;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import de.unisb.cs.depend.ccs_sem.metrics.EvaluationMetrics;
+import de.unisb.cs.depend.ccs_sem.parser.CCSParser;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.Expression;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.PrefixExpression;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.adapters.TopMostExpression;
+import de.unisb.cs.depend.ccs_sem.semantics.types.Program;
+import de.unisb.cs.depend.ccs_sem.semantics.types.Transition;
+import de.unisb.cs.depend.ccs_sem.semantics.types.actions.Action;
+import de.unisb.cs.depend.ccs_sem.semantics.types.actions.TauAction;
+
+
+/**
+ * Evaluates the whole LTS in breadth-first order, using another
+ * {@link Evaluator} for the single states, and periodically writes a
+ * checkpoint of the evaluation to a file: all states found so far, which of
+ * them have been explored (the others form the frontier), and the
+ * transitions of the explored states. An aborted evaluation can then be
+ * continued from its last checkpoint, see {@link #resume(File, Program)}.
+ *
+ * A checkpoint is written every {@link #setIntervalMillis(long) some
+ * milliseconds} or {@link #setIntervalStates(long) explored states}, and
+ * when the evaluation is finished, stopped by a limit of its budget, or
+ * interrupted. It is written to a temporary file first, so that a crash
+ * while writing does not destroy the previous checkpoint.
+ *
+ * The checkpoints are gzipped; states are stored by their string
+ * representation, actions by their label (each label only once), and all
+ * numbers with a variable-length encoding. When a checkpoint is restored,
+ * the states are parsed again in the context of the program, and visible
+ * tau actions (see {@link Expression#setVisibleTau(boolean)}) become
+ * ordinary tau actions.
+ */
+public class CheckpointingEvaluator implements Evaluator {
+
+    // "CCSC"
+    private static final int MAGIC = 0x43435343;
+    private static final int VERSION = 1;
+
+    private final Evaluator evaluator;
+    private final File checkpointFile;
+    private long intervalMillis = 0;
+    private long intervalStates = 0;
+
+    // the states in the order they were found. The first exploredStates
+    // states have been explored, the others form the frontier.
+    private final List<Expression> states = new ArrayList<Expression>();
+    private final Map<Expression, Integer> stateNumbers = new HashMap<Expression, Integer>();
+    private int exploredStates = 0;
+    // the numbers of the restored states by their string representation.
+    // A reparsed state may be structurally different from the expression
+    // that the evaluation of its predecessor yields.
+    private Map<String, Integer> restoredStates = null;
+
+    private int checkpointsWritten = 0;
+    private IOException checkpointError = null;
+
+    /**
+     * @param evaluator the evaluator that is used to evaluate the single states
+     * @param checkpointFile the file to write the checkpoints to
+     */
+    public CheckpointingEvaluator(Evaluator evaluator, File checkpointFile) {
+        this.evaluator = evaluator;
+        this.checkpointFile = checkpointFile;
+    }
+
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    /**
+     * @param intervalMillis the time between two checkpoints, or <code>0</code>
+     */
+    public void setIntervalMillis(long intervalMillis) {
+        this.intervalMillis = intervalMillis;
+    }
+
+    public long getIntervalStates() {
+        return intervalStates;
+    }
+
+    /**
+     * @param intervalStates the number of states to explore between two
+     *                       checkpoints, or <code>0</code>
+     */
+    public void setIntervalStates(long intervalStates) {
+        this.intervalStates = intervalStates;
+    }
+
+    public File getCheckpointFile() {
+        return checkpointFile;
+    }
+
+    public int getCheckpointsWritten() {
+        return checkpointsWritten;
+    }
+
+    /**
+     * @return the error that made the last evaluation fail, or
+     *         <code>null</code> if all checkpoints could be written
+     */
+    public IOException getCheckpointError() {
+        return checkpointError;
+    }
+
+    /**
+     * @return the number of states that were found so far (or restored)
+     */
+    public int getStateCount() {
+        return states.size();
+    }
+
+    /**
+     * @return the number of states that were explored so far (or restored)
+     */
+    public int getExploredStateCount() {
+        return exploredStates;
+    }
+
+    /**
+     * Restores the evaluation of the given program from a checkpoint. The next
+     * call of {@link #evaluateAll(Expression, EvaluationMonitor, EvaluationBudget)}
+     * for the main expression of the program continues at the frontier of
+     * the checkpoint.
+     *
+     * @param file the checkpoint to read
+     * @param program the program that was evaluated when the checkpoint was written
+     * @throws IOException if the checkpoint cannot be read, or does not
+     *                     belong to the program
+     */
+    public void resume(File file, Program program) throws IOException {
+        if (!states.isEmpty())
+            throw new IllegalStateException("The evaluation has already been started.");
+
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(
+            new GZIPInputStream(new FileInputStream(file))));
+        try {
+            if (in.readInt() != MAGIC)
+                throw new IOException(file.getPath() + " is no checkpoint.");
+            if (in.readInt() != VERSION)
+                throw new IOException("Unsupported version of checkpoint " + file.getPath() + ".");
+
+            final CCSParser parser = new CCSParser();
+            final int stateCount = readNumber(in);
+            final int explored = readNumber(in);
+            if (stateCount < 1 || explored > stateCount)
+                throw new IOException("Corrupt checkpoint " + file.getPath() + ".");
+            restoredStates = new HashMap<String, Integer>(stateCount * 4 / 3 + 1);
+            for (int i = 0; i < stateCount; ++i) {
+                final String str = readString(in);
+                final Expression state;
+                if (i == 0) {
+                    if (!str.equals(program.getMainExpression().toString()))
+                        throw new IOException("The checkpoint belongs to a different program.");
+                    state = program.getMainExpression();
+                } else {
+                    state = parser.parseExpression(str, program);
+                    if (state == null)
+                        throw new IOException("Cannot parse state \"" + str + "\".");
+                }
+                restoredStates.put(str, i);
+                states.add(state);
+                stateNumbers.put(state, i);
+            }
+
+            final List<Action> actions = new ArrayList<Action>();
+            for (int i = 0; i < explored; ++i) {
+                final int transitionCount = readNumber(in);
+                final List<Transition> transitions = new ArrayList<Transition>(transitionCount);
+                for (int t = 0; t < transitionCount; ++t) {
+                    final int actionNumber = readNumber(in);
+                    if (actionNumber > actions.size())
+                        throw new IOException("Corrupt checkpoint " + file.getPath() + ".");
+                    if (actionNumber == actions.size())
+                        actions.add(parseAction(readString(in), parser, program));
+                    final int target = readNumber(in);
+                    if (target >= stateCount)
+                        throw new IOException("Corrupt checkpoint " + file.getPath() + ".");
+                    transitions.add(new Transition(actions.get(actionNumber), states.get(target)));
+                }
+                states.get(i).restoreTransitions(transitions);
+            }
+            exploredStates = explored;
+        } catch (final IOException e) {
+            reset();
+            throw e;
+        } finally {
+            in.close();
+        }
+    }
+
+    private static Action parseAction(String label, CCSParser parser,
+            Program program) throws IOException {
+        if ("i".equals(label))
+            return TauAction.get(null, null);
+        final Expression expr = parser.parseExpression(label + ".0", program);
+        if (expr instanceof TopMostExpression) {
+            final Expression inner = ((TopMostExpression) expr).getInnerExpression();
+            if (inner instanceof PrefixExpression)
+                return ((PrefixExpression) inner).getPrefix();
+        }
+        throw new IOException("Cannot parse action \"" + label + "\".");
+    }
+
+    private void reset() {
+        states.clear();
+        stateNumbers.clear();
+        exploredStates = 0;
+        restoredStates = null;
+    }
+
+    public boolean evaluate(Expression expr) throws InterruptedException {
+        return evaluator.evaluate(expr);
+    }
+
+    public boolean evaluateAll(Expression expr, EvaluationMonitor monitor)
+            throws InterruptedException {
+        return evaluateAll(expr, monitor, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * If the evaluation was restored from a checkpoint, it is continued at its
+     * frontier, and the depth limit of the budget counts from there. The
+     * evaluation fails if a checkpoint cannot be written, see
+     * {@link #getCheckpointError()}.
+     */
+    public boolean evaluateAll(Expression expr, EvaluationMonitor monitor,
+            EvaluationBudget budget) throws InterruptedException {
+        if (states.isEmpty())
+            addState(expr);
+        else if (states.get(0) != expr)
+            throw new IllegalArgumentException("The evaluation was started with another expression.");
+        checkpointError = null;
+        if (budget != null)
+            budget.start();
+        if (monitor != null)
+            for (int i = 0; i < exploredStates; ++i)
+                monitor.newState(states.get(i).getTransitions().size());
+
+        int depth = 0;
+        int levelEnd = exploredStates == 0 ? 1 : states.size();
+        long newStates = 0;
+        long newTransitions = 0;
+        long nextCheckpointStates = intervalStates > 0 ? intervalStates : Long.MAX_VALUE;
+        long nextCheckpointTime = intervalMillis > 0
+            ? System.currentTimeMillis() + intervalMillis : Long.MAX_VALUE;
+
+        try {
+            while (exploredStates < states.size()) {
+                if (exploredStates == levelEnd) {
+                    ++depth;
+                    levelEnd = states.size();
+                }
+                if (budget != null && !budget.isDepthAllowed(depth))
+                    break;
+                if (Thread.interrupted())
+                    throw new InterruptedException();
+
+                final Expression state = states.get(exploredStates);
+                if (!evaluator.evaluate(state))
+                    return false;
+                explore(state);
+                ++exploredStates;
+
+                final int numTransitions = state.getTransitions().size();
+                if (monitor != null)
+                    monitor.newState(numTransitions);
+                EvaluationMetrics.stateEvaluated(numTransitions);
+                EvaluationMetrics.frontierChanged(-1);
+
+                ++newStates;
+                newTransitions += numTransitions;
+                if (budget != null && budget.check(newStates, newTransitions) != null)
+                    break;
+                if (newStates >= nextCheckpointStates
+                        || (intervalMillis > 0 && System.currentTimeMillis() >= nextCheckpointTime)) {
+                    writeCheckpoint();
+                    nextCheckpointStates = intervalStates > 0 ? newStates + intervalStates : Long.MAX_VALUE;
+                    if (intervalMillis > 0)
+                        nextCheckpointTime = System.currentTimeMillis() + intervalMillis;
+                }
+            }
+            writeCheckpoint();
+        } catch (final InterruptedException e) {
+            // the interrupted state is still part of the frontier
+            try {
+                writeCheckpoint();
+            } catch (final IOException e2) {
+                checkpointError = e2;
+            }
+            throw e;
+        } catch (final IOException e) {
+            checkpointError = e;
+            return false;
+        }
+
+        if (budget != null)
+            budget.finish(new HashSet<Expression>(states.subList(exploredStates, states.size())));
+        // the whole LTS is connected now, so the strings are not needed any more
+        restoredStates = null;
+
+        if (monitor != null)
+            monitor.ready();
+
+        return true;
+    }
+
+    // numbers the successors of the given (evaluated) state
+    private void explore(Expression state) {
+        final List<Transition> transitions = state.getTransitions();
+        List<Transition> newTransitions = null;
+        for (int i = 0; i < transitions.size(); ++i) {
+            final Transition trans = transitions.get(i);
+            final Expression succ = trans.getTarget();
+            Integer number = stateNumbers.get(succ);
+            if (number == null && restoredStates != null) {
+                number = restoredStates.get(succ.toString());
+                if (number != null)
+                    stateNumbers.put(succ, number);
+            }
+            if (number == null) {
+                addState(succ);
+                continue;
+            }
+            // let the transition point to the state we already know
+            final Expression knownState = states.get(number);
+            if (knownState != succ) {
+                if (newTransitions == null)
+                    newTransitions = new ArrayList<Transition>(transitions);
+                newTransitions.set(i, new Transition(trans.getAction(), knownState));
+            }
+        }
+        if (newTransitions != null)
+            state.restoreTransitions(newTransitions);
+    }
+
+    private void addState(Expression state) {
+        stateNumbers.put(state, states.size());
+        states.add(state);
+        EvaluationMetrics.frontierChanged(1);
+    }
+
+    private void writeCheckpoint() throws IOException {
+        final File tmpFile = new File(checkpointFile.getPath() + ".tmp");
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+            new GZIPOutputStream(new FileOutputStream(tmpFile))));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeNumber(out, states.size());
+            writeNumber(out, exploredStates);
+            for (final Expression state: states)
+                writeString(out, state.toString());
+
+            final Map<String, Integer> labelNumbers = new HashMap<String, Integer>();
+            for (int i = 0; i < exploredStates; ++i) {
+                final List<Transition> transitions = states.get(i).getTransitions();
+                writeNumber(out, transitions.size());
+                for (final Transition trans: transitions) {
+                    final Action action = trans.getAction();
+                    final String label = action instanceof TauAction ? "i" : action.toString();
+                    final Integer labelNumber = labelNumbers.get(label);
+                    if (labelNumber == null) {
+                        // new labels are written directly after their number
+                        writeNumber(out, labelNumbers.size());
+                        writeString(out, label);
+                        labelNumbers.put(label, labelNumbers.size());
+                    } else
+                        writeNumber(out, labelNumber);
+                    final Integer target = stateNumbers.get(trans.getTarget());
+                    assert target != null;
+                    writeNumber(out, target);
+                }
+            }
+        } finally {
+            out.close();
+        }
+
+        // replace the previous checkpoint
+        if (!tmpFile.renameTo(checkpointFile)
+                && !(checkpointFile.delete() && tmpFile.renameTo(checkpointFile)))
+            throw new IOException("Cannot write checkpoint " + checkpointFile.getPath() + ".");
+        ++checkpointsWritten;
+    }
+
+    private static void writeNumber(DataOutputStream out, int number) throws IOException {
+        assert number >= 0;
+        while ((number & ~0x7f) != 0) {
+            out.writeByte((number & 0x7f) | 0x80);
+            number >>>= 7;
+        }
+        out.writeByte(number);
+    }
+
+    private static int readNumber(DataInputStream in) throws IOException {
+        int number = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            final int b = in.readUnsignedByte();
+            number |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0)
+                return number;
+        }
+        throw new IOException("Corrupt checkpoint.");
+    }
+
+    private static void writeString(DataOutputStream out, String str) throws IOException {
+        final byte[] bytes = str.getBytes("UTF-8");
+        writeNumber(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        final byte[] bytes = new byte[readNumber(in)];
+        in.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+
+}
@@ -0,0 +1,223 @@
+package de.unisb.cs.depend.ccs_sem.evaluators;
+
+import java.util.Collections;
+import java.util.Set;
+
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.Expression;
+
+
+/**
+ * Limits the resources that an evaluation of the whole LTS (see
+ * {@link Evaluator#evaluateAll(Expression, EvaluationMonitor, EvaluationBudget)})
+ * may use. If one of the limits is hit, the evaluation stops cleanly, and
+ * the states that were reached, but not explored, are stored as frontier
+ * in this budget.
+ *
+ * Every limit that is <code>0</code> (or less) is not checked. By default,
+ * no limit is set.
+ *
+ * An EvaluationBudget stores the outcome of the last evaluation it was used
+ * for, so it must not be used for several evaluations at the same time.
+ */
+public class EvaluationBudget {
+
+    public enum Limit {
+        STATES("maximum number of states"),
+        TRANSITIONS("maximum number of transitions"),
+        DEPTH("maximum depth"),
+        TIME("time limit"),
+        HEAP("heap limit");
+
+        private final String description;
+
+        private Limit(String description) {
+            this.description = description;
+        }
+
+        @Override
+        public String toString() {
+            return description;
+        }
+    }
+
+    // the heap usage is only checked every HEAP_CHECK_INTERVAL states
+    private static final int HEAP_CHECK_INTERVAL = 64;
+
+    private long maxStates = 0;
+    private long maxTransitions = 0;
+    private int maxDepth = 0;
+    private long maxMillis = 0;
+    private double maxHeapFraction = 0;
+
+    // the outcome of the last evaluation
+    private volatile Limit exceededLimit = null;
+    private Set<Expression> frontier = Collections.emptySet();
+    private long deadline;
+
+    public EvaluationBudget() {
+        // no limits
+    }
+
+    public long getMaxStates() {
+        return maxStates;
+    }
+
+    public void setMaxStates(long maxStates) {
+        this.maxStates = maxStates;
+    }
+
+    public long getMaxTransitions() {
+        return maxTransitions;
+    }
+
+    public void setMaxTransitions(long maxTransitions) {
+        this.maxTransitions = maxTransitions;
+    }
+
+    /**
+     * @return the maximum number of transitions between the initial state
+     *         and a state that is explored. States that are farther away
+     *         are reached, but not explored any more. The parallel
+     *         evaluators count the depth along the path on which a state was
+     *         reached first, which is not necessarily the shortest one.
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    public long getMaxMillis() {
+        return maxMillis;
+    }
+
+    /**
+     * Sets the maximum wall-clock time that the evaluation may take.
+     */
+    public void setMaxMillis(long maxMillis) {
+        this.maxMillis = maxMillis;
+    }
+
+    public double getMaxHeapFraction() {
+        return maxHeapFraction;
+    }
+
+    /**
+     * Sets the fraction (between 0 and 1) of the maximum heap size that may
+     * be used before the evaluation is stopped.
+     */
+    public void setMaxHeapFraction(double maxHeapFraction) {
+        this.maxHeapFraction = maxHeapFraction;
+    }
+
+    /**
+     * @return whether any limit is set
+     */
+    public boolean isLimited() {
+        return maxStates > 0 || maxTransitions > 0 || maxDepth > 0
+            || maxMillis > 0 || maxHeapFraction > 0;
+    }
+
+    /**
+     * @return whether a state at the given depth may be explored
+     */
+    public boolean isDepthAllowed(int depth) {
+        return maxDepth <= 0 || depth <= maxDepth;
+    }
+
+    /**
+     * Is called by the evaluators when an evaluation starts.
+     */
+    public void start() {
+        exceededLimit = null;
+        frontier = Collections.emptySet();
+        deadline = maxMillis > 0 ? System.currentTimeMillis() + maxMillis : 0;
+    }
+
+    /**
+     * Is called by the evaluators after each explored state.
+     *
+     * @param states the number of states explored so far
+     * @param transitions the number of transitions explored so far
+     * @return the limit that is exceeded, or <code>null</code>
+     */
+    public Limit check(long states, long transitions) {
+        if (exceededLimit != null)
+            return exceededLimit;
+        Limit limit = null;
+        if (maxStates > 0 && states >= maxStates)
+            limit = Limit.STATES;
+        else if (maxTransitions > 0 && transitions >= maxTransitions)
+            limit = Limit.TRANSITIONS;
+        else if (deadline != 0 && System.currentTimeMillis() >= deadline)
+            limit = Limit.TIME;
+        else if (maxHeapFraction > 0 && states % HEAP_CHECK_INTERVAL == 0) {
+            final Runtime runtime = Runtime.getRuntime();
+            final long used = runtime.totalMemory() - runtime.freeMemory();
+            if (used >= maxHeapFraction * runtime.maxMemory())
+                limit = Limit.HEAP;
+        }
+        if (limit != null)
+            exceededLimit = limit;
+        return limit;
+    }
+
+    /**
+     * Is called by the evaluators when the evaluation is finished.
+     *
+     * @param unexploredStates the states that were reached, but not explored
+     */
+    public void finish(Set<Expression> unexploredStates) {
+        if (unexploredStates.isEmpty()) {
+            // everything was explored, so no limit stopped the evaluation
+            exceededLimit = null;
+            frontier = Collections.emptySet();
+        } else {
+            // if no other limit was hit, the depth limit stopped the exploration
+            if (exceededLimit == null)
+                exceededLimit = Limit.DEPTH;
+            frontier = Collections.unmodifiableSet(unexploredStates);
+        }
+    }
+
+    /**
+     * @return whether the last evaluation was stopped because a limit was hit
+     */
+    public boolean isExceeded() {
+        return exceededLimit != null;
+    }
+
+    /**
+     * @return the limit that stopped the last evaluation, or <code>null</code>
+     */
+    public Limit getExceededLimit() {
+        return exceededLimit;
+    }
+
+    /**
+     * @return the states that were reached, but not explored by the last
+     *         evaluation (empty if no limit was hit)
+     */
+    public Set<Expression> getFrontier() {
+        return frontier;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        if (maxStates > 0)
+            sb.append(", states <= ").append(maxStates);
+        if (maxTransitions > 0)
+            sb.append(", transitions <= ").append(maxTransitions);
+        if (maxDepth > 0)
+            sb.append(", depth <= ").append(maxDepth);
+        if (maxMillis > 0)
+            sb.append(", time <= ").append(maxMillis).append(" ms");
+        if (maxHeapFraction > 0)
+            sb.append(", heap <= ").append(Math.round(100 * maxHeapFraction)).append('%');
+        return sb.length() == 0 ? "unlimited" : sb.substring(2);
+    }
+
+}
@@ -23,4 +23,19 @@ public interface Evaluator {
     boolean evaluateAll(Expression expr, EvaluationMonitor monitor)
         throws InterruptedException;
 
+    /**
+     * Evaluates an expression and all successor expressions, but stops as
+     * soon as one of the limits of the given budget is hit.
+     * In this case, the evaluation is <i>not</i> considered as failed; the
+     * states that were not explored are stored in the budget (see
+     * {@link EvaluationBudget#getFrontier()}).
+     *
+     * @param expr the expression to evaluate
+     * @param monitor a monitor that is informed about new states and transitions
+     * @param budget the limits for the evaluation, may be <code>null</code>
+     * @return <code>true</code> on success, <code>false</code> if there was an error
+     */
+    boolean evaluateAll(Expression expr, EvaluationMonitor monitor,
+            EvaluationBudget budget) throws InterruptedException;
+
 }
@@ -0,0 +1,71 @@
+package de.unisb.cs.depend.ccs_sem.evaluators;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+
+/**
+ * The process-wide worker threads that are borrowed by all
+ * {@link ParallelEvaluator}s that were created without a fixed number of
+ * threads. So evaluating single expressions (e.g. while simulating) does not
+ * start and join a whole thread pool each time.
+ *
+ * There is one executor per class of evaluator (as created by
+ * {@link ParallelEvaluator#getExecutor(int, java.util.concurrent.ThreadFactory)}),
+ * which is started lazily on the first evaluation. The threads are daemon
+ * threads, so they don't keep the VM alive.
+ */
+public final class EvaluatorPool {
+
+    private static int size = 0;
+
+    private static final Map<Class<? extends ParallelEvaluator>, ExecutorService> executors =
+        new HashMap<Class<? extends ParallelEvaluator>, ExecutorService>();
+
+    private EvaluatorPool() {
+        // no instantiation allowed
+    }
+
+    /**
+     * @return the number of threads per executor; by default, the number of
+     *         available processors + 1
+     */
+    public static synchronized int getSize() {
+        return size > 0 ? size : Runtime.getRuntime().availableProcessors() + 1;
+    }
+
+    /**
+     * Sets the number of threads of the executors that are started
+     * afterwards. To change the size of running executors, call
+     * {@link #shutdown()} when no evaluation is running.
+     *
+     * @param newSize the number of threads, or 0 for the default
+     */
+    public static synchronized void setSize(int newSize) {
+        if (newSize < 0)
+            throw new IllegalArgumentException("Size must be >= 0");
+        size = newSize;
+    }
+
+    static synchronized ExecutorService getExecutor(ParallelEvaluator evaluator) {
+        ExecutorService executor = executors.get(evaluator.getClass());
+        if (executor == null) {
+            executor = evaluator.getExecutor(getSize(),
+                new ParallelEvaluator.MyThreadFactory(null,
+                    evaluator.getWorkerThreadPriority(), "evaluatorPool-", true));
+            executors.put(evaluator.getClass(), executor);
+        }
+        return executor;
+    }
+
+    /**
+     * Shuts down all executors. They are started again by the next evaluation.
+     */
+    public static synchronized void shutdown() {
+        for (final ExecutorService executor: executors.values())
+            executor.shutdown();
+        executors.clear();
+    }
+
+}
@@ -7,24 +7,37 @@ import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+import de.unisb.cs.depend.ccs_sem.metrics.EvaluationMetrics;
 import de.unisb.cs.depend.ccs_sem.semantics.expressions.Expression;
 import de.unisb.cs.depend.ccs_sem.semantics.types.Transition;
 import de.unisb.cs.depend.ccs_sem.utils.ConcurrentHashSet;
 import de.unisb.cs.depend.ccs_sem.utils.UniqueQueue;
 
 
+/**
+ * Evaluates expressions in parallel. If no number of threads is given, the
+ * evaluations borrow the worker threads of the process-wide
+ * {@link EvaluatorPool}; otherwise, a new pool of the given size is started
+ * for each evaluation.
+ */
 public class ParallelEvaluator implements Evaluator {
 
     private final Integer numThreads;
 
     protected ExecutorService executor = null;
+    // whether the executor was started for the current evaluation only
+    private boolean ownExecutor = false;
+
+    // the number of jobs of the current evaluation that are submitted to
+    // the executor, but not yet finished
+    private final AtomicInteger pendingJobs = new AtomicInteger();
 
     protected ConcurrentMap<Expression, EvaluatorJob> currentlyEvaluating = null;
 
@@ -35,6 +48,15 @@ public class ParallelEvaluator implements Evaluator {
     protected EvaluationMonitor monitor;
 
     protected volatile boolean errorOccured = false;
+    // set by cancel(), and never reset (see there)
+    private volatile boolean cancelled = false;
+
+    // only set if the evaluation is limited by a budget
+    protected EvaluationBudget budget = null;
+    protected volatile boolean budgetExceeded = false;
+    protected Set<Expression> frontier = null;
+    private final AtomicLong exploredStates = new AtomicLong();
+    private final AtomicLong exploredTransitions = new AtomicLong();
 
     public volatile boolean readyNotified = false;
 
@@ -53,49 +75,91 @@ public class ParallelEvaluator implements Evaluator {
 
     public boolean evaluate(Expression expr, EvaluationMonitor monitor)
             throws InterruptedException {
-        return evaluate0(expr, false, monitor);
+        if (cancelled)
+            return false;
+        if (evaluateInline(expr)) {
+            if (monitor != null)
+                monitor.ready();
+            return true;
+        }
+        return evaluate0(expr, false, monitor, null);
+    }
+
+    /**
+     * The cheap path for the common case (e.g. while simulating) that the
+     * expression is already evaluated, or that only the expression itself
+     * has to be evaluated: then it is done in the calling thread, without
+     * waking any worker.
+     *
+     * @return <code>true</code> if the expression has been evaluated
+     */
+    private boolean evaluateInline(Expression expr) {
+        if (expr.isEvaluated())
+            return true;
+        for (final Expression child: expr.getChildren())
+            if (!child.isEvaluated())
+                return false;
+        expr.evaluate();
+        return true;
+    }
+
+    /**
+     * Cancels the evaluation that is currently running (if any). The
+     * evaluation then returns <code>false</code> as soon as the jobs that
+     * are running at the moment have finished.
+     * The cancellation also applies to all later evaluations of this
+     * evaluator (they return <code>false</code> immediately), so that it is
+     * not lost if it comes before the evaluation has started.
+     */
+    public void cancel() {
+        cancelled = true;
+        errorOccured = true;
+        synchronized (readyLock) {
+            readyLock.notifyAll();
+        }
     }
 
     public boolean evaluateAll(Expression expr, EvaluationMonitor monitor)
             throws InterruptedException {
-        return evaluate0(expr, true, monitor);
+        return evaluate0(expr, true, monitor, null);
+    }
+
+    public boolean evaluateAll(Expression expr, EvaluationMonitor monitor,
+            EvaluationBudget evaluationBudget) throws InterruptedException {
+        return evaluate0(expr, true, monitor, evaluationBudget);
     }
 
     // synchronized s.t. it can only be called once at a time
     private synchronized boolean evaluate0(Expression expr,
-            boolean evaluateSuccessors, EvaluationMonitor monitor)
+            boolean evaluateSuccessors, EvaluationMonitor monitor,
+            EvaluationBudget evaluationBudget)
             throws InterruptedException {
         try {
             synchronized (readyLock) {
                 initialize(evaluateSuccessors, monitor);
+                initializeBudget(evaluationBudget);
 
-                if (evaluateSuccessors)
+                if (evaluateSuccessors) {
                     evaluatedSuccessors.add(expr);
+                    EvaluationMetrics.frontierChanged(1);
+                }
                 // the EvaluatorJob automatically executes itself
-                new EvaluatorJob(expr, evaluateSuccessors);
+                new EvaluatorJob(expr, evaluateSuccessors, 0);
 
                 try {
-                    // use this variable to detect a stuck situation.
-                    // if such a situation is detected, we check if we have
-                    // circular dependencies, that are typically caused by
-                    // unguarded expressions.
-                    int lastCount = -1;
-                    // the wait time is continously increased
-                    int waitTime = 200;
-                    while (lastCount != 0 && !errorOccured) {
-                        readyLock.wait(waitTime);
-                        waitTime = waitTime * 3 / 2;
-                        final int newCount = currentlyEvaluating.size();
-                        if (lastCount == newCount && !errorOccured) {
-                            // check for cycle dependencies
-                            if (hasCyclicDependencies()) {
-                                if (monitor != null)
-                                    monitor.error("There are cyclic dependencies in the expressions. " +
-                                        "This typically occures on unguarded expressions.");
-                                errorOccured = true;
-                            }
-                        }
-                        lastCount = newCount;
+                    // the last job that finishes wakes us up
+                    while (pendingJobs.get() != 0 && !errorOccured)
+                        readyLock.wait();
+                    // if no job is running any more, but there are still
+                    // expressions waiting for their children, then they wait
+                    // for each other. this is typically caused by unguarded
+                    // expressions.
+                    if (!errorOccured && !currentlyEvaluating.isEmpty()) {
+                        assert hasCyclicDependencies();
+                        if (monitor != null)
+                            monitor.error("There are cyclic dependencies in the expressions. " +
+                                "This typically occures on unguarded expressions.");
+                        errorOccured = true;
                     }
                 } catch (final InterruptedException e) {
                     if (monitor != null)
@@ -105,12 +169,29 @@ public class ParallelEvaluator implements Evaluator {
                 }
             }
         } finally {
+            awaitPendingJobs();
             shutdown();
+            if (budget != null) {
+                budget.finish(frontier);
+                budget = null;
+                frontier = null;
+            }
         }
 
         return !errorOccured;
     }
 
+    private void initializeBudget(EvaluationBudget evaluationBudget) {
+        budgetExceeded = false;
+        if (evaluationBudget == null)
+            return;
+        budget = evaluationBudget;
+        budget.start();
+        frontier = new ConcurrentHashSet<Expression>();
+        exploredStates.set(0);
+        exploredTransitions.set(0);
+    }
+
     private boolean hasCyclicDependencies() {
         final Set<EvaluatorJob> checked = new HashSet<EvaluatorJob>();
         for (final EvaluatorJob job: currentlyEvaluating.values()) {
@@ -138,25 +219,24 @@ public class ParallelEvaluator implements Evaluator {
         assert currentlyEvaluating == null;
         assert monitor == null;
 
-        final int threadsToInstantiate = numThreads == null
-            ? Runtime.getRuntime().availableProcessors() + 1
-            : numThreads;
-
-        final UncaughtExceptionHandler eh = new Thread.UncaughtExceptionHandler() {
-            public void uncaughtException(Thread t, Throwable e) {
-                errorOccured = true;
-                synchronized (readyLock) {
-                    System.err.print("Exception in thread \""
-                        + t.getName() + "\": ");
-                    e.printStackTrace(System.err);
-                    if (monitor != null)
-                        monitor.error(e.toString());
-                    readyLock.notifyAll();
+        final int threadsToInstantiate;
+        if (numThreads == null) {
+            threadsToInstantiate = EvaluatorPool.getSize();
+            executor = EvaluatorPool.getExecutor(this);
+            ownExecutor = false;
+        } else {
+            threadsToInstantiate = numThreads;
+            final UncaughtExceptionHandler eh = new Thread.UncaughtExceptionHandler() {
+                public void uncaughtException(Thread t, Throwable e) {
+                    reportException(t, e);
                 }
-            }
-        };
-        final ThreadFactory myThreadFactory = new MyThreadFactory(eh, getWorkerThreadPriority());
-        executor = getExecutor(threadsToInstantiate, myThreadFactory);
+            };
+            final ThreadFactory myThreadFactory = new MyThreadFactory(eh,
+                getWorkerThreadPriority(), "parallelEvaluator-", false);
+            executor = getExecutor(threadsToInstantiate, myThreadFactory);
+            ownExecutor = true;
+        }
+        pendingJobs.set(0);
 
         currentlyEvaluating = new ConcurrentHashMap<Expression, EvaluatorJob>();
 
@@ -165,7 +245,8 @@ public class ParallelEvaluator implements Evaluator {
 
         monitor = monitor2;
 
-        errorOccured = false;
+        // a cancellation before the start drops all jobs
+        errorOccured = cancelled;
         readyNotified = false;
     }
 
@@ -174,12 +255,46 @@ public class ParallelEvaluator implements Evaluator {
         return Executors.newFixedThreadPool(threadsToInstantiate, threadFactory);
     }
 
+    protected void reportException(Thread t, Throwable e) {
+        errorOccured = true;
+        synchronized (readyLock) {
+            System.err.print("Exception in thread \""
+                + t.getName() + "\": ");
+            e.printStackTrace(System.err);
+            if (monitor != null)
+                monitor.error(e.toString());
+            readyLock.notifyAll();
+        }
+    }
+
     /**
-     * Shuts down this evaluator.
-     * Delegates to the {@link ExecutorService} and awaits it's termination.
+     * Waits until no job of the current evaluation is running or submitted
+     * any more. After an error, the remaining jobs return immediately.
+     */
+    private void awaitPendingJobs() {
+        boolean interrupted = false;
+        synchronized (readyLock) {
+            while (pendingJobs.get() != 0) {
+                try {
+                    readyLock.wait();
+                } catch (final InterruptedException e) {
+                    errorOccured = true;
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Finishes the current evaluation.
+     * If the executor was started for this evaluation only, it is shut down
+     * and this method awaits it's termination; the shared executor is
+     * just released.
      */
     private void shutdown() {
-        if (executor != null) {
+        if (executor != null && ownExecutor) {
             if (errorOccured)
                 executor.shutdownNow();
             else
@@ -211,12 +326,20 @@ public class ParallelEvaluator implements Evaluator {
         protected List<Barrier> waiters = null;
         protected final Expression expr;
         private final boolean evaluateSuccessors;
+        // the depth of the state (only for evaluateSuccessors == true)
+        private final int depth;
         private volatile boolean childrenEvaluated = false;
 
-        public EvaluatorJob(Expression expr, boolean evaluateSuccessors) {
+        public EvaluatorJob(Expression expr, boolean evaluateSuccessors, int depth) {
             this.expr = expr;
             this.evaluateSuccessors = evaluateSuccessors;
+            this.depth = depth;
             currentlyEvaluating.putIfAbsent(expr, this);
+            schedule();
+        }
+
+        protected void schedule() {
+            pendingJobs.incrementAndGet();
             executor.execute(this);
         }
 
@@ -229,6 +352,37 @@ public class ParallelEvaluator implements Evaluator {
         }
 
         public void run() {
+            try {
+                // after an error (or cancellation), the remaining jobs are dropped
+                if (!errorOccured)
+                    run0();
+            } catch (final Throwable e) {
+                // the worker threads may be shared, so report it here
+                reportException(Thread.currentThread(), e);
+            } finally {
+                if (pendingJobs.decrementAndGet() == 0) {
+                    synchronized (readyLock) {
+                        readyLock.notifyAll();
+                    }
+                }
+            }
+        }
+
+        private void run0() {
+            if (budgetExceeded && evaluateSuccessors && !expr.isEvaluated()) {
+                synchronized (expr) {
+                    // if no-one waits for this expression, we don't have to
+                    // evaluate it any more
+                    if (waiters == null) {
+                        frontier.add(expr);
+                        EvaluationMetrics.frontierChanged(-1);
+                        currentlyEvaluating.remove(expr);
+                        checkReady();
+                        return;
+                    }
+                }
+            }
+
             if (!childrenEvaluated && !expr.isEvaluated()) {
 
                 Barrier barrier = null;
@@ -236,14 +390,14 @@ public class ParallelEvaluator implements Evaluator {
                     synchronized (child) {
                         if (!child.isEvaluated()) {
                             if (barrier == null)
-                                barrier = new Barrier(this, executor, 2);
+                                barrier = new Barrier(this, 2);
                             else
                                 barrier.inc();
 
                             EvaluatorJob childEvaluator =
                                     currentlyEvaluating.get(child);
                             if (childEvaluator == null)
-                                childEvaluator = new EvaluatorJob(child, false);
+                                childEvaluator = new EvaluatorJob(child, false, 0);
                             childEvaluator.addWaiter(barrier);
                         }
                     }
@@ -276,18 +430,36 @@ public class ParallelEvaluator implements Evaluator {
                 if (monitor != null) {
                     monitor.newState(expr.getTransitions().size());
                 }
+                EvaluationMetrics.stateEvaluated(expr.getTransitions().size());
 
+                final boolean succDepthAllowed = budget == null || budget.isDepthAllowed(depth + 1);
                 for (final Transition trans: expr.getTransitions()) {
                     final Expression succ = trans.getTarget();
-                    if (evaluatedSuccessors.add(succ))
-                        new EvaluatorJob(succ, true);
+                    if (evaluatedSuccessors.add(succ)) {
+                        if (budgetExceeded || !succDepthAllowed) {
+                            frontier.add(succ);
+                        } else {
+                            EvaluationMetrics.frontierChanged(1);
+                            new EvaluatorJob(succ, true, depth + 1);
+                        }
+                    }
                 }
+                EvaluationMetrics.frontierChanged(-1);
+
+                if (budget != null && !budgetExceeded
+                        && budget.check(exploredStates.incrementAndGet(),
+                            exploredTransitions.addAndGet(expr.getTransitions().size())) != null)
+                    budgetExceeded = true;
             }
 
             // now the work is ready
             final Object removed = currentlyEvaluating.remove(expr);
             assert removed != null;
 
+            checkReady();
+        }
+
+        private void checkReady() {
             // if everything is evaluated, inform the waiting thread(s)
             // currentlyEvaluating can be null if another worker just informed
             // the main thread that we are ready
@@ -304,17 +476,14 @@ public class ParallelEvaluator implements Evaluator {
         }
     }
 
-    // static to improve performance, even if we have to copy the
-    // ExecutorService reference
+    // static to improve performance
     private static class Barrier {
 
         protected final EvaluatorJob job;
-        private final Executor jobExecutor;
         private final AtomicInteger waitNo;
 
-        public Barrier(EvaluatorJob jobToRun, Executor executor, int startNo) {
+        public Barrier(EvaluatorJob jobToRun, int startNo) {
             this.job = jobToRun;
-            this.jobExecutor = executor;
             this.waitNo = new AtomicInteger(startNo);
         }
 
@@ -327,35 +496,39 @@ public class ParallelEvaluator implements Evaluator {
 
             final int remaining = waitNo.decrementAndGet();
             if (remaining == 0)
-                jobExecutor.execute(job);
+                job.schedule();
         }
 
     }
 
-    private static class MyThreadFactory implements ThreadFactory {
+    static class MyThreadFactory implements ThreadFactory {
         static final AtomicInteger poolNumber = new AtomicInteger(1);
         final ThreadGroup group;
         final AtomicInteger threadNumber = new AtomicInteger(1);
         final String namePrefix;
         private final UncaughtExceptionHandler eh;
         private final int workerThreadPriority;
+        private final boolean daemon;
 
-        public MyThreadFactory(UncaughtExceptionHandler eh, int workerThreadPriority) {
+        public MyThreadFactory(UncaughtExceptionHandler eh, int workerThreadPriority,
+                String namePrefix, boolean daemon) {
             this.eh = eh;
             this.workerThreadPriority = workerThreadPriority;
+            this.namePrefix = namePrefix;
+            this.daemon = daemon;
             group = Thread.currentThread().getThreadGroup();
-            namePrefix = "parallelEvaluator-";
         }
 
         public Thread newThread(Runnable r) {
             final Thread t = new Thread(group, r,
                                   namePrefix + threadNumber.getAndIncrement(),
                                   0);
-            if (t.isDaemon())
-                t.setDaemon(false);
+            if (t.isDaemon() != daemon)
+                t.setDaemon(daemon);
             if (t.getPriority() != workerThreadPriority)
                 t.setPriority(workerThreadPriority);
-            t.setUncaughtExceptionHandler(eh);
+            if (eh != null)
+                t.setUncaughtExceptionHandler(eh);
             return t;
         }
 
@@ -1,9 +1,11 @@
 package de.unisb.cs.depend.ccs_sem.evaluators;
 
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.Queue;
 import java.util.Stack;
 
+import de.unisb.cs.depend.ccs_sem.metrics.EvaluationMetrics;
 import de.unisb.cs.depend.ccs_sem.semantics.expressions.Expression;
 import de.unisb.cs.depend.ccs_sem.semantics.types.Transition;
 import de.unisb.cs.depend.ccs_sem.utils.UniqueQueue;
@@ -40,12 +42,28 @@ public class SequentialEvaluator implements Evaluator {
 
     public boolean evaluateAll(Expression expr, EvaluationMonitor monitor)
             throws InterruptedException {
+        return evaluateAll(expr, monitor, null);
+    }
+
+    public boolean evaluateAll(Expression expr, EvaluationMonitor monitor,
+            EvaluationBudget budget) throws InterruptedException {
+        if (budget != null)
+            budget.start();
+
         final Queue<Expression> toEvaluate = new UniqueQueue<Expression>();
         toEvaluate.add(expr);
+        EvaluationMetrics.frontierChanged(1);
         final Stack<Expression> childrenToEvaluate = new Stack<Expression>();
 
+        // for computing the depth of the states (in the BFS)
+        int depth = 0;
+        int remainingInLevel = 1;
+        int nextLevelSize = 0;
+        long states = 0;
+        long transitions = 0;
+
         while (true) {
-            boolean isChild = !childrenToEvaluate.isEmpty();
+            final boolean isChild = !childrenToEvaluate.isEmpty();
             Expression e;
             if (isChild)
                 e = childrenToEvaluate.peek();
@@ -53,6 +71,9 @@ public class SequentialEvaluator implements Evaluator {
                 e = toEvaluate.peek();
                 if (e == null)
                     break;
+                // all remaining states have the same depth
+                if (budget != null && !budget.isDepthAllowed(depth))
+                    break;
             }
             if (Thread.interrupted())
                 throw new InterruptedException();
@@ -67,21 +88,43 @@ public class SequentialEvaluator implements Evaluator {
                 if (!ready)
                     continue;
                 e.evaluate();
-                if (!isChild) {
-                    if (monitor != null)
-                        monitor.newState(e.getTransitions().size());
-                    for (final Transition trans: e.getTransitions()) {
-                        final Expression succ = trans.getTarget();
-                        toEvaluate.add(succ);
-                    }
-                }
             }
-            if (isChild)
+            if (isChild) {
                 childrenToEvaluate.pop();
-            else
-                toEvaluate.remove();
+                continue;
+            }
+
+            // e is a state of the LTS: explore it
+            toEvaluate.remove();
+            final int numTransitions = e.getTransitions().size();
+            if (monitor != null)
+                monitor.newState(numTransitions);
+            EvaluationMetrics.stateEvaluated(numTransitions);
+            EvaluationMetrics.frontierChanged(-1);
+            for (final Transition trans: e.getTransitions()) {
+                final Expression succ = trans.getTarget();
+                if (toEvaluate.add(succ)) {
+                    EvaluationMetrics.frontierChanged(1);
+                    ++nextLevelSize;
+                }
+            }
+            if (--remainingInLevel == 0) {
+                ++depth;
+                remainingInLevel = nextLevelSize;
+                nextLevelSize = 0;
+            }
+
+            if (budget != null) {
+                ++states;
+                transitions += numTransitions;
+                if (budget.check(states, transitions) != null)
+                    break;
+            }
         }
 
+        if (budget != null)
+            budget.finish(new HashSet<Expression>(toEvaluate));
+
         if (monitor != null)
             monitor.ready();
 
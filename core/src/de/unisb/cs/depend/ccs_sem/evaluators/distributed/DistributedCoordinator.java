@@ -0,0 +1,259 @@
+package de.unisb.cs.depend.ccs_sem.evaluators.distributed;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.unisb.cs.depend.ccs_sem.evaluators.distributed.Protocol.Batch;
+import de.unisb.cs.depend.ccs_sem.evaluators.distributed.Protocol.Message;
+import de.unisb.cs.depend.ccs_sem.parser.CCSParser;
+import de.unisb.cs.depend.ccs_sem.semantics.types.Program;
+
+
+/**
+ * Coordinates the distributed evaluation of a program by several
+ * {@link DistributedWorker}s, typically running in different processes.
+ *
+ * The coordinator waits for the workers to connect, sends them the program,
+ * and the initial state to its owner. Afterwards, it forwards the batches of
+ * states (and the replies with their numbers) between the workers. It
+ * counts the states it forwarded and the states the workers acknowledged;
+ * since a worker only acknowledges states when it is idle, after having
+ * sent all successors, the evaluation has terminated when both numbers are
+ * equal.
+ *
+ * Finally, the partial transition systems of the workers are merged into a
+ * single file in the Aldebaran format (".aut"), where the states of
+ * worker <i>i</i> are numbered consecutively after those of worker
+ * <i>i-1</i> (the initial state gets number 0). The coordinator never holds
+ * the states or transitions in memory.
+ */
+public class DistributedCoordinator {
+
+    private final ServerSocket serverSocket;
+    private final int workerCount;
+
+    private DataInputStream[] inputs;
+    private DataOutputStream[] outputs;
+
+    // the number of states forwarded to the workers, but not yet acknowledged
+    private final AtomicLong outstanding = new AtomicLong();
+    private volatile IOException failure = null;
+
+    private int[] stateCounts;
+    private int[] transitionCounts;
+    private int initialWorker = -1;
+    private int initialNumber = -1;
+    private long stateCount = 0;
+    private long transitionCount = 0;
+
+    /**
+     * @param port the port to listen on, or 0 for any free port (see {@link #getPort()})
+     * @param workerCount the number of workers that take part
+     * @throws IOException if the port cannot be opened
+     */
+    public DistributedCoordinator(int port, int workerCount) throws IOException {
+        if (workerCount < 1)
+            throw new IllegalArgumentException("Need at least one worker");
+        this.serverSocket = new ServerSocket(port);
+        this.workerCount = workerCount;
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Waits for the workers, lets them evaluate the program and writes the
+     * merged transition system to the given file.
+     *
+     * @param source the source code of the program
+     * @param output the file to write the transition system to
+     * @throws IOException if the communication with the workers fails
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public void run(String source, File output) throws IOException, InterruptedException {
+        final Program program = new CCSParser().parse(source);
+        if (program == null)
+            throw new IOException("The program could not be parsed.");
+        final String initialState = program.getMainExpression().toString();
+
+        final Socket[] sockets = new Socket[workerCount];
+        inputs = new DataInputStream[workerCount];
+        outputs = new DataOutputStream[workerCount];
+        try {
+            for (int i = 0; i < workerCount; ++i) {
+                sockets[i] = serverSocket.accept();
+                inputs[i] = new DataInputStream(new BufferedInputStream(sockets[i].getInputStream()));
+                outputs[i] = new DataOutputStream(new BufferedOutputStream(sockets[i].getOutputStream()));
+            }
+            serverSocket.close();
+
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            Protocol.writeString(new DataOutputStream(bytes), source);
+            final byte[] hello = bytes.toByteArray();
+            for (int i = 0; i < workerCount; ++i) {
+                Protocol.writeMessage(outputs[i], Protocol.HELLO, i, workerCount, hello, hello.length);
+                outputs[i].flush();
+            }
+
+            initialWorker = DistributedWorker.getOwner(initialState, workerCount);
+            final Batch initial = new Batch(Protocol.STATES, initialWorker);
+            Protocol.writeString(initial.out, initialState);
+            initial.out.writeInt(-1);
+            initial.out.writeInt(-1);
+            initial.entryWritten();
+            outstanding.set(1);
+            initial.send(outputs[initialWorker]);
+            outputs[initialWorker].flush();
+
+            forwardMessages();
+            merge(output);
+        } finally {
+            for (final Socket socket: sockets)
+                if (socket != null)
+                    socket.close();
+            if (!serverSocket.isClosed())
+                serverSocket.close();
+        }
+    }
+
+    private void forwardMessages() throws IOException, InterruptedException {
+        stateCounts = new int[workerCount];
+        transitionCounts = new int[workerCount];
+        final Thread[] forwarders = new Thread[workerCount];
+        for (int i = 0; i < workerCount; ++i) {
+            final int worker = i;
+            forwarders[i] = new Thread("distributedCoordinator-" + i) {
+                @Override
+                public void run() {
+                    try {
+                        forwardMessages(worker);
+                    } catch (final IOException e) {
+                        failure = e;
+                        // wake up the others by closing the connections
+                        for (final DataInputStream in: inputs) {
+                            try {
+                                in.close();
+                            } catch (final IOException e2) {
+                                // ignore
+                            }
+                        }
+                    }
+                }
+            };
+            forwarders[i].start();
+        }
+        for (final Thread forwarder: forwarders)
+            forwarder.join();
+        if (failure != null)
+            throw failure;
+    }
+
+    // reads the messages of one worker until it sends its result
+    @SuppressWarnings("fallthrough")
+    private void forwardMessages(int worker) throws IOException {
+        while (true) {
+            final Message message = Message.read(inputs[worker]);
+            switch (message.type) {
+            case Protocol.STATES:
+                outstanding.addAndGet(message.count);
+                // fall through
+            case Protocol.IDS:
+                synchronized (outputs[message.target]) {
+                    message.write(outputs[message.target]);
+                    outputs[message.target].flush();
+                }
+                break;
+
+            case Protocol.ACK:
+                if (outstanding.addAndGet(-message.count) == 0) {
+                    for (final DataOutputStream out: outputs) {
+                        synchronized (out) {
+                            Protocol.writeMessage(out, Protocol.FINISH, -1, 0);
+                            out.flush();
+                        }
+                    }
+                }
+                break;
+
+            case Protocol.RESULT:
+                final DataInputStream payload = message.payload();
+                stateCounts[worker] = payload.readInt();
+                final int initial = payload.readInt();
+                if (initial != -1) {
+                    assert worker == initialWorker;
+                    initialNumber = initial;
+                }
+                transitionCounts[worker] = payload.readInt();
+                return;
+
+            default:
+                throw new IOException("Unexpected message from worker " + worker + ": " + message.type);
+            }
+        }
+    }
+
+    private void merge(File output) throws IOException {
+        final long[] offsets = new long[workerCount];
+        for (int i = 0; i < workerCount; ++i) {
+            offsets[i] = stateCount;
+            stateCount += stateCounts[i];
+            transitionCount += transitionCounts[i];
+        }
+        final long initial = offsets[initialWorker] + initialNumber;
+
+        final PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(output)));
+        try {
+            writer.println("des (0, " + transitionCount + ", " + stateCount + ")");
+            for (int i = 0; i < workerCount; ++i) {
+                Protocol.writeMessage(outputs[i], Protocol.DUMP, i, 0);
+                outputs[i].flush();
+                while (true) {
+                    final Message message = Message.read(inputs[i]);
+                    if (message.type == Protocol.END)
+                        break;
+                    if (message.type != Protocol.TRANSITIONS)
+                        throw new IOException("Unexpected message from worker " + i + ": " + message.type);
+                    final DataInputStream payload = message.payload();
+                    for (int t = 0; t < message.count; ++t) {
+                        final long source = offsets[i] + payload.readInt();
+                        final String label = Protocol.readString(payload);
+                        final int targetWorker = payload.readInt();
+                        final long target = offsets[targetWorker] + payload.readInt();
+                        writer.println("(" + renumber(source, initial) + ", \"" + label
+                            + "\", " + renumber(target, initial) + ")");
+                    }
+                }
+            }
+        } finally {
+            writer.close();
+        }
+        if (writer.checkError())
+            throw new IOException("Error writing " + output.getPath());
+    }
+
+    // swaps the numbers of the initial state and state 0
+    private static long renumber(long state, long initial) {
+        return state == initial ? 0 : state == 0 ? initial : state;
+    }
+
+    public long getStateCount() {
+        return stateCount;
+    }
+
+    public long getTransitionCount() {
+        return transitionCount;
+    }
+
+}
@@ -0,0 +1,356 @@
+package de.unisb.cs.depend.ccs_sem.evaluators.distributed;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import de.unisb.cs.depend.ccs_sem.evaluators.Evaluator;
+import de.unisb.cs.depend.ccs_sem.evaluators.SequentialEvaluator;
+import de.unisb.cs.depend.ccs_sem.evaluators.distributed.Protocol.Batch;
+import de.unisb.cs.depend.ccs_sem.evaluators.distributed.Protocol.Message;
+import de.unisb.cs.depend.ccs_sem.parser.CCSParser;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.Expression;
+import de.unisb.cs.depend.ccs_sem.semantics.types.Program;
+import de.unisb.cs.depend.ccs_sem.semantics.types.Transition;
+
+
+/**
+ * One process of a distributed evaluation (see {@link DistributedCoordinator}).
+ *
+ * A worker owns all states whose hash falls into its partition. It numbers
+ * them, evaluates them with an ordinary {@link Evaluator}, and keeps their
+ * outgoing transitions. Successors that belong to the own partition are
+ * explored directly; all others are sent to their owner (via the
+ * coordinator) in batches, together with a request for their number.
+ *
+ * States are exchanged by their string representation, which is parsed
+ * again by the owner in the context of the same program.
+ */
+public class DistributedWorker {
+
+    // how long to wait for the coordinator to come up
+    private static final int CONNECT_TIMEOUT = 10000;
+
+    private final String host;
+    private final int port;
+
+    private int index;
+    private int workerCount;
+    private Program program;
+    private final CCSParser parser = new CCSParser();
+    private final Evaluator evaluator;
+
+    private DataOutputStream out;
+    private final BlockingQueue<Message> inbox = new LinkedBlockingQueue<Message>();
+
+    // the numbers of all states of our partition
+    private final Map<String, Integer> stateNumbers = new HashMap<String, Integer>();
+    private final LinkedList<PendingState> queue = new LinkedList<PendingState>();
+    private int stateCount = 0;
+    private int initialState = -1;
+    // the number of received states that have not been acknowledged yet
+    private int unacknowledged = 0;
+
+    // the transitions; the target number is -1 until the owner replied
+    private int transitionCount = 0;
+    private int[] sources = new int[1024];
+    private String[] labels = new String[1024];
+    private int[] targetWorkers = new int[1024];
+    private int[] targetNumbers = new int[1024];
+    private final Map<String, String> labelCache = new HashMap<String, String>();
+
+    private Batch[] stateBatches;
+    private Batch[] idBatches;
+
+    public DistributedWorker(String host, int port) {
+        this(host, port, new SequentialEvaluator());
+    }
+
+    public DistributedWorker(String host, int port, Evaluator evaluator) {
+        this.host = host;
+        this.port = port;
+        this.evaluator = evaluator;
+    }
+
+    /**
+     * Connects to the coordinator and takes part in the evaluation until the
+     * coordinator collected the result.
+     *
+     * @throws IOException if the connection fails
+     * @throws InterruptedException if the evaluation is interrupted
+     */
+    public void run() throws IOException, InterruptedException {
+        final Socket socket = connect();
+        try {
+            final DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+            final Message hello = Message.read(in);
+            if (hello.type != Protocol.HELLO)
+                throw new IOException("Unexpected message: " + hello.type);
+            index = hello.target;
+            workerCount = hello.count;
+            program = parser.parse(Protocol.readString(hello.payload()));
+            if (program == null)
+                throw new IOException("The program could not be parsed.");
+
+            stateBatches = new Batch[workerCount];
+            idBatches = new Batch[workerCount];
+            for (int i = 0; i < workerCount; ++i) {
+                stateBatches[i] = new Batch(Protocol.STATES, i);
+                idBatches[i] = new Batch(Protocol.IDS, i);
+            }
+
+            final Thread reader = new Thread("distributedWorker-" + index + "-reader") {
+                @Override
+                public void run() {
+                    try {
+                        while (true) {
+                            final Message message = Message.read(in);
+                            inbox.put(message);
+                            if (message.type == Protocol.DUMP)
+                                break;
+                        }
+                    } catch (final IOException e) {
+                        // the connection was closed, the main loop fails then
+                        inbox.offer(new Message(Protocol.DISCONNECTED, index, 0, new byte[0]));
+                    } catch (final InterruptedException e) {
+                        // terminate
+                    }
+                }
+            };
+            reader.setDaemon(true);
+            reader.start();
+
+            explore();
+            sendResult();
+        } finally {
+            socket.close();
+        }
+    }
+
+    private Socket connect() throws IOException, InterruptedException {
+        final long until = System.currentTimeMillis() + CONNECT_TIMEOUT;
+        while (true) {
+            try {
+                return new Socket(host, port);
+            } catch (final ConnectException e) {
+                if (System.currentTimeMillis() > until)
+                    throw e;
+                Thread.sleep(100);
+            }
+        }
+    }
+
+    static int getOwner(String state, int workerCount) {
+        int h = state.hashCode();
+        h ^= (h >>> 20) ^ (h >>> 12);
+        h ^= (h >>> 7) ^ (h >>> 4);
+        return (h & Integer.MAX_VALUE) % workerCount;
+    }
+
+    private void explore() throws IOException, InterruptedException {
+        while (true) {
+            Message message;
+            while ((message = inbox.poll()) != null)
+                if (handle(message))
+                    return;
+
+            if (!queue.isEmpty()) {
+                expand(queue.removeFirst());
+                continue;
+            }
+
+            // we are idle: send all batches, and then acknowledge the
+            // received states, so that the coordinator sees their successors
+            // before the acknowledgement
+            for (int i = 0; i < workerCount; ++i) {
+                stateBatches[i].send(out);
+                idBatches[i].send(out);
+            }
+            if (unacknowledged > 0) {
+                Protocol.writeMessage(out, Protocol.ACK, -1, unacknowledged);
+                unacknowledged = 0;
+            }
+            out.flush();
+
+            if (handle(inbox.take()))
+                return;
+        }
+    }
+
+    /**
+     * @return <code>true</code> if the evaluation has finished
+     */
+    private boolean handle(Message message) throws IOException {
+        final DataInputStream payload = message.payload();
+        switch (message.type) {
+        case Protocol.STATES:
+            for (int i = 0; i < message.count; ++i) {
+                final String state = Protocol.readString(payload);
+                final int requester = payload.readInt();
+                final int reference = payload.readInt();
+                Integer number = stateNumbers.get(state);
+                if (number == null) {
+                    final Expression expr = parser.parseExpression(state, program);
+                    if (expr == null)
+                        throw new IOException("Cannot parse state " + state);
+                    number = addState(state, expr);
+                }
+                if (requester == -1) {
+                    initialState = number;
+                } else {
+                    final Batch batch = idBatches[requester];
+                    batch.out.writeInt(reference);
+                    batch.out.writeInt(number);
+                    if (batch.entryWritten())
+                        batch.send(out);
+                }
+            }
+            unacknowledged += message.count;
+            return false;
+
+        case Protocol.IDS:
+            for (int i = 0; i < message.count; ++i) {
+                final int reference = payload.readInt();
+                targetNumbers[reference] = payload.readInt();
+            }
+            return false;
+
+        case Protocol.FINISH:
+            // the replies to our last requests may arrive directly before
+            assert queue.isEmpty() && unacknowledged == 0;
+            return true;
+
+        case Protocol.DISCONNECTED:
+            throw new IOException("Lost the connection to the coordinator.");
+
+        default:
+            throw new IOException("Unexpected message: " + message.type);
+        }
+    }
+
+    private int addState(String state, Expression expr) {
+        final int number = stateNumbers.size();
+        stateNumbers.put(state, number);
+        queue.add(new PendingState(expr, number));
+        return number;
+    }
+
+    private void expand(PendingState pending) throws IOException, InterruptedException {
+        if (!evaluator.evaluate(pending.expr))
+            throw new IOException("Error evaluating " + pending.expr);
+
+        for (final Transition trans: pending.expr.getTransitions()) {
+            final Expression target = trans.getTarget();
+            final String state = target.toString();
+            final int owner = getOwner(state, workerCount);
+            if (owner == index) {
+                Integer number = stateNumbers.get(state);
+                if (number == null)
+                    number = addState(state, target);
+                addTransition(pending.number, trans.getAction().getLabel(), owner, number);
+            } else {
+                final int reference = addTransition(pending.number,
+                    trans.getAction().getLabel(), owner, -1);
+                final Batch batch = stateBatches[owner];
+                Protocol.writeString(batch.out, state);
+                batch.out.writeInt(index);
+                batch.out.writeInt(reference);
+                if (batch.entryWritten())
+                    batch.send(out);
+            }
+        }
+    }
+
+    private int addTransition(int source, String label, int targetWorker, int targetNumber) {
+        if (transitionCount == sources.length) {
+            final int newLength = 2 * transitionCount;
+            final int[] newSources = new int[newLength];
+            final String[] newLabels = new String[newLength];
+            final int[] newTargetWorkers = new int[newLength];
+            final int[] newTargetNumbers = new int[newLength];
+            System.arraycopy(sources, 0, newSources, 0, transitionCount);
+            System.arraycopy(labels, 0, newLabels, 0, transitionCount);
+            System.arraycopy(targetWorkers, 0, newTargetWorkers, 0, transitionCount);
+            System.arraycopy(targetNumbers, 0, newTargetNumbers, 0, transitionCount);
+            sources = newSources;
+            labels = newLabels;
+            targetWorkers = newTargetWorkers;
+            targetNumbers = newTargetNumbers;
+        }
+        String cachedLabel = labelCache.get(label);
+        if (cachedLabel == null)
+            labelCache.put(label, cachedLabel = label);
+        sources[transitionCount] = source;
+        labels[transitionCount] = cachedLabel;
+        targetWorkers[transitionCount] = targetWorker;
+        targetNumbers[transitionCount] = targetNumber;
+        return transitionCount++;
+    }
+
+    private void sendResult() throws IOException, InterruptedException {
+        final Batch result = new Batch(Protocol.RESULT, index);
+        result.out.writeInt(stateNumbers.size());
+        result.out.writeInt(initialState);
+        result.out.writeInt(transitionCount);
+        result.entryWritten();
+        result.send(out);
+        out.flush();
+
+        // the state numbers are not needed any more
+        stateCount = stateNumbers.size();
+        stateNumbers.clear();
+
+        final Message dump = inbox.take();
+        if (dump.type != Protocol.DUMP)
+            throw new IOException("Unexpected message: " + dump.type);
+        final Batch batch = new Batch(Protocol.TRANSITIONS, index);
+        for (int i = 0; i < transitionCount; ++i) {
+            assert targetNumbers[i] != -1;
+            batch.out.writeInt(sources[i]);
+            Protocol.writeString(batch.out, labels[i]);
+            batch.out.writeInt(targetWorkers[i]);
+            batch.out.writeInt(targetNumbers[i]);
+            if (batch.entryWritten())
+                batch.send(out);
+        }
+        batch.send(out);
+        Protocol.writeMessage(out, Protocol.END, index, 0);
+        out.flush();
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getStateCount() {
+        return stateCount;
+    }
+
+    public int getTransitionCount() {
+        return transitionCount;
+    }
+
+    private static class PendingState {
+
+        protected final Expression expr;
+        protected final int number;
+
+        public PendingState(Expression expr, int number) {
+            this.expr = expr;
+            this.number = number;
+        }
+
+    }
+
+}
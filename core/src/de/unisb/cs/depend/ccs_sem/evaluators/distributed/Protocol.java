@@ -0,0 +1,153 @@
+package de.unisb.cs.depend.ccs_sem.evaluators.distributed;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+
+/**
+ * The messages exchanged between the {@link DistributedCoordinator} and the
+ * {@link DistributedWorker}s.
+ *
+ * Every message consists of a header (type, target worker, number of
+ * entries, length of the payload) and the payload, so that the coordinator
+ * can forward batches between the workers without decoding them.
+ */
+final class Protocol {
+
+    // only used internally by the workers, if the connection was closed
+    static final byte DISCONNECTED = 0;
+    // coordinator -> worker: index, number of workers, source of the program
+    static final byte HELLO = 1;
+    // states to be owned by the target worker. entries: state, requesting
+    // worker (-1 for the initial state), reference of the requester
+    static final byte STATES = 2;
+    // the numbers assigned to requested states. entries: reference, number
+    static final byte IDS = 3;
+    // worker -> coordinator: that many received states have been processed
+    static final byte ACK = 4;
+    // coordinator -> worker: there are no more states
+    static final byte FINISH = 5;
+    // worker -> coordinator: number of states, number of the initial state
+    // (or -1), number of transitions
+    static final byte RESULT = 6;
+    // coordinator -> worker: send the transitions
+    static final byte DUMP = 7;
+    // worker -> coordinator: transitions. entries: source, label, target
+    // worker, target number
+    static final byte TRANSITIONS = 8;
+    // worker -> coordinator: all transitions have been sent
+    static final byte END = 9;
+
+    // the maximum number of entries in a batch
+    static final int BATCH_SIZE = 256;
+
+    private Protocol() {
+        // no instantiation allowed
+    }
+
+    static void writeString(DataOutputStream out, String str) throws IOException {
+        final byte[] bytes = str.getBytes("UTF-8");
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        final byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+
+    static void writeMessage(DataOutputStream out, byte type, int target,
+            int count, byte[] payload, int length) throws IOException {
+        out.writeByte(type);
+        out.writeInt(target);
+        out.writeInt(count);
+        out.writeInt(length);
+        out.write(payload, 0, length);
+    }
+
+    static void writeMessage(DataOutputStream out, byte type, int target,
+            int count) throws IOException {
+        writeMessage(out, type, target, count, new byte[0], 0);
+    }
+
+    /**
+     * A message with its payload. The payload is read with the stream
+     * returned by {@link #payload()}.
+     */
+    static class Message {
+
+        final byte type;
+        final int target;
+        final int count;
+        final byte[] payload;
+
+        Message(byte type, int target, int count, byte[] payload) {
+            this.type = type;
+            this.target = target;
+            this.count = count;
+            this.payload = payload;
+        }
+
+        static Message read(DataInputStream in) throws IOException {
+            final byte type = in.readByte();
+            final int target = in.readInt();
+            final int count = in.readInt();
+            final byte[] payload = new byte[in.readInt()];
+            in.readFully(payload);
+            return new Message(type, target, count, payload);
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            writeMessage(out, type, target, count, payload, payload.length);
+        }
+
+        DataInputStream payload() {
+            return new DataInputStream(new ByteArrayInputStream(payload));
+        }
+
+    }
+
+    /**
+     * Collects the entries of one message.
+     */
+    static class Batch {
+
+        private final byte type;
+        private final int target;
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        private int count = 0;
+
+        Batch(byte type, int target) {
+            this.type = type;
+            this.target = target;
+        }
+
+        /**
+         * Must be called after each entry that was written to {@link #out}.
+         *
+         * @return <code>true</code> if the batch is full
+         */
+        boolean entryWritten() {
+            return ++count >= BATCH_SIZE;
+        }
+
+        boolean isEmpty() {
+            return count == 0;
+        }
+
+        void send(DataOutputStream stream) throws IOException {
+            if (count == 0)
+                return;
+            writeMessage(stream, type, target, count, bytes.toByteArray(), bytes.size());
+            bytes.reset();
+            count = 0;
+        }
+
+    }
+
+}
@@ -0,0 +1,260 @@
+package de.unisb.cs.depend.ccs_sem.evaluators.executors;
+
+import java.util.ArrayList;
+import java.util.EmptyStackException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Stack;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import de.unisb.cs.depend.ccs_sem.evaluators.ParallelEvaluator;
+import de.unisb.cs.depend.ccs_sem.parser.CCSParser;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.ExpressionRepository;
+import de.unisb.cs.depend.ccs_sem.semantics.types.Program;
+import de.unisb.cs.depend.ccs_sem.utils.StateNumerator;
+
+
+/**
+ * Compares the {@link ThreadBasedExecutor} with its former implementation
+ * (one synchronized stack per thread, and a single monitor to wait for new
+ * jobs) and with a fixed thread pool, by evaluating a generated model
+ * (several independent counters, each of which counts up to a bound or is
+ * reset) with the {@link ParallelEvaluator}.
+ *
+ * Usage: ExecutorBenchmark [counters] [bound] [max. threads] [repetitions]
+ */
+public class ExecutorBenchmark {
+
+    private static final String[] EXECUTORS = { "work-stealing", "stacks", "fixed pool" };
+
+    public static void main(String[] args) throws InterruptedException {
+        final int counters = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        final int bound = args.length > 1 ? Integer.parseInt(args[1]) : 40;
+        final int maxThreads = args.length > 2 ? Integer.parseInt(args[2])
+                : Runtime.getRuntime().availableProcessors();
+        final int repetitions = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+
+        final String model = model(counters, bound);
+
+        System.out.println("executor        threads     states    time (ms)");
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            for (int e = 0; e < EXECUTORS.length; ++e) {
+                long best = Long.MAX_VALUE;
+                int states = 0;
+                for (int r = 0; r < repetitions; ++r) {
+                    // otherwise all but the first run would find evaluated expressions
+                    ExpressionRepository.reset();
+                    final Program program = new CCSParser().parse(model);
+                    final long start = System.nanoTime();
+                    if (program == null || !program.evaluate(new BenchmarkEvaluator(threads, e), null)) {
+                        System.err.println("Error evaluating the model.");
+                        return;
+                    }
+                    best = Math.min(best, System.nanoTime() - start);
+                    states = StateNumerator.numerateStates(program.getExpression()).size();
+                }
+                System.out.println(String.format("%-14s %8d %10d %12.1f",
+                        EXECUTORS[e], threads, states, best / 1e6));
+            }
+        }
+    }
+
+    // e.g. "X0[n] := when (n < 40) a0.X0[n+1] + r0.X0[0]; ... X0[0] | X1[0]"
+    static String model(int counters, int bound) {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < counters; ++i) {
+            sb.append("X").append(i).append("[n] := when (n < ").append(bound)
+                .append(") a").append(i).append(".X").append(i).append("[n+1] + r")
+                .append(i).append(".X").append(i).append("[0];\n");
+        }
+        for (int i = 0; i < counters; ++i)
+            sb.append(i == 0 ? "" : " | ").append("X").append(i).append("[0]");
+        return sb.toString();
+    }
+
+    private static class BenchmarkEvaluator extends ParallelEvaluator {
+
+        private final int executorType;
+
+        public BenchmarkEvaluator(int numThreads, int executorType) {
+            super(numThreads);
+            this.executorType = executorType;
+        }
+
+        @Override
+        protected ExecutorService getExecutor(int threadsToInstantiate,
+                ThreadFactory threadFactory) {
+            switch (executorType) {
+            case 0:
+                return new ThreadBasedExecutor(threadsToInstantiate, threadFactory);
+            case 1:
+                return new StackExecutor(threadsToInstantiate, threadFactory);
+            default:
+                return Executors.newFixedThreadPool(threadsToInstantiate, threadFactory);
+            }
+        }
+
+    }
+
+    /**
+     * The former implementation of the {@link ThreadBasedExecutor}, kept as
+     * the baseline for this benchmark.
+     */
+    private static class StackExecutor extends AbstractExecutorService {
+
+        private final ThreadFactory threadFactory;
+        protected volatile boolean isShutdown = false;
+        protected Map<Thread, Stack<Runnable>> threadJobs = new HashMap<Thread, Stack<Runnable>>();
+        protected volatile boolean forcedStop = false;
+
+        // object for synchronization
+        protected Object waitForNewJobs = new Object();
+
+        public StackExecutor(int poolSize, ThreadFactory myThreadFactory) {
+            super();
+            this.threadFactory = myThreadFactory;
+            for (int i = 0; i < poolSize; ++i) {
+                final Thread newThread = threadFactory.newThread(new Worker());
+                threadJobs.put(newThread, new Stack<Runnable>());
+            }
+            // the threads must not be started before the threadJobs Map is filled
+            for (final Thread newThread: threadJobs.keySet())
+                newThread.start();
+        }
+
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            final long waitUntil = System.currentTimeMillis() + unit.toMillis(timeout);
+            for (final Thread t: threadJobs.keySet()) {
+                if (t.isAlive()) {
+                    final long waitMillis = waitUntil - System.currentTimeMillis();
+                    if (waitMillis <= 0)
+                        return false;
+                    t.join(waitMillis);
+                }
+            }
+            return true;
+        }
+
+        public boolean isShutdown() {
+            return isShutdown;
+        }
+
+        public boolean isTerminated() {
+            if (!isShutdown)
+                return false;
+
+            for (final Thread t: threadJobs.keySet())
+                if (t.isAlive())
+                    return false;
+            return true;
+        }
+
+        public void shutdown() {
+            synchronized (waitForNewJobs) {
+                isShutdown = true;
+                waitForNewJobs.notifyAll();
+            }
+        }
+
+        public List<Runnable> shutdownNow() {
+            synchronized (waitForNewJobs) {
+                forcedStop = true;
+                isShutdown = true;
+                waitForNewJobs.notifyAll();
+            }
+
+            final List<Runnable> list = new ArrayList<Runnable>();
+            for (final Stack<Runnable> q: threadJobs.values()) {
+                list.addAll(q);
+                q.clear();
+            }
+
+            return list;
+        }
+
+        public void execute(Runnable command) {
+            final Thread thread = Thread.currentThread();
+            Stack<Runnable> jobs = threadJobs.get(thread);
+            if (jobs == null) {
+                if (isShutdown())
+                    throw new RejectedExecutionException("Already shutdown.");
+                jobs = threadJobs.values().iterator().next();
+            }
+            jobs.push(command);
+            synchronized (waitForNewJobs) {
+                waitForNewJobs.notify();
+            }
+        }
+
+        private class Worker implements Runnable {
+
+            private Stack<Runnable> myJobs;
+
+            public Worker() {
+                // nothing
+            }
+
+            public void run() {
+                myJobs = threadJobs.get(Thread.currentThread());
+                while (!forcedStop) {
+                    Runnable nextJob = getNextJob();
+                    if (nextJob == null) {
+                        if (isShutdown && !forcedStop) {
+                            // look a last time for a new job
+                            nextJob = getNextJob();
+                            if (nextJob == null)
+                                break;
+                        } else
+                            continue;
+                    }
+                    nextJob.run();
+                }
+            }
+
+            private Runnable getNextJob() {
+                try {
+                    return myJobs.pop();
+                } catch (final EmptyStackException e) {
+                    // then go on...
+                }
+
+                Stack<Runnable> preferredStack = null;
+                int maxSize = 0;
+                for (final Stack<Runnable> q: threadJobs.values()) {
+                    if (q.size() > maxSize) {
+                        maxSize = q.size();
+                        preferredStack = q;
+                    }
+                }
+
+                if (preferredStack != null) {
+                    try {
+                        return preferredStack.pop();
+                    } catch (final EmptyStackException e) {
+                        // then go on...
+                    }
+                }
+
+                synchronized (waitForNewJobs) {
+                    if (myJobs.isEmpty() && !isShutdown) {
+                        try {
+                            waitForNewJobs.wait();
+                        } catch (final InterruptedException e) {
+                            // seems like we are forced to shut down
+                        }
+                    }
+                }
+
+                return null;
+            }
+
+        }
+    }
+
+}
@@ -1,15 +1,16 @@
 package de.unisb.cs.depend.ccs_sem.evaluators.executors;
 
 import java.util.ArrayList;
-import java.util.EmptyStackException;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.Stack;
+import java.util.Queue;
 import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
 
 /**
@@ -19,8 +20,12 @@ import java.util.concurrent.TimeUnit;
  * If a working thread has no more jobs, it takes one of the other's jobs, of
  * course.
  *
- * This implementation is not fair; the incoming jobs are organized in a stack,
- * so the last incoming job is executed first.
+ * This implementation is not fair; every worker keeps its jobs in a
+ * {@link WorkStealingDeque}, so the last job it submitted is executed first,
+ * while other workers steal the oldest jobs. Jobs submitted from outside
+ * are put into a shared (lock-free) queue. Idle workers choose their
+ * victims randomly, and are parked until new jobs arrive; no monitor is
+ * involved in submitting or taking jobs.
  *
  * @author Clemens Hammacher
  */
@@ -28,11 +33,15 @@ public class ThreadBasedExecutor extends AbstractExecutorService {
 
     private final ThreadFactory threadFactory;
     protected volatile boolean isShutdown = false;
-    protected Map<Thread, Stack<Runnable>> threadJobs = new HashMap<Thread, Stack<Runnable>>();
     protected volatile boolean forcedStop = false;
 
-    // object for synchronization
-    protected Object waitForNewJobs = new Object();
+    private final Worker[] workers;
+    // the worker of the current thread, if it is one of ours
+    private final ThreadLocal<Worker> currentWorker = new ThreadLocal<Worker>();
+    // jobs submitted by other threads
+    private final Queue<Runnable> submissions = new ConcurrentLinkedQueue<Runnable>();
+    // the number of workers that are (about to be) parked
+    private final AtomicInteger idleWorkers = new AtomicInteger();
 
     public ThreadBasedExecutor(int poolSize,
             ThreadFactory myThreadFactory) {
@@ -40,27 +49,28 @@ public class ThreadBasedExecutor extends AbstractExecutorService {
         if (poolSize < 1)
             throw new IllegalArgumentException("Poolsize must be > 0");
         this.threadFactory = myThreadFactory;
+        this.workers = new Worker[poolSize];
         initialize(poolSize);
     }
 
     private void initialize(int poolSize) {
         for (int i = 0; i < poolSize; ++i) {
-            final Thread newThread = threadFactory.newThread(new Worker());
-            threadJobs.put(newThread, new Stack<Runnable>());
+            workers[i] = new Worker(i);
+            workers[i].thread = threadFactory.newThread(workers[i]);
         }
-        // the threads must not be started before the threadJobs Map is filled
-        for (final Thread newThread: threadJobs.keySet())
-            newThread.start();
+        // the threads must not be started before the workers array is filled
+        for (final Worker worker: workers)
+            worker.thread.start();
     }
 
     public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
         final long waitUntil = System.currentTimeMillis() + unit.toMillis(timeout);
-        for (final Thread t: threadJobs.keySet()) {
-            if (t.isAlive()) {
+        for (final Worker worker: workers) {
+            if (worker.thread.isAlive()) {
                 final long waitMillis = waitUntil - System.currentTimeMillis();
                 if (waitMillis <= 0)
                     return false;
-                t.join(waitMillis);
+                worker.thread.join(waitMillis);
             }
         }
         return true;
@@ -74,119 +84,163 @@ public class ThreadBasedExecutor extends AbstractExecutorService {
         if (!isShutdown)
             return false;
 
-        for (final Thread t: threadJobs.keySet())
-            if (t.isAlive())
+        for (final Worker worker: workers)
+            if (worker.thread.isAlive())
                 return false;
         return true;
     }
 
     public void shutdown() {
-        synchronized (waitForNewJobs) {
-            isShutdown = true;
-            waitForNewJobs.notifyAll();
-        }
+        isShutdown = true;
+        wakeAll();
     }
 
     public List<Runnable> shutdownNow() {
-        synchronized (waitForNewJobs) {
-            forcedStop = true;
-            isShutdown = true;
-            waitForNewJobs.notifyAll();
-        }
+        forcedStop = true;
+        isShutdown = true;
+        wakeAll();
 
         final List<Runnable> list = new ArrayList<Runnable>();
-        for (final Stack<Runnable> q: threadJobs.values()) {
-            list.addAll(q);
-            q.clear();
-        }
+        Runnable job;
+        while ((job = submissions.poll()) != null)
+            list.add(job);
+        for (final Worker worker: workers)
+            while (!worker.jobs.isEmpty())
+                if ((job = worker.jobs.steal()) != null)
+                    list.add(job);
 
         return list;
     }
 
     public void execute(Runnable command) {
-        final Thread thread = Thread.currentThread();
-        Stack<Runnable> jobs = threadJobs.get(thread);
-        if (jobs == null) {
+        final Worker worker = currentWorker.get();
+        if (worker != null) {
+            // our own thread may still submit tasks after a shutdown
+            worker.jobs.push(command);
+        } else {
             // only check for shutdown if the execute-request comes from
-            // outside. our own thread may still submit tasks
+            // outside
             if (isShutdown())
                 throw new RejectedExecutionException("Already shutdown.");
-            // get the first queue
-            jobs = threadJobs.values().iterator().next();
+            submissions.offer(command);
         }
-        jobs.push(command);
-        synchronized (waitForNewJobs) {
-            waitForNewJobs.notify();
+        if (idleWorkers.get() > 0)
+            wakeOne();
+    }
+
+    private void wakeOne() {
+        for (final Worker worker: workers) {
+            if (worker.idle.get() && worker.idle.compareAndSet(true, false)) {
+                idleWorkers.decrementAndGet();
+                LockSupport.unpark(worker.thread);
+                return;
+            }
         }
     }
 
+    private void wakeAll() {
+        for (final Worker worker: workers)
+            LockSupport.unpark(worker.thread);
+    }
+
     private class Worker implements Runnable {
 
-        private Stack<Runnable> myJobs;
-        private Thread myThread;
+        protected final WorkStealingDeque<Runnable> jobs = new WorkStealingDeque<Runnable>();
+        protected final AtomicBoolean idle = new AtomicBoolean(false);
+        protected Thread thread;
+        private final int index;
+        // state of the xorshift generator for choosing victims
+        private int random;
 
-        public Worker() {
-            // nothing
+        public Worker(int index) {
+            this.index = index;
+            this.random = 0x9E3779B9 * (index + 1);
         }
 
         public void run() {
-            myThread = Thread.currentThread();
-            myJobs = threadJobs.get(myThread);
-            if (myJobs == null) {
-                assert false;
-                return;
-            }
-            while (!forcedStop) {
-                Runnable nextJob = getNextJob();
-                if (nextJob == null) {
-                    if (isShutdown && !forcedStop) {
-                        // look a last time for a new job
-                        nextJob = getNextJob();
-                        if (nextJob == null)
-                            break;
-                    } else
-                        continue;
+            currentWorker.set(this);
+            try {
+                while (!forcedStop) {
+                    Runnable nextJob = getNextJob();
+                    if (nextJob == null) {
+                        nextJob = awaitJob();
+                        if (nextJob == null) {
+                            if (isShutdown)
+                                break;
+                            continue;
+                        }
+                    }
+                    nextJob.run();
                 }
-                nextJob.run();
+            } finally {
+                if (idle.compareAndSet(true, false))
+                    idleWorkers.decrementAndGet();
+                currentWorker.remove();
             }
         }
 
         private Runnable getNextJob() {
-            try {
-                return myJobs.pop();
-            } catch (final EmptyStackException e) {
-                // then go on...
-            }
-
-            Stack<Runnable> preferredStack = null;
-            int maxSize = 0;
-            for (final Stack<Runnable> q: threadJobs.values()) {
-                if (q.size() > maxSize) {
-                    maxSize = q.size();
-                    preferredStack = q;
-                }
-            }
+            final Runnable job = jobs.pop();
+            if (job != null)
+                return job;
+            final Runnable submitted = submissions.poll();
+            if (submitted != null)
+                return submitted;
+            return steal();
+        }
 
-            if (preferredStack != null) {
-                try {
-                    return preferredStack.pop();
-                } catch (final EmptyStackException e) {
-                    // then go on...
+        private Runnable steal() {
+            final int n = workers.length;
+            if (n == 1)
+                return null;
+            random ^= random << 13;
+            random ^= random >>> 17;
+            random ^= random << 5;
+            final int start = (random & Integer.MAX_VALUE) % n;
+            for (int i = 0; i < n; ++i) {
+                final Worker victim = workers[(start + i) % n];
+                if (victim == this)
+                    continue;
+                // the steal fails if another thread was faster, so retry
+                // as long as there are jobs left
+                while (!victim.jobs.isEmpty()) {
+                    final Runnable job = victim.jobs.steal();
+                    if (job != null)
+                        return job;
                 }
             }
+            return null;
+        }
 
-            synchronized (waitForNewJobs) {
-                if (myJobs.isEmpty() && !isShutdown) {
-                    try {
-                        waitForNewJobs.wait();
-                        // it doesn't matter if we continue without having been notified...
-                    } catch (final InterruptedException e) {
-                        // hm, then go on... (seems like we are forced to shut down)
-                    }
+        /**
+         * Announces this worker as idle, and parks it until it finds a job.
+         *
+         * @return the job, or <code>null</code> if the executor is shut down
+         */
+        private Runnable awaitJob() {
+            Runnable job = null;
+            while (!forcedStop) {
+                if (!idle.get()) {
+                    // increase the counter first, so it is never negative
+                    idleWorkers.incrementAndGet();
+                    idle.set(true);
                 }
+                // look again after announcing: either we see a job that was
+                // submitted concurrently, or its submitter sees that we are idle
+                job = getNextJob();
+                if (job != null || isShutdown)
+                    break;
+                LockSupport.park(this);
+                // it doesn't matter if we continue without having been woken up...
             }
+            if (idle.compareAndSet(true, false))
+                idleWorkers.decrementAndGet();
+            return job;
+        }
 
-            return null;
+        @Override
+        public String toString() {
+            return "Worker " + index;
         }
 
     }
@@ -0,0 +1,128 @@
+package de.unisb.cs.depend.ccs_sem.evaluators.executors;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+
+/**
+ * A lock-free work-stealing deque (Chase and Lev, "Dynamic Circular
+ * Work-Stealing Deque", SPAA 2005).
+ *
+ * Only the owning thread may call {@link #push(Object)} and {@link #pop()},
+ * which work on the bottom end of the deque (LIFO). Any thread may call
+ * {@link #steal()}, which takes elements from the top end (FIFO). The only
+ * atomic operation is a CAS on the top index, which is only needed when
+ * stealing, or when the owner takes the last element.
+ *
+ * All indices and the buffer reference are volatile, which gives the
+ * sequentially consistent ordering the original algorithm relies on.
+ *
+ * @param <E> the type of the elements
+ */
+class WorkStealingDeque<E> {
+
+    private static final int INITIAL_CAPACITY = 1 << 6;
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicLongFieldUpdater<WorkStealingDeque> TOP =
+        AtomicLongFieldUpdater.newUpdater(WorkStealingDeque.class, "top");
+
+    // the capacity is always a power of two
+    private volatile Object[] buffer = new Object[INITIAL_CAPACITY];
+
+    // the next element to steal
+    private volatile long top = 0;
+    // the next free slot (written only by the owner)
+    private volatile long bottom = 0;
+
+    /**
+     * Pushes an element to the bottom end. Must only be called by the owner.
+     */
+    public void push(E element) {
+        final long b = bottom;
+        final long t = top;
+        Object[] a = buffer;
+        if (b - t >= a.length - 1)
+            a = grow(a, b, t);
+        a[(int) b & (a.length - 1)] = element;
+        // volatile write, publishes the element
+        bottom = b + 1;
+    }
+
+    /**
+     * Takes the element that was pushed last. Must only be called by the owner.
+     *
+     * @return the element, or <code>null</code> if the deque is empty
+     */
+    @SuppressWarnings("unchecked")
+    public E pop() {
+        final long b = bottom - 1;
+        final Object[] a = buffer;
+        bottom = b;
+        final long t = top;
+        if (b < t) {
+            // was empty
+            bottom = t;
+            return null;
+        }
+        final int index = (int) b & (a.length - 1);
+        E element = (E) a[index];
+        if (b > t) {
+            // there is more than one element, so no stealer can get this one
+            a[index] = null;
+            return element;
+        }
+
+        // the last element: compete with the stealers
+        if (TOP.compareAndSet(this, t, t + 1))
+            a[index] = null;
+        else
+            element = null;
+        bottom = t + 1;
+        return element;
+    }
+
+    /**
+     * Takes the oldest element. Can be called by any thread.
+     *
+     * @return the element, or <code>null</code> if the deque is empty or
+     *         another thread took the element concurrently
+     */
+    @SuppressWarnings("unchecked")
+    public E steal() {
+        final long t = top;
+        final long b = bottom;
+        if (t >= b)
+            return null;
+        // read after bottom, so the buffer contains all elements up to b
+        final Object[] a = buffer;
+        final E element = (E) a[(int) t & (a.length - 1)];
+        if (!TOP.compareAndSet(this, t, t + 1))
+            return null;
+        assert element != null;
+        return element;
+    }
+
+    public boolean isEmpty() {
+        return bottom <= top;
+    }
+
+    /**
+     * @return the number of elements (only an estimate if there are
+     *         concurrent modifications)
+     */
+    public int size() {
+        final long size = bottom - top;
+        return size < 0 ? 0 : (int) size;
+    }
+
+    private Object[] grow(Object[] a, long b, long t) {
+        final Object[] newBuffer = new Object[2 * a.length];
+        for (long i = t; i < b; ++i)
+            newBuffer[(int) i & (newBuffer.length - 1)] = a[(int) i & (a.length - 1)];
+        // the old buffer is not changed any more, so stealers still reading
+        // from it get the right elements
+        buffer = newBuffer;
+        return newBuffer;
+    }
+
+}
@@ -11,6 +11,7 @@ import java.util.Set;
 import de.unisb.cs.depend.ccs_sem.exceptions.ExportException;
 import de.unisb.cs.depend.ccs_sem.exporters.helpers.StateNumberComparator;
 import de.unisb.cs.depend.ccs_sem.semantics.expressions.Expression;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.adapters.TruncatedExpression;
 import de.unisb.cs.depend.ccs_sem.semantics.types.Program;
 import de.unisb.cs.depend.ccs_sem.semantics.types.Transition;
 import de.unisb.cs.depend.ccs_sem.utils.StateNumerator;
@@ -63,6 +64,10 @@ public class GraphVizExporter implements Exporter {
                 attributes += ", style=filled, fillcolor=\"#ff0000\", shape=octagon";
                 comment += "  /* this is an error node */";
             }
+            if (e instanceof TruncatedExpression && ((TruncatedExpression)e).isFrontier()) {
+                attributes += ", style=dashed";
+                comment += "  /* this node was not explored */";
+            }
             writer.println("  " + sourceStateNo + " [" + attributes + "];" + comment);
 
             for (final Transition trans: e.getTransitions()) {
@@ -16,12 +16,27 @@ public class CCSLexer extends AbstractLexer {
     protected int position;
 
     public List<Token> lex(Reader input) throws LexException {
+        return lex(input, 0);
+    }
+
+    /**
+     * Lexes the input, which is assumed to start at the given position of
+     * the whole text. Lexing stops early as soon as
+     * {@link #isResynchronized(List)} returns <code>true</code>; in this case,
+     * no {@link EOFToken} is appended.
+     *
+     * @param input the Reader to read the input from
+     * @param startPosition the position of the first character of the input
+     * @return a list of tokens
+     * @throws LexException if an error occured while lexing
+     */
+    protected List<Token> lex(Reader input, int startPosition) throws LexException {
         final ArrayList<Token> tokens = new ArrayList<Token>();
 
         final PushbackReader pr = new PushbackReader(input, 1);
 
         try {
-            lex0(pr, tokens);
+            lex0(pr, tokens, startPosition);
         } catch (final IOException e) {
             throw new LexException("Error reading input stream", -1);
         }
@@ -33,13 +48,13 @@ public class CCSLexer extends AbstractLexer {
     }
 
     @SuppressWarnings("fallthrough")
-    private void lex0(PushbackReader input, List<Token> tokens) throws IOException, LexException {
+    private void lex0(PushbackReader input, List<Token> tokens, int firstPosition) throws IOException, LexException {
         int nextChar;
 
         // temporaryly needed variables
         String str;
 
-        position = 0;
+        position = firstPosition;
 
         while ((nextChar = input.read()) != -1) {
             assert nextChar >= 0 && nextChar < 1<<16;
@@ -314,10 +329,24 @@ public class CCSLexer extends AbstractLexer {
                 break;
             }
             ++position;
+            if (isResynchronized(tokens))
+                return;
         }
         tokens.add(new EOFToken(position));
     }
 
+    /**
+     * Is called after each read character. If it returns <code>true</code>,
+     * lexing is stopped immediately.
+     *
+     * @param tokens the tokens read so far
+     * @return whether to stop lexing
+     */
+    protected boolean isResynchronized(List<Token> tokens) {
+        // never stop in the default implementation
+        return false;
+    }
+
     protected void completeLine() {
         // ignore in the default implementation
     }
@@ -0,0 +1,245 @@
+package de.unisb.cs.depend.ccs_sem.lexer;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import de.unisb.cs.depend.ccs_sem.exceptions.LexException;
+import de.unisb.cs.depend.ccs_sem.lexer.tokens.EOFToken;
+import de.unisb.cs.depend.ccs_sem.lexer.tokens.categories.Token;
+import de.unisb.cs.depend.ccs_sem.parser.ParsingResult;
+import de.unisb.cs.depend.ccs_sem.parser.ParsingResult.ReadComment;
+
+
+/**
+ * A {@link LoggingCCSLexer} that only lexes the damaged region of a text
+ * again, if the tokens of the text before the modification are known.
+ *
+ * Lexing restarts at the last token before the damaged region, and stops as
+ * soon as a token is read behind the damaged region that equals a (moved)
+ * token of the old token list. All other tokens, comments and line starts
+ * are taken from the previous {@link ParsingResult}.
+ *
+ * If there is no usable previous result, or if an error occures, the whole
+ * text is lexed again.
+ */
+public class IncrementalCCSLexer extends LoggingCCSLexer {
+
+    private final ParsingResult previousResult;
+    private final int damageOffset;
+    private final int removedLength;
+    private final int insertedLength;
+
+    private boolean incremental = false;
+    private int firstDamagedToken = -1;
+    private int oldResyncToken = -1;
+    private int newResyncToken = -1;
+
+    // only used while lexing
+    private List<Token> oldTokens;
+    private int nextOldToken;
+    private int checkedTokens;
+
+    /**
+     * @param result the result to store the information to
+     * @param previousResult the result of the last lexing and parsing, may
+     *                       be <code>null</code>
+     * @param damageOffset the offset of the first changed character
+     * @param removedLength the length of the damaged region in the old text
+     * @param insertedLength the length of the damaged region in the new text
+     */
+    public IncrementalCCSLexer(ParsingResult result, ParsingResult previousResult,
+            int damageOffset, int removedLength, int insertedLength) {
+        super(result);
+        this.previousResult = previousResult;
+        this.damageOffset = damageOffset;
+        this.removedLength = removedLength;
+        this.insertedLength = insertedLength;
+    }
+
+    /**
+     * This method throws no {@link LexException}, but returns null, if an error
+     * occured, and stores the error in the {@link ParsingResult}.
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Token> lex(String input) {
+        final List<Token> tokens = relex(input);
+        if (tokens != null)
+            return tokens;
+
+        // fall back to lexing the whole input
+        incremental = false;
+        getResult().comments.clear();
+        getResult().lineStarts.clear();
+        return lex(new StringReader(input));
+    }
+
+    private List<Token> relex(String input) {
+        if (previousResult == null || previousResult.lexedTokens.isEmpty()
+                || previousResult.inputLength + insertedLength - removedLength != input.length()
+                || damageOffset < 0 || removedLength < 0 || insertedLength < 0)
+            return null;
+
+        // the parser replaced some of the previous tokens, so start from the
+        // tokens as they were lexed
+        oldTokens = previousResult.lexedTokens;
+        try {
+            return relexDamagedRegion(input);
+        } finally {
+            // otherwise, lexing the whole input would try to resynchronize
+            oldTokens = null;
+            nextOldToken = 0;
+            checkedTokens = 0;
+        }
+    }
+
+    private List<Token> relexDamagedRegion(String input) {
+        final ParsingResult result = getResult();
+        final int delta = insertedLength - removedLength;
+
+        // search the first token that touches the damaged region (an inserted
+        // character may extend the token before)
+        int left = 0;
+        int right = oldTokens.size() - 1;
+        while (left < right) {
+            final int mid = (left + right) / 2;
+            if (oldTokens.get(mid).getEndPosition() < damageOffset - 1)
+                left = mid + 1;
+            else
+                right = mid;
+        }
+        // restart one token before, so that comments in between are lexed again
+        final int restartToken = Math.max(0, left - 1);
+        final int restartPosition = restartToken == 0 ? 0
+            : oldTokens.get(restartToken).getStartPosition();
+
+        for (final ReadComment comment: previousResult.comments)
+            if (comment.endPosition < restartPosition)
+                result.newComment(comment.startPosition, comment.endPosition);
+        for (final Integer lineStart: previousResult.lineStarts)
+            if (lineStart <= restartPosition)
+                result.lineStarts.add(lineStart);
+
+        nextOldToken = restartToken;
+        checkedTokens = 0;
+        oldResyncToken = -1;
+        final List<Token> relexed;
+        try {
+            relexed = lex(new StringReader(input.substring(restartPosition)), restartPosition);
+        } catch (final LexException e) {
+            return null;
+        }
+
+        final List<Token> tokens;
+        if (oldResyncToken == -1) {
+            // we lexed until the end of the input
+            tokens = new ArrayList<Token>(restartToken + relexed.size());
+            tokens.addAll(oldTokens.subList(0, restartToken));
+            tokens.addAll(relexed);
+            oldResyncToken = oldTokens.size();
+            newResyncToken = tokens.size();
+        } else {
+            // the last token is the first one that equals an old one
+            final int newTokens = relexed.size() - 1;
+            tokens = new ArrayList<Token>(restartToken + newTokens
+                + oldTokens.size() - oldResyncToken);
+            tokens.addAll(oldTokens.subList(0, restartToken));
+            tokens.addAll(relexed.subList(0, newTokens));
+            newResyncToken = tokens.size();
+            for (int i = oldResyncToken; i < oldTokens.size(); ++i)
+                tokens.add(oldTokens.get(i).shift(delta));
+
+            final int oldResyncPosition = oldTokens.get(oldResyncToken).getStartPosition();
+            for (final ReadComment comment: previousResult.comments)
+                if (comment.startPosition > oldResyncPosition)
+                    result.newComment(comment.startPosition + delta, comment.endPosition + delta);
+            for (final Integer lineStart: previousResult.lineStarts)
+                if (lineStart > oldResyncPosition)
+                    result.lineStarts.add(lineStart + delta);
+        }
+
+        // skip the relexed tokens that did not change
+        firstDamagedToken = restartToken;
+        while (firstDamagedToken < newResyncToken && firstDamagedToken < oldResyncToken
+                && equalTokens(oldTokens.get(firstDamagedToken), tokens.get(firstDamagedToken), 0))
+            ++firstDamagedToken;
+
+        result.inputLength = input.length();
+        incremental = true;
+        return tokens;
+    }
+
+    @Override
+    protected boolean isResynchronized(List<Token> tokens) {
+        if (oldTokens == null || tokens.size() == checkedTokens)
+            return false;
+        checkedTokens = tokens.size();
+
+        final Token newToken = tokens.get(tokens.size() - 1);
+        final int newStart = newToken.getStartPosition();
+        if (newStart < damageOffset + insertedLength)
+            return false;
+
+        final int oldStart = newStart - insertedLength + removedLength;
+        while (nextOldToken < oldTokens.size()
+                && oldTokens.get(nextOldToken).getStartPosition() < oldStart)
+            ++nextOldToken;
+        if (nextOldToken >= oldTokens.size())
+            return false;
+
+        final Token oldToken = oldTokens.get(nextOldToken);
+        if (oldStart < damageOffset + removedLength || oldToken instanceof EOFToken
+                || !equalTokens(oldToken, newToken, insertedLength - removedLength))
+            return false;
+
+        oldResyncToken = nextOldToken;
+        return true;
+    }
+
+    private static boolean equalTokens(Token oldToken, Token newToken, int delta) {
+        return oldToken.getStartPosition() + delta == newToken.getStartPosition()
+            && oldToken.getEndPosition() + delta == newToken.getEndPosition()
+            && oldToken.getClass() == newToken.getClass()
+            && oldToken.toString().equals(newToken.toString());
+    }
+
+    /**
+     * @return whether the last call to {@link #lex(String)} reused tokens
+     *         of the previous result
+     */
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    public ParsingResult getPreviousResult() {
+        return previousResult;
+    }
+
+    /**
+     * @return the index of the first token that changed. All tokens before
+     *         have the same index in the old and the new token list.
+     */
+    public int getFirstDamagedToken() {
+        return firstDamagedToken;
+    }
+
+    /**
+     * @return the index of the first old token that was reused behind the
+     *         damaged region, or the old token count if there is none
+     */
+    public int getOldResyncToken() {
+        return oldResyncToken;
+    }
+
+    /**
+     * @return the index of the first new token that was taken from the old
+     *         token list behind the damaged region, or the new token count
+     *         if there is none
+     */
+    public int getNewResyncToken() {
+        return newResyncToken;
+    }
+
+}
@@ -22,6 +22,10 @@ public class EOFToken implements Token {
         return position;
     }
 
+    public Token shift(int offset) {
+        return offset == 0 ? this : new EOFToken(position + offset);
+    }
+
     @Override
     public String toString() {
         return "EOF";
@@ -1,7 +1,7 @@
 package de.unisb.cs.depend.ccs_sem.lexer.tokens.categories;
 
 
-public abstract class AbstractToken implements Token {
+public abstract class AbstractToken implements Token, Cloneable {
 
     int startPosition;
     int endPosition;
@@ -23,4 +23,19 @@ public abstract class AbstractToken implements Token {
         return endPosition - startPosition + 1;
     }
 
+    public Token shift(int offset) {
+        if (offset == 0)
+            return this;
+        final AbstractToken copy;
+        try {
+            copy = (AbstractToken) clone();
+        } catch (final CloneNotSupportedException e) {
+            // cannot happen, we implement Cloneable
+            throw new InternalError(e.toString());
+        }
+        copy.startPosition += offset;
+        copy.endPosition += offset;
+        return copy;
+    }
+
 }
@@ -15,4 +15,13 @@ public interface Token {
 
     int getLength();
 
+    /**
+     * Creates a copy of this token that is moved by the given offset.
+     * Is used when only parts of a text are lexed again.
+     *
+     * @param offset the number of characters to move the token
+     * @return the moved token, or <code>this</code> if <code>offset == 0</code>
+     */
+    Token shift(int offset);
+
 }
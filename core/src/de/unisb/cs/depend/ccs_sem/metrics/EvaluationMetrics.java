@@ -0,0 +1,316 @@
+package de.unisb.cs.depend.ccs_sem.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.Expression;
+
+
+/**
+ * Collects statistics about the evaluation of expressions.
+ *
+ * Collecting is disabled by default. While it is disabled, every hook
+ * only costs a volatile read. While it is enabled, all counters are
+ * {@link StripedCounter}s, so the worker threads of the parallel evaluators
+ * don't contend on them.
+ *
+ * There is only one instance, see {@link #getInstance()}. It can be exported
+ * via JMX ({@link #registerMBean()}), printed ({@link #getReport()}), or
+ * dumped as JSON ({@link #toJSON()}).
+ */
+public class EvaluationMetrics implements EvaluationMetricsMBean {
+
+    public static final String OBJECT_NAME = "de.unisb.cs.depend.ccs_sem:type=EvaluationMetrics";
+
+    private static final EvaluationMetrics instance = new EvaluationMetrics();
+
+    private static volatile boolean enabled = false;
+
+    private final StripedCounter states = new StripedCounter();
+    private final StripedCounter transitions = new StripedCounter();
+    private final StripedCounter frontier = new StripedCounter();
+    private final StripedCounter repositoryHits = new StripedCounter();
+    private final StripedCounter repositoryMisses = new StripedCounter();
+    private final StripedCounter instantiations = new StripedCounter();
+    private final StripedCounter minimizationRounds = new StripedCounter();
+    private final ConcurrentMap<Class<?>, OperatorStatistics> operators =
+        new ConcurrentHashMap<Class<?>, OperatorStatistics>();
+
+    private volatile long startTime = System.nanoTime();
+
+    private static class OperatorStatistics {
+
+        protected final StripedCounter count = new StripedCounter();
+        protected final StripedCounter nanos = new StripedCounter();
+
+        public OperatorStatistics() {
+            // nothing to do
+        }
+
+    }
+
+    private EvaluationMetrics() {
+        // singleton
+    }
+
+    public static EvaluationMetrics getInstance() {
+        return instance;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enables or disables collecting. Enabling resets all counters.
+     */
+    public static void setEnabled(boolean enable) {
+        if (enable && !enabled)
+            instance.reset();
+        enabled = enable;
+    }
+
+    /**
+     * Registers the instance at the platform MBean server under the name
+     * {@link #OBJECT_NAME}.
+     *
+     * @return <code>true</code> if the registration was successfull
+     */
+    public static boolean registerMBean() {
+        try {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name))
+                server.registerMBean(instance, name);
+            return true;
+        } catch (final JMException e) {
+            return false;
+        }
+    }
+
+    // the hooks called during evaluation
+
+    public static void stateEvaluated(int numTransitions) {
+        if (!enabled)
+            return;
+        instance.states.increment();
+        instance.transitions.add(numTransitions);
+    }
+
+    public static void frontierChanged(int delta) {
+        if (enabled)
+            instance.frontier.add(delta);
+    }
+
+    public static void repositoryLookup(boolean hit) {
+        if (enabled)
+            (hit ? instance.repositoryHits : instance.repositoryMisses).increment();
+    }
+
+    public static void instantiated() {
+        if (enabled)
+            instance.instantiations.increment();
+    }
+
+    public static void minimizationRound() {
+        if (enabled)
+            instance.minimizationRounds.increment();
+    }
+
+    /**
+     * Must only be called if {@link #isEnabled()} returned <code>true</code>
+     * (the caller has to measure the time anyway).
+     */
+    public static void expressionEvaluated(Class<? extends Expression> type, long nanos) {
+        OperatorStatistics stats = instance.operators.get(type);
+        if (stats == null) {
+            final OperatorStatistics newStats = new OperatorStatistics();
+            stats = instance.operators.putIfAbsent(type, newStats);
+            if (stats == null)
+                stats = newStats;
+        }
+        stats.count.increment();
+        stats.nanos.add(nanos);
+    }
+
+    // the MBean interface
+
+    public boolean isCollecting() {
+        return enabled;
+    }
+
+    public void setCollecting(boolean collecting) {
+        setEnabled(collecting);
+    }
+
+    public long getElapsedMillis() {
+        return (System.nanoTime() - startTime) / 1000000;
+    }
+
+    public long getStates() {
+        return states.get();
+    }
+
+    public long getTransitions() {
+        return transitions.get();
+    }
+
+    public double getStatesPerSecond() {
+        return perSecond(getStates());
+    }
+
+    public double getTransitionsPerSecond() {
+        return perSecond(getTransitions());
+    }
+
+    private double perSecond(long count) {
+        final long nanos = System.nanoTime() - startTime;
+        return nanos <= 0 ? 0 : 1e9 * count / nanos;
+    }
+
+    public long getFrontierSize() {
+        return frontier.get();
+    }
+
+    public long getRepositoryHits() {
+        return repositoryHits.get();
+    }
+
+    public long getRepositoryMisses() {
+        return repositoryMisses.get();
+    }
+
+    public long getInstantiations() {
+        return instantiations.get();
+    }
+
+    public long getMinimizationRounds() {
+        return minimizationRounds.get();
+    }
+
+    /**
+     * @return the sum of the peak usages of all heap memory pools since
+     *         the last reset
+     */
+    public long getPeakHeapBytes() {
+        long peak = 0;
+        for (final MemoryPoolMXBean pool: ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() != MemoryType.HEAP || !pool.isValid())
+                continue;
+            final MemoryUsage usage = pool.getPeakUsage();
+            if (usage != null)
+                peak += usage.getUsed();
+        }
+        return peak;
+    }
+
+    public long getPeakHeapBytesPerState() {
+        final long numStates = getStates();
+        return numStates == 0 ? 0 : getPeakHeapBytes() / numStates;
+    }
+
+    public String[] getOperatorTimes() {
+        final List<Entry<Class<?>, OperatorStatistics>> entries = getSortedOperators();
+        final String[] times = new String[entries.size()];
+        int i = 0;
+        for (final Entry<Class<?>, OperatorStatistics> e: entries)
+            times[i++] = String.format((Locale)null, "%s: %d evaluations, %.3f ms",
+                e.getKey().getSimpleName(), e.getValue().count.get(),
+                1e-6 * e.getValue().nanos.get());
+        return times;
+    }
+
+    private List<Entry<Class<?>, OperatorStatistics>> getSortedOperators() {
+        final List<Entry<Class<?>, OperatorStatistics>> entries =
+            new ArrayList<Entry<Class<?>, OperatorStatistics>>(operators.entrySet());
+        Collections.sort(entries, new Comparator<Entry<Class<?>, OperatorStatistics>>() {
+            public int compare(Entry<Class<?>, OperatorStatistics> o1,
+                    Entry<Class<?>, OperatorStatistics> o2) {
+                return o1.getKey().getSimpleName().compareTo(o2.getKey().getSimpleName());
+            }
+        });
+        return entries;
+    }
+
+    public void reset() {
+        states.reset();
+        transitions.reset();
+        frontier.reset();
+        repositoryHits.reset();
+        repositoryMisses.reset();
+        instantiations.reset();
+        minimizationRounds.reset();
+        operators.clear();
+        for (final MemoryPoolMXBean pool: ManagementFactory.getMemoryPoolMXBeans())
+            if (pool.getType() == MemoryType.HEAP && pool.isValid())
+                pool.resetPeakUsage();
+        startTime = System.nanoTime();
+    }
+
+    /**
+     * @return a short human readable summary of the current values
+     */
+    public String getReport() {
+        return String.format((Locale)null,
+            "%d states (%.0f/s), %d transitions (%.0f/s), frontier %d, "
+            + "repository %d hits/%d misses, %d instantiations, "
+            + "%d minimization rounds, %d bytes heap per state",
+            getStates(), getStatesPerSecond(), getTransitions(), getTransitionsPerSecond(),
+            getFrontierSize(), getRepositoryHits(), getRepositoryMisses(),
+            getInstantiations(), getMinimizationRounds(),
+            getPeakHeapBytesPerState());
+    }
+
+    public String toJSON() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append('{');
+        appendJSON(sb, "elapsedMillis", getElapsedMillis()).append(',');
+        appendJSON(sb, "states", getStates()).append(',');
+        appendJSON(sb, "transitions", getTransitions()).append(',');
+        appendJSON(sb, "statesPerSecond", getStatesPerSecond()).append(',');
+        appendJSON(sb, "transitionsPerSecond", getTransitionsPerSecond()).append(',');
+        appendJSON(sb, "frontierSize", getFrontierSize()).append(',');
+        appendJSON(sb, "repositoryHits", getRepositoryHits()).append(',');
+        appendJSON(sb, "repositoryMisses", getRepositoryMisses()).append(',');
+        appendJSON(sb, "instantiations", getInstantiations()).append(',');
+        appendJSON(sb, "minimizationRounds", getMinimizationRounds()).append(',');
+        appendJSON(sb, "peakHeapBytes", getPeakHeapBytes()).append(',');
+        appendJSON(sb, "peakHeapBytesPerState", getPeakHeapBytesPerState()).append(',');
+        sb.append("\"operators\":{");
+        boolean first = true;
+        for (final Entry<Class<?>, OperatorStatistics> e: getSortedOperators()) {
+            if (!first)
+                sb.append(',');
+            first = false;
+            sb.append('"').append(e.getKey().getSimpleName()).append("\":{");
+            appendJSON(sb, "count", e.getValue().count.get()).append(',');
+            appendJSON(sb, "nanos", e.getValue().nanos.get()).append('}');
+        }
+        sb.append("}}");
+        return sb.toString();
+    }
+
+    private static StringBuilder appendJSON(StringBuilder sb, String key, long value) {
+        return sb.append('"').append(key).append("\":").append(value);
+    }
+
+    private static StringBuilder appendJSON(StringBuilder sb, String key, double value) {
+        return sb.append('"').append(key).append("\":")
+            .append(String.format((Locale)null, "%.3f", value));
+    }
+
+}
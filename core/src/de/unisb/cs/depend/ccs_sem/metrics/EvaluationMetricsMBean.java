@@ -0,0 +1,49 @@
+package de.unisb.cs.depend.ccs_sem.metrics;
+
+
+/**
+ * The management interface of {@link EvaluationMetrics}.
+ * See {@link EvaluationMetrics#registerMBean()}.
+ */
+public interface EvaluationMetricsMBean {
+
+    boolean isCollecting();
+
+    void setCollecting(boolean collecting);
+
+    long getElapsedMillis();
+
+    long getStates();
+
+    long getTransitions();
+
+    double getStatesPerSecond();
+
+    double getTransitionsPerSecond();
+
+    long getFrontierSize();
+
+    long getRepositoryHits();
+
+    long getRepositoryMisses();
+
+    long getInstantiations();
+
+    long getMinimizationRounds();
+
+    long getPeakHeapBytes();
+
+    long getPeakHeapBytesPerState();
+
+    /**
+     * @return one entry per expression type, containing the number of
+     *         evaluations and the time spent evaluating expressions of
+     *         this type
+     */
+    String[] getOperatorTimes();
+
+    void reset();
+
+    String toJSON();
+
+}
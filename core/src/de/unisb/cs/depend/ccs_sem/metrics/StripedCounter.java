@@ -0,0 +1,64 @@
+package de.unisb.cs.depend.ccs_sem.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * A counter that can be updated concurrently from many threads without
+ * contention. Every thread updates one of several stripes (selected by the
+ * thread's id), and the value of the counter is the sum of all stripes.
+ *
+ * The value returned by {@link #get()} is only exact if there are no
+ * concurrent updates.
+ */
+public class StripedCounter {
+
+    // every stripe gets its own cache line (8 longs = 64 bytes)
+    private static final int PADDING = 8;
+
+    private static final int STRIPES;
+    static {
+        final int minStripes = 2 * Runtime.getRuntime().availableProcessors();
+        int stripes = 1;
+        while (stripes < minStripes)
+            stripes <<= 1;
+        STRIPES = stripes;
+    }
+
+    private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PADDING);
+
+    private static int getIndex() {
+        final long id = Thread.currentThread().getId();
+        return ((int) (id ^ (id >>> 32)) & (STRIPES - 1)) * PADDING;
+    }
+
+    public void add(long delta) {
+        cells.addAndGet(getIndex(), delta);
+    }
+
+    public void increment() {
+        cells.incrementAndGet(getIndex());
+    }
+
+    public void decrement() {
+        cells.decrementAndGet(getIndex());
+    }
+
+    public long get() {
+        long sum = 0;
+        for (int i = 0; i < STRIPES; ++i)
+            sum += cells.get(i * PADDING);
+        return sum;
+    }
+
+    public void reset() {
+        for (int i = 0; i < STRIPES; ++i)
+            cells.set(i * PADDING, 0);
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(get());
+    }
+
+}
@@ -160,7 +160,21 @@ public class CCSParser implements Parser {
      * @return the parsed CCS program, or <code>null</code> if there was an error
      *         (use {@link #addProblemListener(IParsingProblemListener)} to fetch the error)
      */
-    public synchronized Program parse(List<Token> tokens) {
+    public Program parse(List<Token> tokens) {
+        return parse(tokens, null);
+    }
+
+    /**
+     * Parses a CCS program from a token list, reusing the evaluation of all
+     * process variables of a previous program that did not change.
+     * See {@link Program#Program(List, Expression, Program)}.
+     *
+     * @param tokens the token list to parse
+     * @param previousProgram the previously parsed program, or <code>null</code>
+     * @return the parsed CCS program, or <code>null</code> if there was an error
+     *         (use {@link #addProblemListener(IParsingProblemListener)} to fetch the error)
+     */
+    public synchronized Program parse(List<Token> tokens, Program previousProgram) {
         final ArrayList<ProcessVariable> processVariables = new ArrayList<ProcessVariable>();
         parameters = new LinkedList<Parameter>();
         constants = new HashMap<String, ConstantValue>();
@@ -189,7 +203,7 @@ public class CCSParser implements Parser {
 
         Program program = null;
         try {
-            program = new Program(processVariables, mainExpr);
+            program = new Program(processVariables, mainExpr, previousProgram);
         } catch (final ParseException e) {
             reportProblem(new ParsingProblem(e));
         }
@@ -216,6 +230,43 @@ public class CCSParser implements Parser {
         return program;
     }
 
+    /**
+     * Parses a single expression (e.g. the string representation of a state)
+     * in the context of an already parsed program, i.e. references to process
+     * variables are resolved to the process variables of that program.
+     *
+     * @param input the input source code of the expression
+     * @param context the program that declares the process variables
+     * @return the parsed expression (as a "top most expression"), or
+     *         <code>null</code> if there was an error
+     *         (use {@link #addProblemListener(IParsingProblemListener)} to fetch the error)
+     */
+    public synchronized Expression parseExpression(String input, Program context) {
+        final List<Token> tokens;
+        try {
+            tokens = getDefaultLexer().lex(input);
+        } catch (final LexException e) {
+            reportProblem(new ParsingProblem(ParsingProblem.ERROR, "Error lexing: " + e.getMessage(), e.getPosition(), e.getPosition()));
+            return null;
+        }
+        parameters = new LinkedList<Parameter>();
+        constants = new HashMap<String, ConstantValue>();
+        ranges = new HashMap<String, Range>();
+
+        final ExtendedListIterator<Token> it = new ExtendedListIterator<Token>(tokens);
+        try {
+            final Expression expr = readMainExpression(it);
+            final Token eof = it.next();
+            if (!(eof instanceof EOFToken))
+                throw new ParseException("Unexpected token", eof);
+            return ExpressionRepository.getExpression(new TopMostExpression(expr))
+                .replaceRecursion(context.getProcessVariables());
+        } catch (final ParseException e) {
+            reportProblem(new ParsingProblem(e));
+            return null;
+        }
+    }
+
     private void readDeclarations(final ExtendedListIterator<Token> tokens,
             final ArrayList<ProcessVariable> processVariables) {
 
@@ -1,15 +1,23 @@
 package de.unisb.cs.depend.ccs_sem.parser;
 
 import java.io.Reader;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Map.Entry;
 
 import de.unisb.cs.depend.ccs_sem.exceptions.ParseException;
 import de.unisb.cs.depend.ccs_sem.lexer.CCSLexer;
+import de.unisb.cs.depend.ccs_sem.lexer.IncrementalCCSLexer;
 import de.unisb.cs.depend.ccs_sem.lexer.LoggingCCSLexer;
+import de.unisb.cs.depend.ccs_sem.lexer.tokens.ConstToken;
+import de.unisb.cs.depend.ccs_sem.lexer.tokens.EOFToken;
 import de.unisb.cs.depend.ccs_sem.lexer.tokens.Identifier;
+import de.unisb.cs.depend.ccs_sem.lexer.tokens.RangeToken;
 import de.unisb.cs.depend.ccs_sem.lexer.tokens.categories.Token;
 import de.unisb.cs.depend.ccs_sem.semantics.expressions.Expression;
 import de.unisb.cs.depend.ccs_sem.semantics.types.ProcessVariable;
@@ -17,6 +25,7 @@ import de.unisb.cs.depend.ccs_sem.semantics.types.Program;
 import de.unisb.cs.depend.ccs_sem.semantics.types.actions.Action;
 import de.unisb.cs.depend.ccs_sem.semantics.types.ranges.Range;
 import de.unisb.cs.depend.ccs_sem.semantics.types.values.ConstString;
+import de.unisb.cs.depend.ccs_sem.parser.ParsingResult.ReadProcessVariable;
 import de.unisb.cs.depend.ccs_sem.utils.Pair;
 
 
@@ -25,14 +34,45 @@ public class LoggingCCSParser extends CCSParser implements IParsingProblemListen
 
     private final ParsingResult result;
 
+    // only set if the tokens were lexed incrementally
+    private final IncrementalCCSLexer incrementalLexer;
+
+    // the old process declarations that can be reused (by old start index),
+    // only set while parsing incrementally
+    private Map<Integer, ReadProcessVariable> reusableDeclarations = null;
+    private Set<String> invalidatedNames = null;
+    private Set<String> freshlyReadNames = null;
+    // the names referenced by the freshly read declarations (and by the main
+    // expression, if it changed)
+    private Set<String> freshlyReferencedNames = null;
+    private boolean mainExpressionDamaged;
+    private List<ProcessVariable> reusedProcessVariables = null;
+    private boolean incrementalParsingFailed;
+
     public LoggingCCSParser() {
         this(new ParsingResult());
     }
 
     public LoggingCCSParser(ParsingResult result) {
+        this(result, null);
+    }
+
+    /**
+     * Creates a parser that reuses all process declarations of the previous
+     * {@link ParsingResult} that are not affected by the modification that
+     * the given lexer processed.
+     * If the modification touches anything else than process declarations
+     * or the main expression, the whole token list is parsed again.
+     *
+     * @param result the result to store the information to
+     * @param incrementalLexer the lexer that produced the tokens to parse,
+     *                         may be <code>null</code>
+     */
+    public LoggingCCSParser(ParsingResult result, IncrementalCCSLexer incrementalLexer) {
         if (result == null)
             throw new NullPointerException();
         this.result = result;
+        this.incrementalLexer = incrementalLexer;
     }
 
     @Override
@@ -65,30 +105,236 @@ public class LoggingCCSParser extends CCSParser implements IParsingProblemListen
     @Override
     public Program parse(List<Token> tokens) {
         result.tokens = tokens;
+        // the parser replaces some tokens in the list, but the next incremental
+        // lexer has to compare and reuse the tokens as they were lexed
+        result.lexedTokens = new ArrayList<Token>(tokens);
         addProblemListener(this);
-        final Program program = super.parse(tokens);
-        removeProblemListener(this);
+        Program program;
+        try {
+            if (prepareIncrementalParsing(tokens)) {
+                program = super.parse(tokens);
+                if (incrementalParsingFailed || !checkReusedDeclarations()) {
+                    // parse everything again
+                    result.processVariables.clear();
+                    result.identifiers.clear();
+                    result.actions.clear();
+                    result.parsingProblems.clear();
+                    reusableDeclarations = null;
+                    program = super.parse(tokens);
+                }
+            } else
+                program = super.parse(tokens);
+        } finally {
+            reusableDeclarations = null;
+            invalidatedNames = null;
+            freshlyReadNames = null;
+            freshlyReferencedNames = null;
+            reusedProcessVariables = null;
+            removeProblemListener(this);
+        }
         result.finish();
         return program;
     }
 
+    private boolean prepareIncrementalParsing(List<Token> tokens) {
+        if (incrementalLexer == null || !incrementalLexer.isIncremental())
+            return false;
+        final ParsingResult previous = incrementalLexer.getPreviousResult();
+        if (previous.hasParsingErrors() || previous.tokens.isEmpty())
+            return false;
+
+        final int firstDamaged = incrementalLexer.getFirstDamagedToken();
+        final int oldResync = incrementalLexer.getOldResyncToken();
+        final int newResync = incrementalLexer.getNewResyncToken();
+
+        // the damaged region must not contain any constant or range declaration
+        for (int i = firstDamaged; i < newResync; ++i)
+            if (tokens.get(i) instanceof ConstToken || tokens.get(i) instanceof RangeToken)
+                return false;
+        for (int i = firstDamaged; i < oldResync; ++i) {
+            final Token token = previous.tokens.get(i);
+            if (token instanceof EOFToken || (i >= previous.mainExpressionTokenIndexStart
+                    && i <= previous.mainExpressionTokenIndexEnd))
+                continue;
+            boolean inDeclaration = false;
+            for (final ReadProcessVariable rpv: previous.processVariables)
+                if (i >= rpv.tokenIndexStart && i <= rpv.tokenIndexEnd) {
+                    inDeclaration = true;
+                    break;
+                }
+            if (!inDeclaration)
+                return false;
+        }
+
+        // all declarations that overlap the damaged region, all declarations
+        // that (transitively) reference them, and all declarations whose
+        // parameter types they (transitively) determine by instantiating
+        // them, have to be read again
+        invalidatedNames = new HashSet<String>();
+        for (final ReadProcessVariable rpv: previous.processVariables)
+            if (rpv.tokenIndexEnd >= firstDamaged && rpv.tokenIndexStart < oldResync)
+                invalidatedNames.add(rpv.processVariable.getName());
+        final List<ProcessVariable> previousProcessVariables = new ArrayList<ProcessVariable>();
+        for (final ReadProcessVariable rpv: previous.processVariables)
+            previousProcessVariables.add(rpv.processVariable);
+        mainExpressionDamaged = previous.mainExpressionTokenIndexEnd >= firstDamaged
+            && previous.mainExpressionTokenIndexStart < oldResync;
+        // the identifiers of the old main expression include all process
+        // variables it instantiated
+        final Set<String> instantiatedByMain = new HashSet<String>();
+        if (mainExpressionDamaged)
+            for (int i = previous.mainExpressionTokenIndexStart; i <= previous.mainExpressionTokenIndexEnd; ++i)
+                if (previous.tokens.get(i) instanceof Identifier)
+                    instantiatedByMain.add(((Identifier) previous.tokens.get(i)).getName());
+        int invalidatedCount;
+        do {
+            invalidatedCount = invalidatedNames.size();
+            ProcessVariable.addInstantiatedNames(previousProcessVariables, instantiatedByMain, invalidatedNames);
+            ProcessVariable.addReferencingNames(previousProcessVariables, invalidatedNames);
+        } while (invalidatedNames.size() != invalidatedCount);
+
+        reusableDeclarations = new HashMap<Integer, ReadProcessVariable>();
+        for (final ReadProcessVariable rpv: previous.processVariables)
+            if ((rpv.tokenIndexEnd < firstDamaged || rpv.tokenIndexStart >= oldResync)
+                    && !invalidatedNames.contains(rpv.processVariable.getName()))
+                reusableDeclarations.put(rpv.tokenIndexStart, rpv);
+        if (reusableDeclarations.isEmpty()) {
+            reusableDeclarations = null;
+            return false;
+        }
+
+        freshlyReadNames = new HashSet<String>();
+        freshlyReferencedNames = new HashSet<String>();
+        reusedProcessVariables = new ArrayList<ProcessVariable>();
+        incrementalParsingFailed = false;
+        return true;
+    }
+
+    private boolean checkReusedDeclarations() {
+        if (reusedProcessVariables.size() != reusableDeclarations.size())
+            return false;
+        // a freshly read declaration could change the meaning of a reused one,
+        // or the types of its parameters by a new instantiation
+        for (final ProcessVariable proc: reusedProcessVariables) {
+            for (final String ref: proc.getReferencedProcessVariableNames())
+                if (freshlyReadNames.contains(ref))
+                    return false;
+            if (proc.getParamCount() > 0 && freshlyReferencedNames.contains(proc.getName()))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Maps a token index of the new token list to the index of the same
+     * token in the old token list.
+     *
+     * @return the old index, or -1 if the token was lexed again
+     */
+    private int getOldTokenIndex(int newIndex) {
+        if (newIndex < incrementalLexer.getFirstDamagedToken())
+            return newIndex;
+        if (newIndex >= incrementalLexer.getNewResyncToken())
+            return newIndex - incrementalLexer.getNewResyncToken()
+                + incrementalLexer.getOldResyncToken();
+        return -1;
+    }
+
+    private int getNewTokenIndex(int oldIndex) {
+        if (oldIndex < incrementalLexer.getFirstDamagedToken())
+            return oldIndex;
+        assert oldIndex >= incrementalLexer.getOldResyncToken();
+        return oldIndex - incrementalLexer.getOldResyncToken()
+            + incrementalLexer.getNewResyncToken();
+    }
+
     @Override
     protected ProcessVariable readProcessDeclaration(ExtendedListIterator<Token> tokens) {
         final int tokenPositionBefore = tokens.nextIndex();
+        if (reusableDeclarations != null) {
+            final ReadProcessVariable reusable =
+                reusableDeclarations.get(getOldTokenIndex(tokenPositionBefore));
+            if (reusable != null)
+                return reuseProcessDeclaration(tokens, reusable);
+        }
+        final int problemsBefore = result.parsingProblems.size();
         final ProcessVariable readProcessVariable = super.readProcessDeclaration(tokens);
         final int tokenPositionAfter = tokens.previousIndex();
         if (readProcessVariable != null) {
-            result.addProcessVariable(readProcessVariable, tokenPositionBefore, tokenPositionAfter);
+            result.addProcessVariable(readProcessVariable, tokenPositionBefore, tokenPositionAfter)
+                .parsingProblems.addAll(result.parsingProblems.subList(problemsBefore,
+                    result.parsingProblems.size()));
+            if (reusableDeclarations != null) {
+                // the declaration must not swallow a reusable one
+                for (int i = tokenPositionBefore + 1; i <= tokenPositionAfter; ++i)
+                    if (reusableDeclarations.containsKey(getOldTokenIndex(i)))
+                        incrementalParsingFailed = true;
+                freshlyReadNames.add(readProcessVariable.getName());
+                freshlyReferencedNames.addAll(readProcessVariable.getReferencedProcessVariableNames());
+            }
         }
         return readProcessVariable;
     }
 
+    private ProcessVariable reuseProcessDeclaration(ExtendedListIterator<Token> tokens,
+            ReadProcessVariable reusable) {
+        final ParsingResult previous = incrementalLexer.getPreviousResult();
+        final int newStart = getNewTokenIndex(reusable.tokenIndexStart);
+        final int newEnd = getNewTokenIndex(reusable.tokenIndexEnd);
+        tokens.setPosition(newEnd + 1);
+        final int delta = result.tokens.get(newStart).getStartPosition()
+            - previous.tokens.get(reusable.tokenIndexStart).getStartPosition();
+
+        // the lexer returned the tokens as they were lexed, so replace them
+        // again like the parser did when it read the declaration
+        for (int i = reusable.tokenIndexStart; i <= reusable.tokenIndexEnd; ++i)
+            if (previous.tokens.get(i) != previous.lexedTokens.get(i))
+                result.tokens.set(getNewTokenIndex(i), previous.tokens.get(i).shift(delta));
+
+        final Map<Token, Integer> oldIndices = new IdentityHashMap<Token, Integer>();
+        for (int i = reusable.tokenIndexStart; i <= reusable.tokenIndexEnd; ++i)
+            oldIndices.put(previous.tokens.get(i), i);
+        for (final Entry<Identifier, Object> e: previous.identifiers.entrySet()) {
+            final Integer oldIndex = oldIndices.get(e.getKey());
+            if (oldIndex != null)
+                result.addIdentifierMapping((Identifier) result.tokens.get(
+                    getNewTokenIndex(oldIndex)), e.getValue());
+        }
+        for (final Pair<Action, Pair<Token, Token>> act: previous.actions) {
+            final Integer first = oldIndices.get(act.getSecond().getFirst());
+            final Integer last = oldIndices.get(act.getSecond().getSecond());
+            if (first != null && last != null)
+                result.actions.add(new Pair<Action, Pair<Token, Token>>(act.getFirst(),
+                    new Pair<Token, Token>(result.tokens.get(getNewTokenIndex(first)),
+                        result.tokens.get(getNewTokenIndex(last)))));
+        }
+
+        final ReadProcessVariable reused =
+            result.addProcessVariable(reusable.processVariable, newStart, newEnd);
+        // report the problems again that reading the declaration caused
+        for (final ParsingProblem problem: reusable.parsingProblems) {
+            final ParsingProblem movedProblem = new ParsingProblem(problem.getType(),
+                problem.getMessage(), shiftPosition(problem.getStartPosition(), delta),
+                shiftPosition(problem.getEndPosition(), delta));
+            reused.parsingProblems.add(movedProblem);
+            reportProblem(movedProblem);
+        }
+        reusedProcessVariables.add(reusable.processVariable);
+        return reusable.processVariable;
+    }
+
+    private static int shiftPosition(int position, int delta) {
+        return position == -1 ? -1 : position + delta;
+    }
+
     @Override
     protected Expression readMainExpression(ExtendedListIterator<Token> tokens)
             throws ParseException {
         final int tokenPositionBefore = tokens.nextIndex();
         final Expression readExpression = super.readMainExpression(tokens);
         final int tokenPositionAfter = tokens.previousIndex();
+        if (reusableDeclarations != null && mainExpressionDamaged && readExpression != null)
+            freshlyReferencedNames.addAll(ProcessVariable.getReferencedProcessVariableNames(readExpression));
         result.mainExpressionTokenIndexStart = tokenPositionBefore;
         result.mainExpressionTokenIndexEnd = tokenPositionAfter;
         return readExpression;
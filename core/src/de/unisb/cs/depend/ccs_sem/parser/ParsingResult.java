@@ -32,6 +32,8 @@ public class ParsingResult {
         public ProcessVariable processVariable;
         public int tokenIndexStart;
         public int tokenIndexEnd;
+        // the problems reported while reading the declaration
+        public final List<ParsingProblem> parsingProblems = new ArrayList<ParsingProblem>(0);
 
         public ReadProcessVariable(ProcessVariable processVariable,
                 int tokenIndexStart, int tokenIndexEnd) {
@@ -55,6 +57,8 @@ public class ParsingResult {
     }
 
     public List<Token> tokens = Collections.emptyList(); // is later set to the correct list (after lexing)
+    // the tokens before the parser replaced some of them (e.g. a stop that is the integer 0)
+    public List<Token> lexedTokens = Collections.emptyList();
     public final List<ReadProcessVariable> processVariables = new ArrayList<ReadProcessVariable>();
     public int mainExpressionTokenIndexStart;
     public int mainExpressionTokenIndexEnd;
@@ -66,9 +70,12 @@ public class ParsingResult {
     public final List<Pair<Action, Pair<Token, Token>>> actions =
         new ArrayList<Pair<Action,Pair<Token,Token>>>();
 
-    public void addProcessVariable(ProcessVariable processVariable,
+    public ReadProcessVariable addProcessVariable(ProcessVariable processVariable,
             int tokenIndexStart, int tokenIndexEnd) {
-        processVariables.add(new ReadProcessVariable(processVariable, tokenIndexStart, tokenIndexEnd));
+        final ReadProcessVariable readProcessVariable =
+            new ReadProcessVariable(processVariable, tokenIndexStart, tokenIndexEnd);
+        processVariables.add(readProcessVariable);
+        return readProcessVariable;
     }
 
     public void newComment(int startPosition, int endPosition) {
@@ -12,7 +12,7 @@ import java.util.Map.Entry;
 import de.unisb.cs.depend.ccs_sem.exceptions.ParseException;
 import de.unisb.cs.depend.ccs_sem.semantics.expressions.RecursiveExpression.RecursiveExpressionAlphabetWrapper;
 import de.unisb.cs.depend.ccs_sem.semantics.types.Parameter;
-import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterOrProcessEqualsWrapper;
+import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterBinding;
 import de.unisb.cs.depend.ccs_sem.semantics.types.ProcessVariable;
 import de.unisb.cs.depend.ccs_sem.semantics.types.Transition;
 import de.unisb.cs.depend.ccs_sem.semantics.types.actions.Action;
@@ -147,25 +147,17 @@ public class ChoiceExpression extends Expression {
     }
 
     @Override
-    public int hashCode(
-            Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
-        final boolean empty = parameterOccurences.isEmpty();
-        if (empty && hash != 0)
-            return hash;
+    protected int hashCode0() {
         final int PRIME = 31;
         int result = 1;
-        result = PRIME * result + left.hashCode(parameterOccurences);
-        result = PRIME * result + right.hashCode(parameterOccurences);
-        if (empty) {
-            assert hash == 0 || hash == result;
-            hash = result;
-        }
+        result = PRIME * result + left.hashCode();
+        result = PRIME * result + right.hashCode();
         return result;
     }
 
     @Override
     public boolean equals(Object obj,
-            Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
+            ParameterBinding binding) {
         if (this == obj)
             return true;
         if (obj == null)
@@ -173,9 +165,9 @@ public class ChoiceExpression extends Expression {
         if (getClass() != obj.getClass())
             return false;
         final ChoiceExpression other = (ChoiceExpression) obj;
-        if (!left.equals(other.left, parameterOccurences))
+        if (!left.equals(other.left, binding))
             return false;
-        if (!right.equals(other.right, parameterOccurences))
+        if (!right.equals(other.right, binding))
             return false;
         return true;
     }
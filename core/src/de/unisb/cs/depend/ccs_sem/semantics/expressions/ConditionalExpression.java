@@ -10,7 +10,7 @@ import de.unisb.cs.depend.ccs_sem.exceptions.ArithmeticError;
 import de.unisb.cs.depend.ccs_sem.exceptions.ParseException;
 import de.unisb.cs.depend.ccs_sem.semantics.expressions.RecursiveExpression.RecursiveExpressionAlphabetWrapper;
 import de.unisb.cs.depend.ccs_sem.semantics.types.Parameter;
-import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterOrProcessEqualsWrapper;
+import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterBinding;
 import de.unisb.cs.depend.ccs_sem.semantics.types.ProcessVariable;
 import de.unisb.cs.depend.ccs_sem.semantics.types.Transition;
 import de.unisb.cs.depend.ccs_sem.semantics.types.actions.Action;
@@ -106,25 +106,17 @@ public class ConditionalExpression extends Expression {
     }
 
     @Override
-    public int hashCode(
-            Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
-        final boolean empty = parameterOccurences.isEmpty();
-        if (empty && hash != 0)
-            return hash;
+    protected int hashCode0() {
         final int prime = 31;
         int result = 1;
-        result = prime * result + condition.hashCode(parameterOccurences);
-        result = prime * result + consequence.hashCode(parameterOccurences);
-        if (empty) {
-            assert hash == 0 || hash == result;
-            hash = result;
-        }
+        result = prime * result + condition.hashCode();
+        result = prime * result + consequence.hashCode();
         return result;
     }
 
     @Override
     public boolean equals(Object obj,
-            Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
+            ParameterBinding binding) {
         if (this == obj)
             return true;
         if (obj == null)
@@ -132,9 +124,9 @@ public class ConditionalExpression extends Expression {
         if (getClass() != obj.getClass())
             return false;
         final ConditionalExpression other = (ConditionalExpression) obj;
-        if (!condition.equals(other.condition, parameterOccurences))
+        if (!condition.equals(other.condition, binding))
             return false;
-        if (!consequence.equals(other.consequence, parameterOccurences))
+        if (!consequence.equals(other.consequence, binding))
             return false;
         return true;
     }
@@ -8,7 +8,7 @@ import java.util.Set;
 
 import de.unisb.cs.depend.ccs_sem.semantics.expressions.RecursiveExpression.RecursiveExpressionAlphabetWrapper;
 import de.unisb.cs.depend.ccs_sem.semantics.types.Parameter;
-import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterOrProcessEqualsWrapper;
+import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterBinding;
 import de.unisb.cs.depend.ccs_sem.semantics.types.ProcessVariable;
 import de.unisb.cs.depend.ccs_sem.semantics.types.Transition;
 import de.unisb.cs.depend.ccs_sem.semantics.types.actions.Action;
@@ -59,13 +59,13 @@ public class ErrorExpression extends Expression {
     }
 
     @Override
-    public int hashCode(Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
+    protected int hashCode0() {
         return 1;
     }
 
     @Override
     public boolean equals(Object obj,
-            Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
+            ParameterBinding binding) {
         return obj instanceof ErrorExpression;
     }
 
@@ -14,16 +14,16 @@ import java.util.SortedSet;
 import java.util.TreeSet;
 
 import de.unisb.cs.depend.ccs_sem.exceptions.ParseException;
+import de.unisb.cs.depend.ccs_sem.metrics.EvaluationMetrics;
 import de.unisb.cs.depend.ccs_sem.semantics.expressions.RecursiveExpression.RecursiveExpressionAlphabetWrapper;
 import de.unisb.cs.depend.ccs_sem.semantics.expressions.adapters.TopMostExpression;
 import de.unisb.cs.depend.ccs_sem.semantics.types.Parameter;
-import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterOrProcessEqualsWrapper;
+import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterBinding;
 import de.unisb.cs.depend.ccs_sem.semantics.types.ProcessVariable;
 import de.unisb.cs.depend.ccs_sem.semantics.types.Transition;
 import de.unisb.cs.depend.ccs_sem.semantics.types.actions.Action;
 import de.unisb.cs.depend.ccs_sem.semantics.types.values.ParameterReference;
 import de.unisb.cs.depend.ccs_sem.semantics.types.values.Value;
-import de.unisb.cs.depend.ccs_sem.utils.LazyCreatedMap;
 
 public abstract class Expression {
 	
@@ -43,7 +43,7 @@ public abstract class Expression {
     private volatile List<Transition> transitions = null;
 
     // stores the hashcode of this expression
-    protected int hash = 0;
+    private int hash = 0;
 
     // cache for isError()
     private Boolean isError = null;
@@ -65,7 +65,11 @@ public abstract class Expression {
         List<Transition> transitions0;
         if (isError())
             transitions0 = Collections.emptyList();
-        else
+        else if (EvaluationMetrics.isEnabled()) {
+            final long startTime = System.nanoTime();
+            transitions0 = evaluate0();
+            EvaluationMetrics.expressionEvaluated(getClass(), System.nanoTime() - startTime);
+        } else
             transitions0 = evaluate0();
 
         assert transitions0 != null;
@@ -104,6 +108,27 @@ public abstract class Expression {
     	}
     }
 
+    /**
+     * Sets the outgoing transitions of this expression without evaluating it,
+     * e.g. when an evaluation is restored from a checkpoint. The transitions
+     * must be the same that {@link #evaluate()} would compute.
+     */
+    public void restoreTransitions(List<Transition> restoredTransitions) {
+        assert restoredTransitions != null;
+
+        // volatile write
+        transitions = restoredTransitions;
+    }
+
+    /**
+     * Discards the transitions computed by {@link #evaluate()}, so that they
+     * can be garbage collected. In contrast to {@link #resetEval()}, the
+     * successors and children are not touched.
+     */
+    public void forgetTransitions() {
+        transitions = null;
+    }
+
     // precondition: children have been evaluated
     protected abstract List<Transition> evaluate0();
 
@@ -190,14 +215,19 @@ public abstract class Expression {
     public final int hashCode() {
         int h = this.hash;
         if (h == 0) {
-            h = hashCode(new LazyCreatedMap<ParameterOrProcessEqualsWrapper, Integer>(4));
+            h = hashCode0();
             this.hash = h;
         }
 
         return h;
     }
 
-    public abstract int hashCode(Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences);
+    /**
+     * Computes the hash code of this expression, which is cached by
+     * {@link #hashCode()}. It must not depend on the names of bound
+     * parameters, so that alpha-equivalent expressions get the same hash.
+     */
+    protected abstract int hashCode0();
 
     @Override
     public final boolean equals(Object obj) {
@@ -211,11 +241,17 @@ public abstract class Expression {
         if (hashCode() != ((Expression)obj).hashCode())
             return false;
         
-        return equals(obj, new LazyCreatedMap<ParameterOrProcessEqualsWrapper, Integer>(4));
+        return equals(obj, null);
     }
 
+    /**
+     * Compares this expression with another one, where the parameters bound
+     * by the surrounding terms are given by the {@link ParameterBinding}.
+     *
+     * @param binding the binders entered so far, or <code>null</code>
+     */
     public abstract boolean equals(Object obj,
-            Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences);
+            ParameterBinding binding);
 
     public synchronized static void genereateLeftRightMap(Expression exp) {
     	if( exp == null )
@@ -2,6 +2,7 @@ package de.unisb.cs.depend.ccs_sem.semantics.expressions;
 
 import java.util.concurrent.ConcurrentMap;
 
+import de.unisb.cs.depend.ccs_sem.metrics.EvaluationMetrics;
 import de.unisb.cs.depend.ccs_sem.utils.ConcurrentReferenceHashMap;
 import de.unisb.cs.depend.ccs_sem.utils.Globals;
 
@@ -17,9 +18,12 @@ public class ExpressionRepository {
     public static Expression getExpression(Expression expr) {
         // get needs no synchonization, so we always try a get first
         Expression foundExpr = repository.get(expr);
-        if (foundExpr != null)
+        if (foundExpr != null) {
+            EvaluationMetrics.repositoryLookup(true);
             return foundExpr;
+        }
         foundExpr = repository.putIfAbsent(expr, expr);
+        EvaluationMetrics.repositoryLookup(foundExpr != null);
         return foundExpr == null ? expr : foundExpr;
     }
 
@@ -11,7 +11,7 @@ import de.unisb.cs.depend.ccs_sem.exceptions.ArithmeticError;
 import de.unisb.cs.depend.ccs_sem.exceptions.ParseException;
 import de.unisb.cs.depend.ccs_sem.semantics.expressions.RecursiveExpression.RecursiveExpressionAlphabetWrapper;
 import de.unisb.cs.depend.ccs_sem.semantics.types.Parameter;
-import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterOrProcessEqualsWrapper;
+import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterBinding;
 import de.unisb.cs.depend.ccs_sem.semantics.types.ProcessVariable;
 import de.unisb.cs.depend.ccs_sem.semantics.types.Transition;
 import de.unisb.cs.depend.ccs_sem.semantics.types.actions.Action;
@@ -128,25 +128,17 @@ public class PrefixExpression extends Expression {
     }
 
     @Override
-    public int hashCode(
-            Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
-        final boolean empty = parameterOccurences.isEmpty();
-        if (empty && hash != 0)
-            return hash;
+    protected int hashCode0() {
         final int PRIME = 31;
         int result = 1;
-        result = PRIME * result + prefix.hashCode(parameterOccurences);
-        result = PRIME * result + target.hashCode(parameterOccurences);
-        if (empty) {
-            assert hash == 0 || hash == result;
-            hash = result;
-        }
+        result = PRIME * result + prefix.hashCode();
+        result = PRIME * result + target.hashCode();
         return result;
     }
 
     @Override
     public boolean equals(Object obj,
-            Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
+            ParameterBinding binding) {
         if (this == obj)
             return true;
         if (obj == null)
@@ -154,11 +146,21 @@ public class PrefixExpression extends Expression {
         if (getClass() != obj.getClass())
             return false;
         final PrefixExpression other = (PrefixExpression) obj;
-        if (!prefix.equals(other.prefix, parameterOccurences))
-            return false;
-        if (!target.equals(other.target, parameterOccurences))
+        if (!prefix.equals(other.prefix, binding))
             return false;
-        return true;
+        final Parameter param = prefix instanceof InputAction
+            ? ((InputAction)prefix).getParameter() : null;
+        if (param == null)
+            return target.equals(other.target, binding);
+
+        // the parameter of the input action is bound in the target
+        if (binding == null)
+            binding = new ParameterBinding();
+        final int depth = binding.size();
+        binding.bind(param, ((InputAction)other.prefix).getParameter());
+        final boolean equal = target.equals(other.target, binding);
+        binding.unbind(depth);
+        return equal;
     }
 
 }
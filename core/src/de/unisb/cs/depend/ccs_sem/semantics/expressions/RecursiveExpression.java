@@ -10,8 +10,9 @@ import java.util.Set;
 import java.util.Map.Entry;
 
 import de.unisb.cs.depend.ccs_sem.exceptions.ArithmeticError;
+import de.unisb.cs.depend.ccs_sem.metrics.EvaluationMetrics;
 import de.unisb.cs.depend.ccs_sem.semantics.types.Parameter;
-import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterOrProcessEqualsWrapper;
+import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterBinding;
 import de.unisb.cs.depend.ccs_sem.semantics.types.ProcessVariable;
 import de.unisb.cs.depend.ccs_sem.semantics.types.Transition;
 import de.unisb.cs.depend.ccs_sem.semantics.types.ValueList;
@@ -73,6 +74,7 @@ public class RecursiveExpression extends Expression {
             instantiatedExpression = rangesOK
                 ? referencedProcessVariable.instantiate(parameterValues)
                 : ErrorExpression.get();
+            EvaluationMetrics.instantiated();
 //        }
 
         return instantiatedExpression;
@@ -174,25 +176,17 @@ public class RecursiveExpression extends Expression {
     }
 
     @Override
-    public int hashCode(
-            Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
-        final boolean empty = parameterOccurences.isEmpty();
-        if (empty && hash != 0)
-            return hash;
+    protected int hashCode0() {
         final int PRIME = 31;
         int result = 1;
-        result = PRIME * result + referencedProcessVariable.hashCode(parameterOccurences);
-        result = PRIME * result + parameterValues.hashCode(parameterOccurences);
-        if (empty) {
-            assert hash == 0 || hash == result;
-            hash = result;
-        }
+        result = PRIME * result + referencedProcessVariable.hashCode();
+        result = PRIME * result + parameterValues.hashCode();
         return result;
     }
 
     @Override
     public boolean equals(Object obj,
-            Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
+            ParameterBinding binding) {
         if (this == obj)
             return true;
         if (obj == null)
@@ -200,9 +194,9 @@ public class RecursiveExpression extends Expression {
         if (getClass() != obj.getClass())
             return false;
         final RecursiveExpression other = (RecursiveExpression) obj;
-        if (!referencedProcessVariable.equals(other.referencedProcessVariable, parameterOccurences))
+        if (!referencedProcessVariable.equals(other.referencedProcessVariable, binding))
             return false;
-        if (!parameterValues.equals(other.parameterValues, parameterOccurences))
+        if (!parameterValues.equals(other.parameterValues, binding))
             return false;
         return true;
     }
@@ -14,7 +14,7 @@ import de.unisb.cs.depend.ccs_sem.exceptions.ParseException;
 import de.unisb.cs.depend.ccs_sem.semantics.expressions.RecursiveExpression.RecursiveExpressionAlphabetWrapper;
 import de.unisb.cs.depend.ccs_sem.semantics.types.ChannelSet;
 import de.unisb.cs.depend.ccs_sem.semantics.types.Parameter;
-import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterOrProcessEqualsWrapper;
+import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterBinding;
 import de.unisb.cs.depend.ccs_sem.semantics.types.ProcessVariable;
 import de.unisb.cs.depend.ccs_sem.semantics.types.Transition;
 import de.unisb.cs.depend.ccs_sem.semantics.types.actions.Action;
@@ -131,24 +131,17 @@ public class RestrictExpression extends Expression {
     }
 
     @Override
-    public int hashCode(Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
-        final boolean empty = parameterOccurences.isEmpty();
-        if (empty && hash != 0)
-            return hash;
+    protected int hashCode0() {
         final int PRIME = 31;
         int result = 1;
-        result = PRIME * result + innerExpr.hashCode(parameterOccurences);
-        result = PRIME * result + restricted.hashCode(parameterOccurences);
-        if (empty) {
-            assert hash == 0 || hash == result;
-            hash = result;
-        }
+        result = PRIME * result + innerExpr.hashCode();
+        result = PRIME * result + restricted.hashCode();
         return result;
     }
 
     @Override
     public boolean equals(Object obj,
-            Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
+            ParameterBinding binding) {
         if (this == obj)
             return true;
         if (obj == null)
@@ -156,9 +149,9 @@ public class RestrictExpression extends Expression {
         if (getClass() != obj.getClass())
             return false;
         final RestrictExpression other = (RestrictExpression) obj;
-        if (!innerExpr.equals(other.innerExpr, parameterOccurences))
+        if (!innerExpr.equals(other.innerExpr, binding))
             return false;
-        if (!restricted.equals(other.restricted, parameterOccurences))
+        if (!restricted.equals(other.restricted, binding))
             return false;
         return true;
     }
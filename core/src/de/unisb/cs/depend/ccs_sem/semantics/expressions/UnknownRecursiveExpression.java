@@ -10,7 +10,7 @@ import java.util.Set;
 import de.unisb.cs.depend.ccs_sem.exceptions.ParseException;
 import de.unisb.cs.depend.ccs_sem.semantics.expressions.RecursiveExpression.RecursiveExpressionAlphabetWrapper;
 import de.unisb.cs.depend.ccs_sem.semantics.types.Parameter;
-import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterOrProcessEqualsWrapper;
+import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterBinding;
 import de.unisb.cs.depend.ccs_sem.semantics.types.ProcessVariable;
 import de.unisb.cs.depend.ccs_sem.semantics.types.Transition;
 import de.unisb.cs.depend.ccs_sem.semantics.types.ValueList;
@@ -45,6 +45,10 @@ public class UnknownRecursiveExpression extends Expression {
         this.parameters = new ValueList(0);
     }
 
+    public String getName() {
+        return name;
+    }
+
     @Override
     public Collection<Expression> getChildren() {
         return Collections.emptyList();
@@ -118,27 +122,19 @@ public class UnknownRecursiveExpression extends Expression {
     }
 
     @Override
-    public int hashCode(
-            Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
-        final boolean empty = parameterOccurences.isEmpty();
-        if (empty && hash != 0)
-            return hash;
+    protected int hashCode0() {
         final int PRIME = 31;
         int result = 1;
         result = PRIME * result + name.hashCode();
-        result = PRIME * result + parameters.hashCode(parameterOccurences);
+        result = PRIME * result + parameters.hashCode();
         //result = PRIME * result + startPos;
         //result = PRIME * result + endPos;
-        if (empty) {
-            assert hash == 0 || hash == result;
-            hash = result;
-        }
         return result;
     }
 
     @Override
     public boolean equals(Object obj,
-            Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
+            ParameterBinding binding) {
         if (this == obj)
             return true;
         if (obj == null)
@@ -152,7 +148,7 @@ public class UnknownRecursiveExpression extends Expression {
             return false;
         if (!name.equals(other.name))
             return false;
-        if (!parameters.equals(other.parameters, parameterOccurences))
+        if (!parameters.equals(other.parameters, binding))
             return false;
         return true;
     }
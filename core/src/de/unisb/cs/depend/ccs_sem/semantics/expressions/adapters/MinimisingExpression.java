@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
@@ -13,21 +14,25 @@ import java.util.Map.Entry;
 import de.unisb.cs.depend.ccs_sem.semantics.expressions.Expression;
 import de.unisb.cs.depend.ccs_sem.semantics.expressions.RecursiveExpression.RecursiveExpressionAlphabetWrapper;
 import de.unisb.cs.depend.ccs_sem.semantics.types.Parameter;
-import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterOrProcessEqualsWrapper;
+import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterBinding;
 import de.unisb.cs.depend.ccs_sem.semantics.types.ProcessVariable;
 import de.unisb.cs.depend.ccs_sem.semantics.types.Transition;
 import de.unisb.cs.depend.ccs_sem.semantics.types.actions.Action;
 import de.unisb.cs.depend.ccs_sem.semantics.types.actions.TauAction;
 import de.unisb.cs.depend.ccs_sem.semantics.types.values.Value;
 import de.unisb.cs.depend.ccs_sem.utils.Bisimulation;
+import de.unisb.cs.depend.ccs_sem.utils.BranchingBisimulation;
+import de.unisb.cs.depend.ccs_sem.utils.Pair;
 import de.unisb.cs.depend.ccs_sem.utils.UniqueQueue;
+import de.unisb.cs.depend.ccs_sem.utils.Bisimulation.Equivalence;
 import de.unisb.cs.depend.ccs_sem.utils.Bisimulation.Partition;
 import de.unisb.cs.depend.ccs_sem.utils.Bisimulation.TransitionToPartition;
 
 
 /**
  * This is an adapter for an expression that minimizes all outgoing transitions
- * by building a partition of the states according to weak bisimulation.
+ * by building a partition of the states according to weak bisimulation
+ * (or strong or branching bisimulation).
  *
  * It uses my very own algorithm to compute the quotient of the LTS w.r.t
  * weak bisimulation (i.e. it computes the smalles weak bisimilar LTS).
@@ -48,6 +53,13 @@ public class MinimisingExpression extends Expression {
         this.transitions = new ArrayList<Transition>();
     }
 
+    public static MinimisingExpression create(Expression expr, Equivalence equivalence)
+            throws InterruptedException {
+        if (equivalence == Equivalence.BRANCHING)
+            return createBranching(expr);
+        return create(expr, equivalence == Equivalence.STRONG);
+    }
+
     public static MinimisingExpression create(Expression expr, boolean strong)
             throws InterruptedException {
         final Map<Expression, Partition> partitions = Bisimulation.computePartitions(expr, strong);
@@ -89,6 +101,65 @@ public class MinimisingExpression extends Expression {
         return newExpressions.get(partitions.get(expr));
     }
 
+    /**
+     * Builds the quotient w.r.t. branching bisimulation. The inert tau
+     * transitions (tau transitions within one block) are left out.
+     */
+    private static MinimisingExpression createBranching(Expression expr)
+            throws InterruptedException {
+        final Map<Expression, Integer> blocks = BranchingBisimulation.computeBlocks(expr);
+
+        // the transitions of each block, as action (null for tau) and target block
+        final Map<Integer, Map<Pair<Action, Integer>, Action>> blockTransitions =
+            new HashMap<Integer, Map<Pair<Action, Integer>, Action>>();
+        boolean[] isError = new boolean[0];
+        for (final Entry<Expression, Integer> entry: blocks.entrySet()) {
+            final int block = entry.getValue();
+            if (block >= isError.length) {
+                final boolean[] newIsError = new boolean[Math.max(block + 1, 2 * isError.length)];
+                System.arraycopy(isError, 0, newIsError, 0, isError.length);
+                isError = newIsError;
+            }
+            isError[block] = entry.getKey().isError();
+            Map<Pair<Action, Integer>, Action> transitions = blockTransitions.get(block);
+            if (transitions == null)
+                blockTransitions.put(block, transitions = new LinkedHashMap<Pair<Action, Integer>, Action>());
+            for (final Transition trans: entry.getKey().getTransitions()) {
+                final int target = blocks.get(trans.getTarget());
+                final boolean tau = trans.getAction() instanceof TauAction;
+                if (tau && target == block)
+                    continue;
+                final Pair<Action, Integer> key = new Pair<Action, Integer>(tau ? null : trans.getAction(), target);
+                if (!transitions.containsKey(key))
+                    transitions.put(key, trans.getAction());
+            }
+        }
+
+        // create the new Expressions (in a BFS manner)
+        final Queue<Integer> queue = new UniqueQueue<Integer>();
+        queue.add(blocks.get(expr));
+        int nextStateNo = 0;
+        final Map<Integer, MinimisingExpression> newExpressions =
+            new HashMap<Integer, MinimisingExpression>();
+        Integer block;
+        while ((block = queue.poll()) != null) {
+            newExpressions.put(block, new MinimisingExpression(isError[block] ? -1 : nextStateNo++));
+            for (final Pair<Action, Integer> trans: blockTransitions.get(block).keySet())
+                queue.add(trans.getSecond());
+        }
+        // now add the transitions
+        for (final Entry<Integer, MinimisingExpression> entry: newExpressions.entrySet()) {
+            final Map<Pair<Action, Integer>, Action> transitions = blockTransitions.get(entry.getKey());
+            final ArrayList<Transition> newTransitions = new ArrayList<Transition>(transitions.size());
+            for (final Entry<Pair<Action, Integer>, Action> trans: transitions.entrySet())
+                newTransitions.add(new Transition(trans.getValue(),
+                    newExpressions.get(trans.getKey().getSecond())));
+            entry.getValue().transitions = newTransitions;
+        }
+
+        return newExpressions.get(blocks.get(expr));
+    }
+
     @Override
     protected List<Transition> evaluate0() {
         return transitions;
@@ -146,14 +217,14 @@ public class MinimisingExpression extends Expression {
     }
 
     @Override
-    public int hashCode(Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
+    protected int hashCode0() {
         // TODO fix, s.t. they can be cached
         return System.identityHashCode(this);
     }
 
     @Override
     public boolean equals(Object obj,
-            Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
+            ParameterBinding binding) {
         // TODO Auto-generated method stub
         return obj == this;
     }
@@ -0,0 +1,163 @@
+package de.unisb.cs.depend.ccs_sem.semantics.expressions.adapters;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.Expression;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.RecursiveExpression.RecursiveExpressionAlphabetWrapper;
+import de.unisb.cs.depend.ccs_sem.semantics.types.Parameter;
+import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterBinding;
+import de.unisb.cs.depend.ccs_sem.semantics.types.ProcessVariable;
+import de.unisb.cs.depend.ccs_sem.semantics.types.Transition;
+import de.unisb.cs.depend.ccs_sem.semantics.types.actions.Action;
+import de.unisb.cs.depend.ccs_sem.semantics.types.actions.TauAction;
+import de.unisb.cs.depend.ccs_sem.semantics.types.values.Value;
+import de.unisb.cs.depend.ccs_sem.utils.UniqueQueue;
+
+
+/**
+ * This is an adapter for the part of an LTS that was explored by an
+ * evaluation that hit a limit of its
+ * {@link de.unisb.cs.depend.ccs_sem.evaluators.EvaluationBudget}.
+ *
+ * Every state that was explored has the same transitions as the original
+ * state. The states of the frontier (reached, but not explored) have no
+ * transitions, and are marked by {@link #isFrontier()}.
+ */
+public class TruncatedExpression extends Expression {
+
+    private final Expression original;
+    private final boolean frontier;
+    private List<Transition> transitions;
+
+    private TruncatedExpression(Expression original, boolean frontier) {
+        super();
+        this.original = original;
+        this.frontier = frontier;
+        // the transitions are set later (in create())
+        this.transitions = Collections.emptyList();
+    }
+
+    /**
+     * Creates a truncated copy of the LTS starting in <code>expr</code>.
+     * The returned expression (and all its successors) is already evaluated.
+     *
+     * @param expr the initial state of the (partially) evaluated LTS
+     * @param frontierStates the states that were reached, but not explored.
+     *                       Every state that is not evaluated is considered
+     *                       part of the frontier, too.
+     */
+    public static TruncatedExpression create(Expression expr, Set<Expression> frontierStates) {
+        final Map<Expression, TruncatedExpression> newExpressions =
+            new HashMap<Expression, TruncatedExpression>();
+        final Queue<Expression> queue = new UniqueQueue<Expression>();
+        queue.add(expr);
+        Expression e;
+        while ((e = queue.poll()) != null) {
+            final boolean isFrontier = frontierStates.contains(e) || !e.isEvaluated();
+            newExpressions.put(e, new TruncatedExpression(e, isFrontier));
+            if (!isFrontier)
+                for (final Transition trans: e.getTransitions())
+                    queue.add(trans.getTarget());
+        }
+
+        // now add the transitions
+        for (final TruncatedExpression newExpr: newExpressions.values()) {
+            if (!newExpr.frontier) {
+                final List<Transition> oldTransitions = newExpr.original.getTransitions();
+                final ArrayList<Transition> newTransitions =
+                    new ArrayList<Transition>(oldTransitions.size());
+                for (final Transition trans: oldTransitions)
+                    newTransitions.add(new Transition(trans.getAction(),
+                        newExpressions.get(trans.getTarget())));
+                newExpr.transitions = newTransitions;
+            }
+            newExpr.evaluate();
+        }
+
+        return newExpressions.get(expr);
+    }
+
+    /**
+     * @return <code>true</code> if this state was reached, but its outgoing
+     *         transitions were not explored
+     */
+    public boolean isFrontier() {
+        return frontier;
+    }
+
+    /**
+     * @return the expression that this state represents
+     */
+    public Expression getOriginal() {
+        return original;
+    }
+
+    @Override
+    protected List<Transition> evaluate0() {
+        return transitions;
+    }
+
+    @Override
+    public Collection<Expression> getChildren() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public Expression instantiate(Map<Parameter, Value> parameters) {
+        throw new UnsupportedOperationException("A truncated expression cannot be instantiated.");
+    }
+
+    @Override
+    public Expression replaceRecursion(List<ProcessVariable> processVariables) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Map<Action, Action> getAlphabet(Set<RecursiveExpressionAlphabetWrapper> alreadyIncluded) {
+        // full graph search for all actions (like in MinimisingExpression)
+        final Map<Action, Action> alphabet = new HashMap<Action, Action>();
+
+        final UniqueQueue<Expression> queue = new UniqueQueue<Expression>();
+        queue.add(this);
+
+        Expression e = null;
+        while ((e = queue.poll()) != null) {
+            for (final Transition trans: e.getTransitions()) {
+                if (!(trans.getAction() instanceof TauAction))
+                    alphabet.put(trans.getAction(), trans.getAction());
+                queue.add(trans.getTarget());
+            }
+        }
+
+        return alphabet;
+    }
+
+    @Override
+    protected boolean isError0() {
+        return original.isError();
+    }
+
+    @Override
+    public String toString() {
+        return original.toString();
+    }
+
+    @Override
+    protected int hashCode0() {
+        return System.identityHashCode(this);
+    }
+
+    @Override
+    public boolean equals(Object obj,
+            ParameterBinding binding) {
+        return obj == this;
+    }
+
+}
@@ -2,9 +2,7 @@ package de.unisb.cs.depend.ccs_sem.semantics.types;
 
 import java.util.Collection;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.Iterator;
-import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
@@ -33,25 +31,21 @@ public class ChannelSet extends TreeSet<Channel> {
 
     @Override
     public int hashCode() {
-        return hashCode(new HashMap<ParameterOrProcessEqualsWrapper, Integer>(4));
-    }
-
-    public int hashCode(Map<ParameterOrProcessEqualsWrapper,Integer> parameterOccurences) {
         int result = 1;
         // remember that the set is ordered, so there should be no ambiguousness
         for (final Channel ch: this)
             if (ch != null)
-                result += ch.hashCode(parameterOccurences);
+                result += ch.hashCode();
         return result;
     }
 
     @Override
     public boolean equals(Object o) {
-        return equals(new HashMap<ParameterOrProcessEqualsWrapper, Integer>(4));
+        return equals(o, null);
     }
 
     public boolean equals(Object o,
-            Map<ParameterOrProcessEqualsWrapper,Integer> parameterOccurences) {
+            ParameterBinding binding) {
         if (o == this)
             return true;
         if (o == null)
@@ -68,7 +62,7 @@ public class ChannelSet extends TreeSet<Channel> {
         while (i1.hasNext() && i2.hasNext()) {
             final Channel c1 = i1.next();
             final Channel c2 = i2.next();
-            if (!(c1==null ? c2==null : c1.equals(c2, parameterOccurences)))
+            if (!(c1==null ? c2==null : c1.equals(c2, binding)))
                 return false;
         }
         return !(i1.hasNext() || i2.hasNext());
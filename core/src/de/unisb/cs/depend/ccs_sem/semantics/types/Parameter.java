@@ -229,23 +229,13 @@ public class Parameter {
         return type;
     }
 
-    public int hashCode(Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
-        final int prime = 31;
-        int result = 1;
-        result = prime * result + name.hashCode();
-        result = prime * result + (range == null ? 0 : range.hashCode(parameterOccurences));
-        //result = prime * result + (type == null ? 0 : type.hashCode());
-
-        // check if we have a recursion
-        final ParameterOrProcessEqualsWrapper myWrapper = new ParameterOrProcessEqualsWrapper(this);
-        Integer myNum = parameterOccurences.get(myWrapper);
-        if (myNum != null)
-            result = prime * result + myNum;
-
-        myNum = parameterOccurences.size() + 1;
-        parameterOccurences.put(myWrapper, myNum);
-
-        return result;
+    /**
+     * Computes a hash code that does not depend on the name of this
+     * parameter. It is used for binders and references to them, so that
+     * alpha-equivalent terms get the same hash code.
+     */
+    public int bindingHashCode() {
+        return 31 + (range == null ? 0 : range.hashCode());
     }
 
     @Override
@@ -280,40 +270,43 @@ public class Parameter {
         return true;
     }
 
-    public boolean equals(Object obj, Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
-        if (this == obj)
+    /**
+     * Checks whether this parameter and the other one can be bound to each
+     * other, i.e. whether they have the same type and range. The names do
+     * not matter.
+     *
+     * @param binding the binders entered so far (the range may refer to
+     *                them), or <code>null</code>
+     */
+    public boolean matches(Parameter other, ParameterBinding binding) {
+        if (this == other)
             return true;
-        if (obj == null)
-            return false;
-        if (getClass() != obj.getClass())
-            return false;
-        final Parameter other = (Parameter) obj;
-        if (!type.equals(other.type) && 
-        		!(type == Type.UNKNOWN || other.type == Type.UNKNOWN) )
-            return false;
-        if (!name.equals(other.name))
-            return false;
-        if (range == null) {
-            if (other.range != null)
-                return false;
-        } else if (!range.equals(other.range, parameterOccurences))
+        if (other == null)
             return false;
-
-        // ok, now the difficulty...
-        final ParameterOrProcessEqualsWrapper myWrapper = new ParameterOrProcessEqualsWrapper(this);
-        final ParameterOrProcessEqualsWrapper otherWrapper = new ParameterOrProcessEqualsWrapper(other);
-        Integer myNum = parameterOccurences.get(myWrapper);
-        final Integer otherNum = parameterOccurences.get(otherWrapper);
-        if (myNum != null)
-            return myNum.equals(otherNum);
-        if (otherNum != null)
+        if (!type.equals(other.type) &&
+                !(type == Type.UNKNOWN || other.type == Type.UNKNOWN) )
             return false;
+        if (range == null)
+            return other.range == null;
+        return range.equals(other.range, binding);
+    }
 
-        myNum = parameterOccurences.size()+1;
-        parameterOccurences.put(myWrapper, myNum);
-        parameterOccurences.put(otherWrapper, myNum);
-
-        return true;
+    /**
+     * Checks whether a reference to this parameter is equal to a reference to
+     * the other one: either both are bound at the same position, or both are
+     * free and refer to the same binder (otherwise, interning open subterms
+     * while parsing could let a reference escape to another binder with the
+     * same name).
+     *
+     * @param binding the binders entered so far, or <code>null</code>
+     */
+    public boolean sameReference(Parameter other, ParameterBinding binding) {
+        if (binding != null) {
+            final Boolean sameBinder = binding.sameBinder(this, other);
+            if (sameBinder != null)
+                return sameBinder.booleanValue();
+        }
+        return this == other;
     }
 
 }
@@ -0,0 +1,109 @@
+package de.unisb.cs.depend.ccs_sem.semantics.types;
+
+
+/**
+ * The binders passed while two terms are compared for equality.
+ *
+ * Parameters are bound positionally (de Bruijn-style): whenever a binder is
+ * entered (the parameter of an input prefix, or the parameters of a process
+ * variable), the binders of both terms are pushed as a pair. Two references
+ * to parameters are equal iff they refer to binders at the same position,
+ * or if both are free and refer to the same binder. So the names of bound
+ * parameters do not matter (alpha-equivalent terms are equal), and
+ * comparing needs no wrapper objects, maps or boxed integers.
+ *
+ * The pairs of process variables that are assumed to be equal are stored
+ * as well, so that comparing recursive definitions terminates.
+ *
+ * A ParameterBinding is only created when the first binder is entered, so
+ * all equals methods taking one also accept <code>null</code> (no binders).
+ */
+public class ParameterBinding {
+
+    private Parameter[] first = new Parameter[8];
+    private Parameter[] second = new Parameter[8];
+    private int size = 0;
+
+    private ProcessVariable[] assumedFirst = null;
+    private ProcessVariable[] assumedSecond = null;
+    private int assumedCount = 0;
+
+    /**
+     * @return the number of currently bound pairs of parameters; pass it to
+     *         {@link #unbind(int)} to leave the binders entered afterwards
+     */
+    public int size() {
+        return size;
+    }
+
+    public void bind(Parameter firstParam, Parameter secondParam) {
+        if (size == first.length) {
+            final Parameter[] newFirst = new Parameter[2 * size];
+            final Parameter[] newSecond = new Parameter[2 * size];
+            System.arraycopy(first, 0, newFirst, 0, size);
+            System.arraycopy(second, 0, newSecond, 0, size);
+            first = newFirst;
+            second = newSecond;
+        }
+        first[size] = firstParam;
+        second[size] = secondParam;
+        ++size;
+    }
+
+    public void unbind(int newSize) {
+        assert newSize <= size;
+        while (size > newSize) {
+            --size;
+            first[size] = null;
+            second[size] = null;
+        }
+    }
+
+    /**
+     * Compares two references to parameters.
+     *
+     * @return {@link Boolean#TRUE} if both are bound by the same pair of
+     *         binders, {@link Boolean#FALSE} if they are bound at different
+     *         positions (or only one of them is bound), and <code>null</code>
+     *         if both are free
+     */
+    public Boolean sameBinder(Parameter firstParam, Parameter secondParam) {
+        int i = size - 1;
+        while (i >= 0 && first[i] != firstParam)
+            --i;
+        int j = size - 1;
+        while (j >= 0 && second[j] != secondParam)
+            --j;
+        if (i == -1 && j == -1)
+            return null;
+        return i == j;
+    }
+
+    /**
+     * Assumes two process variables to be equal while their values are
+     * compared.
+     *
+     * @return <code>false</code> if they were already assumed to be equal
+     */
+    public boolean assume(ProcessVariable firstProc, ProcessVariable secondProc) {
+        for (int i = 0; i < assumedCount; ++i)
+            if (assumedFirst[i] == firstProc && assumedSecond[i] == secondProc)
+                return false;
+        if (assumedFirst == null) {
+            assumedFirst = new ProcessVariable[4];
+            assumedSecond = new ProcessVariable[4];
+        } else if (assumedCount == assumedFirst.length) {
+            final ProcessVariable[] newFirst = new ProcessVariable[2 * assumedCount];
+            final ProcessVariable[] newSecond = new ProcessVariable[2 * assumedCount];
+            System.arraycopy(assumedFirst, 0, newFirst, 0, assumedCount);
+            System.arraycopy(assumedSecond, 0, newSecond, 0, assumedCount);
+            assumedFirst = newFirst;
+            assumedSecond = newSecond;
+        }
+        assumedFirst[assumedCount] = firstProc;
+        assumedSecond[assumedCount] = secondProc;
+        ++assumedCount;
+        return true;
+    }
+
+}
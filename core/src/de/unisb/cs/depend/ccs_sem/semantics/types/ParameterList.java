@@ -2,10 +2,7 @@ package de.unisb.cs.depend.ccs_sem.semantics.types;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.ListIterator;
-import java.util.Map;
 
-import de.unisb.cs.depend.ccs_sem.utils.LazyCreatedMap;
 
 
 public class ParameterList extends ArrayList<Parameter> {
@@ -24,41 +21,47 @@ public class ParameterList extends ArrayList<Parameter> {
         super(c);
     }
 
+    /**
+     * The hash code does not depend on the names of the parameters, see
+     * {@link Parameter#bindingHashCode()}.
+     */
     @Override
     public int hashCode() {
-        return hashCode(new LazyCreatedMap<ParameterOrProcessEqualsWrapper, Integer>(4));
-    }
-
-    public int hashCode(Map<ParameterOrProcessEqualsWrapper,Integer> parameterOccurences) {
         int result = 1;
         for (final Parameter param: this)
-            result = 31 * result + (param == null ? 0 : param.hashCode(parameterOccurences));
+            result = 31 * result + (param == null ? 0 : param.bindingHashCode());
         return result;
     }
 
     @Override
     public boolean equals(Object o) {
-        return equals(new LazyCreatedMap<ParameterOrProcessEqualsWrapper, Integer>(4));
-    }
-
-    public boolean equals(Object o,
-            Map<ParameterOrProcessEqualsWrapper,Integer> parameterOccurences) {
         if (o == this)
             return true;
-        if (o == null)
-            return false;
-        if (getClass() != o.getClass())
+        if (!(o instanceof ParameterList))
             return false;
+        final ParameterBinding binding = new ParameterBinding();
+        return bind((ParameterList) o, binding);
+    }
 
-        final ListIterator<Parameter> i1 = listIterator();
-        final ListIterator<Parameter> i2 = ((ParameterList) o).listIterator();
-        while (i1.hasNext() && i2.hasNext()) {
-            final Parameter r1 = i1.next();
-            final Parameter r2 = i2.next();
-            if (!(r1==null ? r2==null : r1.equals(r2, parameterOccurences)))
+    /**
+     * Matches these parameters with the other ones (from left to right, so
+     * the range of a parameter may refer to the ones before), and binds each
+     * pair of parameters in the given {@link ParameterBinding}.
+     *
+     * @return <code>false</code> if the parameters do not match; the binding
+     *         then may contain some of the pairs
+     */
+    public boolean bind(ParameterList other, ParameterBinding binding) {
+        if (size() != other.size())
+            return false;
+        for (int i = 0; i < size(); ++i) {
+            final Parameter p1 = get(i);
+            final Parameter p2 = other.get(i);
+            if (!(p1 == null ? p2 == null : p1.matches(p2, binding)))
                 return false;
+            binding.bind(p1, p2);
         }
-        return !(i1.hasNext() || i2.hasNext());
+        return true;
     }
 
 }
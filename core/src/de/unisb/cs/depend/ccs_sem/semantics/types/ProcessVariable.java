@@ -1,10 +1,14 @@
 package de.unisb.cs.depend.ccs_sem.semantics.types;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
+import java.util.Set;
 
 import de.unisb.cs.depend.ccs_sem.exceptions.ParseException;
 import de.unisb.cs.depend.ccs_sem.semantics.expressions.Expression;
@@ -12,10 +16,10 @@ import de.unisb.cs.depend.ccs_sem.semantics.expressions.ParallelExpression;
 import de.unisb.cs.depend.ccs_sem.semantics.expressions.PrefixExpression;
 import de.unisb.cs.depend.ccs_sem.semantics.expressions.RecursiveExpression;
 import de.unisb.cs.depend.ccs_sem.semantics.expressions.RestrictExpression;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.UnknownRecursiveExpression;
 import de.unisb.cs.depend.ccs_sem.semantics.types.ranges.Range;
 import de.unisb.cs.depend.ccs_sem.semantics.types.values.ConstantValue;
 import de.unisb.cs.depend.ccs_sem.semantics.types.values.Value;
-import de.unisb.cs.depend.ccs_sem.utils.LazyCreatedMap;
 import de.unisb.cs.depend.ccs_sem.utils.UniqueQueue;
 
 
@@ -108,6 +112,114 @@ public class ProcessVariable {
         return true;
     }
 
+    /**
+     * Collects the names of all process variables that are directly referenced
+     * in the expression of this process variable. Works before and after
+     * {@link #replaceRecursion(List)} has been called.
+     *
+     * @return the names of the directly referenced process variables
+     */
+    public Set<String> getReferencedProcessVariableNames() {
+        return getReferencedProcessVariableNames(value);
+    }
+
+    /**
+     * Collects the names of all process variables that are directly referenced
+     * in the given expression (e.g. the main expression of a program).
+     *
+     * @return the names of the directly referenced process variables
+     */
+    public static Set<String> getReferencedProcessVariableNames(Expression expression) {
+        final Set<String> names = new HashSet<String>();
+        final Queue<Expression> queue = new UniqueQueue<Expression>();
+        queue.add(expression);
+
+        Expression expr;
+        while ((expr = queue.poll()) != null) {
+            // don't descend into the referenced process variables
+            if (expr instanceof RecursiveExpression)
+                names.add(((RecursiveExpression)expr).getReferencedProcessVariable().getName());
+            else if (expr instanceof UnknownRecursiveExpression)
+                names.add(((UnknownRecursiveExpression)expr).getName());
+            else
+                queue.addAll(expr.getSubTerms());
+        }
+
+        return names;
+    }
+
+    /**
+     * Adds the names of all process variables that (transitively) reference
+     * one of the given names to these names. This is what has to be
+     * invalidated if the process variables with the given names change.
+     *
+     * @param processVariables the process variables of the program
+     * @param names the names of the changed process variables; the
+     *              referencing ones are added
+     */
+    public static void addReferencingNames(Collection<ProcessVariable> processVariables,
+            Set<String> names) {
+        final Map<String, Set<String>> referencedBy = new HashMap<String, Set<String>>();
+        for (final ProcessVariable proc: processVariables) {
+            for (final String ref: proc.getReferencedProcessVariableNames()) {
+                Set<String> referencing = referencedBy.get(ref);
+                if (referencing == null)
+                    referencedBy.put(ref, referencing = new HashSet<String>());
+                referencing.add(proc.getName());
+            }
+        }
+
+        final Queue<String> queue = new LinkedList<String>(names);
+        String name;
+        while ((name = queue.poll()) != null) {
+            final Set<String> referencing = referencedBy.get(name);
+            if (referencing != null)
+                for (final String ref: referencing)
+                    if (names.add(ref))
+                        queue.add(ref);
+        }
+    }
+
+    /**
+     * Adds the names of all process variables with parameters that are
+     * (transitively) instantiated by one of the given names to these names.
+     * The types of the parameters are inferred from the values they are
+     * instantiated with, so they may change if an instantiating process
+     * variable changes.
+     *
+     * @param processVariables the process variables of the program
+     * @param instantiated the names instantiated by a changed main
+     *                     expression, may be empty
+     * @param names the names of the changed process variables; the
+     *              instantiated ones are added
+     */
+    public static void addInstantiatedNames(Collection<ProcessVariable> processVariables,
+            Collection<String> instantiated, Set<String> names) {
+        final Map<String, Set<String>> references = new HashMap<String, Set<String>>();
+        final Set<String> withParameters = new HashSet<String>();
+        for (final ProcessVariable proc: processVariables) {
+            Set<String> refs = references.get(proc.getName());
+            if (refs == null)
+                references.put(proc.getName(), refs = new HashSet<String>());
+            refs.addAll(proc.getReferencedProcessVariableNames());
+            if (proc.getParamCount() > 0)
+                withParameters.add(proc.getName());
+        }
+
+        final Queue<String> queue = new LinkedList<String>(names);
+        for (final String name: instantiated)
+            if (withParameters.contains(name) && names.add(name))
+                queue.add(name);
+        String name;
+        while ((name = queue.poll()) != null) {
+            final Set<String> refs = references.get(name);
+            if (refs != null)
+                for (final String ref: refs)
+                    if (withParameters.contains(ref) && names.add(ref))
+                        queue.add(ref);
+        }
+    }
+
     /**
      * @return the name of the recursion variable
      */
@@ -238,27 +350,21 @@ public class ProcessVariable {
         return hash;
     }
 
-    public int hashCode(Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
-        return hash;
-    }
-
     private int computeHashCode() {
         final int prime = 31;
         int result = 1;
         result = prime * result + name.hashCode();
-        final Map<ParameterOrProcessEqualsWrapper,Integer> parameterOccurences =
-                new LazyCreatedMap<ParameterOrProcessEqualsWrapper, Integer>(4);
-        result = prime * result + parameters.hashCode(parameterOccurences);
-        result = prime * result + value.hashCode(parameterOccurences);
+        result = prime * result + parameters.hashCode();
+        result = prime * result + value.hashCode();
         return result;
     }
 
     @Override
     public boolean equals(Object obj) {
-        return equals(obj, new LazyCreatedMap<ParameterOrProcessEqualsWrapper, Integer>(4));
+        return equals(obj, null);
     }
 
-    public boolean equals(Object obj, Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
+    public boolean equals(Object obj, ParameterBinding binding) {
         if (this == obj)
             return true;
         if (obj == null)
@@ -272,28 +378,18 @@ public class ProcessVariable {
       
         if (!name.equals(other.name))
             return false;
-        if (!parameters.equals(other.parameters, parameterOccurences))
-            return false;
-
-        // ok, now the difficulty...
-        final ParameterOrProcessEqualsWrapper myWrapper = new ParameterOrProcessEqualsWrapper(this);
-        final ParameterOrProcessEqualsWrapper otherWrapper = new ParameterOrProcessEqualsWrapper(other);
-        Integer myNum = parameterOccurences.get(myWrapper);
-        final Integer otherNum = parameterOccurences.get(otherWrapper);
-        if (myNum != null)
-            return myNum.equals(otherNum);
-
-        // myNum is null, so otherNum has to be null, too
-        if (otherNum != null)
-            return false;
-        myNum = parameterOccurences.size() + 1;
-        assert parameterOccurences.size() % 2 == 0;
-        parameterOccurences.put(myWrapper, myNum);
-        parameterOccurences.put(otherWrapper, myNum);
+        // recursive process variables are assumed to be equal while
+        // their values are compared
+        if (binding == null)
+            binding = new ParameterBinding();
+        if (!binding.assume(this, other))
+            return true;
 
-        if (!value.equals(other.value, parameterOccurences))
-            return false;
-        return true;
+        final int depth = binding.size();
+        final boolean equal = parameters.bind(other.parameters, binding)
+            && value.equals(other.value, binding);
+        binding.unbind(depth);
+        return equal;
     }
 
 }
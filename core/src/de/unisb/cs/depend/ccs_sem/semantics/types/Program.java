@@ -1,15 +1,25 @@
 package de.unisb.cs.depend.ccs_sem.semantics.types;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
+import de.unisb.cs.depend.ccs_sem.evaluators.EvaluationBudget;
 import de.unisb.cs.depend.ccs_sem.evaluators.EvaluationMonitor;
 import de.unisb.cs.depend.ccs_sem.evaluators.Evaluator;
 import de.unisb.cs.depend.ccs_sem.exceptions.ParseException;
 import de.unisb.cs.depend.ccs_sem.semantics.expressions.Expression;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.ExpressionRepository;
 import de.unisb.cs.depend.ccs_sem.semantics.expressions.adapters.MinimisingExpression;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.adapters.TruncatedExpression;
 import de.unisb.cs.depend.ccs_sem.semantics.types.actions.Action;
+import de.unisb.cs.depend.ccs_sem.utils.Bisimulation.Equivalence;
 import de.unisb.cs.depend.ccs_sem.utils.Globals;
+import de.unisb.cs.depend.ccs_sem.utils.StateSearch;
 
 
 /**
@@ -24,16 +34,119 @@ public class Program {
     private boolean isMinimized = false;
     private final Expression mainExpression;
     private Expression minimizedExpression = null;
+    // only set if the last evaluation was stopped by its budget
+    private TruncatedExpression truncatedExpression = null;
+    private Set<Expression> frontier = null;
+    private Set<String> invalidatedProcessVariables = null;
 
     public Program(List<ProcessVariable> processVariables, Expression expr) throws ParseException {
+        this(processVariables, expr, null);
+    }
+
+    /**
+     * Creates a new program that reuses the evaluation of a previous program
+     * as far as possible.
+     * Every {@link ProcessVariable} whose definition did not change and that
+     * does not (transitively) reference a changed definition is replaced by
+     * the corresponding {@link ProcessVariable} of the previous program,
+     * unless it has parameters and is (transitively) instantiated by a
+     * changed definition or main expression, since then the types of its
+     * parameters may have changed.
+     * Since all expressions are interned in the {@link ExpressionRepository},
+     * the expressions built from these process variables are the already
+     * evaluated ones, so only expressions that reach a changed definition
+     * have to be evaluated again.
+     *
+     * @param processVariables the (not yet resolved) process variables
+     * @param expr the main expression
+     * @param previous the previously parsed program, may be <code>null</code>
+     * @throws ParseException if a recursion could not be resolved
+     */
+    public Program(List<ProcessVariable> processVariables, Expression expr,
+            Program previous) throws ParseException {
         assert processVariables != null && expr != null;
 
+        if (previous != null)
+            reuseProcessVariables(processVariables, expr, previous);
+
         for (final ProcessVariable proc: processVariables)
             proc.replaceRecursion(processVariables);
         this.mainExpression = expr.replaceRecursion(processVariables);
         this.processVariables = processVariables;
     }
 
+    private void reuseProcessVariables(List<ProcessVariable> newProcessVariables,
+            Expression newMainExpression, Program previous) {
+        final Map<String, List<String>> oldDefinitions = getDefinitions(previous.processVariables);
+        final Map<String, List<String>> newDefinitions = getDefinitions(newProcessVariables);
+
+        // first, collect the names of all definitions that changed locally
+        final Set<String> invalidated = new HashSet<String>();
+        for (final Map.Entry<String, List<String>> e: newDefinitions.entrySet())
+            if (!e.getValue().equals(oldDefinitions.get(e.getKey())))
+                invalidated.add(e.getKey());
+        for (final String oldName: oldDefinitions.keySet())
+            if (!newDefinitions.containsKey(oldName))
+                invalidated.add(oldName);
+
+        // the parameter types of the definitions that changed definitions
+        // (or a changed main expression) instantiate may change as well
+        final Set<String> instantiatedByMain = new HashSet<String>();
+        if (!previous.mainExpression.toString().equals(newMainExpression.toString())) {
+            instantiatedByMain.addAll(ProcessVariable.getReferencedProcessVariableNames(previous.mainExpression));
+            instantiatedByMain.addAll(ProcessVariable.getReferencedProcessVariableNames(newMainExpression));
+        }
+        final List<ProcessVariable> allProcessVariables =
+            new ArrayList<ProcessVariable>(previous.processVariables);
+        allProcessVariables.addAll(newProcessVariables);
+
+        // then, propagate the changes to all definitions that reference or
+        // instantiate them, until nothing changes
+        int invalidatedCount;
+        do {
+            invalidatedCount = invalidated.size();
+            ProcessVariable.addInstantiatedNames(allProcessVariables, instantiatedByMain, invalidated);
+            ProcessVariable.addReferencingNames(newProcessVariables, invalidated);
+        } while (invalidated.size() != invalidatedCount);
+
+        // finally, replace the unaffected process variables by the old ones
+        final Map<String, ProcessVariable> oldProcessVariables = new HashMap<String, ProcessVariable>();
+        for (final ProcessVariable proc: previous.processVariables)
+            oldProcessVariables.put(proc.toString(), proc);
+        for (int i = 0; i < newProcessVariables.size(); ++i) {
+            final ProcessVariable proc = newProcessVariables.get(i);
+            if (invalidated.contains(proc.getName()))
+                continue;
+            final ProcessVariable oldProc = oldProcessVariables.get(proc.toString());
+            assert oldProc != null;
+            if (oldProc != null)
+                newProcessVariables.set(i, oldProc);
+        }
+
+        invalidatedProcessVariables = Collections.unmodifiableSet(invalidated);
+    }
+
+    private static Map<String, List<String>> getDefinitions(List<ProcessVariable> processVariables) {
+        final Map<String, List<String>> definitions = new HashMap<String, List<String>>();
+        for (final ProcessVariable proc: processVariables) {
+            List<String> list = definitions.get(proc.getName());
+            if (list == null)
+                definitions.put(proc.getName(), list = new ArrayList<String>(1));
+            list.add(proc.toString());
+        }
+        return definitions;
+    }
+
+    /**
+     * @return the names of the process variables that had to be invalidated
+     *         because they changed w.r.t. the previous program or reference a
+     *         changed process variable, or <code>null</code> if this program
+     *         was not created from a previous one
+     */
+    public Set<String> getInvalidatedProcessVariables() {
+        return invalidatedProcessVariables;
+    }
+
     public Expression getMainExpression() {
         return mainExpression;
     }
@@ -43,7 +156,29 @@ public class Program {
     }
 
     public Expression getExpression() {
-        return isMinimized ? minimizedExpression : mainExpression;
+        if (isMinimized)
+            return minimizedExpression;
+        return truncatedExpression != null ? truncatedExpression : mainExpression;
+    }
+
+    /**
+     * @return <code>true</code> if the last evaluation was stopped by a limit
+     *         of its {@link EvaluationBudget}, so {@link #getExpression()}
+     *         only returns the explored part of the LTS
+     */
+    public boolean isTruncated() {
+        return truncatedExpression != null;
+    }
+
+    /**
+     * @return the states that were reached, but not explored by the last
+     *         evaluation (empty if it was not truncated). Note that these are
+     *         the states of the original LTS, not of {@link #getExpression()}.
+     */
+    public Set<Expression> getFrontier() {
+        if (frontier == null)
+            return Collections.emptySet();
+        return frontier;
     }
 
     /**
@@ -80,7 +215,65 @@ public class Program {
 
     public boolean evaluate(Evaluator eval, EvaluationMonitor monitor)
             throws InterruptedException {
-        return eval.evaluateAll(mainExpression, monitor);
+        return evaluate(eval, monitor, null);
+    }
+
+    /**
+     * Evaluates the program within the limits of the given budget.
+     * If a limit is hit, {@link #getExpression()} returns the explored part
+     * of the LTS, see {@link #isTruncated()}.
+     *
+     * @param budget the limits of the evaluation, or <code>null</code>
+     * @return <code>true</code> if no error occured (hitting a limit is no error)
+     */
+    public boolean evaluate(Evaluator eval, EvaluationMonitor monitor,
+            EvaluationBudget budget) throws InterruptedException {
+        truncatedExpression = null;
+        frontier = null;
+        if (budget == null || !budget.isLimited())
+            return eval.evaluateAll(mainExpression, monitor);
+
+        if (!eval.evaluateAll(mainExpression, monitor, budget))
+            return false;
+        if (budget.isExceeded()) {
+            frontier = budget.getFrontier();
+            truncatedExpression = TruncatedExpression.create(mainExpression, frontier);
+        }
+        return true;
+    }
+
+    /**
+     * Searches for a deadlock (a state without transitions that is no error
+     * state), evaluating only as much of the LTS as necessary.
+     *
+     * @return a shortest trace to a deadlock, or <code>null</code> if there is none
+     * @see StateSearch
+     */
+    public List<Transition> findDeadlock(Evaluator eval) throws InterruptedException {
+        return new StateSearch(eval, StateSearch.DEADLOCK).search(mainExpression);
+    }
+
+    /**
+     * Searches for an error state, evaluating only as much of the LTS as
+     * necessary.
+     *
+     * @return a shortest trace to an error state, or <code>null</code> if there is none
+     * @see StateSearch
+     */
+    public List<Transition> findError(Evaluator eval) throws InterruptedException {
+        return new StateSearch(eval, StateSearch.ERROR).search(mainExpression);
+    }
+
+    /**
+     * Computes the outgoing transitions of a state of this program on demand,
+     * without storing them in the expressions (in contrast to
+     * {@link #evaluate(Evaluator)}).
+     *
+     * @return an iterator over the transitions, which can be reused for
+     *         other states (see {@link SuccessorIterator#reset(Expression)})
+     */
+    public SuccessorIterator successors(Expression state) {
+        return new SuccessorIterator(state);
     }
 
     public List<Transition> getTransitions() {
@@ -96,6 +289,8 @@ public class Program {
     }
     
     public void resetEvaluation() {
+    	truncatedExpression = null;
+    	frontier = null;
     	mainExpression.resetEval();
     }
 
@@ -109,9 +304,24 @@ public class Program {
      * @throws InterruptedException
      */
     public boolean minimizeTransitions(Evaluator evaluator, EvaluationMonitor minimizationMonitor, boolean strong) throws InterruptedException {
+        return minimizeTransitions(evaluator, minimizationMonitor,
+            strong ? Equivalence.STRONG : Equivalence.WEAK);
+    }
+
+    /**
+     * Before calling this method, the program must be evaluated.
+     * @param minimizationMonitor an EvaluationMonitor that is informed about the progress
+     * @param evaluator the preferred evaluator to use
+     * @param equivalence the equivalence w.r.t. which the lts is minimized
+     * @return <code>true</code> if minimization was successfull
+     * @throws InterruptedException
+     */
+    public boolean minimizeTransitions(Evaluator evaluator, EvaluationMonitor minimizationMonitor,
+            Equivalence equivalence) throws InterruptedException {
         assert isEvaluated();
 
-        minimizedExpression = MinimisingExpression.create(mainExpression, strong);
+        minimizedExpression = MinimisingExpression.create(
+            truncatedExpression != null ? truncatedExpression : mainExpression, equivalence);
         //minimizedExpression = new FastMinimisingExpression(mainExpression);
 
         if (minimizedExpression == null)
@@ -0,0 +1,162 @@
+package de.unisb.cs.depend.ccs_sem.semantics.types;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.Expression;
+import de.unisb.cs.depend.ccs_sem.semantics.types.actions.Action;
+
+
+/**
+ * Iterates over the outgoing transitions of a state, computing them on
+ * demand instead of storing them in the expressions.
+ *
+ * {@link Expression#evaluate()} keeps the transitions of every evaluated
+ * expression, which is what the visualization needs, but a search that
+ * touches each state only once would then use memory proportional to the
+ * whole LTS. This iterator evaluates the state (and those of its subterms
+ * that are not evaluated yet), copies the transitions of the state, and
+ * discards everything it evaluated again. Only the transitions of the
+ * current state stay available via {@link Expression#getTransitions()}
+ * (e.g. for {@link de.unisb.cs.depend.ccs_sem.utils.StateSearch.Goal}s),
+ * until the iterator is {@link #reset(Expression) reset} or
+ * {@link #release() released}. Expressions that were already evaluated
+ * before are left untouched.
+ *
+ * One iterator can be reused for any number of states. It must not be used
+ * by several threads, or while the same program is evaluated elsewhere.
+ *
+ * Usage:
+ * <pre>
+ * final SuccessorIterator successors = program.successors(state);
+ * while (successors.advance())
+ *     visit(successors.getLabel(), successors.getTarget());
+ * </pre>
+ */
+public class SuccessorIterator {
+
+    private Action[] actions = new Action[8];
+    private Expression[] targets = new Expression[8];
+    private int size = 0;
+    private int position = -1;
+
+    // the state whose transitions have to be discarded on the next reset
+    private Expression evaluatedState = null;
+    // reused for every state
+    private final LinkedList<Expression> toEvaluate = new LinkedList<Expression>();
+    private final List<Expression> evaluatedHere = new ArrayList<Expression>();
+
+    public SuccessorIterator() {
+        // no state yet
+    }
+
+    public SuccessorIterator(Expression state) {
+        reset(state);
+    }
+
+    /**
+     * Computes the transitions of the given state and moves in front of the
+     * first one.
+     */
+    public void reset(Expression state) {
+        release();
+
+        if (!state.isEvaluated()) {
+            evaluate(state);
+            evaluatedState = state;
+        }
+
+        final List<Transition> transitions = state.getTransitions();
+        size = transitions.size();
+        if (size > actions.length) {
+            actions = new Action[Math.max(size, 2 * actions.length)];
+            targets = new Expression[actions.length];
+        }
+        for (int i = 0; i < size; ++i) {
+            final Transition trans = transitions.get(i);
+            actions[i] = trans.getAction();
+            targets[i] = trans.getTarget();
+        }
+        position = -1;
+    }
+
+    // evaluates the state bottom-up (like SequentialEvaluator), and then
+    // discards the transitions of all subterms that were evaluated here
+    private void evaluate(Expression state) {
+        toEvaluate.add(state);
+        Expression e;
+        while ((e = toEvaluate.peek()) != null) {
+            boolean ready = true;
+            for (final Expression child: e.getChildren()) {
+                if (!child.isEvaluated()) {
+                    toEvaluate.addFirst(child);
+                    ready = false;
+                }
+            }
+            if (!ready)
+                continue;
+            toEvaluate.remove();
+            if (!e.isEvaluated()) {
+                e.evaluate();
+                if (e != state)
+                    evaluatedHere.add(e);
+            }
+        }
+
+        for (final Expression subterm: evaluatedHere)
+            subterm.forgetTransitions();
+        evaluatedHere.clear();
+    }
+
+    /**
+     * Discards the transitions of the current state, if they were computed
+     * by this iterator. Afterwards, the iterator is empty.
+     */
+    public void release() {
+        if (evaluatedState != null) {
+            evaluatedState.forgetTransitions();
+            evaluatedState = null;
+        }
+        for (int i = 0; i < size; ++i) {
+            actions[i] = null;
+            targets[i] = null;
+        }
+        size = 0;
+        position = -1;
+    }
+
+    /**
+     * Moves to the next transition.
+     *
+     * @return <code>false</code> if there is no more transition
+     */
+    public boolean advance() {
+        if (position + 1 >= size)
+            return false;
+        ++position;
+        return true;
+    }
+
+    /**
+     * @return the number of transitions of the current state
+     */
+    public int size() {
+        return size;
+    }
+
+    public Action getAction() {
+        assert position >= 0 && position < size;
+        return actions[position];
+    }
+
+    public String getLabel() {
+        return getAction().getLabel();
+    }
+
+    public Expression getTarget() {
+        assert position >= 0 && position < size;
+        return targets[position];
+    }
+
+}
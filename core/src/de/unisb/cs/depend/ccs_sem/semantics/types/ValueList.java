@@ -3,10 +3,8 @@ package de.unisb.cs.depend.ccs_sem.semantics.types;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.ListIterator;
-import java.util.Map;
 
 import de.unisb.cs.depend.ccs_sem.semantics.types.values.Value;
-import de.unisb.cs.depend.ccs_sem.utils.LazyCreatedMap;
 
 
 public class ValueList extends ArrayList<Value> {
@@ -27,23 +25,19 @@ public class ValueList extends ArrayList<Value> {
 
     @Override
     public int hashCode() {
-        return hashCode(new LazyCreatedMap<ParameterOrProcessEqualsWrapper, Integer>(4));
-    }
-
-    public int hashCode(Map<ParameterOrProcessEqualsWrapper,Integer> parameterOccurences) {
         int result = 1;
         for (final Value val: this)
-            result = 31 * result + (val == null ? 0 : val.hashCode(parameterOccurences));
+            result = 31 * result + (val == null ? 0 : val.hashCode());
         return result;
     }
 
     @Override
     public boolean equals(Object o) {
-        return equals(new LazyCreatedMap<ParameterOrProcessEqualsWrapper, Integer>(4));
+        return equals(o, null);
     }
 
     public boolean equals(Object o,
-            Map<ParameterOrProcessEqualsWrapper,Integer> parameterOccurences) {
+            ParameterBinding binding) {
         if (o == this)
             return true;
         if (o == null)
@@ -56,7 +50,7 @@ public class ValueList extends ArrayList<Value> {
         while (i1.hasNext() && i2.hasNext()) {
             final Value v1 = i1.next();
             final Value v2 = i2.next();
-            if (!(v1==null ? v2==null : v1.equals(v2, parameterOccurences)))
+            if (!(v1==null ? v2==null : v1.equals(v2, binding)))
                 return false;
         }
         return !(i1.hasNext() || i2.hasNext());
@@ -3,12 +3,10 @@ package de.unisb.cs.depend.ccs_sem.semantics.types;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.Iterator;
-import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
 import de.unisb.cs.depend.ccs_sem.semantics.types.values.Value;
-import de.unisb.cs.depend.ccs_sem.utils.LazyCreatedMap;
 
 
 public class ValueSet extends TreeSet<Value> {
@@ -33,24 +31,20 @@ public class ValueSet extends TreeSet<Value> {
 
     @Override
     public int hashCode() {
-        return hashCode(new LazyCreatedMap<ParameterOrProcessEqualsWrapper, Integer>(4));
-    }
-
-    public int hashCode(Map<ParameterOrProcessEqualsWrapper,Integer> parameterOccurences) {
         int result = 1;
         for (final Value val: this)
             if (val != null)
-                result += val.hashCode(parameterOccurences);
+                result += val.hashCode();
         return result;
     }
 
     @Override
     public boolean equals(Object o) {
-        return equals(new LazyCreatedMap<ParameterOrProcessEqualsWrapper, Integer>(4));
+        return equals(o, null);
     }
 
     public boolean equals(Object o,
-            Map<ParameterOrProcessEqualsWrapper,Integer> parameterOccurences) {
+            ParameterBinding binding) {
         if (o == this)
             return true;
         if (o == null)
@@ -67,7 +61,7 @@ public class ValueSet extends TreeSet<Value> {
         while (i1.hasNext() && i2.hasNext()) {
             final Value v1 = i1.next();
             final Value v2 = i2.next();
-            if (!(v1==null ? v2==null : v1.equals(v2, parameterOccurences)))
+            if (!(v1==null ? v2==null : v1.equals(v2, binding)))
                 return false;
         }
         return !(i1.hasNext() || i2.hasNext());
@@ -6,11 +6,10 @@ import java.util.Map;
 import de.unisb.cs.depend.ccs_sem.exceptions.ArithmeticError;
 import de.unisb.cs.depend.ccs_sem.semantics.expressions.Expression;
 import de.unisb.cs.depend.ccs_sem.semantics.types.Parameter;
-import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterOrProcessEqualsWrapper;
+import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterBinding;
 import de.unisb.cs.depend.ccs_sem.semantics.types.Transition;
 import de.unisb.cs.depend.ccs_sem.semantics.types.values.Channel;
 import de.unisb.cs.depend.ccs_sem.semantics.types.values.Value;
-import de.unisb.cs.depend.ccs_sem.utils.LazyCreatedMap;
 
 public abstract class Action implements Comparable<Action> {
 
@@ -70,18 +69,14 @@ public abstract class Action implements Comparable<Action> {
 
     @Override
     public final boolean equals(Object obj) {
-        return equals(obj, new LazyCreatedMap<ParameterOrProcessEqualsWrapper, Integer>(4));
+        return equals(obj, null);
     }
 
     public abstract boolean equals(Object obj,
-            Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences);
+            ParameterBinding binding);
 
     @Override
-    public final int hashCode() {
-        return hashCode(new LazyCreatedMap<ParameterOrProcessEqualsWrapper, Integer>(4));
-    }
-
-    public abstract int hashCode(Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences);
+    public abstract int hashCode();
 
     public Action copy() {
     	Action a = copySubAction();
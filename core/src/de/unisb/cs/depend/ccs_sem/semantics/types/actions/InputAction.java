@@ -6,7 +6,7 @@ import java.util.Map;
 import de.unisb.cs.depend.ccs_sem.exceptions.ArithmeticError;
 import de.unisb.cs.depend.ccs_sem.semantics.expressions.Expression;
 import de.unisb.cs.depend.ccs_sem.semantics.types.Parameter;
-import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterOrProcessEqualsWrapper;
+import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterBinding;
 import de.unisb.cs.depend.ccs_sem.semantics.types.ranges.Range;
 import de.unisb.cs.depend.ccs_sem.semantics.types.values.Channel;
 import de.unisb.cs.depend.ccs_sem.semantics.types.values.ConstIntegerValue;
@@ -151,18 +151,18 @@ public class InputAction extends Action {
     }
 
     @Override
-    public int hashCode(Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
+    public int hashCode() {
         final int prime = 31;
         int result = 1;
-        result = prime * result + channel.hashCode(parameterOccurences);
-        result = prime * result + (param == null ? 0 : param.hashCode(parameterOccurences));
-        result = prime * result + (value == null ? 0 : value.hashCode(parameterOccurences));
+        result = prime * result + channel.hashCode();
+        result = prime * result + (param == null ? 0 : param.bindingHashCode());
+        result = prime * result + (value == null ? 0 : value.hashCode());
         return result;
     }
 
     @Override
     public boolean equals(Object obj,
-            Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
+            ParameterBinding binding) {
         if (this == obj)
             return true;
         if (obj == null)
@@ -170,17 +170,17 @@ public class InputAction extends Action {
         if (getClass() != obj.getClass())
             return false;
         final InputAction other = (InputAction) obj;
-        if (!channel.equals(other.channel, parameterOccurences))
+        if (!channel.equals(other.channel, binding))
             return false;
         if (param == null) {
             if (other.param != null)
                 return false;
-        } else if (!param.equals(other.param, parameterOccurences))
+        } else if (!param.matches(other.param, binding))
             return false;
         if (value == null) {
             if (other.value != null)
                 return false;
-        } else if (!value.equals(other.value, parameterOccurences))
+        } else if (!value.equals(other.value, binding))
             return false;
         return true;
     }
@@ -5,7 +5,7 @@ import java.util.Map;
 import de.unisb.cs.depend.ccs_sem.exceptions.ArithmeticError;
 import de.unisb.cs.depend.ccs_sem.semantics.expressions.Expression;
 import de.unisb.cs.depend.ccs_sem.semantics.types.Parameter;
-import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterOrProcessEqualsWrapper;
+import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterBinding;
 import de.unisb.cs.depend.ccs_sem.semantics.types.values.Channel;
 import de.unisb.cs.depend.ccs_sem.semantics.types.values.ConstIntegerValue;
 import de.unisb.cs.depend.ccs_sem.semantics.types.values.ConstantValue;
@@ -92,17 +92,17 @@ public class OutputAction extends Action {
     }
 
     @Override
-    public int hashCode(Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
+    public int hashCode() {
         final int PRIME = 31;
         int result = 1;
-        result = PRIME * result + channel.hashCode(parameterOccurences);
-        result = PRIME * result + (value == null ? 0 : value.hashCode(parameterOccurences));
+        result = PRIME * result + channel.hashCode();
+        result = PRIME * result + (value == null ? 0 : value.hashCode());
         return result;
     }
 
     @Override
     public boolean equals(Object obj,
-            Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
+            ParameterBinding binding) {
         if (this == obj)
             return true;
         if (obj == null)
@@ -110,12 +110,12 @@ public class OutputAction extends Action {
         if (getClass() != obj.getClass())
             return false;
         final OutputAction other = (OutputAction) obj;
-        if (!channel.equals(other.channel, parameterOccurences))
+        if (!channel.equals(other.channel, binding))
             return false;
         if (value == null) {
             if (other.value != null)
                 return false;
-        } else if (!value.equals(other.value, parameterOccurences))
+        } else if (!value.equals(other.value, binding))
             return false;
         return true;
     }
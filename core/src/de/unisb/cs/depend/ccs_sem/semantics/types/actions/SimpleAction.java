@@ -4,7 +4,7 @@ import java.util.Map;
 
 import de.unisb.cs.depend.ccs_sem.semantics.expressions.Expression;
 import de.unisb.cs.depend.ccs_sem.semantics.types.Parameter;
-import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterOrProcessEqualsWrapper;
+import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterBinding;
 import de.unisb.cs.depend.ccs_sem.semantics.types.values.Channel;
 import de.unisb.cs.depend.ccs_sem.semantics.types.values.Value;
 
@@ -49,13 +49,13 @@ public class SimpleAction extends Action {
     }
 
     @Override
-    public int hashCode(Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
-        return channel.hashCode(parameterOccurences);
+    public int hashCode() {
+        return channel.hashCode();
     }
 
     @Override
     public boolean equals(Object obj,
-            Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
+            ParameterBinding binding) {
         if (this == obj)
             return true;
         if (obj == null)
@@ -63,7 +63,7 @@ public class SimpleAction extends Action {
         if (getClass() != obj.getClass())
             return false;
         final SimpleAction other = (SimpleAction) obj;
-        if (!channel.equals(other.channel, parameterOccurences))
+        if (!channel.equals(other.channel, binding))
             return false;
         return true;
     }
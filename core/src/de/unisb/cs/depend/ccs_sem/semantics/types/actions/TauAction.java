@@ -6,7 +6,7 @@ import javax.sql.rowset.spi.SyncResolver;
 
 import de.unisb.cs.depend.ccs_sem.semantics.expressions.Expression;
 import de.unisb.cs.depend.ccs_sem.semantics.types.Parameter;
-import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterOrProcessEqualsWrapper;
+import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterBinding;
 import de.unisb.cs.depend.ccs_sem.semantics.types.values.Channel;
 import de.unisb.cs.depend.ccs_sem.semantics.types.values.TauChannel;
 import de.unisb.cs.depend.ccs_sem.semantics.types.values.Value;
@@ -67,13 +67,13 @@ public class TauAction extends Action {
     }
 
     @Override
-    public int hashCode(Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
+    public int hashCode() {
         return 11;
     }
 
     @Override
     public boolean equals(Object obj,
-            Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
+            ParameterBinding binding) {
     	return (syncedLeft == null || syncedRight == null || obj == null) ?
     		obj == this :
     		(obj.getClass() == TauAction.class) ?
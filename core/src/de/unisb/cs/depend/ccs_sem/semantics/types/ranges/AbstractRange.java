@@ -5,10 +5,9 @@ import java.util.Map;
 
 import de.unisb.cs.depend.ccs_sem.exceptions.ArithmeticError;
 import de.unisb.cs.depend.ccs_sem.semantics.types.Parameter;
-import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterOrProcessEqualsWrapper;
+import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterBinding;
 import de.unisb.cs.depend.ccs_sem.semantics.types.values.ConstantValue;
 import de.unisb.cs.depend.ccs_sem.semantics.types.values.Value;
-import de.unisb.cs.depend.ccs_sem.utils.LazyCreatedMap;
 
 
 
@@ -51,12 +50,7 @@ public abstract class AbstractRange implements Range {
 
     @Override
     public final boolean equals(Object obj) {
-        return equals(obj, new LazyCreatedMap<ParameterOrProcessEqualsWrapper, Integer>(4));
-    }
-
-    @Override
-    public final int hashCode() {
-        return hashCode(new LazyCreatedMap<ParameterOrProcessEqualsWrapper, Integer>(4));
+        return equals(obj, null);
     }
 
 }
@@ -8,7 +8,7 @@ import java.util.TreeSet;
 
 import de.unisb.cs.depend.ccs_sem.exceptions.ArithmeticError;
 import de.unisb.cs.depend.ccs_sem.semantics.types.Parameter;
-import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterOrProcessEqualsWrapper;
+import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterBinding;
 import de.unisb.cs.depend.ccs_sem.semantics.types.values.ConstantValue;
 import de.unisb.cs.depend.ccs_sem.semantics.types.values.Value;
 
@@ -84,17 +84,18 @@ public class AddRange extends AbstractRange {
         return sb.toString();
     }
 
-    public int hashCode(Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
+    @Override
+    public int hashCode() {
         final int prime = 31;
         int result = 1;
         result = prime * result + (isSub ? 1231 : 1237);
-        result = prime * result + left.hashCode(parameterOccurences);
-        result = prime * result + right.hashCode(parameterOccurences);
+        result = prime * result + left.hashCode();
+        result = prime * result + right.hashCode();
         return result;
     }
 
     public boolean equals(Object obj,
-            Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
+            ParameterBinding binding) {
         if (this == obj)
             return true;
         if (obj == null)
@@ -104,9 +105,9 @@ public class AddRange extends AbstractRange {
         final AddRange other = (AddRange) obj;
         if (isSub != other.isSub)
             return false;
-        if (!left.equals(other.left, parameterOccurences))
+        if (!left.equals(other.left, binding))
             return false;
-        if (!right.equals(other.right, parameterOccurences))
+        if (!right.equals(other.right, binding))
             return false;
         return true;
     }
@@ -2,9 +2,8 @@ package de.unisb.cs.depend.ccs_sem.semantics.types.ranges;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Map;
 
-import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterOrProcessEqualsWrapper;
+import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterBinding;
 import de.unisb.cs.depend.ccs_sem.semantics.types.values.ConstantValue;
 import de.unisb.cs.depend.ccs_sem.semantics.types.values.Value;
 
@@ -43,12 +42,13 @@ public class FullRange extends AbstractRange {
         return "ALL_VALUES";
     }
 
-    public int hashCode(Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
+    @Override
+    public int hashCode() {
         return 19;
     }
 
     public boolean equals(Object obj,
-            Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
+            ParameterBinding binding) {
         return obj == this;
     }
 
@@ -7,7 +7,7 @@ import java.util.Map;
 
 import de.unisb.cs.depend.ccs_sem.exceptions.ArithmeticError;
 import de.unisb.cs.depend.ccs_sem.semantics.types.Parameter;
-import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterOrProcessEqualsWrapper;
+import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterBinding;
 import de.unisb.cs.depend.ccs_sem.semantics.types.values.ConstIntegerValue;
 import de.unisb.cs.depend.ccs_sem.semantics.types.values.ConstantValue;
 import de.unisb.cs.depend.ccs_sem.semantics.types.values.ParameterReference;
@@ -86,16 +86,17 @@ public class IntervalRange extends AbstractRange {
         return sb.toString();
     }
 
-    public int hashCode(Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
+    @Override
+    public int hashCode() {
         final int prime = 31;
         int result = 1;
-        result = prime * result + end.hashCode(parameterOccurences);
-        result = prime * result + start.hashCode(parameterOccurences);
+        result = prime * result + end.hashCode();
+        result = prime * result + start.hashCode();
         return result;
     }
 
     public boolean equals(Object obj,
-            Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
+            ParameterBinding binding) {
         if (this == obj)
             return true;
         if (obj == null)
@@ -103,9 +104,9 @@ public class IntervalRange extends AbstractRange {
         if (getClass() != obj.getClass())
             return false;
         final IntervalRange other = (IntervalRange) obj;
-        if (!end.equals(other.end, parameterOccurences))
+        if (!end.equals(other.end, binding))
             return false;
-        if (!start.equals(other.start, parameterOccurences))
+        if (!start.equals(other.start, binding))
             return false;
         return true;
     }
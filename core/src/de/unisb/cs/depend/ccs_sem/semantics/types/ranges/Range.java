@@ -5,7 +5,7 @@ import java.util.Map;
 
 import de.unisb.cs.depend.ccs_sem.exceptions.ArithmeticError;
 import de.unisb.cs.depend.ccs_sem.semantics.types.Parameter;
-import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterOrProcessEqualsWrapper;
+import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterBinding;
 import de.unisb.cs.depend.ccs_sem.semantics.types.values.ConstantValue;
 import de.unisb.cs.depend.ccs_sem.semantics.types.values.Value;
 
@@ -63,9 +63,7 @@ public interface Range {
      */
     Range instantiate(Map<Parameter, Value> parameters) throws ArithmeticError;
 
-    int hashCode(Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences);
-
     boolean equals(Object obj,
-            Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences);
+            ParameterBinding binding);
 
 }
@@ -8,7 +8,7 @@ import java.util.Map;
 import de.unisb.cs.depend.ccs_sem.exceptions.ArithmeticError;
 import de.unisb.cs.depend.ccs_sem.exceptions.InternalSystemException;
 import de.unisb.cs.depend.ccs_sem.semantics.types.Parameter;
-import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterOrProcessEqualsWrapper;
+import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterBinding;
 import de.unisb.cs.depend.ccs_sem.semantics.types.ValueSet;
 import de.unisb.cs.depend.ccs_sem.semantics.types.values.ConstString;
 import de.unisb.cs.depend.ccs_sem.semantics.types.values.ConstantValue;
@@ -90,21 +90,22 @@ public class SetRange extends AbstractRange {
         return sb.toString();
     }
 
-    public int hashCode(Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
+    @Override
+    public int hashCode() {
         final int prime = 31;
         int result = 1;
-        result = prime * result + values.hashCode(parameterOccurences);
+        result = prime * result + values.hashCode();
         return result;
     }
 
     public boolean equals(Object obj,
-            Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
+            ParameterBinding binding) {
         if (this == obj)
             return true;
         if (getClass() != obj.getClass())
             return false;
         final SetRange other = (SetRange) obj;
-        if (!values.equals(other.values, parameterOccurences))
+        if (!values.equals(other.values, binding))
             return false;
         return true;
     }
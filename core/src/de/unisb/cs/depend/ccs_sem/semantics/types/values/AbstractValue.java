@@ -4,8 +4,7 @@ import java.util.Map;
 
 import de.unisb.cs.depend.ccs_sem.exceptions.ArithmeticError;
 import de.unisb.cs.depend.ccs_sem.semantics.types.Parameter;
-import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterOrProcessEqualsWrapper;
-import de.unisb.cs.depend.ccs_sem.utils.LazyCreatedMap;
+import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterBinding;
 
 
 /**
@@ -36,12 +35,7 @@ public abstract class AbstractValue implements Value {
 
     @Override
     public final boolean equals(Object obj) {
-        return equals(obj, new LazyCreatedMap<ParameterOrProcessEqualsWrapper, Integer>(4));
-    }
-
-    @Override
-    public final int hashCode() {
-        return hashCode(new LazyCreatedMap<ParameterOrProcessEqualsWrapper, Integer>(4));
+        return equals(obj, null);
     }
 
 }
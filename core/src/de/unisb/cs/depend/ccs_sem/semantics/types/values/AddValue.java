@@ -4,7 +4,7 @@ import java.util.Map;
 
 import de.unisb.cs.depend.ccs_sem.exceptions.ArithmeticError;
 import de.unisb.cs.depend.ccs_sem.semantics.types.Parameter;
-import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterOrProcessEqualsWrapper;
+import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterBinding;
 
 
 public class AddValue extends AbstractValue implements IntegerValue {
@@ -61,18 +61,18 @@ public class AddValue extends AbstractValue implements IntegerValue {
         return sb.toString();
     }
 
-    public int hashCode(
-            Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
+    @Override
+    public int hashCode() {
         final int prime = 31;
         int result = 1;
         result = prime * result + (isSubtraction ? 1231 : 1237);
-        result = prime * result + left.hashCode(parameterOccurences);
-        result = prime * result + right.hashCode(parameterOccurences);
+        result = prime * result + left.hashCode();
+        result = prime * result + right.hashCode();
         return result;
     }
 
     public boolean equals(Object obj,
-            Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
+            ParameterBinding binding) {
         if (this == obj)
             return true;
         if (obj == null)
@@ -82,9 +82,9 @@ public class AddValue extends AbstractValue implements IntegerValue {
         final AddValue other = (AddValue) obj;
         if (isSubtraction != other.isSubtraction)
             return false;
-        if (!left.equals(other.left, parameterOccurences))
+        if (!left.equals(other.left, binding))
             return false;
-        if (!right.equals(other.right, parameterOccurences))
+        if (!right.equals(other.right, binding))
             return false;
         return true;
     }
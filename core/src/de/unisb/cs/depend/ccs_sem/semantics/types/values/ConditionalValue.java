@@ -4,7 +4,7 @@ import java.util.Map;
 
 import de.unisb.cs.depend.ccs_sem.exceptions.ArithmeticError;
 import de.unisb.cs.depend.ccs_sem.semantics.types.Parameter;
-import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterOrProcessEqualsWrapper;
+import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterBinding;
 
 
 public class ConditionalValue extends AbstractValue {
@@ -63,17 +63,18 @@ public class ConditionalValue extends AbstractValue {
         return sb.toString();
     }
 
-    public int hashCode(Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
+    @Override
+    public int hashCode() {
         final int prime = 31;
         int result = 16;
-        result = prime * result + condition.hashCode(parameterOccurences);
-        result = prime * result + elseValue.hashCode(parameterOccurences);
-        result = prime * result + thenValue.hashCode(parameterOccurences);
+        result = prime * result + condition.hashCode();
+        result = prime * result + elseValue.hashCode();
+        result = prime * result + thenValue.hashCode();
         return result;
     }
 
     public boolean equals(Object obj,
-            Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
+            ParameterBinding binding) {
         if (this == obj)
             return true;
         if (obj == null)
@@ -81,11 +82,11 @@ public class ConditionalValue extends AbstractValue {
         if (getClass() != obj.getClass())
             return false;
         final ConditionalValue other = (ConditionalValue) obj;
-        if (!condition.equals(other.condition, parameterOccurences))
+        if (!condition.equals(other.condition, binding))
             return false;
-        if (!elseValue.equals(other.elseValue, parameterOccurences))
+        if (!elseValue.equals(other.elseValue, binding))
             return false;
-        if (!thenValue.equals(other.thenValue, parameterOccurences))
+        if (!thenValue.equals(other.thenValue, binding))
             return false;
         return true;
     }
@@ -1,8 +1,7 @@
 package de.unisb.cs.depend.ccs_sem.semantics.types.values;
 
-import java.util.Map;
 
-import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterOrProcessEqualsWrapper;
+import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterBinding;
 
 
 
@@ -34,7 +33,8 @@ public class ConstString extends AbstractValue implements ConstantValue {
         return isQuoted;
     }
 
-    public int hashCode(Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
+    @Override
+    public int hashCode() {
         final int prime = 31;
         int result = 1;
         result = prime * result + (isQuoted ? 1231 : 1237);
@@ -43,7 +43,7 @@ public class ConstString extends AbstractValue implements ConstantValue {
     }
 
     public boolean equals(Object obj,
-            Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
+            ParameterBinding binding) {
         if (this == obj)
             return true;
         if (obj == null)
@@ -3,7 +3,7 @@ package de.unisb.cs.depend.ccs_sem.semantics.types.values;
 import java.util.Map;
 
 import de.unisb.cs.depend.ccs_sem.semantics.types.Parameter;
-import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterOrProcessEqualsWrapper;
+import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterBinding;
 
 
 
@@ -20,8 +20,8 @@ public class ConstStringChannel extends ConstString implements Channel {
     }
 
     @Override
-    public int hashCode(Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
-        return super.hashCode(parameterOccurences);
+    public int hashCode() {
+        return super.hashCode();
     }
 
     public boolean sameChannel(Channel other) {
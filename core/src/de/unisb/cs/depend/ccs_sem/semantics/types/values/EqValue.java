@@ -4,7 +4,7 @@ import java.util.Map;
 
 import de.unisb.cs.depend.ccs_sem.exceptions.ArithmeticError;
 import de.unisb.cs.depend.ccs_sem.semantics.types.Parameter;
-import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterOrProcessEqualsWrapper;
+import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterBinding;
 
 
 public class EqValue extends AbstractValue implements BooleanValue {
@@ -62,17 +62,18 @@ public class EqValue extends AbstractValue implements BooleanValue {
         return sb.toString();
     }
 
-    public int hashCode(Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
+    @Override
+    public int hashCode() {
         final int prime = 31;
         int result = 15;
         result = prime * result + (isNegated ? 1231 : 1237);
-        result = prime * result + left.hashCode(parameterOccurences);
-        result = prime * result + right.hashCode(parameterOccurences);
+        result = prime * result + left.hashCode();
+        result = prime * result + right.hashCode();
         return result;
     }
 
     public boolean equals(Object obj,
-            Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
+            ParameterBinding binding) {
         if (this == obj)
             return true;
         if (obj == null)
@@ -82,9 +83,9 @@ public class EqValue extends AbstractValue implements BooleanValue {
         final EqValue other = (EqValue) obj;
         if (isNegated != other.isNegated)
             return false;
-        if (!left.equals(other.left, parameterOccurences))
+        if (!left.equals(other.left, binding))
             return false;
-        if (!right.equals(other.right, parameterOccurences))
+        if (!right.equals(other.right, binding))
             return false;
         return true;
     }
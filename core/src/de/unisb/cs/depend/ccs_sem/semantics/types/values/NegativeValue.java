@@ -4,7 +4,7 @@ import java.util.Map;
 
 import de.unisb.cs.depend.ccs_sem.exceptions.ArithmeticError;
 import de.unisb.cs.depend.ccs_sem.semantics.types.Parameter;
-import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterOrProcessEqualsWrapper;
+import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterBinding;
 
 
 public class NegativeValue extends AbstractValue implements IntegerValue {
@@ -43,12 +43,13 @@ public class NegativeValue extends AbstractValue implements IntegerValue {
         return needParenthesis ? "-(" + negativeValue + ")" : "-" + negativeValue;
     }
 
-    public int hashCode(Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
-        return 17*31 + negativeValue.hashCode(parameterOccurences);
+    @Override
+    public int hashCode() {
+        return 17*31 + negativeValue.hashCode();
     }
 
     public boolean equals(Object obj,
-            Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
+            ParameterBinding binding) {
         if (this == obj)
             return true;
         if (obj == null)
@@ -56,7 +57,7 @@ public class NegativeValue extends AbstractValue implements IntegerValue {
         if (getClass() != obj.getClass())
             return false;
         final NegativeValue other = (NegativeValue) obj;
-        if (!negativeValue.equals(other.negativeValue, parameterOccurences))
+        if (!negativeValue.equals(other.negativeValue, binding))
             return false;
         return true;
     }
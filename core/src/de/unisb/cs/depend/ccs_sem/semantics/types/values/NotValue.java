@@ -4,7 +4,7 @@ import java.util.Map;
 
 import de.unisb.cs.depend.ccs_sem.exceptions.ArithmeticError;
 import de.unisb.cs.depend.ccs_sem.semantics.types.Parameter;
-import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterOrProcessEqualsWrapper;
+import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterBinding;
 
 
 public class NotValue extends AbstractValue implements BooleanValue {
@@ -43,12 +43,13 @@ public class NotValue extends AbstractValue implements BooleanValue {
         return needParenthesis ? "!(" + negatedValue + ")" : "!" + negatedValue;
     }
 
-    public int hashCode(Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
-        return 13*31 + negatedValue.hashCode(parameterOccurences);
+    @Override
+    public int hashCode() {
+        return 13*31 + negatedValue.hashCode();
     }
 
     public boolean equals(Object obj,
-            Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
+            ParameterBinding binding) {
         if (this == obj)
             return true;
         if (obj == null)
@@ -56,7 +57,7 @@ public class NotValue extends AbstractValue implements BooleanValue {
         if (getClass() != obj.getClass())
             return false;
         final NotValue other = (NotValue) obj;
-        if (!negatedValue.equals(other.negatedValue, parameterOccurences))
+        if (!negatedValue.equals(other.negatedValue, binding))
             return false;
         return true;
     }
@@ -3,7 +3,7 @@ package de.unisb.cs.depend.ccs_sem.semantics.types.values;
 import java.util.Map;
 
 import de.unisb.cs.depend.ccs_sem.semantics.types.Parameter;
-import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterOrProcessEqualsWrapper;
+import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterBinding;
 
 
 public class ParameterRefChannel extends ParameterReference implements Channel {
@@ -30,8 +30,8 @@ public class ParameterRefChannel extends ParameterReference implements Channel {
     }
 
     @Override
-    public int hashCode(Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
-        return super.hashCode(parameterOccurences) + 29;
+    public int hashCode() {
+        return super.hashCode() + 29;
     }
 
     public boolean sameChannel(Channel other) {
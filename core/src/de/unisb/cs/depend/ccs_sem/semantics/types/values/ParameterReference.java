@@ -3,7 +3,7 @@ package de.unisb.cs.depend.ccs_sem.semantics.types.values;
 import java.util.Map;
 
 import de.unisb.cs.depend.ccs_sem.semantics.types.Parameter;
-import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterOrProcessEqualsWrapper;
+import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterBinding;
 
 
 public class ParameterReference extends AbstractValue {
@@ -28,12 +28,13 @@ public class ParameterReference extends AbstractValue {
         return myValue == null ? this : myValue;
     }
 
-    public int hashCode(Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
-        return param.hashCode(parameterOccurences);
+    @Override
+    public int hashCode() {
+        return param.bindingHashCode();
     }
 
     public boolean equals(Object obj,
-            Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
+            ParameterBinding binding) {
         if (this == obj)
             return true;
         if (obj == null)
@@ -41,7 +42,7 @@ public class ParameterReference extends AbstractValue {
         if (getClass() != obj.getClass())
             return false;
         final ParameterReference other = (ParameterReference) obj;
-        if (!param.equals(other.param, parameterOccurences))
+        if (!param.sameReference(other.param, binding))
             return false;
         return true;
     }
@@ -4,7 +4,7 @@ import java.util.Map;
 
 import de.unisb.cs.depend.ccs_sem.exceptions.ArithmeticError;
 import de.unisb.cs.depend.ccs_sem.semantics.types.Parameter;
-import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterOrProcessEqualsWrapper;
+import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterBinding;
 
 
 public interface Value extends Comparable<Value> {
@@ -23,9 +23,7 @@ public interface Value extends Comparable<Value> {
      */
     Value instantiate(Map<Parameter, Value> parameters) throws ArithmeticError;
 
-    int hashCode(Map<ParameterOrProcessEqualsWrapper,Integer> parameterOccurences);
-
     boolean equals(Object obj,
-            Map<ParameterOrProcessEqualsWrapper,Integer> parameterOccurences);
+            ParameterBinding binding);
 
 }
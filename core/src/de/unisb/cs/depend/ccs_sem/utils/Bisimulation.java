@@ -3,6 +3,7 @@ package de.unisb.cs.depend.ccs_sem.utils;
 import java.util.*;
 import java.util.Map.Entry;
 
+import de.unisb.cs.depend.ccs_sem.metrics.EvaluationMetrics;
 import de.unisb.cs.depend.ccs_sem.semantics.expressions.Expression;
 import de.unisb.cs.depend.ccs_sem.semantics.types.Transition;
 import de.unisb.cs.depend.ccs_sem.semantics.types.actions.Action;
@@ -18,6 +19,20 @@ import de.unisb.cs.depend.ccs_sem.semantics.types.actions.TauAction;
  */
 public abstract class Bisimulation {
 
+    /**
+     * The equivalences an LTS can be minimized with (see
+     * {@link de.unisb.cs.depend.ccs_sem.semantics.types.Program#minimizeTransitions(de.unisb.cs.depend.ccs_sem.evaluators.Evaluator, de.unisb.cs.depend.ccs_sem.evaluators.EvaluationMonitor, Equivalence)}).
+     */
+    public enum Equivalence {
+        STRONG,
+        WEAK,
+        /**
+         * Branching bisimulation (see {@link BranchingBisimulation}), a bit
+         * finer than weak bisimulation, but much faster to compute.
+         */
+        BRANCHING
+    }
+
     private Bisimulation() {
         // forbid instantiation
     }
@@ -102,6 +117,7 @@ public abstract class Bisimulation {
                 } else
                     unChangedPartitions.add(partition);
             }
+            EvaluationMetrics.minimizationRound();
             if (changed == 0)
                 break;
 
@@ -0,0 +1,305 @@
+package de.unisb.cs.depend.ccs_sem.utils;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.unisb.cs.depend.ccs_sem.metrics.EvaluationMetrics;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.Expression;
+import de.unisb.cs.depend.ccs_sem.semantics.types.Transition;
+import de.unisb.cs.depend.ccs_sem.semantics.types.actions.Action;
+import de.unisb.cs.depend.ccs_sem.semantics.types.actions.TauAction;
+
+
+/**
+ * Computes the partition of an evaluated LTS w.r.t. (divergence-blind)
+ * branching bisimulation, which is a bit finer than weak bisimulation, but
+ * can be computed much faster: there are no searches for tau-reachable
+ * states as in {@link Bisimulation}.
+ *
+ * First, the strongly connected components w.r.t. tau transitions are
+ * contracted (all their states are branching bisimilar). Then the
+ * partition is refined by signatures: the signature of a state is the set of
+ * its non-inert transitions (action and target block), including those of
+ * the states reachable by inert tau transitions (tau transitions within the
+ * block). As the tau transitions are acyclic after the contraction, these
+ * signatures are computed in one pass per round, in reverse topological
+ * order. The refinement stops as soon as a round does not split a block.
+ */
+public abstract class BranchingBisimulation {
+
+    private BranchingBisimulation() {
+        // forbid instantiation
+    }
+
+    private static final long[] EMPTY = new long[0];
+
+    /**
+     * @param expression an evaluated expression
+     * @return the block of every state reachable from the expression; the
+     *         blocks are numbered from 0, and error states are only in a
+     *         block with other error states
+     * @throws InterruptedException if interrupted during the computation
+     */
+    public static Map<Expression, Integer> computeBlocks(Expression expression)
+            throws InterruptedException {
+        final Map<Expression, Integer> numbers = StateNumerator.numerateStates(expression);
+        final int n = numbers.size();
+        final Expression[] states = new Expression[n];
+        for (final Map.Entry<Expression, Integer> e: numbers.entrySet())
+            states[e.getValue()] = e.getKey();
+
+        // the transitions of each state: target and action id (0 for tau)
+        final int[][] targets = new int[n][];
+        final int[][] actions = new int[n][];
+        final Map<Action, Integer> actionIds = new HashMap<Action, Integer>();
+        for (int s = 0; s < n; ++s) {
+            if (!states[s].isEvaluated())
+                throw new IllegalArgumentException("Expression or one of it's successors is not evaluated.");
+            final List<Transition> transitions = states[s].getTransitions();
+            targets[s] = new int[transitions.size()];
+            actions[s] = new int[transitions.size()];
+            for (int i = 0; i < transitions.size(); ++i) {
+                final Transition trans = transitions.get(i);
+                targets[s][i] = numbers.get(trans.getTarget());
+                if (!(trans.getAction() instanceof TauAction)) {
+                    Integer id = actionIds.get(trans.getAction());
+                    if (id == null)
+                        actionIds.put(trans.getAction(), id = actionIds.size() + 1);
+                    actions[s][i] = id;
+                }
+            }
+        }
+
+        // the tau-SCCs, in reverse topological order
+        final int[] scc = new int[n];
+        final int sccCount = computeTauSCCs(targets, actions, scc);
+        // the states of each SCC
+        final int[][] members = new int[sccCount][];
+        final int[] sizes = new int[sccCount];
+        for (int s = 0; s < n; ++s)
+            ++sizes[scc[s]];
+        for (int c = 0; c < sccCount; ++c)
+            members[c] = new int[sizes[c]];
+        Arrays.fill(sizes, 0);
+        for (int s = 0; s < n; ++s)
+            members[scc[s]][sizes[scc[s]]++] = s;
+
+        // initially, there are (at most) two blocks: error and non-error states
+        int[] block = new int[sccCount];
+        int blockCount = 0;
+        {
+            int errorBlock = -1, nonErrorBlock = -1;
+            for (int c = 0; c < sccCount; ++c) {
+                if (states[members[c][0]].isError()) {
+                    if (errorBlock == -1)
+                        errorBlock = blockCount++;
+                    block[c] = errorBlock;
+                } else {
+                    if (nonErrorBlock == -1)
+                        nonErrorBlock = blockCount++;
+                    block[c] = nonErrorBlock;
+                }
+            }
+        }
+
+        final long[][] signatures = new long[sccCount][];
+        while (true) {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+
+            final Map<Signature, Integer> newBlocks = new HashMap<Signature, Integer>();
+            final int[] newBlock = new int[sccCount];
+            // the SCCs are numbered in reverse topological order, so the
+            // signatures of the inert successors are always computed before
+            for (int c = 0; c < sccCount; ++c) {
+                long[] sig = EMPTY;
+                final long[] own = new long[countTransitions(members[c], targets)];
+                int ownCount = 0;
+                for (final int s: members[c]) {
+                    for (int i = 0; i < targets[s].length; ++i) {
+                        final int target = scc[targets[s][i]];
+                        if (actions[s][i] == 0 && block[target] == block[c]) {
+                            // inert tau transition
+                            if (target != c)
+                                sig = merge(sig, signatures[target]);
+                        } else
+                            own[ownCount++] = ((long) actions[s][i] << 32) | block[target];
+                    }
+                }
+                Arrays.sort(own, 0, ownCount);
+                sig = merge(sig, unique(own, ownCount));
+                signatures[c] = sig;
+
+                final Signature key = new Signature(block[c], sig);
+                Integer id = newBlocks.get(key);
+                if (id == null)
+                    newBlocks.put(key, id = newBlocks.size());
+                newBlock[c] = id;
+            }
+            EvaluationMetrics.minimizationRound();
+
+            final boolean stable = newBlocks.size() == blockCount;
+            block = newBlock;
+            blockCount = newBlocks.size();
+            if (stable)
+                break;
+        }
+
+        final Map<Expression, Integer> blocks = new HashMap<Expression, Integer>(1 + n * 4 / 3);
+        for (int s = 0; s < n; ++s)
+            blocks.put(states[s], block[scc[s]]);
+        return blocks;
+    }
+
+    private static int countTransitions(int[] members, int[][] targets) {
+        int count = 0;
+        for (final int s: members)
+            count += targets[s].length;
+        return count;
+    }
+
+    // removes duplicates from a sorted array
+    private static long[] unique(long[] a, int length) {
+        int count = 0;
+        for (int i = 0; i < length; ++i)
+            if (i == 0 || a[i] != a[i - 1])
+                a[count++] = a[i];
+        if (count == a.length)
+            return a;
+        final long[] result = new long[count];
+        System.arraycopy(a, 0, result, 0, count);
+        return result;
+    }
+
+    // merges two sorted arrays without duplicates
+    private static long[] merge(long[] a, long[] b) {
+        if (a.length == 0)
+            return b;
+        if (b.length == 0)
+            return a;
+        final long[] result = new long[a.length + b.length];
+        int i = 0, j = 0, k = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j])
+                result[k++] = a[i++];
+            else if (a[i] > b[j])
+                result[k++] = b[j++];
+            else {
+                result[k++] = a[i++];
+                ++j;
+            }
+        }
+        while (i < a.length)
+            result[k++] = a[i++];
+        while (j < b.length)
+            result[k++] = b[j++];
+        if (k == result.length)
+            return result;
+        final long[] trimmed = new long[k];
+        System.arraycopy(result, 0, trimmed, 0, k);
+        return trimmed;
+    }
+
+    /**
+     * Computes the strongly connected components w.r.t. tau transitions
+     * (Tarjan's algorithm, without recursion). The components are numbered
+     * in the order they are completed, i.e. every component reachable from
+     * another one has a smaller number.
+     *
+     * @return the number of components
+     */
+    private static int computeTauSCCs(int[][] targets, int[][] actions, int[] scc) {
+        final int n = targets.length;
+        final int[] index = new int[n];
+        final int[] lowlink = new int[n];
+        Arrays.fill(index, -1);
+        final int[] sccStack = new int[n];
+        int sccStackSize = 0;
+        final boolean[] onStack = new boolean[n];
+        // the DFS stack: state and index of the next transition
+        final int[] dfsState = new int[n];
+        final int[] dfsEdge = new int[n];
+        int nextIndex = 0;
+        int count = 0;
+
+        for (int root = 0; root < n; ++root) {
+            if (index[root] != -1)
+                continue;
+            int depth = 0;
+            dfsState[0] = root;
+            dfsEdge[0] = 0;
+            index[root] = lowlink[root] = nextIndex++;
+            sccStack[sccStackSize++] = root;
+            onStack[root] = true;
+            while (depth >= 0) {
+                final int s = dfsState[depth];
+                if (dfsEdge[depth] < targets[s].length) {
+                    final int i = dfsEdge[depth]++;
+                    if (actions[s][i] != 0)
+                        continue;
+                    final int t = targets[s][i];
+                    if (index[t] == -1) {
+                        index[t] = lowlink[t] = nextIndex++;
+                        sccStack[sccStackSize++] = t;
+                        onStack[t] = true;
+                        ++depth;
+                        dfsState[depth] = t;
+                        dfsEdge[depth] = 0;
+                    } else if (onStack[t] && index[t] < lowlink[s])
+                        lowlink[s] = index[t];
+                    continue;
+                }
+                // all transitions of s are done
+                if (lowlink[s] == index[s]) {
+                    int t;
+                    do {
+                        t = sccStack[--sccStackSize];
+                        onStack[t] = false;
+                        scc[t] = count;
+                    } while (t != s);
+                    ++count;
+                }
+                --depth;
+                if (depth >= 0) {
+                    final int parent = dfsState[depth];
+                    if (lowlink[s] < lowlink[parent])
+                        lowlink[parent] = lowlink[s];
+                }
+            }
+        }
+        return count;
+    }
+
+    private static class Signature {
+
+        private final int block;
+        private final long[] transitions;
+        private final int hash;
+
+        public Signature(int block, long[] transitions) {
+            this.block = block;
+            this.transitions = transitions;
+            this.hash = 31 * block + Arrays.hashCode(transitions);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof Signature))
+                return false;
+            final Signature other = (Signature) obj;
+            return block == other.block && hash == other.hash
+                && Arrays.equals(transitions, other.transitions);
+        }
+
+    }
+
+}
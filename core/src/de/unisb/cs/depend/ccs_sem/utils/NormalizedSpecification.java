@@ -0,0 +1,222 @@
+package de.unisb.cs.depend.ccs_sem.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import de.unisb.cs.depend.ccs_sem.evaluators.Evaluator;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.Expression;
+import de.unisb.cs.depend.ccs_sem.semantics.types.Transition;
+import de.unisb.cs.depend.ccs_sem.semantics.types.actions.TauAction;
+
+
+/**
+ * The normal form of an LTS w.r.t. traces, built on the fly: its states are
+ * the sets of states the LTS can be in after a trace (closed under tau
+ * steps), and it is deterministic.
+ *
+ * The states of the LTS are evaluated when they are reached the first time.
+ * The sets are interned and their successors cached, so that a set is only
+ * computed once for every label.
+ */
+class NormalizedSpecification {
+
+    // no successors are cached any more if there are that many sets of states
+    private static final int MAX_CACHED_SETS = 1 << 16;
+
+    private final Evaluator evaluator;
+    private final StateSet initial;
+
+    private final Map<Expression, Integer> numbers = new HashMap<Expression, Integer>();
+    private final List<Expression> states = new ArrayList<Expression>();
+    // the states reachable by tau steps, for every state (sorted)
+    private final List<int[]> closures = new ArrayList<int[]>();
+    private final Map<StateSet, StateSet> stateSets = new HashMap<StateSet, StateSet>();
+    private final Map<String, Integer> labelIds = new HashMap<String, Integer>();
+    private final List<String> labels = new ArrayList<String>();
+
+    /**
+     * @throws InterruptedException if interrupted while evaluating the
+     *         initial state
+     * @throws IllegalStateException if the evaluator reports an error
+     */
+    public NormalizedSpecification(Evaluator evaluator, Expression start)
+            throws InterruptedException {
+        this.evaluator = evaluator;
+        this.initial = intern(new StateSet(closure(number(start))));
+    }
+
+    public StateSet getInitial() {
+        return initial;
+    }
+
+    public int getLabelId(String label) {
+        Integer id = labelIds.get(label);
+        if (id == null) {
+            id = labels.size();
+            labelIds.put(label, id);
+            labels.add(label);
+        }
+        return id;
+    }
+
+    public String getLabel(int id) {
+        return labels.get(id);
+    }
+
+    /**
+     * @return the set of states reached from <code>current</code> by the
+     *         label (and tau steps), which is empty if the label is not
+     *         allowed
+     * @throws InterruptedException if interrupted while evaluating states
+     * @throws IllegalStateException if the evaluator reports an error
+     */
+    public StateSet getSuccessor(StateSet current, int label) throws InterruptedException {
+        if (label < current.successors.length && current.successors[label] != null)
+            return current.successors[label];
+
+        final StateSet next = computeSuccessor(current, labels.get(label));
+        if (stateSets.size() < MAX_CACHED_SETS) {
+            if (label >= current.successors.length) {
+                final StateSet[] newSuccessors = new StateSet[Math.max(label + 1,
+                    2 * current.successors.length)];
+                System.arraycopy(current.successors, 0, newSuccessors, 0,
+                    current.successors.length);
+                current.successors = newSuccessors;
+            }
+            current.successors[label] = next;
+        }
+        return next;
+    }
+
+    /**
+     * @return the labels of the visible transitions of the states in the set
+     */
+    public Set<String> getEnabledLabels(StateSet set) {
+        final Set<String> enabled = new TreeSet<String>();
+        for (final int state: set.states)
+            for (final Transition trans: states.get(state).getTransitions())
+                if (!(trans.getAction() instanceof TauAction))
+                    enabled.add(trans.getAction().getLabel());
+        return enabled;
+    }
+
+    /**
+     * @return the number of states of the LTS visited so far
+     */
+    public int getStateCount() {
+        return states.size();
+    }
+
+    private StateSet computeSuccessor(StateSet current, String label) throws InterruptedException {
+        final BitSet successors = new BitSet(states.size());
+        for (final int state: current.states) {
+            for (final Transition trans: states.get(state).getTransitions()) {
+                if (trans.getAction() instanceof TauAction
+                        || !label.equals(trans.getAction().getLabel()))
+                    continue;
+                final int target = number(trans.getTarget());
+                if (successors.get(target))
+                    continue;
+                for (final int s: closure(target))
+                    successors.set(s);
+            }
+        }
+        final int[] array = new int[successors.cardinality()];
+        for (int s = successors.nextSetBit(0), i = 0; s >= 0; s = successors.nextSetBit(s + 1))
+            array[i++] = s;
+        final StateSet set = new StateSet(array);
+        return stateSets.size() < MAX_CACHED_SETS ? intern(set) : set;
+    }
+
+    private StateSet intern(StateSet set) {
+        final StateSet old = stateSets.get(set);
+        if (old != null)
+            return old;
+        stateSets.put(set, set);
+        return set;
+    }
+
+    // numbers the state and evaluates it if necessary
+    private int number(Expression state) throws InterruptedException {
+        final Integer number = numbers.get(state);
+        if (number != null)
+            return number;
+        if (!state.isEvaluated() && !evaluator.evaluate(state))
+            throw new IllegalStateException("Error evaluating the states of the LTS.");
+        numbers.put(state, states.size());
+        states.add(state);
+        closures.add(null);
+        return states.size() - 1;
+    }
+
+    private int[] closure(int state) throws InterruptedException {
+        int[] closure = closures.get(state);
+        if (closure != null)
+            return closure;
+
+        final BitSet reached = new BitSet();
+        final List<Integer> stack = new ArrayList<Integer>();
+        reached.set(state);
+        stack.add(state);
+        while (!stack.isEmpty()) {
+            final int s = stack.remove(stack.size() - 1);
+            for (final Transition trans: states.get(s).getTransitions()) {
+                if (!(trans.getAction() instanceof TauAction))
+                    continue;
+                final int target = number(trans.getTarget());
+                if (!reached.get(target)) {
+                    reached.set(target);
+                    stack.add(target);
+                }
+            }
+        }
+        closure = new int[reached.cardinality()];
+        for (int s = reached.nextSetBit(0), i = 0; s >= 0; s = reached.nextSetBit(s + 1))
+            closure[i++] = s;
+        closures.set(state, closure);
+        return closure;
+    }
+
+    /**
+     * A set of states of the LTS (a state of the normal form).
+     */
+    static class StateSet {
+
+        final int[] states;
+        private final int hash;
+        // the successor for each label id (null if not computed yet)
+        StateSet[] successors = new StateSet[0];
+
+        public StateSet(int[] states) {
+            this.states = states;
+            this.hash = Arrays.hashCode(states);
+        }
+
+        public boolean isEmpty() {
+            return states.length == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof StateSet))
+                return false;
+            final StateSet other = (StateSet) obj;
+            return hash == other.hash && Arrays.equals(states, other.states);
+        }
+
+    }
+
+}
@@ -0,0 +1,361 @@
+package de.unisb.cs.depend.ccs_sem.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import de.unisb.cs.depend.ccs_sem.evaluators.Evaluator;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.Expression;
+import de.unisb.cs.depend.ccs_sem.semantics.types.Transition;
+import de.unisb.cs.depend.ccs_sem.semantics.types.actions.TauAction;
+
+
+/**
+ * Checks whether two states are strongly or weakly bisimilar, without
+ * evaluating and minimizing both LTSs completely (as {@link Bisimulation}
+ * does).
+ *
+ * The pairs of states are explored in a depth-first search from the pair of
+ * initial states, evaluating the states on demand. A pair is assumed to be
+ * bisimilar while its successors are checked, and it is refuted if one
+ * side has a transition the other side cannot answer with a pair that is
+ * (assumed to be) bisimilar. Refutations are always correct; if a refuted
+ * pair has been assumed by other pairs in the meantime, the search is
+ * repeated (with the refuted pairs kept). So the search stops as soon as
+ * the initial pair is refuted, and for every refuted pair the move that
+ * refuted it is stored, which gives a distinguishing trace.
+ */
+public class OnTheFlyBisimulation {
+
+    /**
+     * One step of a distinguishing trace: a transition of one side that
+     * the other side cannot answer with a bisimilar pair.
+     */
+    public static class Step {
+
+        private final boolean first;
+        private final Transition transition;
+        private final List<Expression> answers;
+
+        public Step(boolean first, Transition transition, List<Expression> answers) {
+            this.first = first;
+            this.transition = transition;
+            this.answers = answers;
+        }
+
+        /**
+         * @return <code>true</code> if the transition is one of the first
+         *         state, <code>false</code> if it is one of the second (or,
+         *         if there is no transition, which one is the error state)
+         */
+        public boolean isFirst() {
+            return first;
+        }
+
+        /**
+         * @return the transition, or <code>null</code> if one of the states
+         *         is an error state and the other one is not
+         */
+        public Transition getTransition() {
+            return transition;
+        }
+
+        /**
+         * @return the states the other side can reach with the same action
+         *         (none of them is bisimilar to the target of the transition)
+         */
+        public List<Expression> getAnswers() {
+            return answers;
+        }
+
+        @Override
+        public String toString() {
+            if (transition == null)
+                return (first ? "first" : "second") + " is an error state, the other one is not";
+            return (first ? "first" : "second") + ": --" + transition.getAction().getLabel()
+                + "-> " + transition.getTarget() + (answers.isEmpty()
+                    ? " (cannot be answered)"
+                    : " (" + answers.size() + " answer" + (answers.size() == 1 ? "" : "s") + ")");
+        }
+
+    }
+
+    // a pair whose transitions are being answered
+    private static class Frame {
+
+        private final Expression first;
+        private final Expression second;
+        private final Pair<Expression, Expression> pair;
+        // whether the transitions of the second state are answered
+        private boolean secondSide = false;
+        private List<Transition> transitions;
+        private int nextTransition = 0;
+        // the transition being answered, and its possible answers (null if
+        // the next transition is due)
+        private Transition trans = null;
+        private List<Expression> answers = null;
+        private int nextAnswer = 0;
+
+        public Frame(Expression first, Expression second, Pair<Expression, Expression> pair) {
+            this.first = first;
+            this.second = second;
+            this.pair = pair;
+        }
+
+    }
+
+    private final Evaluator evaluator;
+    private final boolean weak;
+
+    private final Map<Pair<Expression, Expression>, Step> refuted =
+        new HashMap<Pair<Expression, Expression>, Step>();
+    private final Set<Pair<Expression, Expression>> assumed =
+        new HashSet<Pair<Expression, Expression>>();
+    // the assumed pairs whose assumption was used by other pairs
+    private final Set<Pair<Expression, Expression>> used =
+        new HashSet<Pair<Expression, Expression>>();
+    private boolean repeat = false;
+    private final Map<Expression, Set<Expression>> tauClosures =
+        new HashMap<Expression, Set<Expression>>();
+
+    // the outcome of the last check
+    private List<Step> distinguishingTrace = null;
+    private int exploredPairs = 0;
+    private int rounds = 0;
+
+    /**
+     * @param evaluator evaluates the states on demand
+     * @param weak <code>true</code> for weak bisimulation (tau steps of the
+     *        answering side are not visible), <code>false</code> for strong
+     *        bisimulation
+     */
+    public OnTheFlyBisimulation(Evaluator evaluator, boolean weak) {
+        this.evaluator = evaluator;
+        this.weak = weak;
+    }
+
+    /**
+     * @return <code>true</code> if both states are bisimilar; otherwise, a
+     *         distinguishing trace is available via
+     *         {@link #getDistinguishingTrace()}
+     * @throws InterruptedException if the check is interrupted
+     * @throws IllegalStateException if the evaluator reports an error
+     */
+    public boolean check(Expression first, Expression second) throws InterruptedException {
+        refuted.clear();
+        tauClosures.clear();
+        distinguishingTrace = null;
+        exploredPairs = 0;
+        rounds = 0;
+
+        boolean bisimilar;
+        do {
+            ++rounds;
+            assumed.clear();
+            used.clear();
+            repeat = false;
+            bisimilar = bisimilar(first, second);
+        } while (bisimilar && repeat);
+
+        assumed.clear();
+        used.clear();
+        if (!bisimilar)
+            distinguishingTrace = buildTrace(first, second);
+        return bisimilar;
+    }
+
+    // the depth-first search uses an explicit stack, since the pairs of long
+    // paths would overflow the call stack
+    private boolean bisimilar(Expression first, Expression second) throws InterruptedException {
+        final List<Frame> stack = new ArrayList<Frame>();
+        Boolean result = enter(first, second, stack);
+        while (result == null) {
+            final Frame frame = stack.get(stack.size() - 1);
+            Step refutation = null;
+            boolean descended = false;
+            while (true) {
+                if (frame.answers == null) {
+                    // the next transition to answer
+                    if (frame.nextTransition == frame.transitions.size()) {
+                        if (frame.secondSide)
+                            break;
+                        frame.secondSide = true;
+                        frame.transitions = getTransitions(frame.second);
+                        frame.nextTransition = 0;
+                        continue;
+                    }
+                    frame.trans = frame.transitions.get(frame.nextTransition++);
+                    frame.answers = getAnswers(frame.secondSide ? frame.first : frame.second,
+                        frame.trans);
+                    frame.nextAnswer = 0;
+                }
+                if (frame.nextAnswer == frame.answers.size()) {
+                    refutation = new Step(!frame.secondSide, frame.trans, frame.answers);
+                    break;
+                }
+                final Expression answer = frame.answers.get(frame.nextAnswer++);
+                final Boolean answered = frame.secondSide
+                    ? enter(answer, frame.trans.getTarget(), stack)
+                    : enter(frame.trans.getTarget(), answer, stack);
+                if (answered == null) {
+                    descended = true;
+                    break;
+                }
+                if (answered)
+                    frame.answers = null;
+            }
+            if (descended)
+                continue;
+
+            // the pair of this frame is decided, continue with its parent
+            stack.remove(stack.size() - 1);
+            final boolean decided = leave(frame, refutation);
+            if (stack.isEmpty())
+                result = decided;
+            else if (decided)
+                // the transition of the parent is answered
+                stack.get(stack.size() - 1).answers = null;
+        }
+        return result;
+    }
+
+    // decides the pair if possible, otherwise starts exploring it; returns
+    // null in the latter case
+    private Boolean enter(Expression first, Expression second, List<Frame> stack)
+            throws InterruptedException {
+        if (first.equals(second))
+            return true;
+        final Pair<Expression, Expression> pair = new Pair<Expression, Expression>(first, second);
+        if (refuted.containsKey(pair))
+            return false;
+        if (assumed.contains(pair)) {
+            used.add(pair);
+            return true;
+        }
+        if (Thread.interrupted())
+            throw new InterruptedException();
+
+        ++exploredPairs;
+        assumed.add(pair);
+        final Frame frame = new Frame(first, second, pair);
+        // as in Bisimulation, error states are only bisimilar to error states
+        if (first.isError() != second.isError())
+            return leave(frame, new Step(first.isError(), null, Collections.<Expression>emptyList()));
+        frame.transitions = getTransitions(first);
+        stack.add(frame);
+        return null;
+    }
+
+    // the refutation is null if every transition of one side can be
+    // answered by the other one
+    private boolean leave(Frame frame, Step refutation) {
+        if (refutation == null)
+            return true;
+        assumed.remove(frame.pair);
+        refuted.put(frame.pair, refutation);
+        if (used.contains(frame.pair))
+            repeat = true;
+        return false;
+    }
+
+    private List<Transition> getTransitions(Expression state) throws InterruptedException {
+        if (!state.isEvaluated() && !evaluator.evaluate(state))
+            throw new IllegalStateException("Error evaluating the states of the LTS.");
+        return state.getTransitions();
+    }
+
+    // the states reachable from the state by the action of the transition
+    private List<Expression> getAnswers(Expression state, Transition trans) throws InterruptedException {
+        final boolean tau = trans.getAction() instanceof TauAction;
+        final String label = trans.getAction().getLabel();
+        if (!weak) {
+            final List<Expression> answers = new ArrayList<Expression>();
+            for (final Transition t: getTransitions(state))
+                if (tau ? t.getAction() instanceof TauAction
+                        : !(t.getAction() instanceof TauAction) && label.equals(t.getAction().getLabel()))
+                    answers.add(t.getTarget());
+            return answers;
+        }
+
+        // weak: tau* a tau*, or tau* for a tau step
+        if (tau)
+            return new ArrayList<Expression>(getTauClosure(state));
+        final Set<Expression> answers = new LinkedHashSet<Expression>();
+        for (final Expression before: getTauClosure(state))
+            for (final Transition t: getTransitions(before))
+                if (!(t.getAction() instanceof TauAction) && label.equals(t.getAction().getLabel()))
+                    answers.addAll(getTauClosure(t.getTarget()));
+        return new ArrayList<Expression>(answers);
+    }
+
+    private Set<Expression> getTauClosure(Expression state) throws InterruptedException {
+        Set<Expression> closure = tauClosures.get(state);
+        if (closure != null)
+            return closure;
+
+        closure = new LinkedHashSet<Expression>();
+        closure.add(state);
+        final List<Expression> stack = new ArrayList<Expression>();
+        stack.add(state);
+        while (!stack.isEmpty()) {
+            final Expression e = stack.remove(stack.size() - 1);
+            for (final Transition t: getTransitions(e))
+                if (t.getAction() instanceof TauAction && closure.add(t.getTarget()))
+                    stack.add(t.getTarget());
+        }
+        tauClosures.put(state, closure);
+        return closure;
+    }
+
+    // follows the refuting moves, always taking the first answer
+    private List<Step> buildTrace(Expression first, Expression second) {
+        final List<Step> trace = new ArrayList<Step>();
+        Step step = refuted.get(new Pair<Expression, Expression>(first, second));
+        while (step != null && trace.size() <= refuted.size()) {
+            trace.add(step);
+            if (step.getAnswers().isEmpty() || step.getTransition() == null)
+                break;
+            if (step.isFirst()) {
+                first = step.getTransition().getTarget();
+                second = step.getAnswers().get(0);
+            } else {
+                first = step.getAnswers().get(0);
+                second = step.getTransition().getTarget();
+            }
+            step = refuted.get(new Pair<Expression, Expression>(first, second));
+        }
+        return trace;
+    }
+
+    /**
+     * @return the distinguishing trace found by the last check (the moves
+     *         refuting the bisimilarity, each time following the first
+     *         answer of the other side), or <code>null</code> if the states
+     *         were bisimilar
+     */
+    public List<Step> getDistinguishingTrace() {
+        return distinguishingTrace == null ? null
+            : Collections.unmodifiableList(distinguishingTrace);
+    }
+
+    /**
+     * @return the number of pairs explored by the last check (pairs that
+     *         were explored again after a refuted assumption count again)
+     */
+    public int getExploredPairs() {
+        return exploredPairs;
+    }
+
+    /**
+     * @return the number of depth-first searches the last check needed
+     */
+    public int getRounds() {
+        return rounds;
+    }
+
+}
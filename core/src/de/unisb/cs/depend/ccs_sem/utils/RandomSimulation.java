@@ -0,0 +1,409 @@
+package de.unisb.cs.depend.ccs_sem.utils;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.Expression;
+import de.unisb.cs.depend.ccs_sem.semantics.types.SuccessorIterator;
+import de.unisb.cs.depend.ccs_sem.semantics.types.actions.Action;
+
+
+/**
+ * Estimates properties of an LTS that is too big to be evaluated completely,
+ * by simulating many random walks of bounded length (Monte Carlo
+ * simulation). In every step, one of the outgoing transitions of the
+ * current state is chosen uniformly at random. A walk ends at an error
+ * state, at a deadlock or after the maximum number of steps.
+ *
+ * The states are only evaluated when a walk reaches them, using a
+ * {@link SuccessorIterator}, so the expressions do not keep their
+ * transitions. Instead, the transitions of the most recently visited states
+ * are kept in a cache of bounded size for later walks, so the memory does
+ * not grow with the number of visited states. The walks are distributed over
+ * several threads, each with its own random number generator, but the
+ * states are evaluated by one thread at a time. Every walk gets its own
+ * seed, derived from the seed of the simulation and the number of the walk,
+ * so the result only depends on the seed, not on the number of threads,
+ * their scheduling or the cache size.
+ *
+ * The program must not be evaluated elsewhere during the simulation.
+ */
+public class RandomSimulation {
+
+    // the number of walks a thread takes at once
+    private static final int CHUNK_SIZE = 256;
+
+    private long walks = 10000;
+    private int maxLength = 100;
+    private long seed = 0;
+    private int threads = 0;
+    private int cachedStates = 10000;
+
+    private final AtomicLong nextWalk = new AtomicLong();
+    private volatile Throwable failure = null;
+
+    public long getWalks() {
+        return walks;
+    }
+
+    public void setWalks(long walks) {
+        if (walks < 1)
+            throw new IllegalArgumentException("Need at least one walk");
+        this.walks = walks;
+    }
+
+    public int getMaxLength() {
+        return maxLength;
+    }
+
+    /**
+     * @param maxLength the maximum number of steps of a walk
+     */
+    public void setMaxLength(int maxLength) {
+        if (maxLength < 0)
+            throw new IllegalArgumentException("The length must not be negative");
+        this.maxLength = maxLength;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * @param threads the number of threads to use, or <code>0</code> for one
+     *                per available processor
+     */
+    public void setThreads(int threads) {
+        if (threads < 0)
+            throw new IllegalArgumentException("threads must not be negative");
+        this.threads = threads;
+    }
+
+    public int getCachedStates() {
+        return cachedStates;
+    }
+
+    /**
+     * @param cachedStates the maximum number of states whose transitions are
+     *                     kept for later walks
+     */
+    public void setCachedStates(int cachedStates) {
+        if (cachedStates < 0)
+            throw new IllegalArgumentException("The cache size must not be negative");
+        this.cachedStates = cachedStates;
+    }
+
+    /**
+     * Runs the simulation starting in the given state.
+     *
+     * @return the aggregated statistics of all walks
+     * @throws InterruptedException if the simulation is interrupted
+     * @throws IllegalStateException if a state cannot be evaluated
+     */
+    public Result run(final Expression start) throws InterruptedException {
+        nextWalk.set(0);
+        failure = null;
+        final SuccessorCache cache = new SuccessorCache(cachedStates);
+
+        final int threadCount = Math.max(1, (int) Math.min(walks / CHUNK_SIZE + 1,
+            threads == 0 ? Runtime.getRuntime().availableProcessors() : threads));
+        final Result[] results = new Result[threadCount];
+        final Thread[] simulators = new Thread[threadCount];
+        for (int i = 0; i < threadCount; ++i) {
+            final Result result = results[i] = new Result(maxLength);
+            simulators[i] = new Thread("randomSimulation-" + i) {
+                @Override
+                public void run() {
+                    try {
+                        simulate(start, cache, result);
+                    } catch (final InterruptedException e) {
+                        // terminate
+                    } catch (final Throwable t) {
+                        failure = t;
+                    }
+                }
+            };
+            simulators[i].setDaemon(true);
+            simulators[i].start();
+        }
+
+        try {
+            for (final Thread simulator: simulators)
+                simulator.join();
+        } catch (final InterruptedException e) {
+            for (final Thread simulator: simulators)
+                simulator.interrupt();
+            throw e;
+        }
+        if (failure != null)
+            throw new IllegalStateException("Error during the simulation.", failure);
+
+        final Result result = new Result(maxLength);
+        for (final Result partialResult: results)
+            result.add(partialResult);
+        return result;
+    }
+
+    private void simulate(Expression start, SuccessorCache cache, Result result)
+            throws InterruptedException {
+        final Random random = new Random();
+        long walk;
+        while ((walk = nextWalk.getAndAdd(CHUNK_SIZE)) < walks) {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            final long end = Math.min(walk + CHUNK_SIZE, walks);
+            for (; walk < end; ++walk) {
+                random.setSeed(getWalkSeed(seed, walk));
+                simulateWalk(start, cache, random, result);
+            }
+        }
+    }
+
+    private void simulateWalk(Expression start, SuccessorCache cache,
+            Random random, Result result) {
+        Expression state = start;
+        for (int step = 0; ; ++step) {
+            if (state.isError()) {
+                result.walkEnded(step, Result.ERROR);
+                return;
+            }
+            final Successors successors = cache.getSuccessors(state);
+            if (successors.actions.length == 0) {
+                result.walkEnded(step, Result.DEADLOCK);
+                return;
+            }
+            if (step == maxLength) {
+                result.walkEnded(step, Result.LENGTH);
+                return;
+            }
+            final int chosen = random.nextInt(successors.actions.length);
+            result.actionTaken(successors.actions[chosen].getLabel());
+            state = successors.targets[chosen];
+        }
+    }
+
+    // a well-distributed seed for every walk (SplitMix64)
+    private static long getWalkSeed(long seed, long walk) {
+        long z = seed + (walk + 1) * 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    // the outgoing transitions of a state
+    private static class Successors {
+
+        public final Action[] actions;
+        public final Expression[] targets;
+
+        public Successors(SuccessorIterator successors) {
+            actions = new Action[successors.size()];
+            targets = new Expression[successors.size()];
+            for (int i = 0; successors.advance(); ++i) {
+                actions[i] = successors.getAction();
+                targets[i] = successors.getTarget();
+            }
+        }
+
+    }
+
+    // the transitions of the most recently visited states. The states are
+    // evaluated by one thread at a time, since they share their subterms.
+    private static class SuccessorCache extends LinkedHashMap<Expression, Successors> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int maxSize;
+        private final SuccessorIterator successorIterator = new SuccessorIterator();
+
+        public SuccessorCache(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        public synchronized Successors getSuccessors(Expression state) {
+            Successors successors = get(state);
+            if (successors == null) {
+                successorIterator.reset(state);
+                successors = new Successors(successorIterator);
+                // discard the transitions that the iterator computed
+                successorIterator.release();
+                put(state, successors);
+            }
+            return successors;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Entry<Expression, Successors> eldest) {
+            return size() > maxSize;
+        }
+
+    }
+
+    /**
+     * The statistics of the walks of a simulation.
+     */
+    public static class Result {
+
+        protected static final int ERROR = 0;
+        protected static final int DEADLOCK = 1;
+        protected static final int LENGTH = 2;
+
+        private final int maxLength;
+        private long walks = 0;
+        private long steps = 0;
+        // indexed by the reason why the walk ended
+        private final long[] endedWalks = new long[3];
+        private final long[] endedSteps = new long[3];
+        private final Map<String, long[]> actionCounts = new HashMap<String, long[]>();
+
+        protected Result(int maxLength) {
+            this.maxLength = maxLength;
+        }
+
+        protected void actionTaken(String label) {
+            final long[] count = actionCounts.get(label);
+            if (count == null)
+                actionCounts.put(label, new long[] { 1 });
+            else
+                ++count[0];
+        }
+
+        protected void walkEnded(int length, int reason) {
+            ++walks;
+            steps += length;
+            ++endedWalks[reason];
+            endedSteps[reason] += length;
+        }
+
+        protected void add(Result other) {
+            walks += other.walks;
+            steps += other.steps;
+            for (int i = 0; i < endedWalks.length; ++i) {
+                endedWalks[i] += other.endedWalks[i];
+                endedSteps[i] += other.endedSteps[i];
+            }
+            for (final Entry<String, long[]> e: other.actionCounts.entrySet()) {
+                final long[] count = actionCounts.get(e.getKey());
+                if (count == null)
+                    actionCounts.put(e.getKey(), new long[] { e.getValue()[0] });
+                else
+                    count[0] += e.getValue()[0];
+            }
+        }
+
+        public int getMaxLength() {
+            return maxLength;
+        }
+
+        public long getWalks() {
+            return walks;
+        }
+
+        /**
+         * @return the number of steps of all walks together
+         */
+        public long getSteps() {
+            return steps;
+        }
+
+        /**
+         * @return the number of walks that reached an error state
+         */
+        public long getErrorWalks() {
+            return endedWalks[ERROR];
+        }
+
+        /**
+         * @return the number of walks that reached a deadlock (a state
+         *         without transitions that is no error state)
+         */
+        public long getDeadlockWalks() {
+            return endedWalks[DEADLOCK];
+        }
+
+        /**
+         * @return the estimated probability that a random walk reaches an
+         *         error state within {@link #getMaxLength()} steps
+         */
+        public double getErrorProbability() {
+            return (double) getErrorWalks() / walks;
+        }
+
+        /**
+         * @return the estimated probability that a random walk reaches a
+         *         deadlock within {@link #getMaxLength()} steps
+         */
+        public double getDeadlockProbability() {
+            return (double) getDeadlockWalks() / walks;
+        }
+
+        /**
+         * @return the 95% confidence interval (Wilson score interval) of the
+         *         probability whose estimate is <code>hits / walks</code>
+         */
+        public double[] getConfidenceInterval(long hits) {
+            final double z = 1.96;
+            final double p = (double) hits / walks;
+            final double denominator = 1 + z * z / walks;
+            final double center = (p + z * z / (2 * walks)) / denominator;
+            final double halfWidth = z * Math.sqrt(p * (1 - p) / walks
+                + z * z / (4.0 * walks * walks)) / denominator;
+            return new double[] { Math.max(0, center - halfWidth), Math.min(1, center + halfWidth) };
+        }
+
+        /**
+         * @return how often each action was taken, by the labels of the actions
+         */
+        public SortedMap<String, Long> getActionFrequencies() {
+            final SortedMap<String, Long> frequencies = new TreeMap<String, Long>();
+            for (final Entry<String, long[]> e: actionCounts.entrySet())
+                frequencies.put(e.getKey(), e.getValue()[0]);
+            return Collections.unmodifiableSortedMap(frequencies);
+        }
+
+        @Override
+        public String toString() {
+            final String newLine = Globals.getNewline();
+            final StringBuilder sb = new StringBuilder();
+            sb.append(walks).append(" walks of at most ").append(maxLength)
+                .append(" steps, ").append(steps).append(" steps in total (")
+                .append(String.format("%.2f", (double) steps / walks))
+                .append(" per walk)").append(newLine);
+            appendProbability(sb, "error state", ERROR);
+            appendProbability(sb, "deadlock", DEADLOCK);
+            sb.append("Action frequencies:").append(newLine);
+            for (final Entry<String, Long> e: getActionFrequencies().entrySet())
+                sb.append(String.format("  %-20s %12d  %6.2f%%", e.getKey(), e.getValue(),
+                    100.0 * e.getValue() / steps)).append(newLine);
+            return sb.toString();
+        }
+
+        private void appendProbability(StringBuilder sb, String what, int reason) {
+            final double[] interval = getConfidenceInterval(endedWalks[reason]);
+            sb.append(String.format("P(%s within %d steps) = %.6f, 95%% confidence interval [%.6f, %.6f]",
+                what, maxLength, (double) endedWalks[reason] / walks, interval[0], interval[1]));
+            if (endedWalks[reason] > 0)
+                sb.append(String.format(", after %.2f steps on average",
+                    (double) endedSteps[reason] / endedWalks[reason]));
+            sb.append(Globals.getNewline());
+        }
+
+    }
+
+}
@@ -0,0 +1,324 @@
+package de.unisb.cs.depend.ccs_sem.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import de.unisb.cs.depend.ccs_sem.evaluators.Evaluator;
+import de.unisb.cs.depend.ccs_sem.evaluators.SequentialEvaluator;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.Expression;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.ParallelExpression;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.RestrictExpression;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.adapters.TopMostExpression;
+import de.unisb.cs.depend.ccs_sem.semantics.types.Transition;
+
+
+/**
+ * Keeps the state of a step-by-step simulation of the parallel components
+ * of a program (see {@link #getComponents(Expression)}), like the
+ * simulation views of the plugin do.
+ *
+ * The transitions of the current components are computed inline when they
+ * are needed. In addition, a background thread speculatively evaluates the
+ * states that the components can reach within the next
+ * {@link #setPrefetchDepth(int) few} steps, so that taking a step usually
+ * finds the transitions already computed. Whenever the simulation moves,
+ * the running prefetch is cancelled and a new one starts at the new state.
+ * (If both threads happen to evaluate the same expression, they just compute
+ * the same transitions twice.)
+ *
+ * The trace is a persistent stack of {@link Step}s: every step references
+ * its predecessor, so undoing a step just returns to the previous one.
+ *
+ * The methods of the engine must be called by one thread (e.g. the UI
+ * thread) only.
+ */
+public class SimulationEngine {
+
+    // the maximum number of states evaluated by one prefetch
+    private static final int MAX_PREFETCH_STATES = 1000;
+
+    private static final ThreadFactory PREFETCH_THREAD_FACTORY = new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+            final Thread thread = new Thread(r, "simulationPrefetch");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }
+    };
+
+    private final Evaluator evaluator = new SequentialEvaluator();
+    private final ExecutorService prefetcher =
+        Executors.newSingleThreadExecutor(PREFETCH_THREAD_FACTORY);
+    private Future<?> prefetch = null;
+    private int prefetchDepth = 2;
+
+    private Step current;
+
+    /**
+     * Starts a simulation of the parallel components of the given expression.
+     */
+    public SimulationEngine(Expression expr) {
+        this(getComponents(expr));
+    }
+
+    public SimulationEngine(List<Expression> components) {
+        current = new Step(components.toArray(new Expression[components.size()]),
+            null, null, new int[0]);
+        startPrefetch();
+    }
+
+    /**
+     * Splits an expression into its parallel components. A restriction
+     * directly below the top is ignored.
+     */
+    public static List<Expression> getComponents(Expression expr) {
+        if (expr instanceof TopMostExpression)
+            expr = ((TopMostExpression) expr).getInnerExpression();
+        if (expr instanceof RestrictExpression) {
+            // a restriction has exactly one child
+            expr = expr.getChildren().iterator().next();
+        }
+
+        final List<Expression> components = new ArrayList<Expression>();
+        final LinkedList<Expression> toCheck = new LinkedList<Expression>();
+        toCheck.add(expr);
+        while (!toCheck.isEmpty()) {
+            final Expression e = toCheck.poll();
+            if (e instanceof ParallelExpression)
+                toCheck.addAll(e.getChildren());
+            else
+                components.add(e);
+        }
+        return components;
+    }
+
+    public int getPrefetchDepth() {
+        return prefetchDepth;
+    }
+
+    /**
+     * @param prefetchDepth the number of steps to evaluate in advance, or
+     *                      <code>0</code> to disable prefetching
+     */
+    public void setPrefetchDepth(int prefetchDepth) {
+        if (prefetchDepth < 0)
+            throw new IllegalArgumentException("The depth must not be negative");
+        this.prefetchDepth = prefetchDepth;
+        startPrefetch();
+    }
+
+    public Step getCurrentStep() {
+        return current;
+    }
+
+    public int getComponentCount() {
+        return current.components.length;
+    }
+
+    public Expression getComponent(int component) {
+        return current.components[component];
+    }
+
+    /**
+     * @return the transitions of the given component in the current state,
+     *         evaluated inline if the prefetching did not reach them yet
+     */
+    public List<Transition> getTransitions(int component) throws InterruptedException {
+        final Expression expr = current.components[component];
+        if (!expr.isEvaluated() && !evaluator.evaluate(expr))
+            throw new IllegalStateException("Error evaluating " + expr);
+        return expr.getTransitions();
+    }
+
+    /**
+     * Lets one component take one of its transitions.
+     *
+     * @return the new current step
+     */
+    public Step doAction(int component, Transition trans) {
+        final Expression[] next = current.components.clone();
+        next[component] = trans.getTarget();
+        return moveTo(new Step(next, current, trans.getAction().toString(),
+            new int[] { component }));
+    }
+
+    /**
+     * Lets two components synchronize on the given transitions.
+     *
+     * @return the new current step
+     */
+    public Step doSynchronousAction(int component1, Transition trans1,
+            int component2, Transition trans2) {
+        if (component1 == component2 || !trans1.isSynchronizableWith(trans2))
+            throw new IllegalArgumentException("The transitions cannot synchronize.");
+        final Expression[] next = current.components.clone();
+        next[component1] = trans1.getTarget();
+        next[component2] = trans2.getTarget();
+        return moveTo(new Step(next, current, "i (" + trans1.getAction() + ")",
+            new int[] { component1, component2 }));
+    }
+
+    /**
+     * Returns to the previous step.
+     *
+     * @return the step that was undone, or <code>null</code> if the
+     *         simulation is at its start
+     */
+    public Step undo() {
+        if (current.previous == null)
+            return null;
+        final Step undone = current;
+        moveTo(undone.previous);
+        return undone;
+    }
+
+    private Step moveTo(Step step) {
+        current = step;
+        startPrefetch();
+        return step;
+    }
+
+    /**
+     * @return the labels of all steps from the start to the current state
+     */
+    public List<String> getTrace() {
+        final LinkedList<String> trace = new LinkedList<String>();
+        for (Step step = current; step.previous != null; step = step.previous)
+            trace.addFirst(step.label);
+        return trace;
+    }
+
+    private void startPrefetch() {
+        if (prefetch != null)
+            prefetch.cancel(true);
+        if (prefetchDepth == 0 || prefetcher.isShutdown()) {
+            prefetch = null;
+            return;
+        }
+        final Expression[] components = current.components;
+        final int depth = prefetchDepth;
+        prefetch = prefetcher.submit(new Runnable() {
+            public void run() {
+                try {
+                    prefetch(components, depth);
+                } catch (final InterruptedException e) {
+                    // cancelled, the simulation moved on
+                }
+            }
+        });
+    }
+
+    // evaluates the states reachable within depth steps, the nearest first
+    private void prefetch(Expression[] components, int depth) throws InterruptedException {
+        List<Expression> level = new ArrayList<Expression>(Arrays.asList(components));
+        int states = 0;
+        for (int d = 0; d <= depth; ++d) {
+            final List<Expression> nextLevel = new ArrayList<Expression>();
+            for (final Expression expr: level) {
+                if (Thread.interrupted())
+                    throw new InterruptedException();
+                if (++states > MAX_PREFETCH_STATES)
+                    return;
+                if (!expr.isEvaluated() && !evaluator.evaluate(expr))
+                    return;
+                if (d < depth)
+                    for (final Transition trans: expr.getTransitions())
+                        nextLevel.add(trans.getTarget());
+            }
+            level = nextLevel;
+        }
+    }
+
+    /**
+     * Waits until the prefetching for the current state is finished.
+     */
+    public void awaitPrefetch() throws InterruptedException {
+        final Future<?> f = prefetch;
+        if (f == null)
+            return;
+        try {
+            f.get();
+        } catch (final CancellationException e) {
+            // ignore
+        } catch (final ExecutionException e) {
+            throw new IllegalStateException("Error while prefetching.", e.getCause());
+        }
+    }
+
+    /**
+     * Stops the prefetching. The engine can still be used afterwards, but
+     * without prefetching.
+     */
+    public void dispose() {
+        if (prefetch != null)
+            prefetch.cancel(true);
+        prefetch = null;
+        prefetcher.shutdownNow();
+    }
+
+    /**
+     * One state of the simulation, together with the step that led to it.
+     * Steps are immutable.
+     */
+    public static final class Step {
+
+        private final Expression[] components;
+        private final Step previous;
+        private final String label;
+        private final int[] changedComponents;
+        private final int length;
+
+        protected Step(Expression[] components, Step previous, String label,
+                int[] changedComponents) {
+            this.components = components;
+            this.previous = previous;
+            this.label = label;
+            this.changedComponents = changedComponents;
+            this.length = previous == null ? 0 : previous.length + 1;
+        }
+
+        public List<Expression> getComponents() {
+            return Collections.unmodifiableList(Arrays.asList(components));
+        }
+
+        /**
+         * @return the previous step, or <code>null</code> for the start
+         */
+        public Step getPrevious() {
+            return previous;
+        }
+
+        /**
+         * @return the label of the action that led to this step, or
+         *         <code>null</code> for the start
+         */
+        public String getLabel() {
+            return label;
+        }
+
+        /**
+         * @return the numbers of the components that changed in this step
+         */
+        public int[] getChangedComponents() {
+            return changedComponents.clone();
+        }
+
+        /**
+         * @return the number of steps from the start to this one
+         */
+        public int getLength() {
+            return length;
+        }
+
+    }
+
+}
@@ -0,0 +1,419 @@
+package de.unisb.cs.depend.ccs_sem.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import de.unisb.cs.depend.ccs_sem.evaluators.Evaluator;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.Expression;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.RecursiveExpression.RecursiveExpressionAlphabetWrapper;
+import de.unisb.cs.depend.ccs_sem.semantics.types.Parameter;
+import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterBinding;
+import de.unisb.cs.depend.ccs_sem.semantics.types.ProcessVariable;
+import de.unisb.cs.depend.ccs_sem.semantics.types.SuccessorIterator;
+import de.unisb.cs.depend.ccs_sem.semantics.types.Transition;
+import de.unisb.cs.depend.ccs_sem.semantics.types.actions.Action;
+import de.unisb.cs.depend.ccs_sem.semantics.types.values.Value;
+
+
+/**
+ * Searches the LTS for a state matching a {@link Goal} (e.g. a deadlock),
+ * evaluating only as much of the LTS as is necessary.
+ *
+ * The states are explored in BFS order, one level at a time. All states of
+ * one level are evaluated together by the given {@link Evaluator}, so a
+ * parallel evaluator evaluates them in parallel. As soon as a level contains
+ * a matching state, the search stops, and the trace to this state is a
+ * shortest one.
+ *
+ * Alternatively, the search can run without storing transitions in the
+ * expressions (see {@link #StateSearch(Goal, VisitedSet)}). Then, the
+ * successors of every state are computed on demand by a
+ * {@link SuccessorIterator}, and the memory of the search is proportional to
+ * its {@link VisitedSet} (and the current BFS level). Without a visited set
+ * ({@link VisitedSet.None}), a BFS level can grow exponentially, so the
+ * search uses iterative deepening instead: depth-first searches with an
+ * increasing depth bound, which only store the current path. The traces are
+ * still shortest ones.
+ */
+public class StateSearch {
+
+    public interface Goal {
+
+        boolean matches(Expression state);
+
+    }
+
+    /**
+     * Matches all states without outgoing transitions that are not error
+     * states.
+     */
+    public static final Goal DEADLOCK = new Goal() {
+        public boolean matches(Expression state) {
+            return !state.isError() && state.getTransitions().isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            return "deadlock";
+        }
+    };
+
+    /**
+     * Matches all error states (see {@link Expression#isError()}).
+     */
+    public static final Goal ERROR = new Goal() {
+        public boolean matches(Expression state) {
+            return state.isError();
+        }
+
+        @Override
+        public String toString() {
+            return "error state";
+        }
+    };
+
+    private final Evaluator evaluator;
+    private final Goal goal;
+    // only set for a search that does not store the transitions
+    private final VisitedSet visited;
+
+    // the outcome of the last search
+    private Expression foundState = null;
+    private List<Transition> trace = null;
+    private int exploredStates = 0;
+
+    public StateSearch(Evaluator evaluator, Goal goal) {
+        this.evaluator = evaluator;
+        this.goal = goal;
+        this.visited = null;
+    }
+
+    /**
+     * Creates a search that computes the successors of the states on demand,
+     * and only remembers the visited states in the given set.
+     * Note that with {@link VisitedSet.None}, the search only terminates if
+     * a matching state is found or the transition system is acyclic, and
+     * states are explored again in every round of the iterative deepening.
+     */
+    public StateSearch(Goal goal, VisitedSet visited) {
+        this.evaluator = null;
+        this.goal = goal;
+        this.visited = visited;
+    }
+
+    /**
+     * Searches for a state matching the goal, starting in <code>start</code>.
+     *
+     * @return a shortest trace from <code>start</code> to a matching state
+     *         (empty if <code>start</code> matches), or <code>null</code>
+     *         if there is no matching state
+     * @throws InterruptedException if the search is interrupted
+     * @throws IllegalStateException if the evaluator reports an error
+     */
+    public List<Transition> search(Expression start) throws InterruptedException {
+        foundState = null;
+        trace = null;
+        exploredStates = 0;
+
+        if (visited instanceof VisitedSet.None)
+            return searchIterativeDeepening(start);
+        if (visited != null)
+            return searchWithoutTransitions(start);
+
+        // for every reached state, the transition that reached it first
+        // (and its source)
+        final Map<Expression, Pair<Expression, Transition>> predecessors =
+            new HashMap<Expression, Pair<Expression, Transition>>();
+        predecessors.put(start, null);
+
+        List<Expression> level = Collections.singletonList(start);
+        while (!level.isEmpty()) {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+
+            evaluateLevel(level);
+
+            // first check the whole level, so that the trace is a shortest one
+            for (final Expression state: level) {
+                if (goal.matches(state)) {
+                    foundState = state;
+                    trace = buildTrace(state, predecessors);
+                    return trace;
+                }
+            }
+
+            final List<Expression> nextLevel = new ArrayList<Expression>();
+            for (final Expression state: level) {
+                ++exploredStates;
+                for (final Transition trans: state.getTransitions()) {
+                    final Expression succ = trans.getTarget();
+                    if (!predecessors.containsKey(succ)) {
+                        predecessors.put(succ, new Pair<Expression, Transition>(state, trans));
+                        nextLevel.add(succ);
+                    }
+                }
+            }
+            level = nextLevel;
+        }
+
+        return null;
+    }
+
+    private List<Transition> searchWithoutTransitions(Expression start)
+            throws InterruptedException {
+        visited.clear();
+        visited.add(start);
+        final LinkedList<SearchNode> queue = new LinkedList<SearchNode>();
+        queue.add(new SearchNode(start, null, null));
+        final SuccessorIterator successors = new SuccessorIterator();
+        try {
+            while (!queue.isEmpty()) {
+                if (Thread.interrupted())
+                    throw new InterruptedException();
+
+                // the states are dequeued level by level, so the first
+                // matching state has a shortest trace
+                final SearchNode node = queue.removeFirst();
+                successors.reset(node.state);
+                if (goal.matches(node.state)) {
+                    foundState = node.state;
+                    trace = node.buildTrace();
+                    return trace;
+                }
+
+                ++exploredStates;
+                while (successors.advance()) {
+                    final Expression succ = successors.getTarget();
+                    if (visited.add(succ))
+                        queue.add(new SearchNode(succ, successors.getAction(), node));
+                }
+            }
+        } finally {
+            successors.release();
+        }
+
+        return null;
+    }
+
+    // depth-first searches up to depth 0, 1, 2, ...; the matching states are
+    // only checked at the depth bound, since the shallower states were
+    // checked in the previous rounds. The transitions on the current path
+    // are those the iterators are positioned at.
+    private List<Transition> searchIterativeDeepening(Expression start)
+            throws InterruptedException {
+        visited.clear();
+        visited.add(start);
+        final List<SuccessorIterator> path = new ArrayList<SuccessorIterator>();
+        try {
+            for (int bound = 0; ; ++bound) {
+                while (path.size() <= bound)
+                    path.add(new SuccessorIterator());
+                final SuccessorIterator leaf = path.get(bound);
+
+                if (bound == 0) {
+                    leaf.reset(start);
+                    if (goal.matches(start)) {
+                        foundState = start;
+                        trace = new ArrayList<Transition>();
+                        return trace;
+                    }
+                    leaf.release();
+                    continue;
+                }
+
+                // whether any state was reached at the bound
+                boolean reachedBound = false;
+                path.get(0).reset(start);
+                ++exploredStates;
+                int depth = 0;
+                while (depth >= 0) {
+                    if (Thread.interrupted())
+                        throw new InterruptedException();
+
+                    final SuccessorIterator successors = path.get(depth);
+                    if (!successors.advance()) {
+                        successors.release();
+                        --depth;
+                        continue;
+                    }
+                    final Expression succ = successors.getTarget();
+                    visited.add(succ);
+                    if (depth + 1 < bound) {
+                        path.get(++depth).reset(succ);
+                        ++exploredStates;
+                        continue;
+                    }
+
+                    reachedBound = true;
+                    leaf.reset(succ);
+                    if (goal.matches(succ)) {
+                        foundState = succ;
+                        trace = new ArrayList<Transition>(bound);
+                        for (int i = 0; i < bound; ++i)
+                            trace.add(new Transition(path.get(i).getAction(),
+                                path.get(i).getTarget()));
+                        return trace;
+                    }
+                    leaf.release();
+                }
+                if (!reachedBound)
+                    return null;
+            }
+        } finally {
+            for (final SuccessorIterator successors: path)
+                successors.release();
+        }
+    }
+
+    private void evaluateLevel(List<Expression> level) throws InterruptedException {
+        final List<Expression> toEvaluate = new ArrayList<Expression>();
+        for (final Expression state: level)
+            if (!state.isEvaluated())
+                toEvaluate.add(state);
+
+        if (toEvaluate.isEmpty())
+            return;
+        if (!evaluator.evaluate(toEvaluate.size() == 1
+                ? toEvaluate.get(0) : new LevelExpression(toEvaluate)))
+            throw new IllegalStateException("Error evaluating the states of the LTS.");
+    }
+
+    private static List<Transition> buildTrace(Expression state,
+            Map<Expression, Pair<Expression, Transition>> predecessors) {
+        final LinkedList<Transition> trace = new LinkedList<Transition>();
+        Pair<Expression, Transition> pred;
+        while ((pred = predecessors.get(state)) != null) {
+            trace.addFirst(pred.getSecond());
+            state = pred.getFirst();
+        }
+        return new ArrayList<Transition>(trace);
+    }
+
+    /**
+     * @return the state found by the last search, or <code>null</code>
+     */
+    public Expression getFoundState() {
+        return foundState;
+    }
+
+    /**
+     * @return the trace found by the last search, or <code>null</code>
+     */
+    public List<Transition> getTrace() {
+        return trace;
+    }
+
+    /**
+     * @return the number of states whose successors were explored during
+     *         the last search
+     */
+    public int getExploredStates() {
+        return exploredStates;
+    }
+
+    /**
+     * @return a human readable representation of a trace, one transition
+     *         per line
+     */
+    public static String traceToString(List<Transition> trace) {
+        final StringBuilder sb = new StringBuilder();
+        for (final Transition trans: trace)
+            sb.append("--").append(trans.getAction().getLabel()).append("-> ")
+                .append(trans.getTarget()).append(Globals.getNewline());
+        return sb.toString();
+    }
+
+    /**
+     * A state reached by the search, with the transition that reached it.
+     * The nodes of the queue reference their predecessors, so only the
+     * traces to the states of the current BFS level are kept.
+     */
+    private static class SearchNode {
+
+        protected final Expression state;
+        protected final Action action;
+        protected final SearchNode predecessor;
+
+        public SearchNode(Expression state, Action action, SearchNode predecessor) {
+            this.state = state;
+            this.action = action;
+            this.predecessor = predecessor;
+        }
+
+        public List<Transition> buildTrace() {
+            final LinkedList<Transition> trace = new LinkedList<Transition>();
+            for (SearchNode node = this; node.predecessor != null; node = node.predecessor)
+                trace.addFirst(new Transition(node.action, node.state));
+            return new ArrayList<Transition>(trace);
+        }
+
+    }
+
+    /**
+     * A helper expression whose children are the states of one BFS level.
+     * Evaluating it lets the evaluator evaluate all states in one go.
+     */
+    private static class LevelExpression extends Expression {
+
+        private final List<Expression> states;
+
+        public LevelExpression(List<Expression> states) {
+            super();
+            this.states = states;
+        }
+
+        @Override
+        protected List<Transition> evaluate0() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Collection<Expression> getChildren() {
+            return states;
+        }
+
+        @Override
+        public Expression instantiate(Map<Parameter, Value> parameters) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Expression replaceRecursion(List<ProcessVariable> processVariables) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Map<Action, Action> getAlphabet(Set<RecursiveExpressionAlphabetWrapper> alreadyIncluded) {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        protected boolean isError0() {
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return "level of " + states.size() + " states";
+        }
+
+        @Override
+        protected int hashCode0() {
+            return System.identityHashCode(this);
+        }
+
+        @Override
+        public boolean equals(Object obj,
+                ParameterBinding binding) {
+            return obj == this;
+        }
+
+    }
+
+}
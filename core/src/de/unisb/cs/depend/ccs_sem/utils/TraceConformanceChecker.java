@@ -0,0 +1,278 @@
+package de.unisb.cs.depend.ccs_sem.utils;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.List;
+import java.util.Set;
+
+import de.unisb.cs.depend.ccs_sem.evaluators.Evaluator;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.Expression;
+import de.unisb.cs.depend.ccs_sem.utils.NormalizedSpecification.StateSet;
+
+
+/**
+ * Checks whether a log of events (action labels) is a (weak) trace of the
+ * LTS, i.e. whether the specification allows the events in this order,
+ * with arbitrary tau steps in between.
+ *
+ * The log is read as a stream, and only the states visited by it are
+ * evaluated. The checker tracks the set of states the specification can be
+ * in after the events read so far (closed under tau steps). These sets are
+ * numbered and their successors cached, so that a log visiting a small part
+ * of the LTS is checked with one table lookup per event.
+ *
+ * In the log, events are separated by whitespace. Lines starting with
+ * <code>#</code> are ignored.
+ */
+public class TraceConformanceChecker {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final NormalizedSpecification specification;
+    private final LabelTable labels;
+
+    // the outcome of the last check
+    private long events = 0;
+    private long failedLine = -1;
+    private String failedLabel = null;
+    private Set<String> expectedLabels = null;
+
+    /**
+     * @param evaluator evaluates the states visited by the logs
+     * @param start the initial state of the specification
+     * @throws InterruptedException if interrupted while evaluating the
+     *         initial state
+     * @throws IllegalStateException if the evaluator reports an error
+     */
+    public TraceConformanceChecker(Evaluator evaluator, Expression start)
+            throws InterruptedException {
+        this.specification = new NormalizedSpecification(evaluator, start);
+        this.labels = new LabelTable(specification);
+    }
+
+    /**
+     * Checks the events of a log. The channel is read until the end, or
+     * until the first event that does not conform to the specification.
+     *
+     * @return <code>true</code> if all events conform to the specification
+     * @throws IOException if the log cannot be read
+     * @throws InterruptedException if the check is interrupted
+     * @throws IllegalStateException if the evaluator reports an error
+     */
+    public boolean check(ReadableByteChannel log) throws IOException, InterruptedException {
+        reset();
+
+        final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        byte[] token = new byte[64];
+        int tokenLength = 0;
+        int hash = 0;
+        boolean comment = false;
+        boolean lineStart = true;
+        long line = 1;
+        StateSet current = specification.getInitial();
+
+        while (true) {
+            buffer.clear();
+            final int read = log.read(buffer);
+            if (read == -1)
+                break;
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            final byte[] bytes = buffer.array();
+            for (int i = 0; i < read; ++i) {
+                final byte b = bytes[i];
+                if (b == ' ' || b == '\n' || b == '\t' || b == '\r') {
+                    if (tokenLength > 0) {
+                        current = step(current, labels.lookup(token, tokenLength, hash), line);
+                        if (current == null)
+                            return false;
+                        tokenLength = 0;
+                        hash = 0;
+                    }
+                    if (b == '\n') {
+                        ++line;
+                        lineStart = true;
+                        comment = false;
+                    }
+                    continue;
+                }
+                if (lineStart) {
+                    lineStart = false;
+                    comment = b == '#';
+                }
+                if (comment)
+                    continue;
+                if (tokenLength == token.length) {
+                    final byte[] newToken = new byte[2 * token.length];
+                    System.arraycopy(token, 0, newToken, 0, tokenLength);
+                    token = newToken;
+                }
+                token[tokenLength++] = b;
+                hash = 31 * hash + b;
+            }
+        }
+        if (tokenLength > 0)
+            return step(current, labels.lookup(token, tokenLength, hash), line) != null;
+        return true;
+    }
+
+    /**
+     * Checks a trace given as a list of action labels.
+     *
+     * @return <code>true</code> if all events conform to the specification
+     * @throws InterruptedException if the check is interrupted
+     * @throws IllegalStateException if the evaluator reports an error
+     */
+    public boolean check(List<String> trace) throws InterruptedException {
+        reset();
+        StateSet current = specification.getInitial();
+        for (final String label: trace) {
+            current = step(current, specification.getLabelId(label), events + 1);
+            if (current == null)
+                return false;
+        }
+        return true;
+    }
+
+    private void reset() {
+        events = 0;
+        failedLine = -1;
+        failedLabel = null;
+        expectedLabels = null;
+    }
+
+    // returns null (and records the failure) if the event is not allowed
+    private StateSet step(StateSet current, int label, long line) throws InterruptedException {
+        ++events;
+        final StateSet next = specification.getSuccessor(current, label);
+        if (!next.isEmpty())
+            return next;
+
+        failedLine = line;
+        failedLabel = specification.getLabel(label);
+        expectedLabels = specification.getEnabledLabels(current);
+        return null;
+    }
+
+    /**
+     * @return the number of events read by the last check (including the
+     *         non-conforming one)
+     */
+    public long getEventCount() {
+        return events;
+    }
+
+    /**
+     * @return the line of the first non-conforming event of the last check
+     *         (for {@link #check(List)}, the index of the event, starting
+     *         with 1), or -1 if all events conformed
+     */
+    public long getFailedLine() {
+        return failedLine;
+    }
+
+    /**
+     * @return the first non-conforming event of the last check, or
+     *         <code>null</code> if all events conformed
+     */
+    public String getFailedLabel() {
+        return failedLabel;
+    }
+
+    /**
+     * @return the events the specification would have allowed instead of
+     *         {@link #getFailedLabel()}, or <code>null</code> if all events
+     *         conformed
+     */
+    public Set<String> getExpectedLabels() {
+        return expectedLabels;
+    }
+
+    /**
+     * @return the number of states of the specification visited so far
+     */
+    public int getStateCount() {
+        return specification.getStateCount();
+    }
+
+    /**
+     * Maps the labels (as bytes) to ids, without creating a String for every
+     * event that is read.
+     */
+    private static class LabelTable {
+
+        private final NormalizedSpecification specification;
+        private int[] ids = new int[64];
+        private int[] hashes = new int[64];
+        private byte[][] keys = new byte[64][];
+        private int size = 0;
+
+        public LabelTable(NormalizedSpecification specification) {
+            this.specification = specification;
+        }
+
+        public int lookup(byte[] token, int length, int hash) {
+            final int mask = keys.length - 1;
+            int slot = mix(hash) & mask;
+            while (keys[slot] != null) {
+                if (hashes[slot] == hash && equals(keys[slot], token, length))
+                    return ids[slot];
+                slot = (slot + 1) & mask;
+            }
+
+            final byte[] key = new byte[length];
+            System.arraycopy(token, 0, key, 0, length);
+            final int id;
+            try {
+                id = specification.getLabelId(new String(key, "ISO-8859-1"));
+            } catch (final UnsupportedEncodingException e) {
+                // cannot happen, every JVM supports ISO-8859-1
+                throw new RuntimeException(e);
+            }
+            keys[slot] = key;
+            ids[slot] = id;
+            hashes[slot] = hash;
+            if (2 * ++size > keys.length)
+                rehash();
+            return id;
+        }
+
+        private void rehash() {
+            final int[] oldIds = ids;
+            final int[] oldHashes = hashes;
+            final byte[][] oldKeys = keys;
+            ids = new int[2 * oldKeys.length];
+            hashes = new int[2 * oldKeys.length];
+            keys = new byte[2 * oldKeys.length][];
+            final int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; ++i) {
+                if (oldKeys[i] == null)
+                    continue;
+                int slot = mix(oldHashes[i]) & mask;
+                while (keys[slot] != null)
+                    slot = (slot + 1) & mask;
+                keys[slot] = oldKeys[i];
+                ids[slot] = oldIds[i];
+                hashes[slot] = oldHashes[i];
+            }
+        }
+
+        private static int mix(int hash) {
+            hash ^= (hash >>> 20) ^ (hash >>> 12);
+            return hash ^ (hash >>> 7) ^ (hash >>> 4);
+        }
+
+        private static boolean equals(byte[] key, byte[] token, int length) {
+            if (key.length != length)
+                return false;
+            for (int i = 0; i < length; ++i)
+                if (key[i] != token[i])
+                    return false;
+            return true;
+        }
+
+    }
+
+}
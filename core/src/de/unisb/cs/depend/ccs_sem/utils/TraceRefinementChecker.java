@@ -0,0 +1,166 @@
+package de.unisb.cs.depend.ccs_sem.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import de.unisb.cs.depend.ccs_sem.evaluators.Evaluator;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.Expression;
+import de.unisb.cs.depend.ccs_sem.semantics.types.Transition;
+import de.unisb.cs.depend.ccs_sem.semantics.types.actions.TauAction;
+import de.unisb.cs.depend.ccs_sem.utils.NormalizedSpecification.StateSet;
+
+
+/**
+ * Checks whether an implementation refines a specification w.r.t. (weak)
+ * traces, i.e. whether every trace of the implementation is a trace of the
+ * specification.
+ *
+ * The specification is normalized on the fly (see
+ * {@link NormalizedSpecification}), and the product of the implementation
+ * with the normalized specification is explored in BFS order. Both are only
+ * evaluated as far as the product is explored. The check stops at the first
+ * action of the implementation that the specification does not allow, so the
+ * reported trace is a shortest one.
+ */
+public class TraceRefinementChecker {
+
+    private final Evaluator evaluator;
+
+    // the outcome of the last check
+    private List<Transition> trace = null;
+    private Set<String> allowedLabels = null;
+    private int exploredPairs = 0;
+    private int specificationStates = 0;
+
+    public TraceRefinementChecker(Evaluator evaluator) {
+        this.evaluator = evaluator;
+    }
+
+    /**
+     * Checks whether <code>implementation</code> refines
+     * <code>specification</code>.
+     *
+     * @return a shortest trace of the implementation that the specification
+     *         cannot perform (its last transition is the first one that is
+     *         not allowed), or <code>null</code> if the implementation refines
+     *         the specification
+     * @throws InterruptedException if the check is interrupted
+     * @throws IllegalStateException if the evaluator reports an error
+     */
+    public List<Transition> check(Expression implementation, Expression specification)
+            throws InterruptedException {
+        trace = null;
+        allowedLabels = null;
+        exploredPairs = 0;
+
+        final NormalizedSpecification spec = new NormalizedSpecification(evaluator, specification);
+        // for every reached pair, the transition of the implementation that
+        // reached it first (and its source)
+        final Map<Pair<Expression, StateSet>, Pair<Pair<Expression, StateSet>, Transition>> predecessors =
+            new HashMap<Pair<Expression, StateSet>, Pair<Pair<Expression, StateSet>, Transition>>();
+        final Pair<Expression, StateSet> start =
+            new Pair<Expression, StateSet>(implementation, spec.getInitial());
+        predecessors.put(start, null);
+
+        final ArrayQueue<Pair<Expression, StateSet>> queue = new ArrayQueue<Pair<Expression, StateSet>>();
+        queue.add(start);
+        try {
+            Pair<Expression, StateSet> pair;
+            while ((pair = queue.poll()) != null) {
+                if (Thread.interrupted())
+                    throw new InterruptedException();
+                ++exploredPairs;
+                final Expression state = pair.getFirst();
+                if (!state.isEvaluated() && !evaluator.evaluate(state))
+                    throw new IllegalStateException("Error evaluating the states of the LTS.");
+
+                for (final Transition trans: state.getTransitions()) {
+                    final StateSet next = trans.getAction() instanceof TauAction ? pair.getSecond()
+                        : spec.getSuccessor(pair.getSecond(),
+                            spec.getLabelId(trans.getAction().getLabel()));
+                    if (next.isEmpty()) {
+                        trace = buildTrace(pair, predecessors);
+                        trace.add(trans);
+                        allowedLabels = spec.getEnabledLabels(pair.getSecond());
+                        return trace;
+                    }
+                    final Pair<Expression, StateSet> succ =
+                        new Pair<Expression, StateSet>(trans.getTarget(), next);
+                    if (!predecessors.containsKey(succ)) {
+                        predecessors.put(succ, new Pair<Pair<Expression, StateSet>, Transition>(pair, trans));
+                        queue.add(succ);
+                    }
+                }
+            }
+            return null;
+        } finally {
+            specificationStates = spec.getStateCount();
+        }
+    }
+
+    /**
+     * Checks whether both expressions have the same (weak) traces.
+     *
+     * @return a shortest trace that only one of them can perform (see
+     *         {@link #getTrace()}), or <code>null</code> if they are trace
+     *         equivalent
+     * @throws InterruptedException if the check is interrupted
+     * @throws IllegalStateException if the evaluator reports an error
+     */
+    public List<Transition> checkEquivalence(Expression first, Expression second)
+            throws InterruptedException {
+        final List<Transition> firstTrace = check(first, second);
+        if (firstTrace != null)
+            return firstTrace;
+        return check(second, first);
+    }
+
+    private static List<Transition> buildTrace(Pair<Expression, StateSet> pair,
+            Map<Pair<Expression, StateSet>, Pair<Pair<Expression, StateSet>, Transition>> predecessors) {
+        final LinkedList<Transition> trace = new LinkedList<Transition>();
+        Pair<Pair<Expression, StateSet>, Transition> pred;
+        while ((pred = predecessors.get(pair)) != null) {
+            trace.addFirst(pred.getSecond());
+            pair = pred.getFirst();
+        }
+        return new ArrayList<Transition>(trace);
+    }
+
+    /**
+     * @return the violating trace found by the last check, or
+     *         <code>null</code>
+     */
+    public List<Transition> getTrace() {
+        return trace;
+    }
+
+    /**
+     * @return the labels the specification allows instead of the last
+     *         transition of {@link #getTrace()}, or <code>null</code> if
+     *         no violation was found
+     */
+    public Set<String> getAllowedLabels() {
+        return allowedLabels;
+    }
+
+    /**
+     * @return the number of pairs (of a state of the implementation and a
+     *         set of states of the specification) explored by the last check
+     */
+    public int getExploredPairs() {
+        return exploredPairs;
+    }
+
+    /**
+     * @return the number of states of the specification visited by the last
+     *         check
+     */
+    public int getSpecificationStates() {
+        return specificationStates;
+    }
+
+}
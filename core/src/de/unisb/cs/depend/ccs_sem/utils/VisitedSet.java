@@ -0,0 +1,163 @@
+package de.unisb.cs.depend.ccs_sem.utils;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.Expression;
+
+
+/**
+ * The strategy how a search (see {@link StateSearch}) remembers the states
+ * it has already visited. The memory of the search is dominated by this
+ * set, so the strategies trade memory against precision:
+ * <ul>
+ * <li>{@link Full} stores the states themselves, so they cannot be garbage
+ *     collected,</li>
+ * <li>{@link HashCompacted} only stores a 64 bit fingerprint of every
+ *     state,</li>
+ * <li>{@link None} stores nothing, so states are visited again and again
+ *     (the search then uses iterative deepening, and only terminates if a
+ *     matching state is reachable or the transition system is
+ *     acyclic).</li>
+ * </ul>
+ */
+public interface VisitedSet {
+
+    /**
+     * Marks a state as visited.
+     *
+     * @return <code>true</code> if the state was not visited before
+     */
+    boolean add(Expression state);
+
+    /**
+     * @return the number of states that were added
+     */
+    int size();
+
+    void clear();
+
+    /**
+     * Stores all visited states.
+     */
+    public static class Full implements VisitedSet {
+
+        private final Set<Expression> states = new HashSet<Expression>();
+
+        public boolean add(Expression state) {
+            return states.add(state);
+        }
+
+        public int size() {
+            return states.size();
+        }
+
+        public void clear() {
+            states.clear();
+        }
+
+        @Override
+        public String toString() {
+            return "full";
+        }
+
+    }
+
+    /**
+     * Stores a 64 bit fingerprint of the string representation of every
+     * state in an open hash table (hash compaction). If two states have the
+     * same fingerprint, the second one is wrongly considered as visited;
+     * for <i>n</i> states, the probability for this is about
+     * <i>n</i>&sup2; / 2<sup>65</sup>.
+     */
+    public static class HashCompacted implements VisitedSet {
+
+        private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+        private static final long FNV_PRIME = 0x100000001b3L;
+
+        // 0 marks an empty slot
+        private long[] table = new long[1024];
+        private int size = 0;
+
+        public boolean add(Expression state) {
+            return addFingerprint(fingerprint(state.toString()));
+        }
+
+        private boolean addFingerprint(long fingerprint) {
+            final int mask = table.length - 1;
+            int index = (int) (fingerprint ^ (fingerprint >>> 32)) & mask;
+            while (table[index] != 0) {
+                if (table[index] == fingerprint)
+                    return false;
+                index = (index + 1) & mask;
+            }
+            table[index] = fingerprint;
+            if (++size > table.length / 2)
+                grow();
+            return true;
+        }
+
+        private void grow() {
+            final long[] oldTable = table;
+            table = new long[2 * oldTable.length];
+            size = 0;
+            for (final long fingerprint: oldTable)
+                if (fingerprint != 0)
+                    addFingerprint(fingerprint);
+        }
+
+        // FNV-1a over the characters of the string, never 0
+        static long fingerprint(String str) {
+            long hash = FNV_OFFSET;
+            for (int i = 0; i < str.length(); ++i) {
+                final char c = str.charAt(i);
+                hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+                hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+            }
+            return hash == 0 ? 1 : hash;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public void clear() {
+            table = new long[1024];
+            size = 0;
+        }
+
+        @Override
+        public String toString() {
+            return "hash-compacted";
+        }
+
+    }
+
+    /**
+     * Remembers no state at all.
+     */
+    public static class None implements VisitedSet {
+
+        private int size = 0;
+
+        public boolean add(Expression state) {
+            ++size;
+            return true;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public void clear() {
+            size = 0;
+        }
+
+        @Override
+        public String toString() {
+            return "none";
+        }
+
+    }
+
+}
@@ -0,0 +1,92 @@
+package de.unisb.cs.depend.ltlchecker;
+
+import gov.nasa.ltl.graph.CompactGraph;
+import gov.nasa.ltl.graph.Graph;
+import gov.nasa.ltl.trans.LTL2Buchi;
+import gov.nasa.ltl.trans.ParseErrorException;
+import ltlcheck.DidCanTranslator;
+import ltlcheck.GraphActionParser;
+import ltlcheck.GraphTransformations;
+import ltlcheck.ParallelPersistenceChecker;
+import ltlcheck.PersistenceChecker;
+import ltlcheck.ProductTranslator;
+import de.unisb.cs.depend.ccs_sem.evaluators.ThreadBasedEvaluator;
+import de.unisb.cs.depend.ccs_sem.parser.CCSParser;
+import de.unisb.cs.depend.ccs_sem.semantics.types.Program;
+
+/**
+ * Measures how the accepting cycle search scales with the number of
+ * threads, on the product automata of a generated model: several
+ * independent counters, each of which counts up to a bound or is reset.
+ * One formula is satisfied (so the whole product is explored), the other
+ * one is violated.
+ *
+ * Usage: CycleSearchBenchmark [counters] [bound] [max. threads] [repetitions]
+ */
+public class CycleSearchBenchmark {
+
+	private static final String[] FORMULAS = { "[]<>can(r0)", "[]<>did(r0)" };
+
+	public static void main(String[] args) throws ParseErrorException, InterruptedException {
+		final int counters = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+		final int bound = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+		final int maxThreads = args.length > 2 ? Integer.parseInt(args[2])
+				: Runtime.getRuntime().availableProcessors();
+		final int repetitions = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+
+		final Program program = new CCSParser().parse(model(counters, bound));
+		if( program == null || !program.evaluate(new ThreadBasedEvaluator(maxThreads), null) ) {
+			System.err.println("Error evaluating the model.");
+			return;
+		}
+		final Graph graph = ExpressionLTLChecker.getGraph(program.getMainExpression());
+		final CompactGraph dcts = DidCanTranslator.translate(graph);
+		GraphTransformations.removeDeadlock(dcts);
+
+		System.out.println("available processors: " + Runtime.getRuntime().availableProcessors());
+		System.out.println("formula          states  transitions  threads    time (ms)  speedup  result");
+		for( String formula : FORMULAS ) {
+			final Graph ba = LTL2Buchi.translate("! (" + LTLFormula.prepare(formula) + ")");
+			GraphActionParser.parseTransitions(ba);
+			final CompactGraph product = ProductTranslator.translate(dcts, ba);
+
+			double sequential = 0;
+			for( int threads=1; threads<=maxThreads; threads *= 2 ) {
+				long best = Long.MAX_VALUE;
+				boolean satisfied = false;
+				for( int r=0; r<repetitions; r++ ) {
+					final long start = System.nanoTime();
+					if( threads == 1 ) {
+						final PersistenceChecker pc = new PersistenceChecker(product);
+						pc.run();
+						satisfied = pc.getCounterexample() == null;
+					} else {
+						final ParallelPersistenceChecker pc = new ParallelPersistenceChecker(product, threads);
+						pc.run();
+						satisfied = pc.getCounterexample() == null;
+					}
+					best = Math.min(best, System.nanoTime() - start);
+				}
+				if( threads == 1 )
+					sequential = best;
+				System.out.println(String.format("%-14s %8d %12d %8d %12.1f %8.2f  %s",
+						formula, product.getNodeCount(), product.getEdgeCount(), threads,
+						best / 1e6, sequential / best, satisfied ? "satisfied" : "violated"));
+			}
+		}
+	}
+
+	// e.g. "X0[n] := when (n < 50) a0.X0[n+1] + r0.X0[0]; ... X0[0] | X1[0]"
+	static String model(int counters, int bound) {
+		final StringBuilder sb = new StringBuilder();
+		for( int i=0; i<counters; i++ ) {
+			sb.append("X").append(i).append("[n] := when (n < ").append(bound)
+				.append(") a").append(i).append(".X").append(i).append("[n+1] + r")
+				.append(i).append(".X").append(i).append("[0];\n");
+		}
+		for( int i=0; i<counters; i++ ) {
+			sb.append(i == 0 ? "" : " | ").append("X").append(i).append("[0]");
+		}
+		return sb.toString();
+	}
+}
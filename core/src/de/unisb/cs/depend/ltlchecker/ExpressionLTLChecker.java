@@ -1,9 +1,12 @@
 package de.unisb.cs.depend.ltlchecker;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 
 import gov.nasa.ltl.graph.*;
 import gov.nasa.ltl.trans.ParseErrorException;
+import ltlcheck.CheckResult;
 import ltlcheck.Counterexample;
 import ltlcheck.IModelCheckingMonitor;
 import de.unisb.cs.depend.ccs_sem.semantics.expressions.Expression;
@@ -65,28 +68,78 @@ public class ExpressionLTLChecker {
 		monitor.subTask("Prepare LTL formula...");
 		formula = LTLFormula.prepare(formula);
 		
-		Graph graph = null;
-		if( lastExp != null && lastExp.equals(exp) ) {
-			graph = lastGraph;
+		monitor.subTask("Building CCS Graph...");
+		Graph graph = getGraph(exp);
+		
+		// run model-checker for this graph structure
+		return ltlcheck.LtlModelChecker.check(graph, formula, monitor);
+	}
+	
+	/**
+	 * Checks several formulas (which may be preprocessed like in
+	 * {@link #check(Expression, String, IModelCheckingMonitor)}) at once.
+	 * The graph of the expression and its did/can expansion are built only
+	 * once, and the formulas are checked concurrently.
+	 * 
+	 * @param exp - The expression to check (it has to be evaluated before!)
+	 * @param formulas - the formulas to check
+	 * @return one result per formula, in the same order
+	 * @throws InterruptedException
+	 */
+	public static List<CheckResult> checkAll(Expression exp, List<String> formulas,
+				IModelCheckingMonitor monitor) throws InterruptedException
+	{
+		assert exp!=null && exp.isEvaluated();
+		
+		if( monitor == null ) {
+			monitor = new IModelCheckingMonitor() {
+				public void subTask(String str) {
+					System.out.println(str);
+				}
+			};
+		}
+		
+		monitor.subTask("Prepare LTL formulas...");
+		List<String> prepared = new ArrayList<String>(formulas.size());
+		for( String formula : formulas ) {
+			prepared.add( LTLFormula.prepare(
+					LTLFormulaPreprocessor.preprocessFormula(formula)) );
 		}
 		
 		monitor.subTask("Building CCS Graph...");
-		if( graph == null ) {
-			graph = new Graph();
+		Graph graph = getGraph(exp);
 		
-			// build graph
-			nodes = new HashMap<Expression,Node> ();
-			Node n = new Node(graph);
-			graph.setInit(n);
-			nodes.put(exp, n);
+		List<CheckResult> results = ltlcheck.LtlModelChecker.checkAll(graph, prepared, monitor);
 		
-			addChildren(graph, exp); // via getTransitions
-			
-			lastExp = exp;
-			lastGraph = graph;
+		// report the formulas as they were given
+		List<CheckResult> originalResults = new ArrayList<CheckResult>(results.size());
+		for( int i=0; i<results.size(); i++ ) {
+			CheckResult result = results.get(i);
+			originalResults.add( result.getError() != null
+					? new CheckResult(formulas.get(i), result.getError())
+					: new CheckResult(formulas.get(i), result.getCounterexample()) );
+		}
+		return originalResults;
+	}
+	
+	// synchronized because of the static cache
+	static synchronized Graph getGraph(Expression exp) {
+		if( lastExp != null && lastExp.equals(exp) ) {
+			return lastGraph;
 		}
 		
-		// run model-checker for this graph structure
-		return ltlcheck.LtlModelChecker.check(graph, formula, monitor);
+		Graph graph = new Graph();
+		
+		// build graph
+		nodes = new HashMap<Expression,Node> ();
+		Node n = new Node(graph);
+		graph.setInit(n);
+		nodes.put(exp, n);
+		
+		addChildren(graph, exp); // via getTransitions
+		
+		lastExp = exp;
+		lastGraph = graph;
+		return graph;
 	}
 }
@@ -0,0 +1,65 @@
+package de.unisb.cs.depend.ltlchecker;
+
+import gov.nasa.ltl.graph.Graph;
+import gov.nasa.ltl.trans.LTL2Buchi;
+import gov.nasa.ltl.trans.ParseErrorException;
+import gov.nasa.ltl.trans.Translator;
+
+/**
+ * Compares the size of the Buchi automata and the translation time of the
+ * tableau translation and the translation via alternating automata, for
+ * formulas with an increasing number of fairness assumptions.
+ *
+ * Usage: TranslationBenchmark [max. number of assumptions] [repetitions]
+ */
+public class TranslationBenchmark {
+
+	private static final String[] FAIRNESS = { "SFAIR", "WFAIR", "UFAIR" };
+
+	private static final int[] ALGORITHMS = { Translator.LTL2BUCHI, Translator.LTL2BA };
+	private static final String[] ALGORITHM_NAMES = { "tableau", "alternating" };
+
+	public static void main(String[] args) throws ParseErrorException {
+		final int maxAssumptions = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+		final int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+		System.out.println("assumptions  algorithm     states  transitions    time (ms)");
+		for( int n=0; n<=maxAssumptions; n++ ) {
+			// negated, as in the model checker
+			final String formula = "! (" + LTLFormula.prepare(
+					LTLFormulaPreprocessor.preprocessFormula(fairnessFormula(n))) + ")";
+
+			for( int a=0; a<ALGORITHMS.length; a++ ) {
+				Graph ba = null;
+				long best = Long.MAX_VALUE;
+				try {
+					for( int r=0; r<repetitions; r++ ) {
+						LTL2Buchi.clearCache();
+						final long start = System.nanoTime();
+						ba = LTL2Buchi.translate(formula, true, true, true, ALGORITHMS[a]);
+						best = Math.min(best, System.nanoTime() - start);
+					}
+				} catch (final StackOverflowError e) {
+					// the tableau translation recurses deeply for big formulas
+					System.out.println(String.format("%11d  %-11s %s",
+							n, ALGORITHM_NAMES[a], "stack overflow"));
+					continue;
+				}
+				System.out.println(String.format("%11d  %-11s %8d %12d %12.1f",
+						n, ALGORITHM_NAMES[a], ba.getNodeCount(), ba.getEdgeCount(),
+						best / 1e6));
+			}
+		}
+		LTL2Buchi.clearCache();
+	}
+
+	// e.g. "SFAIR(a0); WFAIR(a1); []<>did(b) || <>[]can(c)"
+	static String fairnessFormula(int assumptions) {
+		final StringBuilder sb = new StringBuilder();
+		for( int i=0; i<assumptions; i++ ) {
+			sb.append(FAIRNESS[i % FAIRNESS.length]).append("(a").append(i).append("); ");
+		}
+		sb.append("[]<>did(b) || <>[]can(c)");
+		return sb.toString();
+	}
+}
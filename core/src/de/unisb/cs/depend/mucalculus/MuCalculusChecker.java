@@ -0,0 +1,371 @@
+package de.unisb.cs.depend.mucalculus;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.Expression;
+import de.unisb.cs.depend.ccs_sem.semantics.types.Transition;
+import de.unisb.cs.depend.ccs_sem.utils.StateNumerator;
+
+
+/**
+ * Checks formulas of the alternation-free modal mu-calculus (see
+ * {@link MuFormulaParser}) directly on an evaluated (or minimized) LTS.
+ *
+ * The states are numbered, and the meaning of every subformula is computed
+ * as a bitset of state numbers, fixpoints by iteration. The meanings of the
+ * closed subformulas are computed only once, and those that do not depend on
+ * each other are computed in parallel.
+ *
+ * If the formula is violated (or satisfied), the checker explains this by a
+ * counter-witness (witness): it follows the modalities from the initial state
+ * as far as they determine the result, e.g. to a reachable state violating an
+ * invariant, and reports the trace to this state.
+ */
+public class MuCalculusChecker {
+
+    private final int threads;
+
+    // the states of the LTS, numbered from 0 (the initial state)
+    private final Expression[] states;
+    private final Map<Expression, Integer> numbers;
+    private final List<List<Transition>> transitions = new ArrayList<List<Transition>>();
+    private final Map<String, Integer> labelIds = new HashMap<String, Integer>();
+    // the transitions of each label, as pairs of state numbers
+    private final List<int[]> sources = new ArrayList<int[]>();
+    private final List<int[]> targets = new ArrayList<int[]>();
+    private final List<Integer> counts = new ArrayList<Integer>();
+
+    // the meanings of the closed subformulas
+    private final Map<MuFormula, BitSet> closed = new ConcurrentHashMap<MuFormula, BitSet>();
+
+    /**
+     * @param initial the initial state of the LTS (it has to be evaluated)
+     * @param threads the number of threads evaluating independent
+     *        subformulas
+     */
+    public MuCalculusChecker(Expression initial, int threads) {
+        assert initial.isEvaluated();
+        if (threads < 1)
+            throw new IllegalArgumentException("threads must be positive");
+        this.threads = threads;
+
+        numbers = StateNumerator.numerateStates(initial);
+        states = new Expression[numbers.size()];
+        for (final Map.Entry<Expression, Integer> e: numbers.entrySet())
+            states[e.getValue()] = e.getKey();
+        for (int s = 0; s < states.length; ++s) {
+            final List<Transition> trans = states[s].getTransitions();
+            transitions.add(trans);
+            for (final Transition t: trans)
+                addTransition(s, t.getAction().getLabel(), numbers.get(t.getTarget()));
+        }
+    }
+
+    private void addTransition(int source, String label, int target) {
+        Integer id = labelIds.get(label);
+        if (id == null) {
+            id = labelIds.size();
+            labelIds.put(label, id);
+            sources.add(new int[4]);
+            targets.add(new int[4]);
+            counts.add(0);
+        }
+        final int count = counts.get(id);
+        if (count == sources.get(id).length) {
+            sources.set(id, grow(sources.get(id)));
+            targets.set(id, grow(targets.get(id)));
+        }
+        sources.get(id)[count] = source;
+        targets.get(id)[count] = target;
+        counts.set(id, count + 1);
+    }
+
+    private static int[] grow(int[] a) {
+        final int[] b = new int[2 * a.length];
+        System.arraycopy(a, 0, b, 0, a.length);
+        return b;
+    }
+
+    public int getStateCount() {
+        return states.length;
+    }
+
+    /**
+     * Checks the formula in the initial state.
+     *
+     * @return the result, with a witness or counter-witness
+     * @throws InterruptedException if interrupted while waiting for the
+     *         parallel evaluation
+     */
+    public MuCheckResult check(MuFormula formula) throws InterruptedException {
+        final BitSet result = evaluate(formula);
+        final boolean satisfied = result.get(0);
+        final List<Transition> trace = new ArrayList<Transition>();
+        final int state = explain(formula, satisfied, trace);
+        return new MuCheckResult(formula, satisfied, states[state], trace);
+    }
+
+    /**
+     * @return the set of (numbers of) states satisfying the closed formula
+     * @throws InterruptedException if interrupted while waiting for the
+     *         parallel evaluation
+     */
+    public BitSet evaluate(MuFormula formula) throws InterruptedException {
+        assert formula.isClosed();
+        if (threads > 1)
+            evaluateClosedInParallel(formula);
+        return evaluate(formula, new IdentityHashMap<MuFormula, BitSet>(), null);
+    }
+
+    // evaluates the closed subformulas level by level, all subformulas of
+    // one level in parallel (they only depend on lower levels)
+    private void evaluateClosedInParallel(MuFormula formula) throws InterruptedException {
+        final List<List<MuFormula>> levels = new ArrayList<List<MuFormula>>();
+        collectClosed(formula, levels);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (final List<MuFormula> level: levels) {
+                final List<Callable<BitSet>> tasks = new ArrayList<Callable<BitSet>>(level.size());
+                for (final MuFormula f: level) {
+                    tasks.add(new Callable<BitSet>() {
+                        public BitSet call() {
+                            return evaluate(f, new IdentityHashMap<MuFormula, BitSet>(), null);
+                        }
+                    });
+                }
+                for (final Future<BitSet> future: executor.invokeAll(tasks)) {
+                    try {
+                        future.get();
+                    } catch (final ExecutionException e) {
+                        throw new RuntimeException(e.getCause());
+                    }
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // returns the level of the formula (-1 if it is not closed): closed
+    // subformulas whose operands are not closed or trivial have level 0
+    private int collectClosed(MuFormula f, List<List<MuFormula>> levels) {
+        int level = -1;
+        if (f.getLeft() != null)
+            level = Math.max(level, collectClosed(f.getLeft(), levels));
+        if (f.getRight() != null)
+            level = Math.max(level, collectClosed(f.getRight(), levels));
+        if (!f.isClosed() || f.getType() == MuFormula.Type.TRUE
+                || f.getType() == MuFormula.Type.FALSE)
+            return level;
+        ++level;
+        while (levels.size() <= level)
+            levels.add(new ArrayList<MuFormula>());
+        levels.get(level).add(f);
+        return level;
+    }
+
+    /**
+     * Evaluates a formula. The meanings of the closed subformulas are cached.
+     *
+     * @param env the values of the fixpoints binding the free variables
+     * @param ranks if not <code>null</code> and the formula is a fixpoint,
+     *        receives for each state the iteration in which it was added to
+     *        the least fixpoint (or removed from the greatest fixpoint)
+     */
+    private BitSet evaluate(MuFormula f, Map<MuFormula, BitSet> env, int[] ranks) {
+        if (f.isClosed() && ranks == null) {
+            final BitSet cached = closed.get(f);
+            if (cached != null)
+                return cached;
+        }
+
+        final BitSet result;
+        switch (f.getType()) {
+        case TRUE:
+            result = new BitSet(states.length);
+            result.set(0, states.length);
+            break;
+        case FALSE:
+            result = new BitSet(states.length);
+            break;
+        case AND:
+            result = (BitSet) evaluate(f.getLeft(), env, null).clone();
+            result.and(evaluate(f.getRight(), env, null));
+            break;
+        case OR:
+            result = (BitSet) evaluate(f.getLeft(), env, null).clone();
+            result.or(evaluate(f.getRight(), env, null));
+            break;
+        case DIAMOND: {
+            final BitSet body = evaluate(f.getLeft(), env, null);
+            result = new BitSet(states.length);
+            for (final int label: labels(f.getActions())) {
+                final int[] src = sources.get(label);
+                final int[] dst = targets.get(label);
+                for (int i = counts.get(label) - 1; i >= 0; --i)
+                    if (body.get(dst[i]))
+                        result.set(src[i]);
+            }
+            break;
+        }
+        case BOX: {
+            final BitSet body = evaluate(f.getLeft(), env, null);
+            result = new BitSet(states.length);
+            result.set(0, states.length);
+            for (final int label: labels(f.getActions())) {
+                final int[] src = sources.get(label);
+                final int[] dst = targets.get(label);
+                for (int i = counts.get(label) - 1; i >= 0; --i)
+                    if (!body.get(dst[i]))
+                        result.clear(src[i]);
+            }
+            break;
+        }
+        case MU:
+        case NU: {
+            final boolean mu = f.getType() == MuFormula.Type.MU;
+            BitSet current = new BitSet(states.length);
+            if (!mu)
+                current.set(0, states.length);
+            final Map<MuFormula, BitSet> inner = new IdentityHashMap<MuFormula, BitSet>(env);
+            for (int iteration = 1; ; ++iteration) {
+                inner.put(f, current);
+                final BitSet next = evaluate(f.getLeft(), inner, null);
+                if (ranks != null) {
+                    final BitSet changed = (BitSet) next.clone();
+                    changed.xor(current);
+                    for (int s = changed.nextSetBit(0); s >= 0; s = changed.nextSetBit(s + 1))
+                        ranks[s] = iteration;
+                }
+                if (next.equals(current))
+                    break;
+                current = next;
+            }
+            result = current;
+            break;
+        }
+        case VARIABLE:
+            result = env.get(f.getBinder());
+            break;
+        default:
+            throw new IllegalStateException();
+        }
+
+        if (f.isClosed())
+            closed.put(f, result);
+        return result;
+    }
+
+    private List<Integer> labels(Set<String> actions) {
+        final List<Integer> labels = new ArrayList<Integer>();
+        if (actions == null) {
+            labels.addAll(labelIds.values());
+        } else {
+            for (final String action: actions) {
+                final Integer id = labelIds.get(action);
+                if (id != null)
+                    labels.add(id);
+            }
+        }
+        return labels;
+    }
+
+    /*
+     * Witnesses
+     */
+
+    // Follows the formula from the initial state as long as a single
+    // subformula in a single state determines the result. Inside a fixpoint,
+    // the successor with the lowest rank is chosen, so that the trace leads
+    // to the state that made the fixpoint iteration include (or exclude) the
+    // initial state as fast as possible. Returns the last state.
+    private int explain(MuFormula formula, boolean holds, List<Transition> trace) {
+        final Map<MuFormula, BitSet> env = new IdentityHashMap<MuFormula, BitSet>();
+        final Map<MuFormula, int[]> ranks = new IdentityHashMap<MuFormula, int[]>();
+        final Map<MuFormula, BitSet> visited = new IdentityHashMap<MuFormula, BitSet>();
+        int[] rank = null;
+
+        MuFormula f = formula;
+        int s = 0;
+        while (true) {
+            BitSet seen = visited.get(f);
+            if (seen == null)
+                visited.put(f, seen = new BitSet(states.length));
+            if (seen.get(s))
+                break;
+            seen.set(s);
+            MuFormula next = null;
+            switch (f.getType()) {
+            case AND:
+            case OR:
+                // a conjunction that holds (a disjunction that doesn't)
+                // depends on both operands
+                if (holds == (f.getType() == MuFormula.Type.OR))
+                    next = evaluate(f.getLeft(), env, null).get(s) == holds
+                        ? f.getLeft() : f.getRight();
+                break;
+            case DIAMOND:
+            case BOX:
+                if (holds == (f.getType() == MuFormula.Type.DIAMOND)) {
+                    final BitSet body = evaluate(f.getLeft(), env, null);
+                    Transition best = null;
+                    int bestTarget = -1;
+                    for (final Transition t: transitions.get(s)) {
+                        final Set<String> actions = f.getActions();
+                        if (actions != null && !actions.contains(t.getAction().getLabel()))
+                            continue;
+                        final int target = numbers.get(t.getTarget());
+                        if (body.get(target) == holds && (best == null
+                                || (rank != null && rank[target] < rank[bestTarget]))) {
+                            best = t;
+                            bestTarget = target;
+                        }
+                    }
+                    if (best != null) {
+                        trace.add(best);
+                        s = bestTarget;
+                        next = f.getLeft();
+                    }
+                }
+                break;
+            case MU:
+            case NU:
+                // a least fixpoint that holds (a greatest one that doesn't)
+                // is explained by unfolding it
+                if (holds == (f.getType() == MuFormula.Type.MU)) {
+                    if (!env.containsKey(f)) {
+                        final int[] r = new int[states.length];
+                        env.put(f, evaluate(f, env, r));
+                        ranks.put(f, r);
+                    }
+                    rank = ranks.get(f);
+                    next = f.getLeft();
+                }
+                break;
+            case VARIABLE:
+                next = f.getBinder();
+                break;
+            default:
+                break;
+            }
+            if (next == null)
+                break;
+            f = next;
+        }
+        return s;
+    }
+
+}
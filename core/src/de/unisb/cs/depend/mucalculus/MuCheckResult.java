@@ -0,0 +1,65 @@
+package de.unisb.cs.depend.mucalculus;
+
+import java.util.List;
+
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.Expression;
+import de.unisb.cs.depend.ccs_sem.semantics.types.Transition;
+import de.unisb.cs.depend.ccs_sem.utils.Globals;
+import de.unisb.cs.depend.ccs_sem.utils.StateSearch;
+
+
+/**
+ * The result of checking a mu-calculus formula
+ * (see {@link MuCalculusChecker#check(MuFormula)}).
+ */
+public class MuCheckResult {
+
+    private final MuFormula formula;
+    private final boolean satisfied;
+    private final Expression state;
+    private final List<Transition> trace;
+
+    public MuCheckResult(MuFormula formula, boolean satisfied, Expression state,
+            List<Transition> trace) {
+        this.formula = formula;
+        this.satisfied = satisfied;
+        this.state = state;
+        this.trace = trace;
+    }
+
+    public MuFormula getFormula() {
+        return formula;
+    }
+
+    public boolean isSatisfied() {
+        return satisfied;
+    }
+
+    /**
+     * @return the state the witness (if the formula is satisfied) or
+     *         counter-witness (if it is violated) leads to
+     */
+    public Expression getState() {
+        return state;
+    }
+
+    /**
+     * @return the transitions from the initial state to {@link #getState()}
+     */
+    public List<Transition> getTrace() {
+        return trace;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append(formula).append(satisfied ? " satisfied" : " violated");
+        if (!trace.isEmpty()) {
+            sb.append(Globals.getNewline()).append(Globals.getNewline())
+                .append(satisfied ? "Witness:" : "Counter-witness:").append(Globals.getNewline())
+                .append(StateSearch.traceToString(trace));
+        }
+        return sb.toString();
+    }
+
+}
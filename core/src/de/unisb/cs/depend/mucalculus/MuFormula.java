@@ -0,0 +1,272 @@
+package de.unisb.cs.depend.mucalculus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+
+/**
+ * A formula of the modal mu-calculus in positive normal form, i.e. negations
+ * have already been pushed inwards by the parser (see {@link MuFormulaParser}).
+ *
+ * The modalities are labelled with sets of action labels (as returned by
+ * {@link de.unisb.cs.depend.ccs_sem.semantics.types.actions.Action#getLabel()}),
+ * or with <code>null</code>, which stands for all actions.
+ *
+ * Formulas are compared by identity, every occurrence of a subformula is an
+ * own object.
+ */
+public class MuFormula {
+
+    public enum Type {
+        TRUE, FALSE, AND, OR, DIAMOND, BOX, MU, NU, VARIABLE
+    }
+
+    private final Type type;
+    private final MuFormula left;
+    private final MuFormula right;
+    private final Set<String> actions;
+    private final String variable;
+
+    // the fixpoint binding a variable
+    private MuFormula binder = null;
+
+    // the variables occuring free in this formula
+    private final Set<String> freeVariables;
+
+    private MuFormula(Type type, MuFormula left, MuFormula right,
+            Set<String> actions, String variable) {
+        this.type = type;
+        this.left = left;
+        this.right = right;
+        this.actions = actions;
+        this.variable = variable;
+
+        final Set<String> free = new HashSet<String>();
+        if (type == Type.VARIABLE)
+            free.add(variable);
+        if (left != null)
+            free.addAll(left.freeVariables);
+        if (right != null)
+            free.addAll(right.freeVariables);
+        if (type == Type.MU || type == Type.NU)
+            free.remove(variable);
+        this.freeVariables = Collections.unmodifiableSet(free);
+    }
+
+    public static MuFormula constant(boolean value) {
+        return new MuFormula(value ? Type.TRUE : Type.FALSE, null, null, null, null);
+    }
+
+    public static MuFormula and(MuFormula left, MuFormula right) {
+        return new MuFormula(Type.AND, left, right, null, null);
+    }
+
+    public static MuFormula or(MuFormula left, MuFormula right) {
+        return new MuFormula(Type.OR, left, right, null, null);
+    }
+
+    /**
+     * @param actions the action labels, or <code>null</code> for all actions
+     */
+    public static MuFormula diamond(Set<String> actions, MuFormula body) {
+        return new MuFormula(Type.DIAMOND, body, null, actions, null);
+    }
+
+    /**
+     * @param actions the action labels, or <code>null</code> for all actions
+     */
+    public static MuFormula box(Set<String> actions, MuFormula body) {
+        return new MuFormula(Type.BOX, body, null, actions, null);
+    }
+
+    public static MuFormula mu(String variable, MuFormula body) {
+        return bind(new MuFormula(Type.MU, body, null, null, variable));
+    }
+
+    public static MuFormula nu(String variable, MuFormula body) {
+        return bind(new MuFormula(Type.NU, body, null, null, variable));
+    }
+
+    public static MuFormula variable(String name) {
+        return new MuFormula(Type.VARIABLE, null, null, null, name);
+    }
+
+    // sets the binder of the free occurences of the variable in the body
+    private static MuFormula bind(MuFormula fixpoint) {
+        bind(fixpoint.left, fixpoint.variable, fixpoint);
+        return fixpoint;
+    }
+
+    private static void bind(MuFormula f, String variable, MuFormula fixpoint) {
+        if (!f.freeVariables.contains(variable))
+            return;
+        if (f.type == Type.VARIABLE)
+            f.binder = fixpoint;
+        if (f.left != null)
+            bind(f.left, variable, fixpoint);
+        if (f.right != null)
+            bind(f.right, variable, fixpoint);
+    }
+
+    /**
+     * @return the negation of this formula (in positive normal form)
+     * @throws IllegalStateException if this formula has free variables
+     */
+    public MuFormula negate() {
+        if (!freeVariables.isEmpty())
+            throw new IllegalStateException("Variable " + freeVariables.iterator().next()
+                + " must not occur negated.");
+        return negate0();
+    }
+
+    // the free variables are negated by negating their binder
+    private MuFormula negate0() {
+        switch (type) {
+        case TRUE:
+            return constant(false);
+        case FALSE:
+            return constant(true);
+        case AND:
+            return or(left.negate0(), right.negate0());
+        case OR:
+            return and(left.negate0(), right.negate0());
+        case DIAMOND:
+            return box(actions, left.negate0());
+        case BOX:
+            return diamond(actions, left.negate0());
+        case MU:
+            return nu(variable, left.negate0());
+        case NU:
+            return mu(variable, left.negate0());
+        case VARIABLE:
+            return variable(variable);
+        default:
+            throw new IllegalStateException();
+        }
+    }
+
+    /**
+     * Checks that this formula is alternation-free, i.e. that no fixpoint
+     * refers to a variable bound by a fixpoint of the other kind.
+     *
+     * @return a description of the violation, or <code>null</code> if the
+     *         formula is alternation-free
+     */
+    public String checkAlternationFree() {
+        if (type == Type.MU || type == Type.NU) {
+            for (final MuFormula inner: getFixpoints(left)) {
+                if (inner.type != type && inner.freeVariables.contains(variable))
+                    return "The fixpoint " + inner.variable + " depends on the "
+                        + (type == Type.MU ? "least" : "greatest") + " fixpoint "
+                        + variable + ".";
+            }
+        }
+        final String leftProblem = left == null ? null : left.checkAlternationFree();
+        if (leftProblem != null)
+            return leftProblem;
+        return right == null ? null : right.checkAlternationFree();
+    }
+
+    private static List<MuFormula> getFixpoints(MuFormula f) {
+        final List<MuFormula> fixpoints = new ArrayList<MuFormula>();
+        collectFixpoints(f, fixpoints);
+        return fixpoints;
+    }
+
+    private static void collectFixpoints(MuFormula f, List<MuFormula> fixpoints) {
+        if (f.type == Type.MU || f.type == Type.NU)
+            fixpoints.add(f);
+        if (f.left != null)
+            collectFixpoints(f.left, fixpoints);
+        if (f.right != null)
+            collectFixpoints(f.right, fixpoints);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return the left operand, or the body of a modality or fixpoint
+     */
+    public MuFormula getLeft() {
+        return left;
+    }
+
+    public MuFormula getRight() {
+        return right;
+    }
+
+    /**
+     * @return the action labels of a modality (<code>null</code> for all
+     *         actions)
+     */
+    public Set<String> getActions() {
+        return actions;
+    }
+
+    /**
+     * @return the variable of a fixpoint or a variable occurence
+     */
+    public String getVariable() {
+        return variable;
+    }
+
+    /**
+     * @return the fixpoint binding this variable, or <code>null</code> if it
+     *         is free
+     */
+    public MuFormula getBinder() {
+        return binder;
+    }
+
+    public Set<String> getFreeVariables() {
+        return freeVariables;
+    }
+
+    public boolean isClosed() {
+        return freeVariables.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        switch (type) {
+        case TRUE:
+            return "true";
+        case FALSE:
+            return "false";
+        case AND:
+            return "(" + left + " && " + right + ")";
+        case OR:
+            return "(" + left + " || " + right + ")";
+        case DIAMOND:
+            return "<" + actionsToString() + ">" + left;
+        case BOX:
+            return "[" + actionsToString() + "]" + left;
+        case MU:
+            return "(mu " + variable + ". " + left + ")";
+        case NU:
+            return "(nu " + variable + ". " + left + ")";
+        case VARIABLE:
+            return variable;
+        default:
+            throw new IllegalStateException();
+        }
+    }
+
+    private String actionsToString() {
+        if (actions == null)
+            return "-";
+        final StringBuilder sb = new StringBuilder();
+        for (final String action: actions) {
+            if (sb.length() > 0)
+                sb.append(',');
+            sb.append(action);
+        }
+        return sb.toString();
+    }
+
+}
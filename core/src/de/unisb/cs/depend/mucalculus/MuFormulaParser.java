@@ -0,0 +1,186 @@
+package de.unisb.cs.depend.mucalculus;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+import de.unisb.cs.depend.ccs_sem.exceptions.ParseException;
+
+
+/**
+ * Parses formulas of the alternation-free modal mu-calculus.
+ *
+ * The grammar (from lowest to highest precedence):
+ * <pre>
+ * f ::= f -> f | f || f | f &amp;&amp; f
+ *     | !f | &lt;A&gt;f | [A]f | mu X. f | nu X. f
+ *     | true | false | X | (f)
+ * </pre>
+ * where <code>A</code> is a comma separated list of action labels (e.g.
+ * <code>&lt;a,b!&gt;</code>, <code>i</code> is the label of tau) or
+ * <code>-</code> for all actions, and variables start with an upper case
+ * letter. The body of a fixpoint extends as far to the right as possible.
+ *
+ * Examples: <code>nu X. [req]&lt;ack&gt;true &amp;&amp; [-]X</code> (after every req, an ack
+ * is possible), <code>mu X. &lt;done&gt;true || &lt;-&gt;X</code> (done is reachable).
+ */
+public class MuFormulaParser {
+
+    private final String input;
+    private int pos;
+
+    private MuFormulaParser(String input) {
+        this.input = input;
+        this.pos = 0;
+    }
+
+    /**
+     * @return the parsed formula, which is closed and alternation-free
+     * @throws ParseException if the formula is malformed, has free variables
+     *         or is not alternation-free
+     */
+    public static MuFormula parse(String formula) throws ParseException {
+        final MuFormulaParser parser = new MuFormulaParser(formula);
+        final MuFormula f = parser.parseImplication();
+        parser.skipWhitespace();
+        if (parser.pos < formula.length())
+            throw parser.error("Unexpected input");
+        if (!f.isClosed())
+            throw new ParseException("Unbound variable "
+                + f.getFreeVariables().iterator().next(), 0, formula.length());
+        final String problem = f.checkAlternationFree();
+        if (problem != null)
+            throw new ParseException("The formula is not alternation-free: "
+                + problem, 0, formula.length());
+        return f;
+    }
+
+    // implications are right associative
+    private MuFormula parseImplication() throws ParseException {
+        final int start = pos;
+        final MuFormula left = parseDisjunction();
+        if (!accept("->"))
+            return left;
+        return MuFormula.or(negate(left, start), parseImplication());
+    }
+
+    private MuFormula parseDisjunction() throws ParseException {
+        MuFormula f = parseConjunction();
+        while (accept("||"))
+            f = MuFormula.or(f, parseConjunction());
+        return f;
+    }
+
+    private MuFormula parseConjunction() throws ParseException {
+        MuFormula f = parseUnary();
+        while (accept("&&"))
+            f = MuFormula.and(f, parseUnary());
+        return f;
+    }
+
+    private MuFormula parseUnary() throws ParseException {
+        final int start = pos;
+        if (accept("!"))
+            return negate(parseUnary(), start);
+        if (accept("<")) {
+            final Set<String> actions = parseActions('>');
+            return MuFormula.diamond(actions, parseUnary());
+        }
+        if (accept("[")) {
+            final Set<String> actions = parseActions(']');
+            return MuFormula.box(actions, parseUnary());
+        }
+        final boolean mu = acceptKeyword("mu");
+        if (mu || acceptKeyword("nu")) {
+            final String variable = parseVariable();
+            if (!accept("."))
+                throw error("Expected \".\" after the fixpoint variable");
+            final MuFormula body = parseImplication();
+            return mu ? MuFormula.mu(variable, body) : MuFormula.nu(variable, body);
+        }
+        return parseAtom();
+    }
+
+    private MuFormula parseAtom() throws ParseException {
+        if (acceptKeyword("true"))
+            return MuFormula.constant(true);
+        if (acceptKeyword("false"))
+            return MuFormula.constant(false);
+        if (accept("(")) {
+            final MuFormula f = parseImplication();
+            if (!accept(")"))
+                throw error("Expected \")\"");
+            return f;
+        }
+        skipWhitespace();
+        if (pos < input.length() && Character.isUpperCase(input.charAt(pos)))
+            return MuFormula.variable(parseVariable());
+        throw error("Expected a formula");
+    }
+
+    private MuFormula negate(MuFormula f, int start) throws ParseException {
+        try {
+            return f.negate();
+        } catch (final IllegalStateException e) {
+            throw new ParseException(e.getMessage(), start, pos);
+        }
+    }
+
+    // returns null for all actions
+    private Set<String> parseActions(char closing) throws ParseException {
+        final int end = input.indexOf(closing, pos);
+        if (end == -1)
+            throw error("Expected \"" + closing + "\"");
+        final String list = input.substring(pos, end).trim();
+        pos = end + 1;
+        if (list.equals("-"))
+            return null;
+        final Set<String> actions = new TreeSet<String>();
+        for (final String action: list.split(",")) {
+            if (action.trim().length() == 0)
+                throw error("Expected an action label");
+            actions.add(action.trim());
+        }
+        return actions;
+    }
+
+    private String parseVariable() throws ParseException {
+        skipWhitespace();
+        final int start = pos;
+        if (pos >= input.length() || !Character.isUpperCase(input.charAt(pos)))
+            throw error("Expected a variable (starting with an upper case letter)");
+        while (pos < input.length() && (Character.isLetterOrDigit(input.charAt(pos))
+                || input.charAt(pos) == '_'))
+            ++pos;
+        return input.substring(start, pos);
+    }
+
+    private boolean accept(String token) {
+        skipWhitespace();
+        if (!input.startsWith(token, pos))
+            return false;
+        pos += token.length();
+        return true;
+    }
+
+    // a keyword must not be followed by further letters
+    private boolean acceptKeyword(String keyword) {
+        skipWhitespace();
+        final int end = pos + keyword.length();
+        if (!input.startsWith(keyword, pos) || (end < input.length()
+                && Character.isLetterOrDigit(input.charAt(end))))
+            return false;
+        pos = end;
+        return true;
+    }
+
+    private void skipWhitespace() {
+        while (pos < input.length() && Character.isWhitespace(input.charAt(pos)))
+            ++pos;
+    }
+
+    private ParseException error(String message) {
+        return new ParseException(message + " at position " + pos
+            + " of \"" + input + "\"", pos, pos);
+    }
+
+}
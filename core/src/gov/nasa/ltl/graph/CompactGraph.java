@@ -0,0 +1,253 @@
+//
+// Copyright (C) 2005 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+package gov.nasa.ltl.graph;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An array based graph for big graphs like the transition systems and
+ * product automata of the model checker.
+ *
+ * Unlike in {@link Graph}, nodes and edges are plain ints, numbered
+ * consecutively from 0, and instead of {@link Attributes} there are typed
+ * fields: every node has a set of propositions, an initial and an accepting
+ * flag, and every edge has an action. Propositions and actions are
+ * interned, so each name is stored only once.
+ *
+ * The outgoing edges of all nodes are stored in one array, sorted by
+ * source node. This index is computed when the edges of a node are first
+ * requested after edges were added. A graph may be read by several
+ * threads, but must not be modified concurrently.
+ */
+public class CompactGraph {
+	private int nodeCount = 0;
+	private final BitSet initial = new BitSet();
+	private final BitSet accepting = new BitSet();
+	private BitSet[] propositions = new BitSet[16];
+
+	private int edgeCount = 0;
+	private int[] sources = new int[16];
+	private int[] targets = new int[16];
+	private int[] actions = new int[16];
+
+	// null if nodes or edges were added since the last query
+	private volatile Index index = null;
+
+	private final List<String> actionNames = new ArrayList<String>();
+	private final Map<String, Integer> actionIds = new HashMap<String, Integer>();
+	private final List<String> propositionNames = new ArrayList<String>();
+	private final Map<String, Integer> propositionIds = new HashMap<String, Integer>();
+
+	/**
+	 * @return the new node
+	 */
+	public int addNode() {
+		if (nodeCount == propositions.length) {
+			final BitSet[] p = new BitSet[2 * nodeCount];
+			System.arraycopy(propositions, 0, p, 0, nodeCount);
+			propositions = p;
+		}
+		propositions[nodeCount] = new BitSet();
+		index = null;
+
+		return nodeCount++;
+	}
+
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	public void setInitial(int node, boolean value) {
+		initial.set(node, value);
+	}
+
+	public boolean isInitial(int node) {
+		return initial.get(node);
+	}
+
+	/**
+	 * @return the initial nodes (must not be modified)
+	 */
+	public BitSet getInitialNodes() {
+		return initial;
+	}
+
+	public void setAccepting(int node, boolean value) {
+		accepting.set(node, value);
+	}
+
+	public boolean isAccepting(int node) {
+		return accepting.get(node);
+	}
+
+	/**
+	 * Adds a proposition that holds in the given node.
+	 */
+	public void addProposition(int node, String name) {
+		Integer id = propositionIds.get(name);
+
+		if (id == null) {
+			id = propositionNames.size();
+			propositionNames.add(name);
+			propositionIds.put(name, id);
+		}
+
+		propositions[node].set(id);
+	}
+
+	/**
+	 * @return the ids of the propositions that hold in the node (must not
+	 *         be modified)
+	 */
+	public BitSet getPropositions(int node) {
+		return propositions[node];
+	}
+
+	/**
+	 * @return the id of the proposition, or -1 if it holds in no node
+	 */
+	public int getPropositionId(String name) {
+		final Integer id = propositionIds.get(name);
+
+		return (id == null) ? -1 : id;
+	}
+
+	public String getPropositionName(int id) {
+		return propositionNames.get(id);
+	}
+
+	/**
+	 * @return the new edge
+	 */
+	public int addEdge(int source, int target, String action) {
+		if (edgeCount == sources.length) {
+			sources = grow(sources);
+			targets = grow(targets);
+			actions = grow(actions);
+		}
+
+		Integer id = actionIds.get(action);
+
+		if (id == null) {
+			id = actionNames.size();
+			actionNames.add(action);
+			actionIds.put(action, id);
+		}
+
+		sources[edgeCount] = source;
+		targets[edgeCount] = target;
+		actions[edgeCount] = id;
+		index = null;
+
+		return edgeCount++;
+	}
+
+	public int getEdgeCount() {
+		return edgeCount;
+	}
+
+	public int getSource(int edge) {
+		return sources[edge];
+	}
+
+	public int getTarget(int edge) {
+		return targets[edge];
+	}
+
+	public String getAction(int edge) {
+		return actionNames.get(actions[edge]);
+	}
+
+	public int getOutgoingEdgeCount(int node) {
+		final int[] o = index().offsets;
+
+		return o[node + 1] - o[node];
+	}
+
+	/**
+	 * @return the <code>i</code>-th outgoing edge of the node
+	 */
+	public int getOutgoingEdge(int node, int i) {
+		final Index idx = index();
+
+		return idx.order[idx.offsets[node] + i];
+	}
+
+	private static int[] grow(int[] a) {
+		final int[] b = new int[2 * a.length];
+		System.arraycopy(a, 0, b, 0, a.length);
+		return b;
+	}
+
+	// sorts the edges by source node (counting sort)
+	private Index index() {
+		Index idx = index;
+
+		if (idx != null) {
+			return idx;
+		}
+
+		synchronized (this) {
+			if (index != null) {
+				return index;
+			}
+
+			final int[] o = new int[nodeCount + 1];
+
+			for (int e = 0; e < edgeCount; e++) {
+				o[sources[e] + 1]++;
+			}
+
+			for (int n = 0; n < nodeCount; n++) {
+				o[n + 1] += o[n];
+			}
+
+			final int[] next = new int[nodeCount];
+			System.arraycopy(o, 0, next, 0, nodeCount);
+			final int[] order = new int[edgeCount];
+
+			for (int e = 0; e < edgeCount; e++) {
+				order[next[sources[e]]++] = e;
+			}
+
+			idx = new Index(o, order);
+			index = idx;
+
+			return idx;
+		}
+	}
+
+	/**
+	 * The outgoing edges of node n are order[offsets[n]] up to (excluding)
+	 * order[offsets[n + 1]].
+	 */
+	private static final class Index {
+		final int[] offsets;
+		final int[] order;
+
+		Index(int[] offsets, int[] order) {
+			this.offsets = offsets;
+			this.order = order;
+		}
+	}
+}
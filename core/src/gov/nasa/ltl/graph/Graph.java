@@ -24,9 +24,11 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.PrintStream;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * DOCUMENT ME!
@@ -68,11 +70,11 @@ public class Graph {
 		return attributes.getBoolean(name);
 	}
 
-	public int getEdgeCount() {
+	public synchronized int getEdgeCount() {
 		int count = 0;
 
-		for (final Iterator<Node> i = new LinkedList<Node>(nodes).iterator(); i.hasNext();) {
-			count += i.next().getOutgoingEdgeCount();
+		for (final Node n : nodes) {
+			count += n.getOutgoingEdgeCount();
 		}
 
 		return count;
@@ -117,6 +119,34 @@ public class Graph {
 		return new LinkedList<Node>(nodes);
 	}
 
+	/**
+	 * Creates a deep copy of this graph. The nodes and edges of the copy
+	 * have copies of the attributes of the originals, so the copy can be
+	 * modified without affecting this graph.
+	 */
+	public synchronized Graph copy() {
+		final Graph copy = new Graph(new Attributes(attributes));
+		final Map<Node, Node> copies = new HashMap<Node, Node>();
+
+		for (final Node n : nodes) {
+			copies.put(n, new Node(copy, new Attributes(n.getAttributes())));
+		}
+
+		for (final Node n : nodes) {
+			final Node source = copies.get(n);
+			for (final Edge e : n.getOutgoingEdges()) {
+				new Edge(source, copies.get(e.getNext()), e.getGuard(),
+						e.getAction(), new Attributes(e.getAttributes()));
+			}
+		}
+
+		if (init != null) {
+			copy.setInit(copies.get(init));
+		}
+
+		return copy;
+	}
+
 	public synchronized void setStringAttribute(String name, String value) {
 		attributes.setString(name, value);
 	}
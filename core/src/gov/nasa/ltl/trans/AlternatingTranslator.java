@@ -0,0 +1,832 @@
+
+//
+// Copyright (C) 2005 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+// 
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+// 
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+// Translation via very weak alternating automata, after P. Gastin and
+// D. Oddoux, "Fast LTL to Buchi Automata Translation" (CAV 2001)
+package gov.nasa.ltl.trans;
+
+import gov.nasa.ltl.graph.Edge;
+import gov.nasa.ltl.graph.Graph;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * Translates a formula into a Buchi automaton in three steps: first into a
+ * very weak alternating automaton (VWAA), whose states are the temporal
+ * subformulas and literals of the formula, then into a generalized Buchi
+ * automaton (GBA), whose states are sets of VWAA states, and finally into a
+ * Buchi automaton, whose states are GBA states together with a counter of
+ * the accepting conditions seen so far.
+ * In every step the transitions that are dominated by another transition
+ * of the same state are dropped, and bisimilar GBA states are merged
+ * before the Buchi automaton is built on the fly. Unlike the tableau
+ * translation, this scales well for conjunctions of many fairness
+ * assumptions.
+ */
+class AlternatingTranslator {
+  private static final BitSet             NOWHERE = new BitSet();
+
+  private final Formula                   formula;
+
+  // the propositions, numbered in the order of their occurrence
+  private final Map<String, Integer>      propIds = new HashMap<String, Integer>();
+  private final List<String>              propNames = new ArrayList<String>();
+
+  // the states of the VWAA and their transitions
+  private final Map<Formula, Integer>     stateIds = new HashMap<Formula, Integer>();
+  private final List<Formula>             states = new ArrayList<Formula>();
+  private final List<List<Trans>>         vwaa = new ArrayList<List<Trans>>();
+  private final Map<Formula, List<Trans>> deltas = new HashMap<Formula, List<Trans>>();
+  private List<BitSet>                    initial;
+
+  // the final (until) states of the VWAA, one accepting condition each
+  private int[]                           finals;
+
+  // the states of the GBA; the first one is the initial state, which
+  // stands for the disjunction of the initial sets of VWAA states
+  private final Map<BitSet, Integer>      gbaIds = new HashMap<BitSet, Integer>();
+  private final List<BitSet>              gbaStates = new ArrayList<BitSet>();
+
+  // the transitions of the reduced GBA, whose states are classes of
+  // bisimilar GBA states; the targets are singletons
+  private List<List<Trans>>               gba;
+
+  public AlternatingTranslator (Formula formula) {
+    this.formula = formula;
+  }
+
+  /**
+   * Returns the generalized Buchi automaton with accepting conditions on
+   * the edges, in the format of {@link Translator#translate(String)}.
+   */
+  public Graph toGeneralizedBuchi () {
+    buildGBA();
+
+    Graph g = new Graph();
+    g.setStringAttribute("type", "gba");
+    g.setStringAttribute("ac", "edges");
+    g.setIntAttribute("nsets", Math.max(finals.length, 1));
+
+    gov.nasa.ltl.graph.Node[] nodes = new gov.nasa.ltl.graph.Node[gba.size()];
+
+    for (int i = 0; i < nodes.length; i++) {
+      nodes[i] = newNode(g);
+    }
+
+    for (int i = 0; i < nodes.length; i++) {
+      for (Trans t : gba.get(i)) {
+        Edge e = new Edge(nodes[i], nodes[t.to.nextSetBit(0)],
+                          guardToString(t.guard), "-");
+
+        if (finals.length == 0) {
+          e.setBooleanAttribute("acc0", true);
+        } else {
+          for (int j = t.acc.nextSetBit(0); j >= 0; j = t.acc.nextSetBit(j + 1)) {
+            e.setBooleanAttribute("acc" + j, true);
+          }
+        }
+      }
+    }
+
+    return g;
+  }
+
+  /**
+   * Returns the (degeneralized) Buchi automaton with accepting nodes.
+   */
+  public Graph toBuchi () {
+    buildGBA();
+
+    Graph g = new Graph();
+    g.setStringAttribute("type", "ba");
+    g.setStringAttribute("ac", "nodes");
+
+    int                                  k = finals.length;
+    Map<Key, gov.nasa.ltl.graph.Node>    nodes = new HashMap<Key, gov.nasa.ltl.graph.Node>();
+    LinkedList<Key>                      queue = new LinkedList<Key>();
+
+    Key init = new Key(0, 0);
+    nodes.put(init, newNode(g));
+    queue.add(init);
+
+    while (!queue.isEmpty()) {
+      Key                     key = queue.removeFirst();
+      gov.nasa.ltl.graph.Node node = nodes.get(key);
+
+      if (key.counter == k) {
+        node.setBooleanAttribute("accepting", true);
+      }
+
+      // the edges to the same node only differ in the guard
+      Map<Key, List<Trans>> edges = new LinkedHashMap<Key, List<Trans>>();
+
+      for (Trans t : gba.get(key.state)) {
+        Key         target = new Key(t.to.nextSetBit(0), next(key.counter, t.acc));
+        List<Trans> guards = edges.get(target);
+
+        if (guards == null) {
+          guards = new ArrayList<Trans>();
+          edges.put(target, guards);
+        }
+
+        addUndominated(guards, new Trans(t.guard, NOWHERE, null));
+      }
+
+      for (Map.Entry<Key, List<Trans>> entry : edges.entrySet()) {
+        gov.nasa.ltl.graph.Node next = nodes.get(entry.getKey());
+
+        if (next == null) {
+          next = newNode(g);
+          nodes.put(entry.getKey(), next);
+          queue.add(entry.getKey());
+        }
+
+        for (Trans t : entry.getValue()) {
+          new Edge(node, next, guardToString(t.guard), "-");
+        }
+      }
+    }
+
+    return g;
+  }
+
+  private gov.nasa.ltl.graph.Node newNode (Graph g) {
+    gov.nasa.ltl.graph.Node n = new gov.nasa.ltl.graph.Node(g);
+    n.setStringAttribute("label", "S" + (g.getNodeCount() - 1));
+
+    return n;
+  }
+
+  // the counter of a Buchi state after a GBA transition with the given
+  // accepting conditions; the Buchi state is accepting iff the counter
+  // reached the number of conditions
+  private int next (int counter, BitSet acc) {
+    if (counter == finals.length) {
+      counter = 0;
+    }
+
+    while ((counter < finals.length) && acc.get(counter)) {
+      counter++;
+    }
+
+    return counter;
+  }
+
+  private String guardToString (Guard guard) {
+    if (guard.pos.isEmpty() && guard.neg.isEmpty()) {
+      return "-";
+    }
+
+    StringBuilder sb = new StringBuilder();
+
+    for (int i = 0; i < propNames.size(); i++) {
+      if (guard.pos.get(i) || guard.neg.get(i)) {
+        if (sb.length() > 0) {
+          sb.append('&');
+        }
+
+        if (guard.neg.get(i)) {
+          sb.append('!');
+        }
+
+        sb.append(propNames.get(i));
+      }
+    }
+
+    return sb.toString();
+  }
+
+  /*
+   * The very weak alternating automaton
+   */
+  private void buildVWAA () {
+    if (finals != null) {
+      return;
+    }
+
+    initial = bar(formula);
+
+    // new states are appended while the transitions are computed
+    for (int i = 0; i < states.size(); i++) {
+      vwaa.add(delta(states.get(i)));
+    }
+
+    List<Integer> untils = new ArrayList<Integer>();
+
+    for (int i = 0; i < states.size(); i++) {
+      if (states.get(i).getContent() == 'U') {
+        untils.add(i);
+      }
+    }
+
+    finals = new int[untils.size()];
+
+    for (int i = 0; i < finals.length; i++) {
+      finals[i] = untils.get(i);
+    }
+  }
+
+  private int stateId (Formula f) {
+    Integer id = stateIds.get(f);
+
+    if (id == null) {
+      id = states.size();
+      stateIds.put(f, id);
+      states.add(f);
+    }
+
+    return id;
+  }
+
+  private int propId (String name) {
+    Integer id = propIds.get(name);
+
+    if (id == null) {
+      id = propNames.size();
+      propIds.put(name, id);
+      propNames.add(name);
+    }
+
+    return id;
+  }
+
+  // the formula as a disjunction of conjunctions of VWAA states
+  private List<BitSet> bar (Formula f) {
+    List<BitSet> result = new ArrayList<BitSet>();
+
+    switch (f.getContent()) {
+    case 't':
+      result.add(new BitSet());
+
+      break;
+
+    case 'f':
+      break;
+
+    case 'A':
+      for (BitSet s1 : bar(f.getSub1())) {
+        for (BitSet s2 : bar(f.getSub2())) {
+          BitSet s = (BitSet) s1.clone();
+          s.or(s2);
+          addMinimal(result, s);
+        }
+      }
+
+      break;
+
+    case 'O':
+      for (BitSet s : bar(f.getSub1())) {
+        addMinimal(result, s);
+      }
+
+      for (BitSet s : bar(f.getSub2())) {
+        addMinimal(result, s);
+      }
+
+      break;
+
+    default:
+      BitSet s = new BitSet();
+      s.set(stateId(f));
+      result.add(s);
+
+      break;
+    }
+
+    return result;
+  }
+
+  private static void addMinimal (List<BitSet> sets, BitSet s) {
+    for (Iterator<BitSet> it = sets.iterator(); it.hasNext();) {
+      BitSet other = it.next();
+
+      if (subset(other, s)) {
+        return;
+      }
+
+      if (subset(s, other)) {
+        it.remove();
+      }
+    }
+
+    sets.add(s);
+  }
+
+  private List<Trans> delta (Formula f) {
+    List<Trans> result = deltas.get(f);
+
+    if (result != null) {
+      return result;
+    }
+
+    switch (f.getContent()) {
+    case 't':
+      result = Collections.singletonList(new Trans(Guard.TRUE, new BitSet(), null));
+
+      break;
+
+    case 'f':
+      result = Collections.emptyList();
+
+      break;
+
+    case 'p':
+    case 'N': {
+      Guard  guard = new Guard();
+      BitSet literals = (f.getContent() == 'p') ? guard.pos : guard.neg;
+      literals.set(propId((f.getContent() == 'p') ? f.getName()
+                                                  : f.getSub1().getName()));
+      result = Collections.singletonList(new Trans(guard, new BitSet(), null));
+
+      break;
+    }
+
+    case 'A':
+      result = product(delta(f.getSub1()), delta(f.getSub2()));
+
+      break;
+
+    case 'O':
+      result = union(delta(f.getSub1()), delta(f.getSub2()));
+
+      break;
+
+    case 'X':
+      result = new ArrayList<Trans>();
+
+      for (BitSet s : bar(f.getSub1())) {
+        result.add(new Trans(Guard.TRUE, s, null));
+      }
+
+      break;
+
+    case 'U':
+    case 'W':
+      // f1 U f2 == f2 \/ (f1 /\ X (f1 U f2)), and the same for W
+      result = union(delta(f.getSub2()), product(delta(f.getSub1()), loop(f)));
+
+      break;
+
+    case 'V':
+      // f1 V f2 == f2 /\ (f1 \/ X (f1 V f2)); note that getSub1() is f2
+      result = product(delta(f.getSub1()), union(delta(f.getSub2()), loop(f)));
+
+      break;
+
+    default:
+      throw new ParserInternalError();
+    }
+
+    deltas.put(f, result);
+
+    return result;
+  }
+
+  private List<Trans> loop (Formula f) {
+    BitSet s = new BitSet();
+    s.set(stateId(f));
+
+    return Collections.singletonList(new Trans(Guard.TRUE, s, null));
+  }
+
+  private static List<Trans> union (List<Trans> t1, List<Trans> t2) {
+    List<Trans> result = new ArrayList<Trans>(t1.size() + t2.size());
+
+    for (Trans t : t1) {
+      addUndominated(result, t);
+    }
+
+    for (Trans t : t2) {
+      addUndominated(result, t);
+    }
+
+    return result;
+  }
+
+  private static List<Trans> product (List<Trans> t1, List<Trans> t2) {
+    List<Trans> result = new ArrayList<Trans>(t1.size() * t2.size());
+
+    for (Trans a : t1) {
+      for (Trans b : t2) {
+        Guard guard = a.guard.and(b.guard);
+
+        if (guard != null) {
+          BitSet to = (BitSet) a.to.clone();
+          to.or(b.to);
+          addUndominated(result, new Trans(guard, to, null));
+        }
+      }
+    }
+
+    return result;
+  }
+
+  // adds the transition unless it is dominated by another one, removes the
+  // transitions it dominates, and merges it with a transition that only
+  // differs in the sign of one literal
+  private static void addUndominated (List<Trans> transitions, Trans t) {
+    for (Iterator<Trans> it = transitions.iterator(); it.hasNext();) {
+      Trans other = it.next();
+
+      if (t.isDominatedBy(other)) {
+        return;
+      }
+
+      if (other.isDominatedBy(t)) {
+        it.remove();
+      } else if (t.to.equals(other.to) &&
+                     ((t.acc == null) ? (other.acc == null) : t.acc.equals(other.acc))) {
+        Guard merged = t.mergeGuards(other);
+
+        if (merged != null) {
+          it.remove();
+          addUndominated(transitions, new Trans(merged, t.to, t.acc));
+
+          return;
+        }
+      }
+    }
+
+    transitions.add(t);
+  }
+
+  /*
+   * The generalized Buchi automaton
+   */
+  private void buildGBA () {
+    if (gba != null) {
+      return;
+    }
+
+    buildVWAA();
+
+    List<List<Trans>> transitions = new ArrayList<List<Trans>>();
+    gbaStates.add(null);
+
+    // new states are appended while the transitions are computed
+    for (int i = 0; i < gbaStates.size(); i++) {
+      List<Trans> ts = (i == 0) ? initialTransitions() : combine(gbaStates.get(i));
+
+      for (Trans t : ts) {
+        if (!gbaIds.containsKey(t.to)) {
+          gbaIds.put(t.to, gbaStates.size());
+          gbaStates.add(t.to);
+        }
+      }
+
+      transitions.add(ts);
+    }
+
+    gba = reduce(transitions);
+  }
+
+  private List<Trans> initialTransitions () {
+    List<Trans> result = new ArrayList<Trans>();
+
+    for (BitSet s : initial) {
+      for (Trans t : combine(s)) {
+        addUndominated(result, t);
+      }
+    }
+
+    return result;
+  }
+
+  // Merges bisimilar states, i.e. states whose transitions only differ in
+  // the targets, and only in bisimilar ones. Many GBA states are
+  // bisimilar, e.g. {<>p, []<>p} and {[]<>p}.
+  private List<List<Trans>> reduce (List<List<Trans>> transitions) {
+    int   n = transitions.size();
+    int[] classes = new int[n];
+    int   count = 1;
+
+    while (true) {
+      // the signature of a state consists of its current class and its
+      // transitions to classes; the initial state always gets class 0
+      Map<List<Object>, Integer> signatures = new HashMap<List<Object>, Integer>();
+      int[]                      next = new int[n];
+
+      for (int i = 0; i < n; i++) {
+        Set<Trans> edges = new HashSet<Trans>();
+
+        for (Trans t : transitions.get(i)) {
+          edges.add(new Trans(t.guard, singleton(classes[gbaIds.get(t.to)]), t.acc));
+        }
+
+        List<Object> signature = new ArrayList<Object>(2);
+        signature.add(classes[i]);
+        signature.add(edges);
+
+        Integer c = signatures.get(signature);
+
+        if (c == null) {
+          c = signatures.size();
+          signatures.put(signature, c);
+        }
+
+        next[i] = c;
+      }
+
+      classes = next;
+
+      if (signatures.size() == count) {
+        break;
+      }
+
+      count = signatures.size();
+    }
+
+    List<List<Trans>> result = new ArrayList<List<Trans>>(count);
+
+    for (int i = 0; i < count; i++) {
+      result.add(null);
+    }
+
+    for (int i = 0; i < n; i++) {
+      if (result.get(classes[i]) == null) {
+        List<Trans> ts = new ArrayList<Trans>();
+
+        for (Trans t : transitions.get(i)) {
+          addUndominated(ts, new Trans(t.guard, singleton(classes[gbaIds.get(t.to)]), t.acc));
+        }
+
+        result.set(classes[i], ts);
+      }
+    }
+
+    return result;
+  }
+
+  private static BitSet singleton (int i) {
+    BitSet s = new BitSet();
+    s.set(i);
+
+    return s;
+  }
+
+  // Builds the conjunctions of one transition of every state in q, level
+  // by level. Conjunctions that coincide are merged on each level, but the
+  // domination check needs the accepting conditions, which are only known
+  // for complete conjunctions.
+  private List<Trans> combine (BitSet q) {
+    Set<Trans> level = new HashSet<Trans>();
+    level.add(new Trans(Guard.TRUE, new BitSet(), null));
+
+    for (int i = q.nextSetBit(0); i >= 0; i = q.nextSetBit(i + 1)) {
+      Set<Trans> nextLevel = new HashSet<Trans>();
+
+      for (Trans t : level) {
+        for (Trans u : vwaa.get(i)) {
+          Guard g = t.guard.and(u.guard);
+
+          if (g != null) {
+            BitSet to = (BitSet) t.to.clone();
+            to.or(u.to);
+            nextLevel.add(new Trans(g, to, null));
+          }
+        }
+      }
+
+      level = nextLevel;
+    }
+
+    List<Trans> result = new ArrayList<Trans>();
+
+    for (Trans t : level) {
+      addUndominated(result, new Trans(t.guard, t.to, accepting(t.guard, t.to)));
+    }
+
+    return result;
+  }
+
+  // a transition satisfies the condition of a final state f if it leaves f
+  // or if f has a transition to a subset of its target that does not loop
+  private BitSet accepting (Guard guard, BitSet to) {
+    BitSet acc = new BitSet(finals.length);
+
+    for (int i = 0; i < finals.length; i++) {
+      int f = finals[i];
+
+      if (!to.get(f)) {
+        acc.set(i);
+      } else {
+        for (Trans u : vwaa.get(f)) {
+          if (!u.to.get(f) && guard.implies(u.guard) && subset(u.to, to)) {
+            acc.set(i);
+
+            break;
+          }
+        }
+      }
+    }
+
+    return acc;
+  }
+
+  private static boolean subset (BitSet s1, BitSet s2) {
+    for (int i = s1.nextSetBit(0); i >= 0; i = s1.nextSetBit(i + 1)) {
+      if (!s2.get(i)) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * A conjunction of literals.
+   */
+  private static class Guard {
+    static final Guard TRUE = new Guard();
+    final BitSet       pos = new BitSet();
+    final BitSet       neg = new BitSet();
+
+    // returns null if the conjunction is unsatisfiable
+    Guard and (Guard g) {
+      Guard result = new Guard();
+      result.pos.or(pos);
+      result.pos.or(g.pos);
+      result.neg.or(neg);
+      result.neg.or(g.neg);
+
+      return result.pos.intersects(result.neg) ? null : result;
+    }
+
+    boolean implies (Guard g) {
+      return subset(g.pos, pos) && subset(g.neg, neg);
+    }
+  }
+
+  /**
+   * A transition of the VWAA or of the GBA (then with accepting
+   * conditions).
+   */
+  private static class Trans {
+    final Guard  guard;
+    final BitSet to;
+    final BitSet acc;
+
+    // the same sets as arrays, for the frequent domination checks
+    private final long[] posWords;
+    private final long[] negWords;
+    private final long[] toWords;
+    private final long[] accWords;
+
+    Trans (Guard guard, BitSet to, BitSet acc) {
+      this.guard = guard;
+      this.to = to;
+      this.acc = acc;
+      posWords = words(guard.pos);
+      negWords = words(guard.neg);
+      toWords = words(to);
+      accWords = (acc == null) ? null : words(acc);
+    }
+
+    @Override
+    public boolean equals (Object o) {
+      if (!(o instanceof Trans)) {
+        return false;
+      }
+
+      Trans t = (Trans) o;
+
+      return guard.pos.equals(t.guard.pos) && guard.neg.equals(t.guard.neg) &&
+             to.equals(t.to) &&
+             ((acc == null) ? (t.acc == null) : acc.equals(t.acc));
+    }
+
+    @Override
+    public int hashCode () {
+      return ((guard.pos.hashCode() * 31 + guard.neg.hashCode()) * 31 +
+             to.hashCode()) * 31 + ((acc == null) ? 0 : acc.hashCode());
+    }
+
+    boolean isDominatedBy (Trans t) {
+      return subset(t.toWords, toWords) && subset(t.posWords, posWords) &&
+             subset(t.negWords, negWords) &&
+             ((accWords == null) || subset(accWords, t.accWords));
+    }
+
+    // returns the disjunction of both guards if they only differ in the
+    // sign of one literal, null otherwise
+    Guard mergeGuards (Trans t) {
+      if ((posWords.length != t.posWords.length) ||
+              (negWords.length != t.negWords.length)) {
+        return null;
+      }
+
+      int literal = -1;
+
+      for (int i = 0; i < posWords.length; i++) {
+        long diff = posWords[i] ^ t.posWords[i];
+
+        if (diff != 0) {
+          if ((literal >= 0) || (Long.bitCount(diff) != 1)) {
+            return null;
+          }
+
+          literal = (i << 6) + Long.numberOfTrailingZeros(diff);
+        }
+      }
+
+      if (literal < 0) {
+        return null;
+      }
+
+      for (int i = 0; i < negWords.length; i++) {
+        long diff = negWords[i] ^ t.negWords[i];
+
+        if (diff != (((literal >> 6) == i) ? (1L << literal) : 0)) {
+          return null;
+        }
+      }
+
+      Guard result = new Guard();
+      result.pos.or(guard.pos);
+      result.pos.clear(literal);
+      result.neg.or(guard.neg);
+      result.neg.clear(literal);
+
+      return result;
+    }
+
+    private static long[] words (BitSet s) {
+      long[] w = new long[(s.length() + 63) / 64];
+
+      for (int i = s.nextSetBit(0); i >= 0; i = s.nextSetBit(i + 1)) {
+        w[i >> 6] |= 1L << i;
+      }
+
+      return w;
+    }
+
+    private static boolean subset (long[] s1, long[] s2) {
+      for (int i = 0; i < s1.length; i++) {
+        long w2 = (i < s2.length) ? s2[i] : 0;
+
+        if ((s1[i] & ~w2) != 0) {
+          return false;
+        }
+      }
+
+      return true;
+    }
+  }
+
+  /**
+   * A state of the Buchi automaton.
+   */
+  private static class Key {
+    final int state;
+    final int counter;
+
+    Key (int state, int counter) {
+      this.state = state;
+      this.counter = counter;
+    }
+
+    @Override
+    public boolean equals (Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+
+      Key k = (Key) o;
+
+      return (state == k.state) && (counter == k.counter);
+    }
+
+    @Override
+    public int hashCode () {
+      return 31 * state + counter;
+    }
+  }
+}
@@ -53,16 +53,18 @@ class LinkNode {
  * DOCUMENT ME!
  */
 class Automaton {
+  private final TranslationContext ctx;
   private LinkNode head;
   private LinkNode tail;
   private Node[]   equivalence_classes; // array of representatives of equivalent states
 
-  public Automaton () {
+  public Automaton (TranslationContext ctx) {
+    this.ctx = ctx;
     head = tail = null;
     equivalence_classes = null;
   }
 
-  public static void FSPoutput (State[] automaton) {
+  public static void FSPoutput (State[] automaton, TranslationContext ctx) {
     boolean comma = false;
 
     if (automaton == null) {
@@ -73,7 +75,7 @@ class Automaton {
       System.out.println("\n\nRES = S0,");
     }
 
-    int size = Pool.assign();
+    int size = ctx.pool.assign();
 
     for (int i = 0; i < size; i++) {
       if ((automaton[i] != null) && 
@@ -93,7 +95,7 @@ class Automaton {
     System.out.println(").\n");
   }
 
-  public static Graph SMoutput (State[] automaton) {
+  public static Graph SMoutput (State[] automaton, TranslationContext ctx) {
     Graph g = new Graph();
     g.setStringAttribute("type", "gba");
     g.setStringAttribute("ac", "edges");
@@ -102,7 +104,7 @@ class Automaton {
       return g;
     }
 
-    int                            size = Pool.assign();
+    int                            size = ctx.pool.assign();
     gov.nasa.ltl.graph.Node[] nodes = new gov.nasa.ltl.graph.Node[size];
 
     for (int i = 0; i < size; i++) {
@@ -122,10 +124,10 @@ class Automaton {
       }
     }
 
-    if (Node.accepting_conds == 0) {
+    if (ctx.accepting_conds == 0) {
       g.setIntAttribute("nsets", 1);
     } else {
-      g.setIntAttribute("nsets", Node.accepting_conds);
+      g.setIntAttribute("nsets", ctx.accepting_conds);
     }
 
     return g;
@@ -156,7 +158,7 @@ class Automaton {
 
       if (currState.getField_next().equals(nd.getField_next()) && 
               currState.compare_accepting(nd) && 
-              (Translator.get_algorithm() == Translator.LTL2BUCHI || 
+              (ctx.get_algorithm() == Translator.LTL2BUCHI || 
                 (currState.getField_old().equals(nd.getField_old())))) {
         //System.out.println("Match found");
         return currState;
@@ -178,18 +180,18 @@ class Automaton {
     // check if next field of node is already represented
     int index;
 
-    for (index = 0; index < Pool.assign(); index++) {
+    for (index = 0; index < ctx.pool.assign(); index++) {
       if (equivalence_classes[index] == null) {
         //	System.out.println("Null object");
         break;
-      } else if ((Translator.get_algorithm() == Translator.LTL2BUCHI) && 
+      } else if ((ctx.get_algorithm() == Translator.LTL2BUCHI) && 
                      (equivalence_classes[index].getField_next().equals(nd.getField_next()))) {
         //	System.out.println("Successful merge");
         return (equivalence_classes[index].getNodeId());
       }
     }
 
-    if (index == Pool.assign()) {
+    if (index == ctx.pool.assign()) {
       System.out.println(
             "ERROR - size of equivalence classes array was incorrect");
     }
@@ -201,9 +203,9 @@ class Automaton {
 
   public State[] structForRuntAnalysis () {
     // now also fixes equivalence classes
-    Pool.stop();
+    ctx.pool.stop();
 
-    int     automatonSize = Pool.assign();
+    int     automatonSize = ctx.pool.assign();
     State[] RTstruct = new State[automatonSize];
     equivalence_classes = new Node[automatonSize];
 
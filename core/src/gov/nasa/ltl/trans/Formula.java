@@ -33,7 +33,6 @@ import java.util.TreeSet;
  * DOCUMENT ME!
  */
 public class Formula implements Comparable<Formula> {
-  private static int       nId = 0;
   private static final int P_ALL = 0;
   private static final int P_IMPLIES = 1;
   private static final int P_OR = 2;
@@ -46,8 +45,7 @@ public class Formula implements Comparable<Formula> {
   private static final int P_NEXT = 6;
   private static final int P_ALWAYS = 6;
   private static final int P_EVENTUALLY = 6;
-  private static Hashtable<String, Formula> ht = new Hashtable<String, Formula>();
-  private static Hashtable<String, Formula> matches = new Hashtable<String, Formula>();
+  private final TranslationContext ctx;
   private final char             content;
   private final boolean          literal;
   private Formula          left;
@@ -58,8 +56,9 @@ public class Formula implements Comparable<Formula> {
   private final String           name;
   private boolean          has_been_visited;
 
-  private Formula (char c, boolean l, Formula sx, Formula dx, String n) {
-    id = nId++;
+  private Formula (TranslationContext ctx, char c, boolean l, Formula sx, Formula dx, String n) {
+    this.ctx = ctx;
+    id = ctx.nextFormulaId++;
     content = c;
     literal = l;
     left = sx;
@@ -96,9 +95,8 @@ public class Formula implements Comparable<Formula> {
     }
   }
 
-  public static void reset_static () {
-    clearMatches();
-    clearHT();
+  TranslationContext getContext () {
+    return ctx;
   }
 
   public char getContent () {
@@ -201,7 +199,7 @@ public class Formula implements Comparable<Formula> {
   }
 
   public boolean is_special_case_of_V (TreeSet<Formula> check_against) {
-    Formula form = (Release(False(), this));
+    Formula form = (Release(False(ctx), this));
 
     if (check_against.contains(form)) {
       return true;
@@ -290,10 +288,18 @@ public class Formula implements Comparable<Formula> {
   }
 
   public static Formula parse (String str) throws ParseErrorException { // "aObAc"
+    return parse(str, new TranslationContext());
+  }
 
+  /**
+   * Parses a formula within the given context. All formulas that are
+   * combined (e.g. by rewriting) must have been parsed in the same context.
+   */
+  public static Formula parse (String str, TranslationContext ctx)
+                       throws ParseErrorException {
     Input i = new Input(str);
 
-    return parse(i, P_ALL);
+    return parse(ctx, i, P_ALL);
   }
 
   public int processRightUntils (int current_index, int acc_sets) {
@@ -475,23 +481,23 @@ public String toString () {
   }
 
   private static Formula Always (Formula f) {
-    return unique(new Formula('V', false, False(), f, null));
+    return unique(new Formula(f.ctx, 'V', false, False(f.ctx), f, null));
   }
 
   private static Formula And (Formula sx, Formula dx) {
     if (sx.id < dx.id) {
-      return unique(new Formula('A', false, sx, dx, null));
+      return unique(new Formula(sx.ctx, 'A', false, sx, dx, null));
     } else {
-      return unique(new Formula('A', false, dx, sx, null));
+      return unique(new Formula(sx.ctx, 'A', false, dx, sx, null));
     }
   }
 
   private static Formula Eventually (Formula f) {
-    return unique(new Formula('U', false, True(), f, null));
+    return unique(new Formula(f.ctx, 'U', false, True(f.ctx), f, null));
   }
 
-  private static Formula False () {
-    return unique(new Formula('f', true, null, null, null));
+  private static Formula False (TranslationContext ctx) {
+    return unique(new Formula(ctx, 'f', true, null, null, null));
   }
 
   private static Formula Implies (Formula sx, Formula dx) {
@@ -499,23 +505,23 @@ public String toString () {
   }
 
   private static Formula Next (Formula f) {
-    return unique(new Formula('X', false, f, null, null));
+    return unique(new Formula(f.ctx, 'X', false, f, null, null));
   }
 
   private static Formula Not (Formula f) {
     if (f.literal) {
       switch (f.content) {
       case 't':
-        return False();
+        return False(f.ctx);
 
       case 'f':
-        return True();
+        return True(f.ctx);
 
       case 'N':
         return f.left;
 
       default:
-        return unique(new Formula('N', true, f, null, null));
+        return unique(new Formula(f.ctx, 'N', true, f, null, null));
       }
     }
 
@@ -550,45 +556,41 @@ public String toString () {
 
   private static Formula Or (Formula sx, Formula dx) {
     if (sx.id < dx.id) {
-      return unique(new Formula('O', false, sx, dx, null));
+      return unique(new Formula(sx.ctx, 'O', false, sx, dx, null));
     } else {
-      return unique(new Formula('O', false, dx, sx, null));
+      return unique(new Formula(sx.ctx, 'O', false, dx, sx, null));
     }
   }
 
-  private static Formula Proposition (String name) {
-    return unique(new Formula('p', true, null, null, name));
+  private static Formula Proposition (TranslationContext ctx, String name) {
+    return unique(new Formula(ctx, 'p', true, null, null, name));
   }
 
   private static Formula Release (Formula sx, Formula dx) {
-    return unique(new Formula('V', false, sx, dx, null));
+    return unique(new Formula(sx.ctx, 'V', false, sx, dx, null));
   }
 
-  private static Formula True () {
-    return unique(new Formula('t', true, null, null, null));
+  private static Formula True (TranslationContext ctx) {
+    return unique(new Formula(ctx, 't', true, null, null, null));
   }
 
   private static Formula Until (Formula sx, Formula dx) {
-    return unique(new Formula('U', false, sx, dx, null));
+    return unique(new Formula(sx.ctx, 'U', false, sx, dx, null));
   }
 
   private static Formula WRelease (Formula sx, Formula dx) {
-    return unique(new Formula('U', false, dx, And(sx, dx), null));
+    return unique(new Formula(sx.ctx, 'U', false, dx, And(sx, dx), null));
   }
 
   private static Formula WUntil (Formula sx, Formula dx) {
-    return unique(new Formula('W', false, sx, dx, null));
-  }
-
-  private static void clearHT () {
-    ht = new Hashtable<String, Formula>();
+    return unique(new Formula(sx.ctx, 'W', false, sx, dx, null));
   }
 
-  private static void clearMatches () {
-    matches = new Hashtable<String, Formula>();
+  private void clearMatches () {
+    ctx.matches = new Hashtable<String, Formula>();
   }
 
-  private static Formula parse (Input i, int precedence)
+  private static Formula parse (TranslationContext ctx, Input i, int precedence)
                          throws ParseErrorException {
     try {
       Formula formula;
@@ -612,13 +614,13 @@ public String toString () {
 
       case '!': // not
         i.skip();
-        formula = Not(parse(i, P_NOT));
+        formula = Not(parse(ctx, i, P_NOT));
 
         break;
 
       case 'X': // next
         i.skip();
-        formula = Next(parse(i, P_NEXT));
+        formula = Next(parse(ctx, i, P_NEXT));
 
         break;
 
@@ -630,7 +632,7 @@ public String toString () {
         }
 
         i.skip();
-        formula = Always(parse(i, P_ALWAYS));
+        formula = Always(parse(ctx, i, P_ALWAYS));
 
         break;
 
@@ -642,13 +644,13 @@ public String toString () {
         }
 
         i.skip();
-        formula = Eventually(parse(i, P_EVENTUALLY));
+        formula = Eventually(parse(ctx, i, P_EVENTUALLY));
 
         break;
 
       case '(':
         i.skip();
-        formula = parse(i, P_ALL);
+        formula = parse(ctx, i, P_ALL);
 
         if (i.get() != ')') {
           throw new ParseErrorException("invalid character: " + ch);
@@ -670,7 +672,7 @@ public String toString () {
 
         i.skip();
 
-        formula = Proposition(sb.toString());
+        formula = Proposition(ctx, sb.toString());
 
         break;
 
@@ -695,11 +697,11 @@ public String toString () {
           String id = sbf.toString();
 
           if (id.equals("true")) {
-            formula = True();
+            formula = True(ctx);
           } else if (id.equals("false")) {
-            formula = False();
+            formula = False(ctx);
           } else {
-            formula = Proposition(sbf.toString());
+            formula = Proposition(ctx, sbf.toString());
           }
         } else {
           throw new ParseErrorException("invalid character: " + ch);
@@ -733,7 +735,7 @@ public String toString () {
           }
 
           i.skip();
-          formula = And(formula, parse(i, P_AND));
+          formula = And(formula, parse(ctx, i, P_AND));
 
           break;
 
@@ -750,7 +752,7 @@ public String toString () {
           }
 
           i.skip();
-          formula = And(formula, parse(i, P_AND));
+          formula = And(formula, parse(ctx, i, P_AND));
 
           break;
 
@@ -767,7 +769,7 @@ public String toString () {
           }
 
           i.skip();
-          formula = Or(formula, parse(i, P_OR));
+          formula = Or(formula, parse(ctx, i, P_OR));
 
           break;
 
@@ -784,7 +786,7 @@ public String toString () {
           }
 
           i.skip();
-          formula = Or(formula, parse(i, P_OR));
+          formula = Or(formula, parse(ctx, i, P_OR));
 
           break;
 
@@ -795,7 +797,7 @@ public String toString () {
           }
 
           i.skip();
-          formula = Until(formula, parse(i, P_UNTIL));
+          formula = Until(formula, parse(ctx, i, P_UNTIL));
 
           break;
 
@@ -806,7 +808,7 @@ public String toString () {
           }
 
           i.skip();
-          formula = WUntil(formula, parse(i, P_WUNTIL));
+          formula = WUntil(formula, parse(ctx, i, P_WUNTIL));
 
           break;
 
@@ -817,7 +819,7 @@ public String toString () {
           }
 
           i.skip();
-          formula = Release(formula, parse(i, P_RELEASE));
+          formula = Release(formula, parse(ctx, i, P_RELEASE));
 
           break;
 
@@ -828,7 +830,7 @@ public String toString () {
           }
 
           i.skip();
-          formula = WRelease(formula, parse(i, P_WRELEASE));
+          formula = WRelease(formula, parse(ctx, i, P_WRELEASE));
 
           break;
 
@@ -845,7 +847,7 @@ public String toString () {
           }
 
           i.skip();
-          formula = Implies(formula, parse(i, P_IMPLIES));
+          formula = Implies(formula, parse(ctx, i, P_IMPLIES));
 
           break;
 
@@ -881,21 +883,21 @@ public String toString () {
   private static Formula unique (Formula f) {
     String s = f.toString();
 
-    if (ht.containsKey(s)) {
-      return ht.get(s);
+    if (f.ctx.formulas.containsKey(s)) {
+      return f.ctx.formulas.get(s);
     }
 
-    ht.put(s, f);
+    f.ctx.formulas.put(s, f);
 
     return f;
   }
 
   private Formula getMatch (String name) {
-    return matches.get(name);
+    return ctx.matches.get(name);
   }
 
   private void addMatch (String name, Formula expr) {
-    matches.put(name, expr);
+    ctx.matches.put(name, expr);
   }
 
   @SuppressWarnings("unchecked")
@@ -916,7 +918,7 @@ private boolean match (Formula rule) {
       return false;
     }
 
-	Hashtable<String, Formula> saved = (Hashtable<String, Formula>)matches.clone();
+	Hashtable<String, Formula> saved = (Hashtable<String, Formula>)ctx.matches.clone();
 
     switch (content) {
     case 'A':
@@ -926,13 +928,13 @@ private boolean match (Formula rule) {
         return true;
       }
 
-      matches = saved;
+      ctx.matches = saved;
 
       if (right.match(rule.left) && left.match(rule.right)) {
         return true;
       }
 
-      matches = saved;
+      ctx.matches = saved;
 
       return false;
 
@@ -944,7 +946,7 @@ private boolean match (Formula rule) {
         return true;
       }
 
-      matches = saved;
+      ctx.matches = saved;
 
       return false;
 
@@ -955,7 +957,7 @@ private boolean match (Formula rule) {
         return true;
       }
 
-      matches = saved;
+      ctx.matches = saved;
 
       return false;
 
@@ -995,10 +997,10 @@ private boolean match (Formula rule) {
       return Not(left.rewrite());
 
     case 't':
-      return True();
+      return True(ctx);
 
     case 'f':
-      return False();
+      return False(ctx);
     }
 
     throw new RuntimeException("code should not be reached");
@@ -35,6 +35,9 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.LineNumberReader;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * DOCUMENT ME!
@@ -42,6 +45,20 @@ import java.io.LineNumberReader;
 public class LTL2Buchi {
 	private static boolean debug = false;
 
+	private static final int CACHE_SIZE = 64;
+
+	// the most recently used automata, keyed by the normalized formula and
+	// the options of the translation; the cached graphs are never handed out
+	private static final Map<String, Graph> cache = Collections.synchronizedMap(
+			new LinkedHashMap<String, Graph>(16, 0.75f, true) {
+				private static final long serialVersionUID = -3541127305474930186L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, Graph> eldest) {
+					return size() > CACHE_SIZE;
+				}
+			});
+
 	public static void main(String[] args) {
 		String ltl = null;
 		boolean rewrite = true;
@@ -67,6 +84,8 @@ public class LTL2Buchi {
 							Translator.set_algorithm(Translator.LTL2BUCHI);
 						} else if (args[i].equals("ltl2aut")) {
 							Translator.set_algorithm(Translator.LTL2AUT);
+						} else if (args[i].equals("ltl2ba")) {
+							Translator.set_algorithm(Translator.LTL2BA);
 						} else {
 							usage_warning();
 
@@ -139,17 +158,47 @@ public class LTL2Buchi {
 		}
 	}
 
-	public static void reset_all_static() {
-		Node.reset_static();
-		Formula.reset_static();
-		Pool.reset_static();
+	public static void clearCache() {
+		cache.clear();
 	}
 
+	/**
+	 * Translates the formula into a Buchi automaton. The translation is
+	 * reentrant, and the resulting automata are cached, so translating the
+	 * same formula (with the same options) again only copies the cached
+	 * automaton. Every call returns a new graph that the caller may modify.
+	 */
 	public static Graph translate(String formula, boolean rewrite,
 			boolean bisim, boolean fair_sim) throws ParseErrorException {
+		return translate(formula, rewrite, bisim, fair_sim, Translator.get_algorithm());
+	}
+
+	/**
+	 * Like {@link #translate(String, boolean, boolean, boolean)}, but with
+	 * the given algorithm (see {@link Translator}) instead of the default one.
+	 */
+	public static Graph translate(String formula, boolean rewrite,
+			boolean bisim, boolean fair_sim, int algorithm) throws ParseErrorException {
+		if (!Translator.is_legal(algorithm))
+			throw new IllegalArgumentException("unknown algorithm: " + algorithm);
+
+		// syntactically equal formulas have the same normal form
+		final String key = Formula.parse(formula).toString() + '|' + rewrite
+				+ '|' + bisim + '|' + fair_sim + '|' + algorithm;
+
+		Graph ba = cache.get(key);
+		if (ba == null) {
+			ba = translateUncached(formula, rewrite, bisim, fair_sim, algorithm);
+			cache.put(key, ba);
+		}
+
+		return ba.copy();
+	}
+
+	private static Graph translateUncached(String formula, boolean rewrite,
+			boolean bisim, boolean fair_sim, int algorithm) throws ParseErrorException {
 		//	System.out.println("Translating formula: " + formula);
 		// System.out.println();
-		final boolean superset = true;
 		final boolean scc = true;
 
 		if (rewrite) {
@@ -169,7 +218,81 @@ public class LTL2Buchi {
 			System.out.println("Unexpected null formula");
 		}
 
-		Graph gba = Translator.translate(formula);
+		Graph ba;
+		if (algorithm == Translator.LTL2BA) {
+			// the alternating automaton translation simplifies and
+			// degeneralizes on the fly, so the superset reduction and the
+			// fair simulation (which dominate the time for large automata)
+			// are skipped
+			ba = new AlternatingTranslator(Formula.parse(formula,
+					new TranslationContext(algorithm))).toBuchi();
+			fair_sim = false;
+
+			if (debug) {
+				System.out.println("\n***********************");
+				System.out.println("Buchi automaton generated via alternating automaton");
+				System.out.println("\t" + ba.getNodeCount() + " states "
+						+ ba.getEdgeCount() + " transitions");
+			}
+		} else {
+			ba = translateTableau(formula, algorithm);
+		}
+
+		if (scc) {
+			ba = SCCReduction.reduce(ba);
+
+			if (debug) {
+				//    	ba.save("scc-ba.sm");
+				System.out.println("\n***********************");
+				System.out.println("Strongly connected component reduction");
+				System.out.println("\t" + ba.getNodeCount() + " states "
+						+ ba.getEdgeCount() + " transitions");
+
+				//      	System.out.println();
+				//		ba.save(Graph.FSP_FORMAT);
+			}
+		}
+
+		if (bisim) {
+			ba = Simplify.simplify(ba);
+
+			if (debug) {
+				//     ba.save("bisim-final.sm");
+				System.out.println("\n***********************");
+				System.out.println("Bisimulation applied");
+				System.out.println("\t" + ba.getNodeCount() + " states "
+						+ ba.getEdgeCount() + " transitions");
+
+				//    	System.out.println();
+				//		ba.save(Graph.FSP_FORMAT);
+			}
+		}
+
+		if (fair_sim) {
+			ba = SFSReduction.reduce(ba);
+
+			if (debug) {
+				//    	ba.save("fairSim-final.sm");
+				System.out.println("\n***********************");
+				System.out.println("Fair simulation applied");
+				System.out.println("\t" + ba.getNodeCount() + " states "
+						+ ba.getEdgeCount() + " transitions");
+
+				//        System.out.println();
+				//        ba.save(Graph.FSP_FORMAT);
+			}
+		}
+
+		//System.out.println("***********************\n");
+
+		return ba;
+	}
+
+	// the translation via the tableau construction, up to degeneralization
+	private static Graph translateTableau(String formula, int algorithm) {
+		final boolean superset = true;
+
+		Graph gba = Translator.translate(formula, algorithm);
 
 		if (debug) {
 			//      gba.save("gba.sm");
@@ -214,7 +337,7 @@ public class LTL2Buchi {
 			}
 		}
 
-		Graph ba = Degeneralize.degeneralize(gba);
+		final Graph ba = Degeneralize.degeneralize(gba);
 
 		//    ba.save("ba.sm");
 		if (debug) {
@@ -227,55 +350,6 @@ public class LTL2Buchi {
 			//    ba.save(Graph.FSP_FORMAT);
 		}
 
-		if (scc) {
-			ba = SCCReduction.reduce(ba);
-
-			if (debug) {
-				//    	ba.save("scc-ba.sm");
-				System.out.println("\n***********************");
-				System.out.println("Strongly connected component reduction");
-				System.out.println("\t" + ba.getNodeCount() + " states "
-						+ ba.getEdgeCount() + " transitions");
-
-				//      	System.out.println();
-				//		ba.save(Graph.FSP_FORMAT);
-			}
-		}
-
-		if (bisim) {
-			ba = Simplify.simplify(ba);
-
-			if (debug) {
-				//     ba.save("bisim-final.sm");
-				System.out.println("\n***********************");
-				System.out.println("Bisimulation applied");
-				System.out.println("\t" + ba.getNodeCount() + " states "
-						+ ba.getEdgeCount() + " transitions");
-
-				//    	System.out.println();
-				//		ba.save(Graph.FSP_FORMAT);
-			}
-		}
-
-		if (fair_sim) {
-			ba = SFSReduction.reduce(ba);
-
-			if (debug) {
-				//    	ba.save("fairSim-final.sm");
-				System.out.println("\n***********************");
-				System.out.println("Fair simulation applied");
-				System.out.println("\t" + ba.getNodeCount() + " states "
-						+ ba.getEdgeCount() + " transitions");
-
-				//        System.out.println();
-				//        ba.save(Graph.FSP_FORMAT);
-			}
-		}
-
-		//System.out.println("***********************\n");
-
-		reset_all_static();
-
 		return ba;
 	}
 
@@ -413,7 +487,7 @@ public class LTL2Buchi {
 		System.out
 				.println("\t\t \"-f <filename.ltl>\" (read formula from file)");
 		System.out
-				.println("\t\t \"-a [ltl2buchi|ltl2aut]\" (set algorithm to be used)");
+				.println("\t\t \"-a [ltl2buchi|ltl2aut|ltl2ba]\" (set algorithm to be used)");
 		System.out.println("\t\t \"-norw\" (no rewriting)");
 		System.out.println("\t\t \"-nobisim\" (no bisimulation reduction)");
 		System.out.println("\t\t \"-nofsim\" (no fair simulation reduction)");
@@ -30,8 +30,7 @@ import java.util.TreeSet;
  * DOCUMENT ME!
  */
 class Node implements Comparable<Node> {
-  public static int      accepting_conds = 0;
-  private static boolean init_collapsed = false;
+  private final TranslationContext ctx;
   private int            nodeId;
   private final TreeSet<Node>  incoming;
   private final TreeSet<Formula> toBeDone;
@@ -42,40 +41,39 @@ class Node implements Comparable<Node> {
   private Node           OtherTransitionSource;
   private int equivalenceId;
 
-  public Node () {
-    nodeId = Pool.assign();
+  public Node (TranslationContext ctx) {
+    this.ctx = ctx;
+    nodeId = ctx.pool.assign();
     incoming = new TreeSet<Node>();
     toBeDone = new TreeSet<Formula>();
     old = new TreeSet<Formula>();
     next = new TreeSet<Formula>();
     OtherTransitionSource = null;
-    accepting = new BitSet(accepting_conds);
-    right_of_untils = new BitSet(accepting_conds);
+    accepting = new BitSet(ctx.accepting_conds);
+    right_of_untils = new BitSet(ctx.accepting_conds);
   }
 
-  public Node (TreeSet<Node> in, TreeSet<Formula> newForm, TreeSet<Formula> done, TreeSet<Formula> nx,
-               BitSet acc, BitSet rous) {
-    nodeId = Pool.assign();
+  public Node (TranslationContext ctx, TreeSet<Node> in, TreeSet<Formula> newForm,
+               TreeSet<Formula> done, TreeSet<Formula> nx, BitSet acc, BitSet rous) {
+    this.ctx = ctx;
+    nodeId = ctx.pool.assign();
     incoming = new TreeSet<Node>(in);
     toBeDone = new TreeSet<Formula>(newForm);
     old = new TreeSet<Formula>(done);
     next = new TreeSet<Formula>(nx);
     OtherTransitionSource = null;
-    accepting = new BitSet(accepting_conds);
+    accepting = new BitSet(ctx.accepting_conds);
     accepting.or(acc);
-    right_of_untils = new BitSet(accepting_conds);
+    right_of_untils = new BitSet(ctx.accepting_conds);
     right_of_untils.or(rous);
   }
 
-  public static int getAcceptingConds () {
-    return accepting_conds;
-  }
-
   public static Node createInitial (Formula form) {
-    accepting_conds = form.initialize(); // first mark right forms of untils;
+    TranslationContext ctx = form.getContext();
+    ctx.accepting_conds = form.initialize(); // first mark right forms of untils;
 
-    //    System.out.println("Accepting conditions: " + accepting_conds);
-    Node init = new Node();
+    //    System.out.println("Accepting conditions: " + ctx.accepting_conds);
+    Node init = new Node(ctx);
     init.nodeId = 0;
 
     if (form.getContent() != 't') {
@@ -85,11 +83,6 @@ class Node implements Comparable<Node> {
     return init;
   }
 
-  public static void reset_static () {
-    accepting_conds = 0;
-    init_collapsed = false;
-  }
-
   public TreeSet<Formula> getField_next () {
     return next;
   }
@@ -140,7 +133,8 @@ class Node implements Comparable<Node> {
         }
 
         RTautomaton[stateId].add(
-              new Transition(Alternative.old, equivalenceId, accepting, safety));
+              new Transition(Alternative.old, equivalenceId, accepting, safety,
+                             ctx.accepting_conds));
       }
 
       Alternative = Alternative.OtherTransitionSource;
@@ -158,7 +152,7 @@ class Node implements Comparable<Node> {
   public boolean compare_accepting (Node nd) {
     //if (nodeId == 0)
     //	System.out.println("Has it been collapsed yet? : " + init_collapsed);
-    if ((nodeId == 0) && !init_collapsed) {
+    if ((nodeId == 0) && !ctx.init_collapsed) {
       // System.out.println("Potentially collapse " + nodeId + " with " + nd.nodeId);
       return true;
     }
@@ -194,7 +188,7 @@ class Node implements Comparable<Node> {
 
         return states;
       } else {
-        Node NewN = new Node();
+        Node NewN = new Node(ctx);
         NewN.incoming.add(this);
         NewN.toBeDone.addAll(next);
 
@@ -216,7 +210,7 @@ class Node implements Comparable<Node> {
 
       // no contradiction
       // look in tech report why we do this even when ita is redundant
-      if (ita.is_right_of_until(accepting_conds)) {
+      if (ita.is_right_of_until(ctx.accepting_conds)) {
         right_of_untils.or(ita.get_rightOfWhichUntils());
       }
 
@@ -338,9 +332,9 @@ class Node implements Comparable<Node> {
     Node    Tail = this;
     Node    Alternative = this;
 
-    if ((this.nodeId == 0) && !init_collapsed) {
+    if ((this.nodeId == 0) && !ctx.init_collapsed) {
       accepting = current.accepting;
-      init_collapsed = true;
+      ctx.init_collapsed = true;
     }
 
     while (Alternative != null) {
@@ -363,7 +357,7 @@ class Node implements Comparable<Node> {
     Formula temp_form;
 
     // first create Node 2
-    Node Node2 = new Node(this.incoming, this.toBeDone, this.old, this.next,
+    Node Node2 = new Node(ctx, this.incoming, this.toBeDone, this.old, this.next,
                           this.accepting, this.right_of_untils);
 
     temp_form = form.getSub2();
@@ -25,10 +25,10 @@ package gov.nasa.ltl.trans;
  * DOCUMENT ME!
  */
 class Pool {
-  private static int     last_assigned = 0;
-  private static boolean stopped = false;
+  private int     last_assigned = 0;
+  private boolean stopped = false;
 
-  public static int assign () {
+  public int assign () {
     if (!stopped) {
       //			System.out.println("Value of last_assigned " +last_assigned);
       return (last_assigned++);
@@ -38,12 +38,7 @@ class Pool {
     }
   }
 
-  public static void reset_static () {
-    last_assigned = 0;
-    stopped = false;
-  }
-
-  public static void stop () {
+  public void stop () {
     stopped = true;
     last_assigned--;
   }
@@ -85,7 +85,8 @@ public class Rewriter {
     }
   }
 
-  public static Formula[] readRules () {
+  // the rules must be parsed in the context of the formula they are applied to
+  public static Formula[] readRules (TranslationContext ctx) {
     Formula[] rules = new Formula[0];
 
     try {
@@ -125,7 +126,7 @@ public class Rewriter {
           continue;
         }
 
-        Formula   rule = Formula.parse(line);
+        Formula   rule = Formula.parse(line, ctx);
 
         Formula[] n = new Formula[rules.length + 1];
         System.arraycopy(rules, 0, n, 0, rules.length);
@@ -156,7 +157,7 @@ public class Rewriter {
 
   public static Formula rewrite (Formula expr) throws ParseErrorException {
     //  	System.out.println("testing if gets in here");
-    Formula[] rules = readRules();
+    Formula[] rules = readRules(expr.getContext());
 
     if (rules == null) {
       return expr;
@@ -183,7 +184,7 @@ public class Rewriter {
         } while (old != expr);
 
         negated = !negated;
-        expr = Formula.parse("!" + expr.toString());
+        expr = Formula.parse("!" + expr.toString(), expr.getContext());
       } while (changed || negated);
 
       return expr;
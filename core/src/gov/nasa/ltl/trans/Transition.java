@@ -35,11 +35,14 @@ class Transition {
   private final int     pointsTo;
   private final BitSet  accepting;
   private final boolean safe_accepting;
+  private final int     accepting_conds;
 
-  public Transition (TreeSet<Formula> prop, int nd_id, BitSet acc, boolean safety) {
+  public Transition (TreeSet<Formula> prop, int nd_id, BitSet acc, boolean safety,
+                     int acc_conds) {
     propositions = prop;
     pointsTo = nd_id;
-    accepting = new BitSet(Node.getAcceptingConds());
+    accepting_conds = acc_conds;
+    accepting = new BitSet(accepting_conds);
     accepting.or(acc);
     safe_accepting = safety;
   }
@@ -87,12 +90,12 @@ class Transition {
       System.out.print(act + "{");
     }
 
-    if (Node.accepting_conds == 0) {
+    if (accepting_conds == 0) {
       if (safe_accepting == true) {
         System.out.print("0");
       }
     } else {
-      for (int i = 0; i < Node.accepting_conds; i++) {
+      for (int i = 0; i < accepting_conds; i++) {
         if (!accepting.get(i)) {
           System.out.print(i);
         }
@@ -150,7 +153,7 @@ class Transition {
 
     Edge e = new Edge(node, nodes[pointsTo], guard, action);
 
-    if (Node.accepting_conds == 0) {
+    if (accepting_conds == 0) {
       //  Dimitra - Jan 10 2003
       // Believe there is a bug with the way we decided whether node was safety accepting
       // with example !<>(Xa \/ <>c)
@@ -161,7 +164,7 @@ class Transition {
 
       //      }
     } else {
-      for (int i = 0; i < Node.accepting_conds; i++) {
+      for (int i = 0; i < accepting_conds; i++) {
         if (!accepting.get(i)) {
           e.setBooleanAttribute("acc" + i, true);
 
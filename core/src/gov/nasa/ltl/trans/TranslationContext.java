@@ -0,0 +1,67 @@
+
+//
+// Copyright (C) 2005 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+// 
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+// 
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.ltl.trans;
+
+import java.util.HashMap;
+import java.util.Hashtable;
+
+
+/**
+ * The mutable state of one translation of an LTL formula into a Buchi
+ * automaton (the formula table, the node ids, the number of accepting
+ * conditions and the algorithm). It used to be kept in static fields;
+ * now every translation gets its own context, so that several translations
+ * can run concurrently. A context must not be shared between threads.
+ */
+public class TranslationContext {
+  // Formula
+  int                              nextFormulaId = 0;
+  final HashMap<String, Formula>   formulas = new HashMap<String, Formula>();
+  Hashtable<String, Formula>       matches = new Hashtable<String, Formula>();
+
+  // Node
+  int                              accepting_conds = 0;
+  boolean                          init_collapsed = false;
+  final Pool                       pool = new Pool();
+
+  // Translator
+  private final int                algorithm;
+
+  /**
+   * Creates a context using the default algorithm
+   * (see {@link Translator#set_algorithm(int)}).
+   */
+  public TranslationContext () {
+    this(Translator.get_algorithm());
+  }
+
+  public TranslationContext (int algorithm) {
+    if (!Translator.is_legal(algorithm)) {
+      throw new IllegalArgumentException("unknown algorithm: " + algorithm);
+    }
+
+    this.algorithm = algorithm;
+  }
+
+  public int get_algorithm () {
+    return algorithm;
+  }
+}
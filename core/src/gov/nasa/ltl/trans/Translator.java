@@ -29,15 +29,20 @@ import gov.nasa.ltl.graph.*;
 public class Translator {
   public static final int LTL2AUT = 0;
   public static final int LTL2BUCHI = 1;
-  private static int      algorithm = LTL2BUCHI; // by default 
+  public static final int LTL2BA = 2; // via alternating automata
+  private static volatile int algorithm = LTL2BUCHI; // default for new translations
 
   public static int get_algorithm () {
     return algorithm;
   }
 
+  static boolean is_legal (int alg) {
+    return (alg == LTL2AUT) || (alg == LTL2BUCHI) || (alg == LTL2BA);
+  }
+
   public static boolean set_algorithm (int alg) {
     // returns true iff value was legal
-    if ((alg == LTL2AUT) || (alg == LTL2BUCHI)) {
+    if (is_legal(alg)) {
       algorithm = alg;
 
       return true;
@@ -47,11 +52,29 @@ public class Translator {
   }
 
   public static Graph translate (String formula) {
+    return translate(formula, new TranslationContext());
+  }
+
+  /**
+   * Translates the formula using a fresh context for the given algorithm.
+   * Unlike {@link #set_algorithm(int)}, this does not affect other
+   * translations.
+   */
+  public static Graph translate (String formula, int alg) {
+    return translate(formula, new TranslationContext(alg));
+  }
+
+  private static Graph translate (String formula, TranslationContext ctx) {
     try {
-      Formula ltl = Formula.parse(formula);
+      Formula ltl = Formula.parse(formula, ctx);
+
+      if (ctx.get_algorithm() == LTL2BA) {
+        return new AlternatingTranslator(ltl).toGeneralizedBuchi();
+      }
+
       Node    init = Node.createInitial(ltl);
-      State[] states = (init.expand(new Automaton())).structForRuntAnalysis();
-      return Automaton.SMoutput(states);
+      State[] states = (init.expand(new Automaton(ctx))).structForRuntAnalysis();
+      return Automaton.SMoutput(states, ctx);
     } catch (ParseErrorException e) {
       throw new LTLErrorException("parse error: " + e.getMessage());
     }
@@ -0,0 +1,64 @@
+package ltlcheck;
+
+import gov.nasa.ltl.trans.ParseErrorException;
+
+/**
+ * The result of checking one formula of a batch
+ * (see {@link LtlModelChecker#checkAll(gov.nasa.ltl.graph.Graph, java.util.List, IModelCheckingMonitor)}).
+ */
+public class CheckResult {
+	private final String formula;
+	private final Counterexample counterexample;
+	private final ParseErrorException error;
+
+	public CheckResult(String formula, Counterexample counterexample)
+	{
+		this.formula = formula;
+		this.counterexample = counterexample;
+		this.error = null;
+	}
+
+	public CheckResult(String formula, ParseErrorException error)
+	{
+		this.formula = formula;
+		this.counterexample = null;
+		this.error = error;
+	}
+
+	public String getFormula() {
+		return formula;
+	}
+
+	/**
+	 * @return <code>true</code> if the formula could be checked and is satisfied
+	 */
+	public boolean isSatisfied() {
+		return error == null && counterexample == null;
+	}
+
+	/**
+	 * @return the counterexample, or <code>null</code> if the formula is
+	 * satisfied or could not be checked
+	 */
+	public Counterexample getCounterexample() {
+		return counterexample;
+	}
+
+	/**
+	 * @return the error that occured while translating the formula, or
+	 * <code>null</code> if it could be checked
+	 */
+	public ParseErrorException getError() {
+		return error;
+	}
+
+	@Override
+	public String toString()
+	{
+		if(error != null)
+			return formula + " cannot be checked: " + error.getMessage();
+		if(counterexample != null)
+			return formula + " violated\n\n" + counterexample;
+		return formula + " satisfied";
+	}
+}
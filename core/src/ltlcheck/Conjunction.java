@@ -28,6 +28,11 @@ public class Conjunction
 		literals.add(l);
 	}
 	
+	public List<Literal> getLiterals()
+	{
+		return Collections.unmodifiableList(literals);
+	}
+	
 	public boolean isTrue()
 	{
 		return literals.isEmpty();
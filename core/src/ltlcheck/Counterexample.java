@@ -1,6 +1,10 @@
 package ltlcheck;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+
 import gov.nasa.ltl.graph.*;
 
 public class Counterexample {
@@ -13,6 +17,39 @@ public class Counterexample {
 		this.cycle = cycle;
 	}
 
+	/**
+	 * Creates a counterexample from edges of the product automaton. The
+	 * counterexample consists of (copies of) the edges of the trace only.
+	 */
+	static Counterexample fromProduct(CompactGraph product, List<Integer> prefix, List<Integer> cycle)
+	{
+		Graph trace = new Graph();
+		Map<Integer, Node> nodes = new HashMap<Integer, Node>();
+		return new Counterexample(toEdges(product, prefix, trace, nodes),
+				toEdges(product, cycle, trace, nodes));
+	}
+
+	private static List<Edge> toEdges(CompactGraph product, List<Integer> edges,
+			Graph trace, Map<Integer, Node> nodes)
+	{
+		List<Edge> result = new ArrayList<Edge>(edges.size());
+		for(int e: edges)
+			result.add(new Edge(toNode(product.getSource(e), trace, nodes),
+					toNode(product.getTarget(e), trace, nodes), product.getAction(e)));
+		return result;
+	}
+
+	private static Node toNode(int n, Graph trace, Map<Integer, Node> nodes)
+	{
+		Node node = nodes.get(n);
+		if(node == null)
+		{
+			node = new Node(trace);
+			nodes.put(n, node);
+		}
+		return node;
+	}
+
 	@Override
 	public String toString()
 	{
@@ -0,0 +1,81 @@
+package ltlcheck;
+
+/**
+ * A DFS stack of nodes of a {@link gov.nasa.ltl.graph.CompactGraph}, with
+ * the edge by which each node was reached and the number of its outgoing
+ * edges explored so far.
+ */
+class DfsStack
+{
+	private int[] nodes = new int[16];
+	private int[] edges = new int[16];
+	private int[] positions = new int[16];
+	private int size = 0;
+	
+	public void push(int node, int edge)
+	{
+		if(size == nodes.length)
+		{
+			nodes = grow(nodes);
+			edges = grow(edges);
+			positions = grow(positions);
+		}
+		nodes[size] = node;
+		edges[size] = edge;
+		positions[size] = 0;
+		++size;
+	}
+	
+	public void pop()
+	{
+		--size;
+	}
+	
+	public int peek()
+	{
+		return nodes[size - 1];
+	}
+	
+	public int position()
+	{
+		return positions[size - 1];
+	}
+	
+	public void advance()
+	{
+		++positions[size - 1];
+	}
+	
+	public int node(int i)
+	{
+		return nodes[i];
+	}
+	
+	// the edge by which the i-th node was reached (-1 for the first one)
+	public int edge(int i)
+	{
+		return edges[i];
+	}
+	
+	public int size()
+	{
+		return size;
+	}
+	
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+	
+	public void clear()
+	{
+		size = 0;
+	}
+	
+	private static int[] grow(int[] a)
+	{
+		int[] b = new int[2 * a.length];
+		System.arraycopy(a, 0, b, 0, a.length);
+		return b;
+	}
+}
@@ -1,13 +1,11 @@
 package ltlcheck;
 
+import gov.nasa.ltl.graph.CompactGraph;
 import gov.nasa.ltl.graph.Edge;
 import gov.nasa.ltl.graph.Graph;
 import gov.nasa.ltl.graph.Node;
 
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
-import java.util.List;
 
 public class DidCanTranslator {
 	private final static boolean debug = false;
@@ -19,68 +17,63 @@ public class DidCanTranslator {
 	 * @return expanded graph with atomic propositions for the action did before and 
 	 * for the actions enabled in this state 
 	 */
-	public static Graph translate(Graph lts) {
-		Graph g = new Graph();
-		HashMap<Pair<String, Node>, Node> states_o2n = new HashMap<Pair<String, Node>, Node>();
+	public static CompactGraph translate(Graph lts) {
+		CompactGraph g = new CompactGraph();
+		HashMap<Pair<String, Node>, Integer> states_o2n = new HashMap<Pair<String, Node>, Integer>();
 
 		// for each node n in lts
 		for (Node current :  lts.getNodes()) {
 
 			// and each incoming edge labelled l
 			for (Edge edge : current.getIncomingEdges()) {
+				Pair<String, Node> key = new Pair<String, Node> (edge.getAction(), current);
+				if (states_o2n.containsKey(key))
+					continue;
 
 				// add a node <l, n> in did/can-extended graph g
-				Node ln = new Node(g);
-				List<AtomicProposition> label = new ArrayList<AtomicProposition>();
+				int ln = g.addNode();
 				// with did set to l:
-				label.add(new AtomicProposition(edge.getAction(), AtomicProposition.PropositionType.Did));
+				g.addProposition(ln, new AtomicProposition(edge.getAction(), AtomicProposition.PropositionType.Did).toString());
 
 				// and can set extracted from outgoing edges
-				for (Iterator<Edge> lts_outgoing_edge_iterator = current.getOutgoingEdges().iterator();
-					lts_outgoing_edge_iterator.hasNext();
-					) {
-					label.add(new AtomicProposition(
-							lts_outgoing_edge_iterator.next().getAction(),
-							AtomicProposition.PropositionType.Can)
+				for (Edge outgoing : current.getOutgoingEdges()) {
+					g.addProposition(ln, new AtomicProposition(
+							outgoing.getAction(),
+							AtomicProposition.PropositionType.Can).toString()
 					);
 				}
 
-				ln.setAttribute("label",label);
-
-				states_o2n.put(new Pair<String, Node> (edge.getAction(), current), ln);
+				states_o2n.put(key, ln);
 			}
 		}
 		// add start node for did/can-expanded graph
-		Node start = new Node(g);
-		List<AtomicProposition> start_label = new ArrayList<AtomicProposition>();
-		start_label.add(new AtomicProposition("__init", AtomicProposition.PropositionType.Unknown));
+		int start = g.addNode();
+		g.addProposition(start, new AtomicProposition("__init", AtomicProposition.PropositionType.Unknown).toString());
 		for (Edge edge : lts.getInit().getOutgoingEdges()) {
 			Node to = edge.getNext();
-			start_label.add(new AtomicProposition(edge.getAction(), AtomicProposition.PropositionType.Can));
+			g.addProposition(start, new AtomicProposition(edge.getAction(), AtomicProposition.PropositionType.Can).toString());
 			// also add edges for start node
-			new Edge(start, states_o2n.get(new Pair<String, Node>(edge.getAction(), to)), edge.getAction());
+			g.addEdge(start, states_o2n.get(new Pair<String, Node>(edge.getAction(), to)), edge.getAction());
 		}
-		start.setAttribute("label", start_label);
 
 		// set initial start state for did/can-expanded graph
-		g.setInit(start);
+		g.setInitial(start, true);
 
 		// build edges for did/can-expanded graph (initial state already handled !)
 		//   therefore iterate over all nodes in did/can-expanded graph
 		for (Pair<String,Node> current : states_o2n.keySet()) {
-			Node from = states_o2n.get(current);
+			int from = states_o2n.get(current);
 			// iterate over all outgoing edges of the original node that belongs to expanded node
-			for (Iterator<Edge> lts_outgoing_edge_iterator = current.getSecond().getOutgoingEdges().iterator(); lts_outgoing_edge_iterator.hasNext();) {
-				Edge edge = lts_outgoing_edge_iterator.next();
+			for (Edge edge : current.getSecond().getOutgoingEdges()) {
 				String label = edge.getAction();
 				Node to = edge.getNext();
-				new Edge(from, states_o2n.get(new Pair<String, Node>(label, to)), label);
+				g.addEdge(from, states_o2n.get(new Pair<String, Node>(label, to)), label);
 			}
 		}
 
 		if (debug) {
-			for (Node c : g.getNodes()) {
-				System.out.println("Node [" + c.getId() + "] : " + c.getAttribute("label"));
+			for (int c = 0; c < g.getNodeCount(); c++) {
+				System.out.println("Node [" + c + "] : " + g.getPropositions(c));
 			}
 		}
 
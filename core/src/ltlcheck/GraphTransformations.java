@@ -1,38 +1,33 @@
 package ltlcheck;
 
-import java.util.ArrayList;
-import java.util.List;
-
-import gov.nasa.ltl.graph.*;
+import gov.nasa.ltl.graph.CompactGraph;
 
 public final class GraphTransformations {
 	
-	public static void removeDeadlock(Graph g)
+	public static void removeDeadlock(CompactGraph g)
 	{
-		Node deadlockNode = null;
+		int deadlockNode = -1;
 		
 		// Find sinks in the graph
-		for(Node n: g.getNodes())
+		int count = g.getNodeCount();
+		for(int n = 0; n < count; n++)
 		{
-			if(n.getOutgoingEdgeCount() == 0)
+			if(g.getOutgoingEdgeCount(n) == 0)
 			{	// and link them to the deadlock node
-				if(deadlockNode == null) deadlockNode = createDeadlockNode(g);
-				new Edge(n, deadlockNode, "__deadlock");
+				if(deadlockNode < 0) deadlockNode = createDeadlockNode(g);
+				g.addEdge(n, deadlockNode, "__deadlock");
 			}
 		}
 	}
 	
-	private static Node createDeadlockNode(Graph g)
+	private static int createDeadlockNode(CompactGraph g)
 	{
 		// Create deadlock node and self-loop
-		Node dln = new Node(g);
-		dln.setBooleanAttribute("deadlock", true);
-		new Edge(dln, dln, "__deadlock");
+		int dln = g.addNode();
+		g.addEdge(dln, dln, "__deadlock");
 		
 		// Include "deadlock" as a state predicate
-		List<AtomicProposition> label = new ArrayList<AtomicProposition>(1);
-		label.add(new AtomicProposition("__deadlock", AtomicProposition.PropositionType.Unknown));
-		dln.setAttribute("label", label);
+		g.addProposition(dln, new AtomicProposition("__deadlock", AtomicProposition.PropositionType.Unknown).toString());
 		
 		return dln;
 	}
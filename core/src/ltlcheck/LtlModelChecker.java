@@ -1,41 +1,152 @@
 package ltlcheck;
 
+import gov.nasa.ltl.graph.CompactGraph;
 import gov.nasa.ltl.graph.Graph;
 import gov.nasa.ltl.trans.LTL2Buchi;
 import gov.nasa.ltl.trans.ParseErrorException;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 public class LtlModelChecker
 {
+	// the number of threads searching for accepting cycles
+	private static volatile int cycleSearchThreads = 1;
+
+	/**
+	 * Sets the number of threads that search for accepting cycles in the
+	 * product automaton of each check.
+	 *
+	 * @param threads 1 for the sequential nested DFS, 0 for one thread per
+	 *        available processor, any other number for that many threads
+	 */
+	public static void setCycleSearchThreads(int threads)
+	{
+		if(threads < 0)
+			throw new IllegalArgumentException("threads must not be negative");
+		cycleSearchThreads = threads;
+	}
+
+	public static int getCycleSearchThreads()
+	{
+		return cycleSearchThreads;
+	}
+
 	public static Counterexample check(Graph ts, String formula,
 			IModelCheckingMonitor monitor) throws ParseErrorException
 	{
 		assert monitor != null;
-		
+
 		// Generate Did/Can Expanded Graph
-		monitor.subTask("Adding did/can attributes...");
-		final Graph dcts = DidCanTranslator.translate(ts);
-				
-		// Remove deadlock
-		monitor.subTask("Massaging deadlock states...");
-		GraphTransformations.removeDeadlock(dcts);
-		
+		final CompactGraph dcts = prepareSystem(ts, monitor);
+
 		// Generate Buchi Automata for negated LTL formula
 		monitor.subTask("Generate Buchi automaton...");
-		Graph ba = null;
-		ba = LTL2Buchi.translate("! (" + formula + ")");
-		
+		final Graph ba = translateNegated(formula);
+
 		monitor.subTask("Parsing transition labels...");
 		GraphActionParser.parseTransitions(ba);
 
+		return checkProduct(dcts, ba, monitor);
+	}
+
+	/**
+	 * Checks several formulas on the same transition system.
+	 * The did/can expanded system is built only once, and the formulas are
+	 * translated and checked concurrently.
+	 *
+	 * @param ts the transition system
+	 * @param formulas the (prepared) formulas to check
+	 * @param monitor informed about the phases of the whole batch (not
+	 *        about the phases of the single checks)
+	 * @return one result per formula, in the same order as the formulas
+	 * @throws InterruptedException if the calling thread is interrupted
+	 */
+	public static List<CheckResult> checkAll(Graph ts, List<String> formulas,
+			IModelCheckingMonitor monitor) throws InterruptedException
+	{
+		assert monitor != null;
+
+		final CompactGraph dcts = prepareSystem(ts, monitor);
+
+		monitor.subTask("Checking properties...");
+		final List<CheckResult> results = new ArrayList<CheckResult>(formulas.size());
+		final int threads = Math.min(formulas.size(), Runtime.getRuntime().availableProcessors());
+		if(threads == 0)
+			return results;
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			final List<Future<Counterexample>> futures = new ArrayList<Future<Counterexample>>(formulas.size());
+			for(final String formula: formulas)
+			{
+				futures.add(executor.submit(new Callable<Counterexample>() {
+					public Counterexample call() throws ParseErrorException {
+						final Graph ba = translateNegated(formula);
+						GraphActionParser.parseTransitions(ba);
+						return checkProduct(dcts, ba, null);
+					}
+				}));
+			}
+			for(int i = 0; i < futures.size(); ++i)
+			{
+				try {
+					results.add(new CheckResult(formulas.get(i), futures.get(i).get()));
+				} catch (ExecutionException e) {
+					if(e.getCause() instanceof ParseErrorException)
+						results.add(new CheckResult(formulas.get(i), (ParseErrorException)e.getCause()));
+					else
+						// an abnormal exception: pass it to the caller
+						throw new RuntimeException(e.getCause());
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		return results;
+	}
+
+	private static CompactGraph prepareSystem(Graph ts, IModelCheckingMonitor monitor)
+	{
+		monitor.subTask("Adding did/can attributes...");
+		final CompactGraph dcts = DidCanTranslator.translate(ts);
+
+		// Remove deadlock
+		monitor.subTask("Massaging deadlock states...");
+		GraphTransformations.removeDeadlock(dcts);
+
+		return dcts;
+	}
+
+	private static Graph translateNegated(String formula) throws ParseErrorException
+	{
+		return LTL2Buchi.translate("! (" + formula + ")");
+	}
+
+	// the monitor may be null
+	private static Counterexample checkProduct(CompactGraph dcts, Graph ba, IModelCheckingMonitor monitor)
+	{
 		// Generate Product Automata of Did/Can Expanded Graph and Buchi Automata of LTL formula
-		monitor.subTask("Generate product automaton...");
-		final GeneralGraph pa = ProductTranslator.translate(dcts, ba);
+		if(monitor != null) monitor.subTask("Generate product automaton...");
+		final CompactGraph pa = ProductTranslator.translate(dcts, ba);
 
 		// Check Property via reachable cycle detection
-		monitor.subTask("Checking property...");
-		final PersistenceChecker pc = new PersistenceChecker(pa);
+		if(monitor != null) monitor.subTask("Checking property...");
+		int threads = cycleSearchThreads;
+		if(threads == 0)
+			threads = Runtime.getRuntime().availableProcessors();
+		if(threads == 1) {
+			final PersistenceChecker pc = new PersistenceChecker(pa);
+			pc.run();
+			return pc.getCounterexample();
+		}
+		final ParallelPersistenceChecker pc = new ParallelPersistenceChecker(pa, threads);
 		pc.run();
-
 		return pc.getCounterexample();
 	}
 }
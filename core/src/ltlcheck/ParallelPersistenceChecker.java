@@ -0,0 +1,286 @@
+package ltlcheck;
+
+import gov.nasa.ltl.graph.CompactGraph;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Searches for a reachable accepting cycle like {@link PersistenceChecker},
+ * but with several threads, using the CNDFS algorithm (Evangelista, Laarman,
+ * Petrucci, van de Pol: "Improved Multi-Core Nested Depth-First Search",
+ * ATVA 2012).
+ *
+ * Every thread runs its own nested DFS, exploring the successors in a
+ * different order. The threads share which states are blue (completely
+ * explored by the outer DFS of some thread) and which are red (completely
+ * explored by an inner DFS without finding a cycle), so they avoid
+ * exploring the same parts of the graph.
+ *
+ * The threads only pay off if they run on separate processors: on a single
+ * processor, the search of a product without an accepting cycle takes about
+ * three times as long as the sequential one (see CycleSearchBenchmark).
+ */
+public class ParallelPersistenceChecker
+{
+	private static final int BLUE = 1;
+	private static final int RED = 2;
+
+	private final CompactGraph g;
+	private final int threads;
+
+	// the shared colours of the states
+	private final AtomicIntegerArray colours;
+	private final AtomicReference<Counterexample> found = new AtomicReference<Counterexample>();
+	private volatile boolean stop = false;
+
+	private Counterexample counterexample = null;
+
+	public ParallelPersistenceChecker(CompactGraph g, int threads)
+	{
+		super();
+		if(threads < 1)
+			throw new IllegalArgumentException("threads must be positive");
+		this.g = g;
+		this.threads = threads;
+		this.colours = new AtomicIntegerArray(g.getNodeCount());
+	}
+
+	public void run()
+	{
+		final List<Worker> workers = new ArrayList<Worker>(threads);
+		for(int i = 0; i < threads; ++i)
+		{
+			Worker w = new Worker(i);
+			workers.add(w);
+			w.start();
+		}
+
+		// wait for all workers, even if interrupted
+		boolean interrupted = false;
+		for(Worker w: workers)
+		{
+			while(w.isAlive())
+			{
+				try {
+					w.join();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		}
+		if(interrupted)
+			Thread.currentThread().interrupt();
+
+		for(Worker w: workers)
+		{
+			if(w.error != null)
+				throw new RuntimeException("Error in the accepting cycle search", w.error);
+		}
+
+		counterexample = found.get();
+	}
+
+	public Counterexample getCounterexample()
+	{
+		return counterexample;
+	}
+
+	private boolean is(int s, int colour)
+	{
+		return (colours.get(s) & colour) != 0;
+	}
+
+	private void set(int s, int colour)
+	{
+		int old;
+		do
+		{
+			old = colours.get(s);
+			if((old & colour) != 0)
+				return;
+		}
+		while(!colours.compareAndSet(s, old, old | colour));
+	}
+
+	private class Worker extends Thread
+	{
+		private final int id;
+
+		// the states on the stack of the outer DFS of this worker
+		private final BitSet cyan = new BitSet();
+		// the states visited by the current inner DFS of this worker
+		private final BitSet pink = new BitSet();
+		private final List<Integer> pinkStates = new ArrayList<Integer>();
+
+		private final DfsStack blueStack = new DfsStack();
+		private final DfsStack redStack = new DfsStack();
+
+		Throwable error = null;
+
+		Worker(int id)
+		{
+			super("CNDFS worker " + id);
+			this.id = id;
+			setDaemon(true);
+		}
+
+		@Override
+		public void run()
+		{
+			try {
+				// every worker starts with a different initial state
+				BitSet initial = g.getInitialNodes();
+				List<Integer> roots = new ArrayList<Integer>();
+				for(int n = initial.nextSetBit(0); n >= 0; n = initial.nextSetBit(n + 1))
+					roots.add(n);
+				for(int i = 0; i < roots.size() && !stop; ++i)
+				{
+					int root = roots.get((i + id) % roots.size());
+					if(!is(root, BLUE))
+						dfsBlue(root);
+				}
+			} catch (Throwable t) {
+				error = t;
+				stop = true;
+			}
+		}
+
+		// the i-th successor edge of s in the order of this worker
+		private int successor(int s, int i, int count)
+		{
+			int start = (id == 0) ? 0 : (((s ^ (id * 0x9E3779B9)) & 0x7fffffff) % count);
+			return g.getOutgoingEdge(s, (start + i) % count);
+		}
+
+		private void dfsBlue(int root)
+		{
+			blueStack.push(root, -1);
+			cyan.set(root);
+
+			while(!blueStack.isEmpty() && !stop)
+			{
+				int s = blueStack.peek();
+				int count = g.getOutgoingEdgeCount(s);
+
+				// Find a successor that is neither cyan nor blue
+				int edge = -1;
+				while(blueStack.position() < count)
+				{
+					int e = successor(s, blueStack.position(), count);
+					blueStack.advance();
+					int t = g.getTarget(e);
+					if(!cyan.get(t) && !is(t, BLUE))
+					{
+						edge = e;
+						break;
+					}
+				}
+
+				if(edge >= 0)
+				{ // successor found, explore
+					blueStack.push(g.getTarget(edge), edge);
+					cyan.set(g.getTarget(edge));
+				}
+				else
+				{ // outer DFS is finished for s
+					set(s, BLUE);
+					if(g.isAccepting(s))
+					{
+						dfsRed(s);
+						if(stop)
+							return;
+						// the inner searches of other workers that entered the
+						// part explored here must be finished before it is red
+						for(int r: pinkStates)
+						{
+							if(r != s && g.isAccepting(r))
+							{
+								while(!is(r, RED) && !stop)
+									Thread.yield();
+							}
+						}
+						for(int r: pinkStates)
+						{
+							set(r, RED);
+							pink.clear(r);
+						}
+						pinkStates.clear();
+					}
+					cyan.clear(s);
+					blueStack.pop();
+				}
+			}
+		}
+
+		private void dfsRed(int root)
+		{
+			redStack.clear();
+			redStack.push(root, -1);
+			pink.set(root);
+			pinkStates.add(root);
+
+			while(!redStack.isEmpty() && !stop)
+			{
+				int s = redStack.peek();
+				int count = g.getOutgoingEdgeCount(s);
+
+				int edge = -1;
+				while(redStack.position() < count)
+				{
+					int e = successor(s, redStack.position(), count);
+					redStack.advance();
+					int t = g.getTarget(e);
+					if(cyan.get(t))
+					{ // t is on the stack of the outer DFS, a cycle is found
+						reportCycle(e);
+						return;
+					}
+					if(!pink.get(t) && !is(t, RED))
+					{
+						edge = e;
+						break;
+					}
+				}
+
+				if(edge >= 0)
+				{ // successor found, explore
+					redStack.push(g.getTarget(edge), edge);
+					pink.set(g.getTarget(edge));
+					pinkStates.add(g.getTarget(edge));
+				}
+				else
+				{ // Cycle search unsuccessful for s
+					redStack.pop();
+				}
+			}
+		}
+
+		// the cycle consists of the part of the outer DFS stack starting at
+		// the target of the closing edge, the inner DFS stack and the edge
+		private void reportCycle(int closingEdge)
+		{
+			int t = g.getTarget(closingEdge);
+			int start = 0;
+			while(blueStack.node(start) != t)
+				++start;
+
+			List<Integer> prefix = new ArrayList<Integer>(start);
+			for(int i = 1; i <= start; ++i)
+				prefix.add(blueStack.edge(i));
+
+			List<Integer> cycle = new ArrayList<Integer>();
+			for(int i = start + 1; i < blueStack.size(); ++i)
+				cycle.add(blueStack.edge(i));
+			for(int i = 1; i < redStack.size(); ++i)
+				cycle.add(redStack.edge(i));
+			cycle.add(closingEdge);
+
+			found.compareAndSet(null, Counterexample.fromProduct(g, prefix, cycle));
+			stop = true;
+		}
+	}
+}
@@ -7,76 +7,51 @@ public class PersistenceChecker
 {
 	private Counterexample counterexample = null;
 	
-	private Set<Node> r = new HashSet<Node>(); // set of visited states in the outer DFS
-	private Set<Node> ir;                      // set of unvisited initial states
-	private Stack<Node> u = new Stack<Node>(); // stack for the outer DFS
-	private Set<Node> t = new HashSet<Node>(); // set of visited states in the inner DFS
-	private Stack<Node> v = new Stack<Node>(); // stack for the inner DFS
+	private final CompactGraph g;
+	private final BitSet r = new BitSet();      // set of visited states in the outer DFS
+	private final DfsStack u = new DfsStack();  // stack for the outer DFS
+	private final BitSet t = new BitSet();      // set of visited states in the inner DFS
+	private final DfsStack v = new DfsStack();  // stack for the inner DFS
 	boolean cycleFound = false;
 	
-	public PersistenceChecker(GeneralGraph g)
+	public PersistenceChecker(CompactGraph g)
 	{
 		super();
-		this.ir = g.getInitialNodes();
+		this.g = g;
 	}
 	
 	public void run()
 	{
-		while(!ir.isEmpty() && !cycleFound)
+		BitSet ir = g.getInitialNodes();
+		for(int n = ir.nextSetBit(0); n >= 0 && !cycleFound; n = ir.nextSetBit(n + 1))
 		{
-			reachableCycle(ir.iterator().next()); // explore the reachable fragment with outer DFS
+			if(!r.get(n))
+				reachableCycle(n); // explore the reachable fragment with outer DFS
 		}
 		if(!cycleFound) counterexample = null; // YES
 		else 
 		{	// NO; save counterexample (reverse(V.U))
 			
-			// Get prefix
-			List<Edge> prefix = new ArrayList<Edge>(u.size() + 1);
-			for(int i = 0; i < u.size() - 1; ++i)
-			{
-				for(Edge e: u.get(i).getOutgoingEdges())
-				{
-					if(e.getNext().equals(u.get(i + 1)))
-					{
-						prefix.add(e);
-						break;
-					}
-				}
-			}
+			// Get prefix (the edges by which the states on u were reached)
+			List<Integer> prefix = new ArrayList<Integer>(u.size() + 1);
+			for(int i = 1; i < u.size(); ++i)
+				prefix.add(u.edge(i));
 
 			// Add action to get from last state of prefix to first state of cycle
-			if(!u.empty() && !v.empty())
-			{
-				for(Edge e: u.get(u.size() - 1).getOutgoingEdges())
-				{
-					if(e.getNext().equals(v.get(0)))
-					{
-						prefix.add(e);
-						break;
-					}
-				}
-			}
+			if(!u.isEmpty())
+				prefix.add(edgeBetween(u.node(u.size() - 1), v.node(0)));
 
 			// Get cycle
-			List<Edge> cycle = new ArrayList<Edge>(v.size());
-			for(int i = 0; i < v.size() - 1; ++i)
-			{
-				for(Edge e: v.get(i).getOutgoingEdges())
-				{
-					if(e.getNext().equals(v.get(i + 1)))
-					{
-						cycle.add(e);
-						break;
-					}
-				}
-			}
+			List<Integer> cycle = new ArrayList<Integer>(v.size());
+			for(int i = 1; i < v.size(); ++i)
+				cycle.add(v.edge(i));
 			
 			// If a suffix of the prefix is part (a "suffix", in fact) of the cycle we found, remove that suffix
 			// foundSuffix <=> last transition of cycle is last transition of prefix as well
 			boolean foundSuffix = prefix.size() > 0 && cycle.get(cycle.size() - 1).equals(prefix.get(prefix.size() - 1));
 			while(foundSuffix)
 			{
-				Edge e = cycle.get(cycle.size() - 1);
+				Integer e = cycle.get(cycle.size() - 1);
 				cycle.remove(cycle.size() - 1);
 				cycle.add(0, e);
 				prefix.remove(prefix.size() - 1);
@@ -85,41 +60,55 @@ public class PersistenceChecker
 			}
 
 			// Set counterexample
-			counterexample = new Counterexample(prefix, cycle);
+			counterexample = Counterexample.fromProduct(g, prefix, cycle);
+		}
+	}
+	
+	private int edgeBetween(int from, int to)
+	{
+		int count = g.getOutgoingEdgeCount(from);
+		for(int i = 0; i < count; ++i)
+		{
+			int e = g.getOutgoingEdge(from, i);
+			if(g.getTarget(e) == to)
+				return e;
 		}
+		throw new IllegalStateException("no edge from " + from + " to " + to);
 	}
 	
-	private void reachableCycle(Node n)
+	private void reachableCycle(int n)
 	{
-		u.push(n);
-		r.add(n);
-		ir.remove(n);
+		u.push(n, -1);
+		r.set(n);
 		
 		do
 		{
-			Node nn = u.peek();
+			int nn = u.peek();
 			
-			// Find an unvisited successor of nn
-			Node unvisitedSuccessor = null;
-			for(Edge e: nn.getOutgoingEdges())
+			// Find an unvisited successor of nn (the edges before u.position()
+			// have already been explored)
+			int edge = -1;
+			int count = g.getOutgoingEdgeCount(nn);
+			while(u.position() < count)
 			{
-				if(!r.contains(e.getNext()))
+				int e = g.getOutgoingEdge(nn, u.position());
+				u.advance();
+				if(!r.get(g.getTarget(e)))
 				{
-					unvisitedSuccessor = e.getNext();
+					edge = e;
 					break;
 				}
 			}
 			
-			if(unvisitedSuccessor != null)
+			if(edge >= 0)
 			{ // successor found, explore
-				u.push(unvisitedSuccessor); // push the unvisited successor on u
-				r.add(unvisitedSuccessor);  // and mark it visited
-				ir.remove(r);
+				u.push(g.getTarget(edge), edge); // push the unvisited successor on u
+				r.set(g.getTarget(edge));          // and mark it visited
 			}
 			else
 			{ // outer DFS is finished for nn
 				u.pop(); 
-				if(nn.getBooleanAttribute("accepting"))
+				if(g.isAccepting(nn))
 				{ // proceed with the inner DFS in nn
 					cycleFound = cycleCheck(nn);
 				}
@@ -128,41 +117,48 @@ public class PersistenceChecker
 		while(!u.isEmpty() && !cycleFound);
 	}
 	
-	private boolean cycleCheck(Node n)
+	private boolean cycleCheck(int n)
 	{
-		v.push(n);
-		t.add(n);
+		v.push(n, -1);
+		t.set(n);
 		
 		do
 		{
-			Node nn = v.peek();
+			int nn = v.peek();
+			int count = g.getOutgoingEdgeCount(nn);
 
 			// Check whether we already found a cycle
-			for(Edge e: nn.getOutgoingEdges())
+			if(v.position() == 0)
 			{
-				if(e.getNext().equals(n))
-				{ // if n in Post(nn), a cycle is found
-					v.push(n);
-					return true;
+				for(int i = 0; i < count; ++i)
+				{
+					int e = g.getOutgoingEdge(nn, i);
+					if(g.getTarget(e) == n)
+					{ // if n in Post(nn), a cycle is found
+						v.push(n, e);
+						return true;
+					}
 				}
 			}
 			
 			// No cycle found yet
 			// Find an unvisited successor of nn
-			Node unvisitedSuccessor = null;
-			for(Edge e: nn.getOutgoingEdges())
+			int edge = -1;
+			while(v.position() < count)
 			{
-				if(!t.contains(e.getNext()))
+				int e = g.getOutgoingEdge(nn, v.position());
+				v.advance();
+				if(!t.get(g.getTarget(e)))
 				{
-					unvisitedSuccessor = e.getNext();
+					edge = e;
 					break;
 				}
-			}	
+			}
 			
-			if(unvisitedSuccessor != null)
+			if(edge >= 0)
 			{ // successor found, explore
-				v.push(unvisitedSuccessor); // push the unvisited successor on u
-				t.add(unvisitedSuccessor);  // and mark it visited
+				v.push(g.getTarget(edge), edge); // push the unvisited successor on v
+				t.set(g.getTarget(edge));          // and mark it visited
 			}
 			else
 			{ // Cycle search unsuccessful for nn
@@ -1,105 +1,200 @@
 package ltlcheck;
 
+import gov.nasa.ltl.graph.CompactGraph;
 import gov.nasa.ltl.graph.Edge;
 import gov.nasa.ltl.graph.Graph;
 import gov.nasa.ltl.graph.Node;
 
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 
 public class ProductTranslator {
 	public static final boolean debug = false;
 
-	@SuppressWarnings("unchecked")
-    public static GeneralGraph translate(Graph dcts, Graph ba) {
-		GeneralGraph p = new GeneralGraph();
-		HashMap<Pair<Node,Node>, Node> p_states = new HashMap<Pair<Node,Node>,Node>();
+	private final CompactGraph dcts;
+	private final CompactGraph p = new CompactGraph();
+
+	// the buchi automaton: for each node its accepting flag and its
+	// outgoing edges (target and compiled label)
+	private final boolean[] ba_accepting;
+	private final int[][] ba_targets;
+	private final Guard[][] ba_guards;
+	// -1 if the buchi automaton has no initial node (i.e. it accepts nothing)
+	private final int ba_init;
+
+	// the product states for each did/can node (allocated on demand)
+	private final int[][] p_states;
+	// the did/can and buchi node of each product state
+	private int[] p_dcts = new int[16];
+	private int[] p_ba = new int[16];
+
+	private ProductTranslator(CompactGraph dcts, Graph ba) {
+		this.dcts = dcts;
+
+		final List<Node> ba_nodes = ba.getNodes();
+		final HashMap<Node, Integer> ba_ids = new HashMap<Node, Integer>();
+		for (Node n : ba_nodes) {
+			ba_ids.put(n, ba_ids.size());
+		}
+
+		ba_accepting = new boolean[ba_nodes.size()];
+		ba_targets = new int[ba_nodes.size()][];
+		ba_guards = new Guard[ba_nodes.size()][];
+		for (int b = 0; b < ba_nodes.size(); b++) {
+			ba_accepting[b] = ba_nodes.get(b).getBooleanAttribute("accepting");
+			List<Edge> edges = ba_nodes.get(b).getOutgoingEdges();
+			ba_targets[b] = new int[edges.size()];
+			ba_guards[b] = new Guard[edges.size()];
+			for (int i = 0; i < edges.size(); i++) {
+				ba_targets[b][i] = ba_ids.get(edges.get(i).getNext());
+				ba_guards[b][i] = new Guard((Conjunction) edges.get(i).getAttribute("parsedaction"), dcts);
+			}
+		}
+		ba_init = ba.getInit() == null ? -1 : ba_ids.get(ba.getInit());
+
+		p_states = new int[dcts.getNodeCount()][];
+	}
+
+	/**
+	 * Builds the part of the product of the did/can expanded system and the
+	 * Buchi automaton that is reachable from the initial states. The
+	 * product states are accepting iff their Buchi automaton state is.
+	 * The edges of the Buchi automaton need the "parsedaction" attribute
+	 * (see {@link GraphActionParser#parseTransitions(Graph)}).
+	 */
+	public static CompactGraph translate(CompactGraph dcts, Graph ba) {
+		return new ProductTranslator(dcts, ba).translate();
+	}
+
+	private CompactGraph translate() {
+		// the negated formula is unsatisfiable: the product is empty
+		if (ba_init < 0) {
+			return p;
+		}
+
+		// COMPUTE INITIAL NODES
+		//   the initial states are <d,b> for all initial d and all successors b
+		//   of the initial BA node whose edge allows the label of d
+		BitSet dcts_init = dcts.getInitialNodes();
+		for (int d = dcts_init.nextSetBit(0); d >= 0; d = dcts_init.nextSetBit(d + 1)) {
+			BitSet label = dcts.getPropositions(d);
+			for (int i = 0; i < ba_targets[ba_init].length; i++) {
+				if (ba_guards[ba_init][i].allows(label)) {
+					p.setInitial(state(d, ba_targets[ba_init][i]), true);
+				}
+			}
+		}
 
 		// GENERATE NODES AND EDGES:
-		// iterate over all did/can-expanded graph nodes
-		for (Node dcts_from : dcts.getNodes()) {
-			// iterate over all buchi automata nodes
-			for (Node ba_from : ba.getNodes()) {
-				// iterate over all outgoing edges of did/can-expanded graph node
-				for (Edge dcts_edge : dcts_from.getOutgoingEdges()) {
-					Node dcts_to = dcts_edge.getNext();
-					String alpha = dcts_edge.getGuard();
-					List<AtomicProposition> dcts_to_label = (List<AtomicProposition>) dcts_to.getAttribute("label");
-
-					// iterate over all outgoing edges of buchi automata node
-					for (Edge ba_edge : ba_from.getOutgoingEdges()) {
-						Node ba_to = ba_edge.getNext();
-						Conjunction ba_edge_label = (Conjunction) ba_edge.getAttribute("parsedaction");
-						
+		// iterate over all product states in the order they are reached
+		for (int p_from = 0; p_from < p.getNodeCount(); p_from++) {
+			int dcts_from = p_dcts[p_from];
+			int ba_from = p_ba[p_from];
+
+			// iterate over all outgoing edges of did/can-expanded graph node
+			int count = dcts.getOutgoingEdgeCount(dcts_from);
+			for (int j = 0; j < count; j++) {
+				int dcts_edge = dcts.getOutgoingEdge(dcts_from, j);
+				int dcts_to = dcts.getTarget(dcts_edge);
+				BitSet dcts_to_label = dcts.getPropositions(dcts_to);
+
+				// iterate over all outgoing edges of buchi automata node
+				for (int i = 0; i < ba_targets[ba_from].length; i++) {
+					int ba_to = ba_targets[ba_from][i];
+
+					if (debug) {
+						System.out.print("considering <" + dcts_from + "," + ba_from + "> ");
+						System.out.print("<" + dcts_to + "," + ba_to + "> : " + ba_guards[ba_from][i] + " vs." + dcts_to_label);
+					}
+
+					if (ba_guards[ba_from][i].allows(dcts_to_label)) {
 						if (debug) {
-							System.out.print("considering <" + dcts_from.getId() + "," + ba_from.getId() + "> ");
-							System.out.print("<" + dcts_to.getId() + "," + ba_to.getId() + "> : " + ba_edge_label + " vs." + dcts_to_label);
+							System.out.println(" accept");
 						}
-							
-						
-						if (ba_edge_label.allows(dcts_to_label)) {
-							if (debug) {
-								System.out.println(" accept");
-							}
-							Node p_from = null;
-							Node p_to = null;
-
-							Pair<Node,Node> key_from = new Pair<Node,Node>(dcts_from, ba_from);
-							Pair<Node,Node> key_to = new Pair<Node,Node>(dcts_to,ba_to);
-
-							if (!p_states.containsKey(key_from)) {
-								p_from = new Node(p);
-								p_from.setStringAttribute("name", "<" + dcts_from.getId() + "," + ba_from.getId() + ">");
-								// set accpeting if ba node is accepting
-								if (ba_from.getBooleanAttribute("accepting")) {
-									p_from.setBooleanAttribute("accepting", true);
-								}
-								p_states.put(key_from, p_from);
-							} else {
-								p_from = p_states.get(key_from);
-							}
-							if (!p_states.containsKey(key_to)) {
-								p_to = new Node(p);
-								p_to.setStringAttribute("name", "<" + dcts_to.getId() + "," + ba_to.getId() + ">");
-								// set accepting if ba node is accepting
-								if (ba_to.getBooleanAttribute("accepting")) {
-									p_to.setBooleanAttribute("accepting", true);
-								}
-								p_states.put(key_to, p_to);
-							} else {
-								p_to = p_states.get(key_to);
-							}
-
-							new Edge(p_from, p_to, alpha);
-						} else {
-							if (debug) {
-								System.out.println(" reject");
-							}
+						p.addEdge(p_from, state(dcts_to, ba_to), dcts.getAction(dcts_edge));
+					} else {
+						if (debug) {
+							System.out.println(" reject");
 						}
 					}
 				}
 			}
 		}
 
-		// COMPUTE INITIAL NODES
-		for (Pair<Node,Node> key : p_states.keySet()) {
-			Node dcts_node = key.getFirst();
-			Node ba_node = key.getSecond();
-			if (dcts_node == dcts.getInit()) {
-				for (Edge edge : ba_node.getIncomingEdges()) {
-					// BA from node must be in Q0 !!!
-					if (edge.getSource() == ba.getInit()) {
-						Conjunction conj = (Conjunction)edge.getAttribute("parsedaction");
-						List<AtomicProposition> label = (List<AtomicProposition>) dcts_node.getAttribute("label");
-						if (conj.allows(label)) {
-							p.getInitialNodes().add(p_states.get(key));
-							continue;
-						}
-					}
-				}
+		return p;
+	}
+
+	// returns the product state <d,b>, creating it if necessary
+	private int state(int d, int b) {
+		int[] states = p_states[d];
+		if (states == null) {
+			states = p_states[d] = new int[ba_targets.length];
+		}
+
+		// the states are stored +1, so that 0 means "not yet created"
+		if (states[b] == 0) {
+			int s = p.addNode();
+			// set accepting if ba node is accepting
+			if (ba_accepting[b]) {
+				p.setAccepting(s, true);
+			}
+			if (s == p_dcts.length) {
+				p_dcts = grow(p_dcts);
+				p_ba = grow(p_ba);
 			}
+			p_dcts[s] = d;
+			p_ba[s] = b;
+			states[b] = s + 1;
 		}
 
-		return p;
+		return states[b] - 1;
+	}
+
+	private static int[] grow(int[] a) {
+		int[] b = new int[2 * a.length];
+		System.arraycopy(a, 0, b, 0, a.length);
+		return b;
+	}
+
+	/**
+	 * The label of a buchi automaton edge, as sets of propositions of the
+	 * did/can expanded graph that must or must not hold.
+	 */
+	private static class Guard {
+		private final BitSet positive = new BitSet();
+		private final BitSet negative = new BitSet();
+		private boolean satisfiable = true;
+		private final String label;
+
+		public Guard(Conjunction conj, CompactGraph dcts) {
+			label = conj.toString();
+			for (Literal l : conj.getLiterals()) {
+				AtomicProposition atom = l.getAtom();
+				if (atom.getType() == AtomicProposition.PropositionType.True)
+					continue;
+				int id = dcts.getPropositionId(atom.toString());
+				if (atom.getType() == AtomicProposition.PropositionType.False
+						|| (l.isPositive() && id < 0))
+					satisfiable = false;
+				else if (id >= 0)
+					(l.isPositive() ? positive : negative).set(id);
+			}
+		}
+
+		public boolean allows(BitSet atoms) {
+			if (!satisfiable || atoms.intersects(negative))
+				return false;
+			for (int i = positive.nextSetBit(0); i >= 0; i = positive.nextSetBit(i + 1)) {
+				if (!atoms.get(i))
+					return false;
+			}
+			return true;
+		}
+
+		@Override
+		public String toString() {
+			return label;
+		}
 	}
 }
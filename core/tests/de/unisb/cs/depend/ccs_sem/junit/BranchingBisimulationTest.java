@@ -0,0 +1,98 @@
+package de.unisb.cs.depend.ccs_sem.junit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.unisb.cs.depend.ccs_sem.evaluators.SequentialEvaluator;
+import de.unisb.cs.depend.ccs_sem.parser.CCSParser;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.Expression;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.ExpressionRepository;
+import de.unisb.cs.depend.ccs_sem.semantics.types.Program;
+import de.unisb.cs.depend.ccs_sem.utils.BranchingBisimulation;
+import de.unisb.cs.depend.ccs_sem.utils.OnTheFlyBisimulation;
+import de.unisb.cs.depend.ccs_sem.utils.StateNumerator;
+import de.unisb.cs.depend.ccs_sem.utils.Bisimulation.Equivalence;
+
+
+public class BranchingBisimulationTest {
+
+    private static final String[] PROGRAMS = {
+        "a.i.b.0 + a.b.0",
+        "X := i.Y + a.0;\nY := i.Z;\nZ := i.X + b.0;\nX",
+        "X := a.(i.X + b.0) + i.i.c.0;\nX",
+        "(a!.b.0 | a?.c.0 | a?.d.0) \\ {a}",
+        "P[n] := when (n < 3) in.P[n+1] + when (n > 0) i.out.P[n-1];\nP[0]",
+        "Buf1 := in?x.mid!x.Buf1;\nBuf2 := mid?x.out!x.Buf2;\n(Buf1 | Buf2) \\ {mid}",
+        "a.error + a.0 + a.i.error",
+    };
+
+    @Before
+    public void initialize() {
+        ExpressionRepository.reset();
+    }
+
+    @After
+    public void cleanUp() {
+        ExpressionRepository.reset();
+    }
+
+    private static Program evaluate(String code) throws InterruptedException {
+        final Program program = new CCSParser().parse(code);
+        assertNotNull(program);
+        assertTrue(program.evaluate(new SequentialEvaluator(), null));
+        return program;
+    }
+
+    private static int countStates(Program program, Equivalence equivalence)
+            throws InterruptedException {
+        assertTrue(program.minimizeTransitions(new SequentialEvaluator(), null, equivalence));
+        return StateNumerator.numerateStates(program.getExpression()).size();
+    }
+
+    @Test
+    public void tauCyclesAreContracted() throws InterruptedException {
+        final Program program = evaluate(PROGRAMS[1]);
+        final Map<Expression, Integer> blocks =
+            BranchingBisimulation.computeBlocks(program.getMainExpression());
+        // X, Y and Z are on a tau cycle, a and b lead to the same deadlock
+        assertEquals(4, blocks.size());
+        assertEquals(2, new HashSet<Integer>(blocks.values()).size());
+        assertEquals(2, countStates(program, Equivalence.BRANCHING));
+    }
+
+    @Test
+    public void inertTauSteps() throws InterruptedException {
+        // a.i.b.0 + a.b.0 is branching bisimilar to a.b.0
+        assertEquals(3, countStates(evaluate(PROGRAMS[0]), Equivalence.BRANCHING));
+        // the tau step in a.(b.0 + i.c.0) is not inert
+        assertEquals(4, countStates(evaluate("a.(b.0 + i.c.0)"), Equivalence.BRANCHING));
+    }
+
+    @Test
+    public void quotientIsWeaklyBisimilar() throws InterruptedException {
+        for (final String code: PROGRAMS) {
+            ExpressionRepository.reset();
+            final Program program = evaluate(code);
+            final int branching = countStates(program, Equivalence.BRANCHING);
+            final Expression quotient = program.getExpression();
+            assertTrue(code, new OnTheFlyBisimulation(new SequentialEvaluator(), true)
+                .check(program.getMainExpression(), quotient));
+
+            // branching bisimulation is finer than weak bisimulation, but
+            // not coarser than strong bisimulation
+            final int weak = countStates(program, Equivalence.WEAK);
+            final int strong = countStates(program, Equivalence.STRONG);
+            assertTrue(code, weak <= branching);
+            assertTrue(code, branching <= strong);
+        }
+    }
+
+}
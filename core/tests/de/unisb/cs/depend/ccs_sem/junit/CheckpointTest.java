@@ -0,0 +1,165 @@
+package de.unisb.cs.depend.ccs_sem.junit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.unisb.cs.depend.ccs_sem.evaluators.CheckpointingEvaluator;
+import de.unisb.cs.depend.ccs_sem.evaluators.EvaluationBudget;
+import de.unisb.cs.depend.ccs_sem.evaluators.SequentialEvaluator;
+import de.unisb.cs.depend.ccs_sem.parser.CCSParser;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.Expression;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.ExpressionRepository;
+import de.unisb.cs.depend.ccs_sem.semantics.types.Program;
+import de.unisb.cs.depend.ccs_sem.semantics.types.Transition;
+import de.unisb.cs.depend.ccs_sem.utils.StateNumerator;
+
+
+/**
+ * Stops evaluations after some states, restores them from their checkpoints
+ * in a fresh program, and compares the completed transition systems with
+ * the ones that were evaluated in one go.
+ */
+public class CheckpointTest {
+
+    private static final String[] PROGRAMS = {
+        "X[n] := when (n < 10) a.X[n+1] + b.X[0];\nX[0] | X[0] | X[0]",
+        "Buf1 := in?x:0..3.mid!x.Buf1;\nBuf2 := mid?x:0..3.out!x.Buf2;\n(Buf1 | Buf2) \\ {mid}",
+        "P[c] := c!.P[c];\nQ[c] := c?.d.Q[c];\n(P[chan] | Q[chan]) \\ {chan}",
+        "a.b.0 + a.error",
+    };
+
+    private File checkpoint;
+
+    @Before
+    public void initialize() throws IOException {
+        ExpressionRepository.reset();
+        checkpoint = File.createTempFile("checkpoint", ".bin");
+    }
+
+    @After
+    public void cleanUp() {
+        ExpressionRepository.reset();
+        checkpoint.delete();
+    }
+
+    @Test
+    public void resumeAfterLimit() throws Exception {
+        for (final String program: PROGRAMS)
+            for (final int limit: new int[] { 1, 2, 7 })
+                check(program, limit);
+    }
+
+    @Test
+    public void resumeFinished() throws Exception {
+        final String code = PROGRAMS[1];
+        assertTrue(parse(code).evaluate(newEvaluator(), null));
+
+        ExpressionRepository.reset();
+        final Program program = parse(code);
+        final CheckpointingEvaluator evaluator = newEvaluator();
+        evaluator.resume(checkpoint, program);
+        assertEquals(evaluator.getStateCount(), evaluator.getExploredStateCount());
+        // nothing is evaluated any more
+        assertTrue(program.isEvaluated());
+        assertEquals(getDegrees(evaluateInOneGo(code)), getDegrees(program));
+    }
+
+    @Test
+    public void periodicCheckpoints() throws Exception {
+        final CheckpointingEvaluator evaluator = newEvaluator();
+        evaluator.setIntervalStates(10);
+        assertTrue(parse(PROGRAMS[0]).evaluate(evaluator, null));
+        // one checkpoint every 10 states, and the final one
+        assertEquals(evaluator.getStateCount() / 10 + 1, evaluator.getCheckpointsWritten());
+    }
+
+    @Test
+    public void differentProgram() throws Exception {
+        assertTrue(parse(PROGRAMS[2]).evaluate(newEvaluator(), null));
+        try {
+            newEvaluator().resume(checkpoint, parse(PROGRAMS[0]));
+            fail("Restored the checkpoint of another program");
+        } catch (final IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void noCheckpoint() throws Exception {
+        final FileWriter writer = new FileWriter(checkpoint);
+        writer.write("no checkpoint");
+        writer.close();
+        try {
+            newEvaluator().resume(checkpoint, parse(PROGRAMS[0]));
+            fail("Restored an invalid checkpoint");
+        } catch (final IOException e) {
+            // expected
+        }
+    }
+
+    private void check(String code, int limit) throws Exception {
+        final EvaluationBudget budget = new EvaluationBudget();
+        budget.setMaxStates(limit);
+        final Program stopped = parse(code);
+        assertTrue(stopped.evaluate(newEvaluator(), null, budget));
+        final boolean truncated = stopped.isTruncated();
+
+        ExpressionRepository.reset();
+        final Program resumed = parse(code);
+        final CheckpointingEvaluator evaluator = newEvaluator();
+        evaluator.resume(checkpoint, resumed);
+        assertEquals(code, truncated, evaluator.getExploredStateCount() < evaluator.getStateCount());
+        assertTrue(code, resumed.evaluate(evaluator, null));
+        assertFalse(code, resumed.isTruncated());
+
+        ExpressionRepository.reset();
+        assertEquals(code, getDegrees(evaluateInOneGo(code)), getDegrees(resumed));
+    }
+
+    private CheckpointingEvaluator newEvaluator() {
+        return new CheckpointingEvaluator(new SequentialEvaluator(), checkpoint);
+    }
+
+    private static Program parse(String code) {
+        final Program program = new CCSParser().parse(code);
+        assertNotNull(code, program);
+        return program;
+    }
+
+    private static Program evaluateInOneGo(String code) throws InterruptedException {
+        final Program program = parse(code);
+        assertTrue(program.evaluate(new SequentialEvaluator(), null));
+        return program;
+    }
+
+    // the sorted out-degrees and labels of all states
+    private static List<String> getDegrees(Program program) {
+        final Map<Expression, Integer> states = StateNumerator.numerateStates(program.getMainExpression());
+        final List<String> degrees = new ArrayList<String>();
+        for (final Expression state: states.keySet()) {
+            final List<String> labels = new ArrayList<String>();
+            for (final Transition trans: state.getTransitions())
+                labels.add(trans.getAction().getLabel());
+            Collections.sort(labels);
+            degrees.add(labels.toString());
+        }
+        Collections.sort(degrees);
+        return degrees;
+    }
+
+}
@@ -0,0 +1,102 @@
+package de.unisb.cs.depend.ccs_sem.junit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import gov.nasa.ltl.graph.CompactGraph;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import ltlcheck.GraphTransformations;
+
+import org.junit.Test;
+
+
+/**
+ * Checks the array based graph of the model checker.
+ */
+public class CompactGraphTest {
+
+    @Test
+    public void outgoingEdges() {
+        final CompactGraph g = new CompactGraph();
+        final int a = g.addNode();
+        final int b = g.addNode();
+        final int c = g.addNode();
+        g.addEdge(b, c, "x");
+        g.addEdge(a, b, "y");
+        g.addEdge(b, a, "x");
+        assertEquals(2, g.getOutgoingEdgeCount(b));
+        assertEquals(0, g.getOutgoingEdgeCount(c));
+
+        // edges added after the first query are found as well
+        g.addEdge(c, a, "z");
+        g.addEdge(a, c, "z");
+        assertEquals(5, g.getEdgeCount());
+        assertEquals(2, g.getOutgoingEdgeCount(a));
+        assertEquals(1, g.getOutgoingEdgeCount(c));
+
+        final Set<Integer> targets = new HashSet<Integer>();
+        for (int i = 0; i < g.getOutgoingEdgeCount(a); ++i) {
+            final int e = g.getOutgoingEdge(a, i);
+            assertEquals(a, g.getSource(e));
+            targets.add(g.getTarget(e));
+        }
+        assertTrue(targets.contains(b));
+        assertTrue(targets.contains(c));
+        assertEquals("z", g.getAction(g.getOutgoingEdge(c, 0)));
+    }
+
+    @Test
+    public void outgoingEdgeWithoutCount() {
+        // getOutgoingEdge must build the index itself
+        final CompactGraph g = new CompactGraph();
+        final int a = g.addNode();
+        final int b = g.addNode();
+        g.addEdge(a, b, "x");
+        assertEquals(b, g.getTarget(g.getOutgoingEdge(a, 0)));
+
+        // and rebuild it after edges were added
+        g.addEdge(b, a, "y");
+        g.addEdge(b, b, "z");
+        assertEquals(a, g.getSource(g.getOutgoingEdge(a, 0)));
+        assertEquals(b, g.getSource(g.getOutgoingEdge(b, 0)));
+        assertEquals(b, g.getSource(g.getOutgoingEdge(b, 1)));
+    }
+
+    @Test
+    public void propositions() {
+        final CompactGraph g = new CompactGraph();
+        final int a = g.addNode();
+        final int b = g.addNode();
+        g.addProposition(a, "did(x)");
+        g.addProposition(b, "can(x)");
+        g.addProposition(b, "did(x)");
+        g.setAccepting(b, true);
+        assertEquals(-1, g.getPropositionId("can(y)"));
+        final int did = g.getPropositionId("did(x)");
+        assertEquals("did(x)", g.getPropositionName(did));
+        assertTrue(g.getPropositions(a).get(did));
+        assertEquals(2, g.getPropositions(b).cardinality());
+        assertFalse(g.isAccepting(a));
+        assertTrue(g.isAccepting(b));
+    }
+
+    @Test
+    public void removeDeadlock() {
+        final CompactGraph g = new CompactGraph();
+        final int a = g.addNode();
+        final int b = g.addNode();
+        g.addEdge(a, b, "x");
+        GraphTransformations.removeDeadlock(g);
+
+        assertEquals(3, g.getNodeCount());
+        assertEquals(1, g.getOutgoingEdgeCount(b));
+        final int deadlock = g.getTarget(g.getOutgoingEdge(b, 0));
+        assertEquals("__deadlock", g.getAction(g.getOutgoingEdge(b, 0)));
+        assertEquals(deadlock, g.getTarget(g.getOutgoingEdge(deadlock, 0)));
+        assertTrue(g.getPropositions(deadlock).get(g.getPropositionId("__deadlock")));
+    }
+
+}
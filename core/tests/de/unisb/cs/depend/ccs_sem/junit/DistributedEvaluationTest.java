@@ -0,0 +1,157 @@
+package de.unisb.cs.depend.ccs_sem.junit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.unisb.cs.depend.ccs_sem.evaluators.SequentialEvaluator;
+import de.unisb.cs.depend.ccs_sem.evaluators.distributed.DistributedCoordinator;
+import de.unisb.cs.depend.ccs_sem.parser.CCSParser;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.Expression;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.ExpressionRepository;
+import de.unisb.cs.depend.ccs_sem.semantics.types.Program;
+import de.unisb.cs.depend.ccs_sem.utils.StateNumerator;
+
+
+/**
+ * Runs distributed evaluations with several worker processes on localhost,
+ * and compares the merged transition systems with the sequentially
+ * evaluated ones.
+ */
+public class DistributedEvaluationTest {
+
+    private static final String[] PROGRAMS = {
+        "X[n] := when (n < 10) a.X[n+1] + b.X[0];\nX[0] | X[0] | X[0]",
+        "Buf1 := in?x:0..3.mid!x.Buf1;\nBuf2 := mid?x:0..3.out!x.Buf2;\n(Buf1 | Buf2) \\ {mid}",
+        "P[c] := c!.P[c];\nQ[c] := c?.d.Q[c];\n(P[chan] | Q[chan]) \\ {chan}",
+        "a.b.0 + a.error",
+    };
+
+    private File output;
+
+    @Before
+    public void initialize() throws IOException {
+        ExpressionRepository.reset();
+        output = File.createTempFile("distributed", ".aut");
+    }
+
+    @After
+    public void cleanUp() {
+        ExpressionRepository.reset();
+        output.delete();
+    }
+
+    @Test
+    public void twoWorkers() throws Exception {
+        for (final String program: PROGRAMS)
+            check(program, 2);
+    }
+
+    @Test
+    public void threeWorkers() throws Exception {
+        check(PROGRAMS[0], 3);
+    }
+
+    private void check(String code, int workers) throws Exception {
+        final DistributedCoordinator coordinator = new DistributedCoordinator(0, workers);
+        final List<Process> processes = new ArrayList<Process>();
+        try {
+            for (int i = 0; i < workers; ++i)
+                processes.add(startWorker(coordinator.getPort()));
+            coordinator.run(code, output);
+            for (final Process process: processes)
+                assertEquals(code, 0, process.waitFor());
+        } finally {
+            for (final Process process: processes)
+                process.destroy();
+        }
+
+        // evaluate sequentially, and compare the out-degrees of the states
+        ExpressionRepository.reset();
+        final Program program = new CCSParser().parse(code);
+        assertNotNull(program);
+        assertTrue(program.evaluate(new SequentialEvaluator(), null));
+        final Map<Expression, Integer> states = StateNumerator.numerateStates(program.getMainExpression());
+        final List<Integer> degrees = new ArrayList<Integer>();
+        int transitions = 0;
+        for (final Expression state: states.keySet()) {
+            degrees.add(state.getTransitions().size());
+            transitions += state.getTransitions().size();
+        }
+        Collections.sort(degrees);
+
+        assertEquals(code, states.size(), coordinator.getStateCount());
+        assertEquals(code, transitions, coordinator.getTransitionCount());
+        assertEquals(code, degrees, readDegrees(output, states.size(),
+            program.getMainExpression().getTransitions().size()));
+    }
+
+    private static Process startWorker(int port) throws IOException {
+        final String java = System.getProperty("java.home") + File.separator + "bin"
+            + File.separator + "java";
+        final ProcessBuilder builder = new ProcessBuilder(java, "-ea", "-cp",
+            System.getProperty("java.class.path"),
+            "de.unisb.cs.depend.ccs_sem.commandline.Main", "-t", "1",
+            "--worker=localhost:" + port);
+        builder.redirectErrorStream(true);
+        final Process process = builder.start();
+        // drain the output, so that the worker does not block
+        final Thread drain = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    final byte[] buf = new byte[1024];
+                    while (process.getInputStream().read(buf) != -1) {
+                        // ignore
+                    }
+                } catch (final IOException e) {
+                    // ignore
+                }
+            }
+        };
+        drain.setDaemon(true);
+        drain.start();
+        return process;
+    }
+
+    // reads an Aldebaran file and returns the sorted out-degrees
+    private static List<Integer> readDegrees(File file, int stateCount,
+            int initialDegree) throws IOException {
+        final int[] degrees = new int[stateCount];
+        final BufferedReader reader = new BufferedReader(new FileReader(file));
+        try {
+            final String header = reader.readLine();
+            assertTrue(header, header.startsWith("des (0, "));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final int source = Integer.parseInt(line.substring(1, line.indexOf(',')));
+                final int target = Integer.parseInt(line.substring(line.lastIndexOf(',') + 1,
+                    line.length() - 1).trim());
+                assertTrue(line, target >= 0 && target < stateCount);
+                ++degrees[source];
+            }
+        } finally {
+            reader.close();
+        }
+        assertEquals(initialDegree, degrees[0]);
+        final List<Integer> list = new ArrayList<Integer>(stateCount);
+        for (final int degree: degrees)
+            list.add(degree);
+        Collections.sort(list);
+        return list;
+    }
+
+}
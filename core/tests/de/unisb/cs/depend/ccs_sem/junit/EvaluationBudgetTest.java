@@ -0,0 +1,141 @@
+package de.unisb.cs.depend.ccs_sem.junit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.unisb.cs.depend.ccs_sem.evaluators.EvaluationBudget;
+import de.unisb.cs.depend.ccs_sem.evaluators.Evaluator;
+import de.unisb.cs.depend.ccs_sem.evaluators.SequentialEvaluator;
+import de.unisb.cs.depend.ccs_sem.evaluators.ThreadBasedEvaluator;
+import de.unisb.cs.depend.ccs_sem.parser.CCSParser;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.Expression;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.ExpressionRepository;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.adapters.TruncatedExpression;
+import de.unisb.cs.depend.ccs_sem.semantics.types.Program;
+import de.unisb.cs.depend.ccs_sem.utils.StateNumerator;
+
+
+/**
+ * Checks that the evaluators respect the limits of an {@link EvaluationBudget}
+ * and that the partial LTS can be traversed.
+ */
+public class EvaluationBudgetTest {
+
+    // an infinite LTS
+    private static final String INFINITE = "X[n] := a.X[n+1] + b.X[n+2];\nX[0]";
+
+    // an infinite LTS in which every path to X[n] has length n
+    private static final String INFINITE_CHAIN = "X[n] := a.X[n+1] + b.X[n+1];\nX[0]";
+
+    // a finite LTS with 21 states
+    private static final String FINITE = "X[n] := when (n < 20) a.X[n+1];\nX[0]";
+
+    @Before
+    public void initialize() {
+        ExpressionRepository.reset();
+    }
+
+    @After
+    public void cleanUp() {
+        ExpressionRepository.reset();
+    }
+
+    @Test
+    public void maxStatesSequential() throws InterruptedException {
+        checkMaxStates(new SequentialEvaluator());
+    }
+
+    @Test
+    public void maxStatesParallel() throws InterruptedException {
+        checkMaxStates(new ThreadBasedEvaluator(4));
+    }
+
+    @Test
+    public void maxDepthSequential() throws InterruptedException {
+        checkMaxDepth(new SequentialEvaluator());
+    }
+
+    @Test
+    public void maxDepthParallel() throws InterruptedException {
+        checkMaxDepth(new ThreadBasedEvaluator(4));
+    }
+
+    @Test
+    public void unexceededSequential() throws InterruptedException {
+        checkUnexceeded(new SequentialEvaluator());
+    }
+
+    @Test
+    public void unexceededParallel() throws InterruptedException {
+        checkUnexceeded(new ThreadBasedEvaluator(4));
+    }
+
+    private void checkMaxStates(Evaluator evaluator) throws InterruptedException {
+        final EvaluationBudget budget = new EvaluationBudget();
+        budget.setMaxStates(100);
+        final Program program = evaluate(INFINITE, evaluator, budget);
+
+        assertEquals(EvaluationBudget.Limit.STATES, budget.getExceededLimit());
+        assertTrue(program.isTruncated());
+        assertFalse(program.getFrontier().isEmpty());
+        final Map<Expression, Integer> states = checkTruncated(program);
+        // the parallel evaluator may explore some more states before it stops
+        assertTrue(states.size() >= 100);
+    }
+
+    private void checkMaxDepth(Evaluator evaluator) throws InterruptedException {
+        final EvaluationBudget budget = new EvaluationBudget();
+        budget.setMaxDepth(5);
+        final Program program = evaluate(INFINITE_CHAIN, evaluator, budget);
+
+        assertEquals(EvaluationBudget.Limit.DEPTH, budget.getExceededLimit());
+        assertTrue(program.isTruncated());
+        // explored: X[0] .. X[5], frontier: X[6]
+        assertEquals(1, program.getFrontier().size());
+        assertEquals(7, checkTruncated(program).size());
+    }
+
+    private void checkUnexceeded(Evaluator evaluator) throws InterruptedException {
+        final EvaluationBudget budget = new EvaluationBudget();
+        budget.setMaxStates(1000);
+        budget.setMaxDepth(100);
+        final Program program = evaluate(FINITE, evaluator, budget);
+
+        assertFalse(budget.isExceeded());
+        assertFalse(program.isTruncated());
+        assertTrue(program.getFrontier().isEmpty());
+        assertEquals(21, StateNumerator.numerateStates(program.getExpression()).size());
+    }
+
+    private Program evaluate(String code, Evaluator evaluator, EvaluationBudget budget)
+            throws InterruptedException {
+        final Program program = new CCSParser().parse(code);
+        assertNotNull(program);
+        assertTrue(program.evaluate(evaluator, null, budget));
+        return program;
+    }
+
+    private Map<Expression, Integer> checkTruncated(Program program) {
+        final Map<Expression, Integer> states =
+            StateNumerator.numerateStates(program.getExpression());
+        int frontierStates = 0;
+        for (final Expression state: states.keySet()) {
+            assertTrue(state instanceof TruncatedExpression);
+            if (((TruncatedExpression)state).isFrontier()) {
+                ++frontierStates;
+                assertTrue(state.getTransitions().isEmpty());
+            }
+        }
+        assertEquals(program.getFrontier().size(), frontierStates);
+        return states;
+    }
+
+}
@@ -0,0 +1,77 @@
+package de.unisb.cs.depend.ccs_sem.junit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.unisb.cs.depend.ccs_sem.evaluators.Evaluator;
+import de.unisb.cs.depend.ccs_sem.evaluators.SequentialEvaluator;
+import de.unisb.cs.depend.ccs_sem.evaluators.ThreadBasedEvaluator;
+import de.unisb.cs.depend.ccs_sem.metrics.EvaluationMetrics;
+import de.unisb.cs.depend.ccs_sem.parser.CCSParser;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.ExpressionRepository;
+import de.unisb.cs.depend.ccs_sem.semantics.types.Program;
+import de.unisb.cs.depend.ccs_sem.utils.StateNumerator;
+import de.unisb.cs.depend.ccs_sem.utils.TransitionCounter;
+
+
+/**
+ * Checks that the {@link EvaluationMetrics} count what the evaluators do.
+ */
+public class EvaluationMetricsTest {
+
+    private static final String PROGRAM =
+        "X[n] := when (n < 20) a.X[n+1] + when (n > 0) b.X[n-1];\n"
+        + "Y := c.Y;\n"
+        + "(X[0] | Y | X[10]) \\ {c}";
+
+    @Before
+    public void initialize() {
+        ExpressionRepository.reset();
+        EvaluationMetrics.setEnabled(true);
+    }
+
+    @After
+    public void cleanUp() {
+        EvaluationMetrics.setEnabled(false);
+        ExpressionRepository.reset();
+    }
+
+    @Test
+    public void checkSequential() throws InterruptedException {
+        check(new SequentialEvaluator());
+    }
+
+    @Test
+    public void checkParallel() throws InterruptedException {
+        check(new ThreadBasedEvaluator(4));
+    }
+
+    private void check(Evaluator evaluator) throws InterruptedException {
+        final Program program = new CCSParser().parse(PROGRAM);
+        assertNotNull(program);
+        EvaluationMetrics.getInstance().reset();
+        assertTrue(program.evaluate(evaluator, null));
+
+        final EvaluationMetrics metrics = EvaluationMetrics.getInstance();
+        assertEquals(StateNumerator.numerateStates(program.getExpression()).size(),
+            metrics.getStates());
+        assertEquals(TransitionCounter.countTransitions(program.getExpression()),
+            metrics.getTransitions());
+        assertEquals(0, metrics.getFrontierSize());
+        assertTrue(metrics.getRepositoryHits() > 0);
+        assertTrue(metrics.getRepositoryMisses() > 0);
+        assertTrue(metrics.getInstantiations() > 0);
+        assertTrue(metrics.getOperatorTimes().length > 0);
+
+        final String json = metrics.toJSON();
+        assertTrue(json.startsWith("{") && json.endsWith("}"));
+        assertTrue(json.contains("\"states\":" + metrics.getStates()));
+        assertTrue(json.contains("\"ParallelExpression\":{"));
+    }
+
+}
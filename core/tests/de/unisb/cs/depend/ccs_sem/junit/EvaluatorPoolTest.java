@@ -0,0 +1,131 @@
+package de.unisb.cs.depend.ccs_sem.junit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.unisb.cs.depend.ccs_sem.evaluators.ParallelEvaluator;
+import de.unisb.cs.depend.ccs_sem.evaluators.ThreadBasedEvaluator;
+import de.unisb.cs.depend.ccs_sem.parser.CCSParser;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.Expression;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.ExpressionRepository;
+import de.unisb.cs.depend.ccs_sem.semantics.types.Program;
+
+
+/**
+ * Checks that evaluators without a fixed number of threads share the
+ * threads of the {@link de.unisb.cs.depend.ccs_sem.evaluators.EvaluatorPool},
+ * and that it survives failed and cancelled evaluations.
+ */
+public class EvaluatorPoolTest {
+
+    private static final String FINITE = "X[n] := when (n < 20) a.X[n+1] + b.X[0];\nX[0] | X[0]";
+
+    private static final String INFINITE = "X[n] := a.X[n+1] + b.X[n+2];\nX[0]";
+
+    @Before
+    public void initialize() {
+        ExpressionRepository.reset();
+    }
+
+    @After
+    public void cleanUp() {
+        ExpressionRepository.reset();
+    }
+
+    private static Program parse(String code) {
+        final Program program = new CCSParser().parse(code);
+        assertNotNull(program);
+        return program;
+    }
+
+    private static int countPoolThreads() {
+        final Thread[] threads = new Thread[Thread.activeCount() + 16];
+        final int count = Thread.enumerate(threads);
+        int poolThreads = 0;
+        for (int i = 0; i < count; ++i)
+            if (threads[i].getName().startsWith("evaluatorPool-"))
+                ++poolThreads;
+        return poolThreads;
+    }
+
+    @Test
+    public void threadsAreShared() throws InterruptedException {
+        assertTrue(parse(FINITE).evaluate(new ThreadBasedEvaluator(), null));
+        final int poolThreads = countPoolThreads();
+        assertTrue(poolThreads > 0);
+        for (int i = 0; i < 5; ++i) {
+            ExpressionRepository.reset();
+            assertTrue(parse(FINITE).evaluate(new ThreadBasedEvaluator(), null));
+        }
+        assertEquals(poolThreads, countPoolThreads());
+    }
+
+    @Test
+    public void singleExpressions() throws InterruptedException {
+        final Program program = parse("a.b.0 + c.0");
+        final ThreadBasedEvaluator evaluator = new ThreadBasedEvaluator();
+        final Expression expr = program.getMainExpression();
+        assertTrue(evaluator.evaluate(expr));
+        assertEquals(2, expr.getTransitions().size());
+        // all of these are evaluated inline
+        for (int i = 0; i < 2; ++i) {
+            final Expression target = expr.getTransitions().get(i).getTarget();
+            assertTrue(evaluator.evaluate(target));
+            assertTrue(target.isEvaluated());
+        }
+    }
+
+    @Test
+    public void cyclicDependencies() throws InterruptedException {
+        assertFalse(parse("X := X + a.0;\nX").evaluate(new ThreadBasedEvaluator(), null));
+        // the pool is still usable
+        ExpressionRepository.reset();
+        assertTrue(parse(FINITE).evaluate(new ThreadBasedEvaluator(), null));
+    }
+
+    @Test
+    public void cancel() throws InterruptedException {
+        final Expression expr = parse(INFINITE).getMainExpression();
+        final ParallelEvaluator evaluator = new ThreadBasedEvaluator();
+        final boolean[] result = { true };
+        final Thread evaluation = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    result[0] = evaluator.evaluateAll(expr, null);
+                } catch (final InterruptedException e) {
+                    // then the result stays true, which lets the test fail
+                }
+            }
+        };
+        evaluation.start();
+        Thread.sleep(200);
+        evaluator.cancel();
+        evaluation.join(10000);
+        assertFalse(evaluation.isAlive());
+        assertFalse(result[0]);
+
+        ExpressionRepository.reset();
+        assertTrue(parse(FINITE).evaluate(new ThreadBasedEvaluator(), null));
+    }
+
+    @Test
+    public void cancelBeforeEvaluation() throws InterruptedException {
+        final ParallelEvaluator evaluator = new ThreadBasedEvaluator();
+        evaluator.cancel();
+        final Expression expr = parse(FINITE).getMainExpression();
+        assertFalse(evaluator.evaluateAll(expr, null));
+        assertFalse(evaluator.evaluate(expr));
+        assertFalse(expr.isEvaluated());
+
+        // other evaluators are not affected
+        assertTrue(new ThreadBasedEvaluator().evaluateAll(expr, null));
+    }
+
+}
@@ -0,0 +1,137 @@
+package de.unisb.cs.depend.ccs_sem.junit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.unisb.cs.depend.ccs_sem.evaluators.SequentialEvaluator;
+import de.unisb.cs.depend.ccs_sem.exceptions.LexException;
+import de.unisb.cs.depend.ccs_sem.lexer.CCSLexer;
+import de.unisb.cs.depend.ccs_sem.parser.CCSParser;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.ExpressionRepository;
+import de.unisb.cs.depend.ccs_sem.semantics.types.ProcessVariable;
+import de.unisb.cs.depend.ccs_sem.semantics.types.Program;
+import de.unisb.cs.depend.ccs_sem.utils.StateNumerator;
+import de.unisb.cs.depend.ccs_sem.utils.TransitionCounter;
+
+
+/**
+ * Checks that a program that is parsed with a previous program only
+ * invalidates the process variables that (transitively) changed.
+ */
+public class IncrementalEvaluationTest {
+
+    private static final String OLD_PROGRAM =
+        "A := a.b.A;\n"
+        + "B := c.A + d.B;\n"
+        + "C := e.C;\n"
+        + "B | C";
+
+    private static final String NEW_PROGRAM =
+        "A := a.b.A;\n"
+        + "B := c.A + d.B;\n"
+        + "C := e.f.C;\n"
+        + "B | C";
+
+    @Before
+    public void initialize() {
+        ExpressionRepository.reset();
+    }
+
+    @After
+    public void cleanUp() {
+        ExpressionRepository.reset();
+    }
+
+    @Test
+    public void checkReuse() throws InterruptedException {
+        final Program oldProgram = parse(OLD_PROGRAM, null);
+        oldProgram.evaluate(new SequentialEvaluator());
+
+        final Program newProgram = parse(NEW_PROGRAM, oldProgram);
+        final Set<String> invalidated = newProgram.getInvalidatedProcessVariables();
+        assertNotNull(invalidated);
+        assertEquals(1, invalidated.size());
+        assertTrue(invalidated.contains("C"));
+
+        for (final ProcessVariable proc: newProgram.getProcessVariables()) {
+            final ProcessVariable oldProc = find(oldProgram, proc.getName());
+            if ("C".equals(proc.getName()))
+                assertTrue("C must not be reused", oldProc != proc);
+            else
+                assertTrue(proc.getName() + " must be reused", oldProc == proc);
+        }
+
+        // the reused process variables are already evaluated
+        assertTrue(find(newProgram, "A").getValue().isEvaluated());
+
+        newProgram.evaluate(new SequentialEvaluator());
+        final int states = StateNumerator.numerateStates(newProgram.getExpression()).size();
+        final int transitions = TransitionCounter.countTransitions(newProgram.getExpression());
+
+        // compare with a fresh evaluation
+        ExpressionRepository.reset();
+        final Program freshProgram = parse(NEW_PROGRAM, null);
+        freshProgram.evaluate(new SequentialEvaluator());
+        assertEquals(StateNumerator.numerateStates(freshProgram.getExpression()).size(), states);
+        assertEquals(TransitionCounter.countTransitions(freshProgram.getExpression()), transitions);
+    }
+
+    @Test
+    public void checkTransitiveInvalidation() {
+        final Program oldProgram = parse(OLD_PROGRAM, null);
+        final Program newProgram = parse(OLD_PROGRAM.replace("a.b.A", "a.A"), oldProgram);
+        final Set<String> invalidated = newProgram.getInvalidatedProcessVariables();
+        assertEquals(2, invalidated.size());
+        assertTrue(invalidated.contains("A"));
+        assertTrue(invalidated.contains("B"));
+        assertTrue(find(newProgram, "C") == find(oldProgram, "C"));
+    }
+
+    @Test
+    public void checkChangedInstantiation() {
+        // the type of the parameter is inferred from the instantiation
+        final String[][] changes = {
+            { "X[a] := 0;\nY := X[true];\nY", "X[a] := 0;\nY := X[1];\nY" },
+            { "X[a] := Z[a];\nZ[b] := 0;\nY := X[true];\nY", "X[a] := Z[a];\nZ[b] := 0;\nY := X[1];\nY" },
+            { "X[a] := 0;\nX[true]", "X[a] := 0;\nX[1]" },
+        };
+        for (final String[] change: changes) {
+            ExpressionRepository.reset();
+            final Program oldProgram = parse(change[0], null);
+            final Program newProgram = parse(change[1], oldProgram);
+            assertTrue(newProgram.getInvalidatedProcessVariables().contains("X"));
+            final Program freshProgram = parse(change[1], null);
+            assertEquals(freshProgram.toString(), newProgram.toString());
+        }
+    }
+
+    private static Program parse(String code, Program previous) {
+        final Program program;
+        try {
+            program = new CCSParser().parse(
+                new CCSLexer().lex(code), previous);
+        } catch (final LexException e) {
+            fail("Error lexing: " + e.getMessage());
+            return null;
+        }
+        assertNotNull("Program could not be parsed", program);
+        return program;
+    }
+
+    private static ProcessVariable find(Program program, String name) {
+        for (final ProcessVariable proc: program.getProcessVariables())
+            if (proc.getName().equals(name))
+                return proc;
+        fail("Process variable " + name + " not found");
+        return null;
+    }
+
+}
@@ -0,0 +1,255 @@
+package de.unisb.cs.depend.ccs_sem.junit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.unisb.cs.depend.ccs_sem.exceptions.LexException;
+import de.unisb.cs.depend.ccs_sem.lexer.IncrementalCCSLexer;
+import de.unisb.cs.depend.ccs_sem.lexer.LoggingCCSLexer;
+import de.unisb.cs.depend.ccs_sem.lexer.tokens.Identifier;
+import de.unisb.cs.depend.ccs_sem.lexer.tokens.categories.Token;
+import de.unisb.cs.depend.ccs_sem.parser.LoggingCCSParser;
+import de.unisb.cs.depend.ccs_sem.parser.ParsingProblem;
+import de.unisb.cs.depend.ccs_sem.parser.ParsingResult;
+import de.unisb.cs.depend.ccs_sem.parser.ParsingResult.ReadProcessVariable;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.ExpressionRepository;
+import de.unisb.cs.depend.ccs_sem.semantics.types.Program;
+
+
+/**
+ * Checks that incremental lexing and parsing yields the same result as
+ * lexing and parsing the whole text again.
+ */
+public class IncrementalParsingTest {
+
+    private static final String PROGRAM =
+        "// first line\n"
+        + "const N := 3;\n"
+        + "A[x] := when (x < N) a!x.A[x+1];\n"
+        + "B := b.B; (* comment *)\n"
+        + "C := c.A[0] + d.C;\n"
+        + "D := e.D;\n"
+        + "B | C | D";
+
+    @Before
+    public void initialize() {
+        ExpressionRepository.reset();
+    }
+
+    @After
+    public void cleanUp() {
+        ExpressionRepository.reset();
+    }
+
+    @Test
+    public void checkChangedDeclaration() throws LexException {
+        // A, C and D can be reused
+        check(PROGRAM, "B := b.B;", "B := b.f.B;", 3);
+    }
+
+    @Test
+    public void checkInsertedDeclaration() throws LexException {
+        check(PROGRAM, "D := e.D;\n", "D := e.D;\nE := g.E;\n", 4);
+    }
+
+    @Test
+    public void checkRemovedDeclaration() throws LexException {
+        check(PROGRAM, "D := e.D;\n", "", 3);
+    }
+
+    @Test
+    public void checkChangedComment() throws LexException {
+        check(PROGRAM, "(* comment *)", "(* other\ncomment *)", 4);
+    }
+
+    @Test
+    public void checkChangedConstant() throws LexException {
+        check(PROGRAM, "const N := 3;", "const N := 4;", 0);
+    }
+
+    @Test
+    public void checkChangedMainExpression() throws LexException {
+        check(PROGRAM, "B | C | D", "B | D", 4);
+    }
+
+    @Test
+    public void checkErrorInserted() throws LexException {
+        // A is instantiated by C, so only B and D can be reused
+        final ParsingResult result = check(PROGRAM, "C := c.A[0] + d.C;", "C := c.A[0] + ;", 2);
+        assertTrue(result.hasParsingErrors());
+    }
+
+    @Test
+    public void checkChangedInstantiation() throws LexException {
+        // the type of the parameter of X is inferred from the instantiation,
+        // so only Z can be reused
+        check("X[a] := 0;\nY := X[true];\nZ := z.Z;\nY | Z", "X[true]", "X[1]", 1);
+        check("X[a] := 0;\nZ := z.Z;\nX[true] | Z", "X[true]", "X[1]", 1);
+        check("X[a] := 0;\nY := a.X[true] + b.X[true];\nZ := z.Z;\nY | Z", "b.X[true]", "b.Y", 1);
+    }
+
+    @Test
+    public void checkLexingError() throws LexException {
+        // lexing the damaged region fails, and then the whole text is lexed
+        final String search = "B := b.B;";
+        final int offset = PROGRAM.indexOf(search);
+        final String newText = PROGRAM.substring(0, offset) + "Bconst K := 2;\n= b.B;"
+            + PROGRAM.substring(offset + search.length());
+        final ParsingResult oldResult = new ParsingResult();
+        assertNotNull(new LoggingCCSParser(oldResult).parse(new LoggingCCSLexer(oldResult).lex(PROGRAM)));
+
+        final ParsingResult incResult = new ParsingResult();
+        final IncrementalCCSLexer incLexer = new IncrementalCCSLexer(incResult, oldResult,
+            offset, search.length(), newText.length() - PROGRAM.length() + search.length());
+        assertNull(incLexer.lex(newText));
+        assertFalse(incLexer.isIncremental());
+
+        final ParsingResult fullResult = new ParsingResult();
+        assertNull(new LoggingCCSLexer(fullResult).lex(newText));
+        assertEquals(fullResult.parsingProblems.size(), incResult.parsingProblems.size());
+        for (int i = 0; i < fullResult.parsingProblems.size(); ++i) {
+            final ParsingProblem full = fullResult.parsingProblems.get(i);
+            final ParsingProblem inc = incResult.parsingProblems.get(i);
+            assertEquals(full.getType(), inc.getType());
+            assertEquals(full.getMessage(), inc.getMessage());
+            assertEquals(full.getStartPosition(), inc.getStartPosition());
+            assertEquals(full.getEndPosition(), inc.getEndPosition());
+        }
+        assertEquals(fullResult.parsingProblems.get(0).getMessage(),
+            incResult.parsingProblems.get(0).getMessage());
+    }
+
+    @Test
+    public void checkWarningInReusedDeclaration() throws LexException {
+        // the warning about W has to be reported again when W is reused
+        final ParsingResult result = check("W := w.W;\nB := b.B;\nW | B", "b.B", "b.f.B", 1, "w");
+        assertEquals(1, result.parsingProblems.size());
+        assertEquals(ParsingProblem.WARNING, result.parsingProblems.get(0).getType());
+    }
+
+    private static ParsingResult check(String oldText, String search, String replacement,
+            int expectedReused) throws LexException {
+        return check(oldText, search, replacement, expectedReused, null);
+    }
+
+    /**
+     * @param warnedIdentifier the name of identifiers the parser reports a
+     *                         warning for, or <code>null</code>
+     */
+    private static ParsingResult check(String oldText, String search, String replacement,
+            int expectedReused, String warnedIdentifier) throws LexException {
+        final ParsingResult oldResult = new ParsingResult();
+        final List<Token> oldTokens = new LoggingCCSLexer(oldResult).lex(oldText);
+        assertNotNull(oldTokens);
+        assertNotNull(new WarningParser(oldResult, null, warnedIdentifier).parse(oldTokens));
+
+        final int offset = oldText.indexOf(search);
+        assertTrue(offset >= 0);
+        final String newText = oldText.substring(0, offset) + replacement
+            + oldText.substring(offset + search.length());
+
+        final ParsingResult incResult = new ParsingResult();
+        final IncrementalCCSLexer incLexer = new IncrementalCCSLexer(incResult, oldResult,
+            offset, search.length(), replacement.length());
+        final List<Token> incTokens = incLexer.lex(newText);
+        assertTrue(incLexer.isIncremental());
+        final Program incProgram = new WarningParser(incResult, incLexer, warnedIdentifier).parse(incTokens);
+
+        final ParsingResult fullResult = new ParsingResult();
+        final List<Token> fullTokens = new LoggingCCSLexer(fullResult).lex(newText);
+        final Program fullProgram = new WarningParser(fullResult, null, warnedIdentifier).parse(fullTokens);
+
+        // compare the lexing results
+        assertEquals(fullTokens.size(), incTokens.size());
+        for (int i = 0; i < fullTokens.size(); ++i) {
+            final Token full = fullTokens.get(i);
+            final Token inc = incTokens.get(i);
+            assertEquals(full.getClass(), inc.getClass());
+            assertEquals(full.toString(), inc.toString());
+            assertEquals(full.getStartPosition(), inc.getStartPosition());
+            assertEquals(full.getEndPosition(), inc.getEndPosition());
+        }
+        // the tokens before parsing must be the lexed ones, even if the
+        // previous parser replaced some of them
+        assertEquals(fullResult.lexedTokens.size(), incResult.lexedTokens.size());
+        for (int i = 0; i < fullResult.lexedTokens.size(); ++i)
+            assertEquals(fullResult.lexedTokens.get(i).getClass(), incResult.lexedTokens.get(i).getClass());
+        assertEquals(fullResult.inputLength, incResult.inputLength);
+        assertEquals(fullResult.lineStarts, incResult.lineStarts);
+        assertEquals(fullResult.comments.size(), incResult.comments.size());
+        for (int i = 0; i < fullResult.comments.size(); ++i) {
+            assertEquals(fullResult.comments.get(i).startPosition, incResult.comments.get(i).startPosition);
+            assertEquals(fullResult.comments.get(i).endPosition, incResult.comments.get(i).endPosition);
+        }
+
+        // compare the parsing results
+        assertEquals(fullResult.hasParsingErrors(), incResult.hasParsingErrors());
+        assertEquals(fullResult.parsingProblems.size(), incResult.parsingProblems.size());
+        for (int i = 0; i < fullResult.parsingProblems.size(); ++i) {
+            final ParsingProblem full = fullResult.parsingProblems.get(i);
+            final ParsingProblem inc = incResult.parsingProblems.get(i);
+            assertEquals(full.getType(), inc.getType());
+            assertEquals(full.getMessage(), inc.getMessage());
+            assertEquals(full.getStartPosition(), inc.getStartPosition());
+            assertEquals(full.getEndPosition(), inc.getEndPosition());
+        }
+        assertEquals(fullProgram == null, incProgram == null);
+        if (fullProgram != null)
+            assertEquals(fullProgram.toString(), incProgram.toString());
+        assertEquals(fullResult.processVariables.size(), incResult.processVariables.size());
+        for (int i = 0; i < fullResult.processVariables.size(); ++i) {
+            assertEquals(fullResult.processVariables.get(i).toString(),
+                incResult.processVariables.get(i).toString());
+            assertEquals(fullResult.processVariables.get(i).tokenIndexStart,
+                incResult.processVariables.get(i).tokenIndexStart);
+            assertEquals(fullResult.processVariables.get(i).tokenIndexEnd,
+                incResult.processVariables.get(i).tokenIndexEnd);
+        }
+        assertEquals(fullResult.mainExpressionTokenIndexStart, incResult.mainExpressionTokenIndexStart);
+        assertEquals(fullResult.mainExpressionTokenIndexEnd, incResult.mainExpressionTokenIndexEnd);
+        assertEquals(fullResult.identifiers.size(), incResult.identifiers.size());
+        for (final Token token: incResult.identifiers.keySet())
+            assertTrue(incTokens.contains(token));
+        assertEquals(fullResult.actions.size(), incResult.actions.size());
+        assertFalse(incResult.actions.isEmpty());
+
+        int reused = 0;
+        for (final ReadProcessVariable newProc: incResult.processVariables)
+            for (final ReadProcessVariable oldProc: oldResult.processVariables)
+                if (newProc.processVariable == oldProc.processVariable)
+                    ++reused;
+        assertEquals(expectedReused, reused);
+
+        return incResult;
+    }
+
+    private static class WarningParser extends LoggingCCSParser {
+
+        private final String warnedIdentifier;
+
+        public WarningParser(ParsingResult result, IncrementalCCSLexer incrementalLexer,
+                String warnedIdentifier) {
+            super(result, incrementalLexer);
+            this.warnedIdentifier = warnedIdentifier;
+        }
+
+        @Override
+        protected void identifierParsed(Identifier identifier, Object semantic) {
+            super.identifierParsed(identifier, semantic);
+            if (identifier.getName().equals(warnedIdentifier))
+                reportProblem(new ParsingProblem(ParsingProblem.WARNING,
+                    "Identifier " + warnedIdentifier, identifier));
+        }
+
+    }
+
+}
@@ -26,7 +26,7 @@ import de.unisb.cs.depend.ccs_sem.semantics.expressions.Expression;
 import de.unisb.cs.depend.ccs_sem.semantics.expressions.ExpressionRepository;
 import de.unisb.cs.depend.ccs_sem.semantics.expressions.RecursiveExpression.RecursiveExpressionAlphabetWrapper;
 import de.unisb.cs.depend.ccs_sem.semantics.types.Parameter;
-import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterOrProcessEqualsWrapper;
+import de.unisb.cs.depend.ccs_sem.semantics.types.ParameterBinding;
 import de.unisb.cs.depend.ccs_sem.semantics.types.ProcessVariable;
 import de.unisb.cs.depend.ccs_sem.semantics.types.Program;
 import de.unisb.cs.depend.ccs_sem.semantics.types.Transition;
@@ -484,14 +484,13 @@ public abstract class IntegrationTest implements IParsingProblemListener {
         }
 
         @Override
-        public int hashCode(
-                Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
+        protected int hashCode0() {
             return System.identityHashCode(this);
         }
 
         @Override
         public boolean equals(Object obj,
-                Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
+                ParameterBinding binding) {
             return this == obj;
         }
 
@@ -543,7 +542,7 @@ public abstract class IntegrationTest implements IParsingProblemListener {
         @Override
         public boolean equals(
                 Object obj,
-                Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
+                ParameterBinding binding) {
             if (obj instanceof RebuiltAction)
                 return label.equals(((RebuiltAction)obj).label);
             return false;
@@ -565,8 +564,7 @@ public abstract class IntegrationTest implements IParsingProblemListener {
         }
 
         @Override
-        public int hashCode(
-                Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
+        public int hashCode() {
             return label.hashCode();
         }
 
@@ -609,7 +607,7 @@ public abstract class IntegrationTest implements IParsingProblemListener {
 
         public boolean equals(
                 Object obj,
-                Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
+                ParameterBinding binding) {
             if (obj instanceof RebuiltChannel)
                 return label.equals(((RebuiltChannel)obj).label);
             return false;
@@ -619,8 +617,8 @@ public abstract class IntegrationTest implements IParsingProblemListener {
             return label;
         }
 
-        public int hashCode(
-                Map<ParameterOrProcessEqualsWrapper, Integer> parameterOccurences) {
+        @Override
+        public int hashCode() {
             return label.hashCode();
         }
 
@@ -0,0 +1,104 @@
+package de.unisb.cs.depend.ccs_sem.junit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import gov.nasa.ltl.trans.LTL2Buchi;
+import gov.nasa.ltl.trans.ParseErrorException;
+import gov.nasa.ltl.trans.Translator;
+import ltlcheck.IModelCheckingMonitor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.unisb.cs.depend.ccs_sem.evaluators.SequentialEvaluator;
+import de.unisb.cs.depend.ccs_sem.parser.CCSParser;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.ExpressionRepository;
+import de.unisb.cs.depend.ccs_sem.semantics.types.Program;
+import de.unisb.cs.depend.ltlchecker.ExpressionLTLChecker;
+
+
+/**
+ * Checks that the translation via alternating automata gives the same model
+ * checking results as the tableau translation.
+ */
+public class LTL2BATranslationTest {
+
+    private static final String[] PROGRAMS = {
+        "X := a.b.X + c.d.0;\nX",
+        "X := a.X + b.Y;\nY := c.Y + d.X;\nX",
+        "X := a.X;\nY := b.Y;\nX | Y",
+        "a.b.c.0 + a.(b.0 | c.0)",
+    };
+
+    private static final String[] FORMULAS = {
+        "[]<>did(a)",
+        "<>did(c) || []<>did(b)",
+        "[](did(a) -> X did(b))",
+        "[]can(a)",
+        "<>[]did(__deadlock)",
+        "did(a) U did(c)",
+        "[](did(a) -> <>did(b)) && <>did(d)",
+        "[]<>can(b) -> []<>did(b)",
+        "did(a) W (did(b) && X did(c))",
+        "([]<>did(a) && []<>did(b)) || <>[]!did(c)",
+    };
+
+    private static final IModelCheckingMonitor SILENT = new IModelCheckingMonitor() {
+        public void subTask(String str) {
+            // ignore
+        }
+    };
+
+    private int algorithm;
+
+    @Before
+    public void initialize() {
+        ExpressionRepository.reset();
+        LTL2Buchi.clearCache();
+        algorithm = Translator.get_algorithm();
+    }
+
+    @After
+    public void cleanUp() {
+        Translator.set_algorithm(algorithm);
+        LTL2Buchi.clearCache();
+        ExpressionRepository.reset();
+    }
+
+    @Test
+    public void sameResultsAsTableau() throws InterruptedException, ParseErrorException {
+        for (final String code: PROGRAMS) {
+            final Program program = new CCSParser().parse(code);
+            assertNotNull(program);
+            assertTrue(program.evaluate(new SequentialEvaluator(), null));
+
+            for (final String formula: FORMULAS) {
+                assertTrue(Translator.set_algorithm(Translator.LTL2BUCHI));
+                final boolean expected = ExpressionLTLChecker.check(
+                    program.getMainExpression(), formula, SILENT) == null;
+                assertTrue(Translator.set_algorithm(Translator.LTL2BA));
+                final boolean actual = ExpressionLTLChecker.check(
+                    program.getMainExpression(), formula, SILENT) == null;
+                assertEquals(code + " |= " + formula, expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void validFormulas() throws InterruptedException, ParseErrorException {
+        // the automaton of the negated formula has no initial node
+        final Program program = new CCSParser().parse(PROGRAMS[0]);
+        assertNotNull(program);
+        assertTrue(program.evaluate(new SequentialEvaluator(), null));
+        for (final int alg: new int[] { Translator.LTL2BUCHI, Translator.LTL2BA }) {
+            assertTrue(Translator.set_algorithm(alg));
+            for (final String formula: new String[] { "did(a) || !did(a)", "(can(a)) W (!(can(a)))" })
+                assertNull(alg + ": " + formula, ExpressionLTLChecker.check(
+                    program.getMainExpression(), formula, SILENT));
+        }
+    }
+
+}
@@ -0,0 +1,100 @@
+package de.unisb.cs.depend.ccs_sem.junit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import gov.nasa.ltl.graph.Graph;
+import gov.nasa.ltl.trans.LTL2Buchi;
+import gov.nasa.ltl.trans.ParseErrorException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+/**
+ * Checks that the LTL to Buchi translation can be used from several threads
+ * and that cached automata are handed out as independent copies.
+ */
+public class LTL2BuchiCacheTest {
+
+    private static final String[] FORMULAS = {
+        "[]<>a",
+        "! ([](a -> <>b))",
+        "(a U b) && []<>c",
+        "! (<>[]a || X (b U c))",
+        "[](a -> X (b V c))",
+        "<>a && <>b && <>c",
+    };
+
+    @Before
+    @After
+    public void clearCache() {
+        LTL2Buchi.clearCache();
+    }
+
+    @Test
+    public void concurrentTranslation() throws Exception {
+        // the reference results, translated sequentially without cache
+        final int[][] expected = new int[FORMULAS.length][];
+        for (int i = 0; i < FORMULAS.length; ++i) {
+            expected[i] = size(LTL2Buchi.translate(FORMULAS[i]));
+            LTL2Buchi.clearCache();
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int round = 0; round < 5; ++round) {
+                LTL2Buchi.clearCache();
+                final List<Future<Graph>> futures = new ArrayList<Future<Graph>>();
+                for (int i = 0; i < 4 * FORMULAS.length; ++i) {
+                    final String formula = FORMULAS[i % FORMULAS.length];
+                    futures.add(executor.submit(new Callable<Graph>() {
+                        public Graph call() throws ParseErrorException {
+                            return LTL2Buchi.translate(formula);
+                        }
+                    }));
+                }
+                for (int i = 0; i < futures.size(); ++i) {
+                    final int[] size = size(futures.get(i).get());
+                    assertEquals(FORMULAS[i % FORMULAS.length],
+                        expected[i % FORMULAS.length][0], size[0]);
+                    assertEquals(FORMULAS[i % FORMULAS.length],
+                        expected[i % FORMULAS.length][1], size[1]);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void cachedCopies() throws ParseErrorException {
+        final Graph first = LTL2Buchi.translate("[]<>a && []<>b");
+        // a differently formatted version of the same formula hits the cache
+        final Graph second = LTL2Buchi.translate("[] <> a&&[]<>b");
+        assertTrue(first != second);
+        assertEquals(first.getNodeCount(), second.getNodeCount());
+        assertEquals(first.getEdgeCount(), second.getEdgeCount());
+        assertNotNull(second.getInit());
+        assertEquals(0, second.getInit().getId());
+
+        // modifying one copy does not affect the other
+        first.getInit().setStringAttribute("test", "modified");
+        assertNull(LTL2Buchi.translate("[]<>a && []<>b")
+            .getInit().getAttribute("test"));
+    }
+
+    private static int[] size(Graph graph) {
+        return new int[] { graph.getNodeCount(), graph.getEdgeCount() };
+    }
+
+}
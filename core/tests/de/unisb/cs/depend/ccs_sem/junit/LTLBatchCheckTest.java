@@ -0,0 +1,91 @@
+package de.unisb.cs.depend.ccs_sem.junit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import gov.nasa.ltl.trans.ParseErrorException;
+
+import java.util.Arrays;
+import java.util.List;
+
+import ltlcheck.CheckResult;
+import ltlcheck.Counterexample;
+import ltlcheck.IModelCheckingMonitor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.unisb.cs.depend.ccs_sem.evaluators.SequentialEvaluator;
+import de.unisb.cs.depend.ccs_sem.parser.CCSParser;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.ExpressionRepository;
+import de.unisb.cs.depend.ccs_sem.semantics.types.Program;
+import de.unisb.cs.depend.ltlchecker.ExpressionLTLChecker;
+
+
+/**
+ * Checks that checking several LTL formulas at once gives the same results
+ * as checking them one by one.
+ */
+public class LTLBatchCheckTest {
+
+    private static final List<String> FORMULAS = Arrays.asList(
+        "[]<>did(a)",
+        "<>did(c) || []<>did(b)",
+        "[](did(a) -> X did(b))",
+        "[]can(a)",
+        "<>[]did(__deadlock)");
+
+    private static final IModelCheckingMonitor SILENT = new IModelCheckingMonitor() {
+        public void subTask(String str) {
+            // ignore
+        }
+    };
+
+    private Program program;
+
+    @Before
+    public void initialize() throws InterruptedException {
+        ExpressionRepository.reset();
+        program = new CCSParser().parse("X := a.b.X + c.d.0;\nX");
+        assertNotNull(program);
+        assertTrue(program.evaluate(new SequentialEvaluator(), null));
+    }
+
+    @After
+    public void cleanUp() {
+        ExpressionRepository.reset();
+    }
+
+    @Test
+    public void sameResultsAsSingleChecks() throws InterruptedException, ParseErrorException {
+        final List<CheckResult> results = ExpressionLTLChecker.checkAll(
+            program.getMainExpression(), FORMULAS, SILENT);
+        assertEquals(FORMULAS.size(), results.size());
+
+        for (int i = 0; i < FORMULAS.size(); ++i) {
+            final CheckResult result = results.get(i);
+            assertEquals(FORMULAS.get(i), result.getFormula());
+            assertNull(result.getError());
+            final Counterexample single = ExpressionLTLChecker.check(
+                program.getMainExpression(), FORMULAS.get(i), SILENT);
+            assertEquals(FORMULAS.get(i), single == null, result.isSatisfied());
+            if (single != null)
+                assertNotNull(result.getCounterexample());
+        }
+    }
+
+    @Test
+    public void invalidFormula() throws InterruptedException {
+        final List<CheckResult> results = ExpressionLTLChecker.checkAll(
+            program.getMainExpression(), Arrays.asList("[]<>did(a)", "[]<>did(a) W"), SILENT);
+        assertEquals(2, results.size());
+        assertNull(results.get(0).getError());
+        assertNotNull(results.get(0).getCounterexample());
+        assertNotNull(results.get(1).getError());
+        assertFalse(results.get(1).isSatisfied());
+    }
+
+}
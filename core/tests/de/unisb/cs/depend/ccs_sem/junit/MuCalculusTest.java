@@ -0,0 +1,134 @@
+package de.unisb.cs.depend.ccs_sem.junit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.unisb.cs.depend.ccs_sem.evaluators.SequentialEvaluator;
+import de.unisb.cs.depend.ccs_sem.exceptions.ParseException;
+import de.unisb.cs.depend.ccs_sem.parser.CCSParser;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.Expression;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.ExpressionRepository;
+import de.unisb.cs.depend.ccs_sem.semantics.types.Program;
+import de.unisb.cs.depend.ccs_sem.semantics.types.Transition;
+import de.unisb.cs.depend.mucalculus.MuCalculusChecker;
+import de.unisb.cs.depend.mucalculus.MuCheckResult;
+import de.unisb.cs.depend.mucalculus.MuFormulaParser;
+
+
+public class MuCalculusTest {
+
+    private static final String SERVER =
+        "S := req.Busy;\nBusy := ack.S + fail.0;\nS";
+
+    @Before
+    public void initialize() {
+        ExpressionRepository.reset();
+    }
+
+    @After
+    public void cleanUp() {
+        ExpressionRepository.reset();
+    }
+
+    private static Expression evaluate(String code) throws InterruptedException {
+        final Program program = new CCSParser().parse(code);
+        assertNotNull(program);
+        assertTrue(program.evaluate(new SequentialEvaluator(), null));
+        return program.getMainExpression();
+    }
+
+    private static MuCheckResult check(String code, String formula, int threads)
+            throws ParseException, InterruptedException {
+        return new MuCalculusChecker(evaluate(code), threads).check(MuFormulaParser.parse(formula));
+    }
+
+    @Test
+    public void responsiveness() throws ParseException, InterruptedException {
+        assertTrue(check(SERVER, "nu X. [req]<ack>true && [-]X", 1).isSatisfied());
+        assertTrue(check(SERVER, "nu X. [req](mu Y. <ack>true || <-> Y) && [-]X", 1).isSatisfied());
+        assertFalse(check(SERVER, "nu X. [req][fail]false && [-]X", 1).isSatisfied());
+    }
+
+    @Test
+    public void reachability() throws ParseException, InterruptedException {
+        assertTrue(check(SERVER, "mu X. <fail>true || <-> X", 1).isSatisfied());
+        assertFalse(check(SERVER, "mu X. <foo>true || <-> X", 1).isSatisfied());
+        assertTrue(check("a.b.c.0", "<a><b><c>true && [a][b][-][-]false", 1).isSatisfied());
+    }
+
+    @Test
+    public void deadlockFreedom() throws ParseException, InterruptedException {
+        final MuCheckResult result = check(SERVER, "nu X. <->true && [-]X", 1);
+        assertFalse(result.isSatisfied());
+        // the counter-witness leads to the deadlock
+        final List<Transition> trace = result.getTrace();
+        assertEquals(2, trace.size());
+        assertEquals("req", trace.get(0).getAction().getLabel());
+        assertEquals("fail", trace.get(1).getAction().getLabel());
+        assertTrue(result.getState().getTransitions().isEmpty());
+
+        assertTrue(check("X := a.X + b.X;\nX", "nu X. <->true && [-]X", 1).isSatisfied());
+    }
+
+    @Test
+    public void witness() throws ParseException, InterruptedException {
+        final MuCheckResult result = check("a.(b.0 + c.d.0) + e.0", "mu X. <d>true || <-> X", 1);
+        assertTrue(result.isSatisfied());
+        final List<Transition> trace = result.getTrace();
+        assertEquals(3, trace.size());
+        assertEquals("a", trace.get(0).getAction().getLabel());
+        assertEquals("c", trace.get(1).getAction().getLabel());
+        assertEquals("d", trace.get(2).getAction().getLabel());
+    }
+
+    @Test
+    public void negation() throws ParseException, InterruptedException {
+        assertTrue(check(SERVER, "!(nu X. <->true && [-]X)", 1).isSatisfied());
+        assertTrue(check(SERVER, "[req]<fail>true -> <req>true", 1).isSatisfied());
+    }
+
+    @Test
+    public void parallelEvaluation() throws ParseException, InterruptedException {
+        final String code = "X[n] := when (n < 20) a.X[n+1] + b.X[0] + when (n == 13) c.0;\nX[0]";
+        final String[] formulas = {
+            "nu X. <->true && [-]X",
+            "(mu X. <c>true || <-> X) && (nu Y. <a>true && [a]Y) && (mu Z. <b>true || [-]Z)",
+            "nu X. [b](mu Y. <c>true || <a>Y) && [-]X",
+        };
+        for (final String formula: formulas) {
+            ExpressionRepository.reset();
+            final boolean expected = check(code, formula, 1).isSatisfied();
+            ExpressionRepository.reset();
+            assertEquals(formula, expected, check(code, formula, 4).isSatisfied());
+        }
+    }
+
+    @Test
+    public void rejectedFormulas() {
+        final String[] formulas = {
+            "nu X. mu Y. <a>X || <b>Y",
+            "mu X. !X",
+            "<a>Y",
+            "nu X. [a X",
+            "true &&",
+        };
+        for (final String formula: formulas) {
+            try {
+                MuFormulaParser.parse(formula);
+                fail(formula);
+            } catch (final ParseException e) {
+                // expected
+            }
+        }
+    }
+
+}
@@ -0,0 +1,143 @@
+package de.unisb.cs.depend.ccs_sem.junit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.unisb.cs.depend.ccs_sem.evaluators.SequentialEvaluator;
+import de.unisb.cs.depend.ccs_sem.parser.CCSParser;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.Expression;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.ExpressionRepository;
+import de.unisb.cs.depend.ccs_sem.semantics.types.Program;
+import de.unisb.cs.depend.ccs_sem.utils.Bisimulation;
+import de.unisb.cs.depend.ccs_sem.utils.OnTheFlyBisimulation;
+import de.unisb.cs.depend.ccs_sem.utils.Bisimulation.Partition;
+
+
+public class OnTheFlyBisimulationTest {
+
+    private static final String[][] PAIRS = {
+        { "a.(b.0 + c.0)", "a.b.0 + a.c.0" },
+        { "a.b.0 + a.b.0", "a.b.0" },
+        { "X := a.X;\nX", "Y := a.a.Y;\nY" },
+        { "X := a.i.X;\nX", "Y := a.Y;\nY" },
+        { "a.i.b.0", "a.b.0" },
+        { "a.(i.b.0 + c.0)", "a.(b.0 + c.0)" },
+        { "a.(i.b.0 + b.0)", "a.b.0" },
+        { "X[n] := when (n < 4) a.X[n+1] + b.X[0];\nX[0]",
+            "Y[n] := when (n < 4) a.Y[n+1] + b.Y[0];\nY[0]" },
+        { "X[n] := when (n < 4) a.X[n+1] + b.X[0];\nX[0]",
+            "Y[n] := when (n < 5) a.Y[n+1] + b.Y[0];\nY[0]" },
+        { "error", "0" },
+    };
+
+    @Before
+    public void initialize() {
+        ExpressionRepository.reset();
+    }
+
+    @After
+    public void cleanUp() {
+        ExpressionRepository.reset();
+    }
+
+    private static Expression parse(String code) {
+        final Program program = new CCSParser().parse(code);
+        assertNotNull(program);
+        return program.getMainExpression();
+    }
+
+    @Test
+    public void strong() throws InterruptedException {
+        final OnTheFlyBisimulation checker = new OnTheFlyBisimulation(new SequentialEvaluator(), false);
+        assertTrue(checker.check(parse("a.b.0 + a.b.0"), parse("a.b.0")));
+        assertNull(checker.getDistinguishingTrace());
+        assertTrue(checker.check(parse("X := a.X;\nX"), parse("Y := a.a.Y;\nY")));
+        assertFalse(checker.check(parse("a.i.b.0"), parse("a.b.0")));
+        // tau steps are compared by their label, also those of synchronizations
+        assertTrue(checker.check(parse("(a!.0 | a?.b.0) \\ {a}"), parse("i.b.0")));
+
+        assertFalse(checker.check(parse("a.(b.0 + c.0)"), parse("a.b.0 + a.c.0")));
+        final List<OnTheFlyBisimulation.Step> trace = checker.getDistinguishingTrace();
+        assertEquals(2, trace.size());
+        assertTrue(trace.get(0).isFirst());
+        assertEquals("a", trace.get(0).getTransition().getAction().getLabel());
+        // the answer is b.0, which cannot do c
+        assertEquals("c", trace.get(1).getTransition().getAction().getLabel());
+        assertTrue(trace.get(1).getAnswers().isEmpty());
+    }
+
+    @Test
+    public void weak() throws InterruptedException {
+        final OnTheFlyBisimulation checker = new OnTheFlyBisimulation(new SequentialEvaluator(), true);
+        assertTrue(checker.check(parse("a.i.b.0"), parse("a.b.0")));
+        assertTrue(checker.check(parse("X := a.i.X;\nX"), parse("Y := a.Y;\nY")));
+        assertFalse(checker.check(parse("a.(i.b.0 + c.0)"), parse("a.(b.0 + c.0)")));
+        // after a and i, the first side cannot do c any more
+        final List<OnTheFlyBisimulation.Step> trace = checker.getDistinguishingTrace();
+        assertEquals(3, trace.size());
+        assertEquals("i", trace.get(1).getTransition().getAction().getLabel());
+        assertFalse(trace.get(2).isFirst());
+        assertEquals("c", trace.get(2).getTransition().getAction().getLabel());
+    }
+
+    @Test
+    public void earlyTermination() throws InterruptedException {
+        // the difference is in the first step, the rest of the LTS is not evaluated
+        final Expression first = parse("X[n] := when (n < 100000) a.X[n+1];\nb.X[0]");
+        final Expression second = parse("Y[n] := when (n < 100000) a.Y[n+1];\nc.Y[0]");
+        final OnTheFlyBisimulation checker = new OnTheFlyBisimulation(new SequentialEvaluator(), false);
+        assertFalse(checker.check(first, second));
+        assertEquals(1, checker.getExploredPairs());
+    }
+
+    @Test
+    public void longChains() throws InterruptedException {
+        // the search must not recurse once per step
+        final String first = "X[n] := when (n < 50000) a.X[n+1] else b.0;\nX[0]";
+        for (final boolean weak: new boolean[] { false, true }) {
+            final OnTheFlyBisimulation checker = new OnTheFlyBisimulation(new SequentialEvaluator(), weak);
+            assertTrue(checker.check(parse(first),
+                parse("Y[n] := when (n < 50000) a.Y[n+1] else b.0;\nY[0]")));
+            assertFalse(checker.check(parse(first),
+                parse("Y[n] := when (n < 50000) a.Y[n+1] else c.0;\nY[0]")));
+            assertEquals(50001, checker.getDistinguishingTrace().size());
+        }
+    }
+
+    @Test
+    public void sameResultsAsPartitioning() throws InterruptedException {
+        for (final boolean strong: new boolean[] { true, false }) {
+            for (final String[] pair: PAIRS) {
+                ExpressionRepository.reset();
+                final Program first = new CCSParser().parse(pair[0]);
+                final Program second = new CCSParser().parse(pair[1]);
+                assertTrue(first.evaluate(new SequentialEvaluator(), null));
+                assertTrue(second.evaluate(new SequentialEvaluator(), null));
+                final List<Expression> expressions = new ArrayList<Expression>(2);
+                expressions.add(first.getMainExpression());
+                expressions.add(second.getMainExpression());
+                final Map<Expression, Partition> partitions =
+                    Bisimulation.computePartitions(expressions, strong);
+                final boolean expected = partitions.get(first.getMainExpression()).equals(
+                    partitions.get(second.getMainExpression()));
+
+                final boolean actual = new OnTheFlyBisimulation(new SequentialEvaluator(), !strong)
+                    .check(first.getMainExpression(), second.getMainExpression());
+                assertEquals(pair[0] + " ~ " + pair[1] + (strong ? " (strong)" : " (weak)"),
+                    expected, actual);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,106 @@
+package de.unisb.cs.depend.ccs_sem.junit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import gov.nasa.ltl.graph.Edge;
+import gov.nasa.ltl.trans.ParseErrorException;
+
+import java.util.List;
+
+import ltlcheck.Counterexample;
+import ltlcheck.IModelCheckingMonitor;
+import ltlcheck.LtlModelChecker;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.unisb.cs.depend.ccs_sem.evaluators.SequentialEvaluator;
+import de.unisb.cs.depend.ccs_sem.parser.CCSParser;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.ExpressionRepository;
+import de.unisb.cs.depend.ccs_sem.semantics.types.Program;
+import de.unisb.cs.depend.ltlchecker.ExpressionLTLChecker;
+
+
+/**
+ * Checks that the parallel accepting cycle search gives the same results
+ * as the sequential nested DFS, and that its counterexamples are lassos.
+ */
+public class ParallelCycleSearchTest {
+
+    private static final String[] PROGRAMS = {
+        "X := a.b.X + c.d.0;\nX",
+        "X := a.X + b.Y;\nY := c.Y + d.X;\nX",
+        "X[n] := when (n < 5) a.X[n+1] + r.X[0];\n"
+            + "Y[n] := when (n < 5) b.Y[n+1] + s.Y[0];\nX[0] | Y[0]",
+    };
+
+    private static final String[] FORMULAS = {
+        "[]<>did(a)",
+        "<>did(c) || []<>did(b)",
+        "[](did(a) -> X did(b))",
+        "[]<>can(a) -> []<>did(a)",
+        "[]<>can(b)",
+        "<>[]did(__deadlock)",
+    };
+
+    private static final IModelCheckingMonitor SILENT = new IModelCheckingMonitor() {
+        public void subTask(String str) {
+            // ignore
+        }
+    };
+
+    private int threads;
+
+    @Before
+    public void initialize() {
+        ExpressionRepository.reset();
+        threads = LtlModelChecker.getCycleSearchThreads();
+    }
+
+    @After
+    public void cleanUp() {
+        LtlModelChecker.setCycleSearchThreads(threads);
+        ExpressionRepository.reset();
+    }
+
+    @Test
+    public void sameResultsAsSequential() throws InterruptedException, ParseErrorException {
+        for (final String code: PROGRAMS) {
+            final Program program = new CCSParser().parse(code);
+            assertNotNull(program);
+            assertTrue(program.evaluate(new SequentialEvaluator(), null));
+
+            for (final String formula: FORMULAS) {
+                LtlModelChecker.setCycleSearchThreads(1);
+                final Counterexample expected = ExpressionLTLChecker.check(
+                    program.getMainExpression(), formula, SILENT);
+                for (final int n: new int[] { 2, 4 }) {
+                    LtlModelChecker.setCycleSearchThreads(n);
+                    final Counterexample actual = ExpressionLTLChecker.check(
+                        program.getMainExpression(), formula, SILENT);
+                    assertEquals(code + " |= " + formula, expected == null, actual == null);
+                    if (actual != null)
+                        checkLasso(actual);
+                }
+            }
+        }
+    }
+
+    // the edges of prefix and cycle are connected, and the cycle is closed
+    private static void checkLasso(Counterexample ce) {
+        final List<Edge> prefix = ce.getPrefix();
+        final List<Edge> cycle = ce.getCycle();
+        assertFalse(cycle.isEmpty());
+        for (int i = 1; i < prefix.size(); ++i)
+            assertTrue(prefix.get(i - 1).getNext() == prefix.get(i).getSource());
+        if (!prefix.isEmpty())
+            assertTrue(prefix.get(prefix.size() - 1).getNext() == cycle.get(0).getSource());
+        for (int i = 1; i < cycle.size(); ++i)
+            assertTrue(cycle.get(i - 1).getNext() == cycle.get(i).getSource());
+        assertTrue(cycle.get(cycle.size() - 1).getNext() == cycle.get(0).getSource());
+    }
+
+}
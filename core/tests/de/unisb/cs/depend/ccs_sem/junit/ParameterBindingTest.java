@@ -0,0 +1,91 @@
+package de.unisb.cs.depend.ccs_sem.junit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.unisb.cs.depend.ccs_sem.evaluators.SequentialEvaluator;
+import de.unisb.cs.depend.ccs_sem.parser.CCSParser;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.Expression;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.ExpressionRepository;
+import de.unisb.cs.depend.ccs_sem.semantics.types.Program;
+
+
+public class ParameterBindingTest {
+
+    @Before
+    public void initialize() {
+        ExpressionRepository.reset();
+    }
+
+    @After
+    public void cleanUp() {
+        ExpressionRepository.reset();
+    }
+
+    private static Expression parse(String code) {
+        final Program program = new CCSParser().parse(code);
+        assertNotNull(program);
+        return program.getMainExpression();
+    }
+
+    private static void assertAlphaEquivalent(String code1, String code2) {
+        final Expression expr1 = parse(code1);
+        final Expression expr2 = parse(code2);
+        assertEquals(expr1.hashCode(), expr2.hashCode());
+        assertTrue(expr1.equals(expr2));
+        assertTrue(expr2.equals(expr1));
+    }
+
+    private static void assertDifferent(String code1, String code2) {
+        final Expression expr1 = parse(code1);
+        final Expression expr2 = parse(code2);
+        assertFalse(expr1.equals(expr2));
+        assertFalse(expr2.equals(expr1));
+    }
+
+    @Test
+    public void inputParameters() {
+        assertAlphaEquivalent("a?x.b!x.0", "a?y.b!y.0");
+        assertAlphaEquivalent("a?x.b?y.c!(x+y).0", "a?y.b?x.c!(y+x).0");
+        assertAlphaEquivalent("a?x:0..3.b!x.0", "a?y:0..3.b!y.0");
+        assertDifferent("a?x:0..3.b!x.0", "a?x:0..4.b!x.0");
+        assertDifferent("a?x.b?y.c!(x+y).0", "a?x.b?y.c!(y+x).0");
+    }
+
+    @Test
+    public void shadowing() {
+        // the inner binder hides the outer one
+        assertDifferent("a?x.b?y.c!x.0", "a?x.b?x.c!x.0");
+        assertAlphaEquivalent("a?y.b?x.c!x.0", "a?x.b?x.c!x.0");
+    }
+
+    @Test
+    public void processParameters() {
+        assertAlphaEquivalent("X[n] := when (n < 3) a!n.X[n+1];\nX[0]",
+            "X[m] := when (m < 3) a!m.X[m+1];\nX[0]");
+        assertAlphaEquivalent("X[n] := a?x.b!(x+n).X[x];\nX[1]",
+            "X[k] := a?n.b!(n+k).X[n];\nX[1]");
+        assertDifferent("X[n] := a?x.b!x.X[x];\nX[1]",
+            "X[n] := a?x.b!n.X[x];\nX[1]");
+    }
+
+    @Test
+    public void sharedStates() throws InterruptedException {
+        final Program program = new CCSParser().parse("a.b?x.c!x.0 + d.b?y.c!y.0");
+        assertNotNull(program);
+        assertTrue(program.evaluate(new SequentialEvaluator(), null));
+        final Expression expr = program.getMainExpression();
+        assertEquals(2, expr.getTransitions().size());
+        // both alternatives lead to the same state
+        assertSame(expr.getTransitions().get(0).getTarget(),
+            expr.getTransitions().get(1).getTarget());
+    }
+
+}
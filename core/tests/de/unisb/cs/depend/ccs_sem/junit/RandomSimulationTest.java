@@ -0,0 +1,111 @@
+package de.unisb.cs.depend.ccs_sem.junit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.unisb.cs.depend.ccs_sem.parser.CCSParser;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.ExpressionRepository;
+import de.unisb.cs.depend.ccs_sem.semantics.types.Program;
+import de.unisb.cs.depend.ccs_sem.utils.RandomSimulation;
+import de.unisb.cs.depend.ccs_sem.utils.RandomSimulation.Result;
+
+
+public class RandomSimulationTest {
+
+    private static final String COUNTERS =
+        "X[n] := when (n < 10) a.X[n+1] + b.X[0];\nX[0] | X[0] | X[0]";
+
+    @Before
+    public void initialize() {
+        ExpressionRepository.reset();
+    }
+
+    @After
+    public void cleanUp() {
+        ExpressionRepository.reset();
+    }
+
+    @Test
+    public void reproducible() throws Exception {
+        final Program program = parse(COUNTERS);
+        final Result first = simulate(program, 5000, 30, 1234, 1);
+        final Result second = simulate(program, 5000, 30, 1234, 3);
+        assertEquals(first.getSteps(), second.getSteps());
+        assertEquals(first.getActionFrequencies(), second.getActionFrequencies());
+        assertEquals(first.toString(), second.toString());
+
+        final Result other = simulate(program, 5000, 30, 4321, 2);
+        assertFalse(first.getActionFrequencies().equals(other.getActionFrequencies()));
+    }
+
+    @Test
+    public void probabilities() throws Exception {
+        // error with probability 1/2, deadlock with probability 1/4 within 2 steps
+        final Program program = parse("a.ERROR + b.(c.0 + d.e.0)");
+        final Result result = simulate(program, 20000, 2, 42, 0);
+        assertEquals(20000, result.getWalks());
+        assertContains(0.5, result.getConfidenceInterval(result.getErrorWalks()));
+        assertContains(0.25, result.getConfidenceInterval(result.getDeadlockWalks()));
+        assertEquals(result.getWalks() - result.getErrorWalks(),
+            (long) result.getActionFrequencies().get("b"));
+        assertEquals(Long.valueOf(result.getDeadlockWalks()), result.getActionFrequencies().get("c"));
+        // the walks ending in "e" are cut off after 2 steps
+        assertFalse(result.getActionFrequencies().containsKey("e"));
+    }
+
+    @Test
+    public void zeroLength() throws Exception {
+        final Result result = simulate(parse(COUNTERS), 100, 0, 0, 0);
+        assertEquals(0, result.getSteps());
+        assertEquals(0, result.getErrorWalks());
+        assertEquals(0, result.getDeadlockWalks());
+        assertTrue(result.getActionFrequencies().isEmpty());
+    }
+
+    @Test
+    public void boundedCache() throws Exception {
+        final Program program = parse(COUNTERS);
+        final Result cached = simulate(program, 2000, 30, 99, 2);
+        // the states do not keep their transitions
+        assertFalse(program.getMainExpression().isEvaluated());
+        for (final int cachedStates: new int[] { 0, 1, 10 }) {
+            final Result result = simulate(program, 2000, 30, 99, 2, cachedStates);
+            assertEquals(cached.toString(), result.toString());
+            assertFalse(program.getMainExpression().isEvaluated());
+        }
+    }
+
+    private static Result simulate(Program program, long walks, int length,
+            long seed, int threads) throws InterruptedException {
+        return simulate(program, walks, length, seed, threads, new RandomSimulation().getCachedStates());
+    }
+
+    private static Result simulate(Program program, long walks, int length,
+            long seed, int threads, int cachedStates) throws InterruptedException {
+        final RandomSimulation simulation = new RandomSimulation();
+        simulation.setCachedStates(cachedStates);
+        simulation.setWalks(walks);
+        simulation.setMaxLength(length);
+        simulation.setSeed(seed);
+        simulation.setThreads(threads);
+        return simulation.run(program.getMainExpression());
+    }
+
+    private static void assertContains(double p, double[] interval) {
+        assertTrue(p + " not in [" + interval[0] + ", " + interval[1] + "]",
+            interval[0] <= p && p <= interval[1]);
+    }
+
+    private static Program parse(String code) {
+        final Program program = new CCSParser().parse(code);
+        assertNotNull(code, program);
+        return program;
+    }
+
+}
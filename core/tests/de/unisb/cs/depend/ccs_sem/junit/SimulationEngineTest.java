@@ -0,0 +1,118 @@
+package de.unisb.cs.depend.ccs_sem.junit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.unisb.cs.depend.ccs_sem.parser.CCSParser;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.Expression;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.ExpressionRepository;
+import de.unisb.cs.depend.ccs_sem.semantics.types.Program;
+import de.unisb.cs.depend.ccs_sem.semantics.types.Transition;
+import de.unisb.cs.depend.ccs_sem.utils.SimulationEngine;
+import de.unisb.cs.depend.ccs_sem.utils.SimulationEngine.Step;
+
+
+public class SimulationEngineTest {
+
+    private static final String PROGRAM =
+        "P := a.b!.c.P;\nQ := b?.d.Q;\n(P | Q | e.f.g.h.0) \\ {b}";
+
+    private SimulationEngine engine;
+
+    @Before
+    public void initialize() {
+        ExpressionRepository.reset();
+        final Program program = new CCSParser().parse(PROGRAM);
+        assertNotNull(program);
+        engine = new SimulationEngine(program.getMainExpression());
+    }
+
+    @After
+    public void cleanUp() {
+        engine.dispose();
+        ExpressionRepository.reset();
+    }
+
+    @Test
+    public void components() throws Exception {
+        assertEquals(3, engine.getComponentCount());
+        // breadth-first order of the parallel expressions
+        assertEquals("e.f.g.h.0", engine.getComponent(0).toString());
+        assertEquals("P", engine.getComponent(1).toString());
+        assertEquals("Q", engine.getComponent(2).toString());
+    }
+
+    @Test
+    public void stepsAndUndo() throws Exception {
+        final Step start = engine.getCurrentStep();
+        assertNull(engine.undo());
+
+        final Step first = engine.doAction(1, only(engine.getTransitions(1)));
+        assertEquals(1, first.getLength());
+        assertEquals("[1]", Arrays.toString(first.getChangedComponents()));
+        assertSame(engine.getComponent(2), start.getComponents().get(2));
+
+        final Step sync = engine.doSynchronousAction(1, only(engine.getTransitions(1)),
+            2, only(engine.getTransitions(2)));
+        assertEquals("[1, 2]", Arrays.toString(sync.getChangedComponents()));
+        assertEquals(Arrays.asList("a", "i (b!)"), engine.getTrace());
+        assertEquals("d.Q", engine.getComponent(2).toString());
+
+        // undo restores the previous steps exactly
+        assertSame(sync, engine.undo());
+        assertSame(first, engine.getCurrentStep());
+        assertSame(first, engine.undo());
+        assertSame(start, engine.getCurrentStep());
+        assertTrue(engine.getTrace().isEmpty());
+    }
+
+    @Test
+    public void noSynchronization() throws Exception {
+        try {
+            engine.doSynchronousAction(1, only(engine.getTransitions(1)),
+                0, only(engine.getTransitions(0)));
+            fail("a and e cannot synchronize");
+        } catch (final IllegalArgumentException e) {
+            // expected
+        }
+        assertEquals(0, engine.getCurrentStep().getLength());
+    }
+
+    @Test
+    public void prefetching() throws Exception {
+        engine.awaitPrefetch();
+        // two steps of P are evaluated in advance
+        Expression p = engine.getComponent(1);
+        for (int i = 0; i < 3; ++i) {
+            assertTrue(p.isEvaluated());
+            p = only(p.getTransitions()).getTarget();
+        }
+
+        // the initial prefetching reached g.h.0, but not h.0
+        engine.setPrefetchDepth(0);
+        for (int i = 0; i < 3; ++i)
+            engine.doAction(0, only(engine.getTransitions(0)));
+        engine.awaitPrefetch();
+        assertEquals("h.0", engine.getComponent(0).toString());
+        assertFalse(engine.getComponent(0).isEvaluated());
+        assertEquals(1, engine.getTransitions(0).size());
+    }
+
+    private static Transition only(List<Transition> transitions) {
+        assertEquals(1, transitions.size());
+        return transitions.get(0);
+    }
+
+}
@@ -0,0 +1,103 @@
+package de.unisb.cs.depend.ccs_sem.junit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.unisb.cs.depend.ccs_sem.evaluators.Evaluator;
+import de.unisb.cs.depend.ccs_sem.evaluators.SequentialEvaluator;
+import de.unisb.cs.depend.ccs_sem.evaluators.ThreadBasedEvaluator;
+import de.unisb.cs.depend.ccs_sem.parser.CCSParser;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.ExpressionRepository;
+import de.unisb.cs.depend.ccs_sem.semantics.types.Program;
+import de.unisb.cs.depend.ccs_sem.semantics.types.Transition;
+
+
+/**
+ * Checks that the deadlock and error search finds shortest traces, also in
+ * infinite LTSs.
+ */
+public class StateSearchTest {
+
+    // infinite, but X[7] deadlocks (the shortest traces have 4 steps)
+    private static final String DEADLOCK =
+        "X[n] := when (n != 7) (a.X[n+1] + b.X[n+2]);\n"
+        + "X[0]";
+
+    // infinite, with an error after "c" in the second component
+    private static final String ERROR =
+        "X[n] := a.X[n+1];\n"
+        + "Y := b.Y + c.d.ERROR;\n"
+        + "X[0] | Y";
+
+    @Before
+    public void initialize() {
+        ExpressionRepository.reset();
+    }
+
+    @After
+    public void cleanUp() {
+        ExpressionRepository.reset();
+    }
+
+    @Test
+    public void deadlockSequential() throws InterruptedException {
+        checkDeadlock(new SequentialEvaluator());
+    }
+
+    @Test
+    public void deadlockParallel() throws InterruptedException {
+        checkDeadlock(new ThreadBasedEvaluator(4));
+    }
+
+    @Test
+    public void errorSequential() throws InterruptedException {
+        checkError(new SequentialEvaluator());
+    }
+
+    @Test
+    public void errorParallel() throws InterruptedException {
+        checkError(new ThreadBasedEvaluator(4));
+    }
+
+    @Test
+    public void noDeadlock() throws InterruptedException {
+        final Program program = parse("X := a.b.X;\nX | X");
+        assertNull(program.findDeadlock(new SequentialEvaluator()));
+        assertNull(program.findError(new ThreadBasedEvaluator(4)));
+    }
+
+    private void checkDeadlock(Evaluator evaluator) throws InterruptedException {
+        final List<Transition> trace = parse(DEADLOCK).findDeadlock(evaluator);
+        assertNotNull(trace);
+        assertEquals(4, trace.size());
+        int n = 0;
+        for (final Transition trans: trace)
+            n += "a".equals(trans.getAction().getLabel()) ? 1 : 2;
+        assertEquals(7, n);
+        assertTrue(trace.get(3).getTarget().getTransitions().isEmpty());
+    }
+
+    private void checkError(Evaluator evaluator) throws InterruptedException {
+        final List<Transition> trace = parse(ERROR).findError(evaluator);
+        assertNotNull(trace);
+        assertEquals(2, trace.size());
+        assertEquals("c", trace.get(0).getAction().getLabel());
+        assertEquals("d", trace.get(1).getAction().getLabel());
+        assertTrue(trace.get(1).getTarget().isError());
+    }
+
+    private Program parse(String code) {
+        final Program program = new CCSParser().parse(code);
+        assertNotNull(program);
+        return program;
+    }
+
+}
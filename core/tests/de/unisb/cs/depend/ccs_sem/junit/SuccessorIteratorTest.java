@@ -0,0 +1,165 @@
+package de.unisb.cs.depend.ccs_sem.junit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.unisb.cs.depend.ccs_sem.evaluators.SequentialEvaluator;
+import de.unisb.cs.depend.ccs_sem.parser.CCSParser;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.Expression;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.ExpressionRepository;
+import de.unisb.cs.depend.ccs_sem.semantics.types.Program;
+import de.unisb.cs.depend.ccs_sem.semantics.types.SuccessorIterator;
+import de.unisb.cs.depend.ccs_sem.semantics.types.Transition;
+import de.unisb.cs.depend.ccs_sem.utils.StateNumerator;
+import de.unisb.cs.depend.ccs_sem.utils.StateSearch;
+import de.unisb.cs.depend.ccs_sem.utils.TransitionCounter;
+import de.unisb.cs.depend.ccs_sem.utils.VisitedSet;
+
+
+/**
+ * Explores programs with a {@link SuccessorIterator} and the different
+ * {@link VisitedSet}s, and compares the results with the evaluated
+ * transition systems.
+ */
+public class SuccessorIteratorTest {
+
+    private static final String COUNTERS =
+        "X[n] := when (n < 10) a.X[n+1] + b.X[0];\nX[0] | X[0] | X[0]";
+    private static final String BUFFER =
+        "Buf1 := in?x:0..3.mid!x.Buf1;\nBuf2 := mid?x:0..3.out!x.Buf2;\n(Buf1 | Buf2) \\ {mid}";
+    private static final String DEADLOCK =
+        "X[n] := when (n < 6) (a.X[n+1] + b.X[n+2]);\nX[0] | c.d.0";
+
+    @Before
+    public void initialize() {
+        ExpressionRepository.reset();
+    }
+
+    @After
+    public void cleanUp() {
+        ExpressionRepository.reset();
+    }
+
+    @Test
+    public void sameTransitionSystem() throws Exception {
+        for (final String code: new String[] { COUNTERS, BUFFER, DEADLOCK }) {
+            final Program evaluated = parse(code);
+            assertTrue(evaluated.evaluate(new SequentialEvaluator(), null));
+            final int states = StateNumerator.numerateStates(evaluated.getMainExpression()).size();
+            final int transitions = TransitionCounter.countTransitions(evaluated.getMainExpression());
+
+            ExpressionRepository.reset();
+            final Program program = parse(code);
+            final VisitedSet visited = new VisitedSet.Full();
+            final LinkedList<Expression> queue = new LinkedList<Expression>();
+            visited.add(program.getMainExpression());
+            queue.add(program.getMainExpression());
+            final SuccessorIterator successors = new SuccessorIterator();
+            int exploredTransitions = 0;
+            while (!queue.isEmpty()) {
+                successors.reset(queue.removeFirst());
+                while (successors.advance()) {
+                    ++exploredTransitions;
+                    assertNotNull(successors.getLabel());
+                    if (visited.add(successors.getTarget()))
+                        queue.add(successors.getTarget());
+                }
+            }
+            successors.release();
+
+            assertEquals(code, states, visited.size());
+            assertEquals(code, transitions, exploredTransitions);
+            // nothing was stored
+            assertFalse(code, program.getMainExpression().isEvaluated());
+        }
+    }
+
+    @Test
+    public void evaluatedStatesAreKept() throws Exception {
+        final Program program = parse(BUFFER);
+        assertTrue(program.evaluate(new SequentialEvaluator(), null));
+        final Expression main = program.getMainExpression();
+        final List<Transition> transitions = main.getTransitions();
+
+        final SuccessorIterator successors = program.successors(main);
+        assertEquals(transitions.size(), successors.size());
+        for (final Transition trans: transitions) {
+            assertTrue(successors.advance());
+            assertEquals(trans.getTarget(), successors.getTarget());
+        }
+        assertFalse(successors.advance());
+        successors.release();
+        assertTrue(main.isEvaluated());
+    }
+
+    @Test
+    public void searchWithVisitedSets() throws Exception {
+        final List<Transition> expected = parse(DEADLOCK).findDeadlock(new SequentialEvaluator());
+        assertNotNull(expected);
+
+        final VisitedSet[] visitedSets = {
+            new VisitedSet.Full(), new VisitedSet.HashCompacted(), new VisitedSet.None()
+        };
+        for (final VisitedSet visited: visitedSets) {
+            ExpressionRepository.reset();
+            final Program program = parse(DEADLOCK);
+            final StateSearch search = new StateSearch(StateSearch.DEADLOCK, visited);
+            final List<Transition> trace = search.search(program.getMainExpression());
+            assertNotNull(visited.toString(), trace);
+            assertEquals(visited.toString(), expected.size(), trace.size());
+            // the transitions of the found state are not stored either
+            assertFalse(search.getFoundState().isEvaluated());
+            assertEquals(0, program.successors(search.getFoundState()).size());
+        }
+    }
+
+    @Test
+    public void searchWithoutVisitedSet() throws Exception {
+        // cyclic and infinite, the shortest trace to the deadlock has 4 steps
+        final String code = "X[n] := when (n != 7) (a.X[n+1] + b.X[n+2] + c.X[0]);\nX[0]";
+        final StateSearch search = new StateSearch(StateSearch.DEADLOCK, new VisitedSet.None());
+        final Program program = parse(code);
+        final List<Transition> trace = search.search(program.getMainExpression());
+        assertNotNull(trace);
+        assertEquals(4, trace.size());
+        assertEquals(search.getFoundState(), trace.get(3).getTarget());
+        assertFalse(search.getFoundState().isEvaluated());
+        assertEquals(0, program.successors(search.getFoundState()).size());
+
+        // acyclic without a matching state
+        ExpressionRepository.reset();
+        final StateSearch errors = new StateSearch(StateSearch.ERROR, new VisitedSet.None());
+        assertNull(errors.search(parse(DEADLOCK).getMainExpression()));
+        assertNull(errors.getFoundState());
+    }
+
+    @Test
+    public void hashCompaction() throws Exception {
+        final StateSearch full = new StateSearch(StateSearch.DEADLOCK, new VisitedSet.Full());
+        assertNull(full.search(parse(COUNTERS).getMainExpression()));
+
+        ExpressionRepository.reset();
+        final VisitedSet compacted = new VisitedSet.HashCompacted();
+        final StateSearch search = new StateSearch(StateSearch.DEADLOCK, compacted);
+        assertNull(search.search(parse(COUNTERS).getMainExpression()));
+        assertEquals(full.getExploredStates(), search.getExploredStates());
+        assertEquals(11 * 11 * 11, compacted.size());
+    }
+
+    private static Program parse(String code) {
+        final Program program = new CCSParser().parse(code);
+        assertNotNull(code, program);
+        return program;
+    }
+
+}
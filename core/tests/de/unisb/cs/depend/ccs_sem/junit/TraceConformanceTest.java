@@ -0,0 +1,106 @@
+package de.unisb.cs.depend.ccs_sem.junit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.TreeSet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.unisb.cs.depend.ccs_sem.evaluators.SequentialEvaluator;
+import de.unisb.cs.depend.ccs_sem.parser.CCSParser;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.ExpressionRepository;
+import de.unisb.cs.depend.ccs_sem.semantics.types.Program;
+import de.unisb.cs.depend.ccs_sem.utils.TraceConformanceChecker;
+
+
+public class TraceConformanceTest {
+
+    // the internal choice after "open" is resolved by tau steps
+    private static final String SPEC =
+        "File := open.(i.Read + i.Write);\n"
+        + "Read := read.Read + close.File;\n"
+        + "Write := write.Write + close.File;\n"
+        + "File";
+
+    @Before
+    public void initialize() {
+        ExpressionRepository.reset();
+    }
+
+    @After
+    public void cleanUp() {
+        ExpressionRepository.reset();
+    }
+
+    private static TraceConformanceChecker checker(String code) throws InterruptedException {
+        final Program program = new CCSParser().parse(code);
+        assertNotNull(program);
+        return new TraceConformanceChecker(new SequentialEvaluator(), program.getMainExpression());
+    }
+
+    private static boolean check(TraceConformanceChecker checker, String log)
+            throws IOException, InterruptedException {
+        return checker.check(Channels.newChannel(new ByteArrayInputStream(log.getBytes("ISO-8859-1"))));
+    }
+
+    @Test
+    public void conformingLogs() throws IOException, InterruptedException {
+        final TraceConformanceChecker checker = checker(SPEC);
+        assertTrue(check(checker, ""));
+        assertTrue(check(checker, "open read read close open write close\n"));
+        assertEquals(7, checker.getEventCount());
+        assertTrue(check(checker, "# a comment: open write read\n  open\r\n\twrite  write\n"));
+        assertEquals(3, checker.getEventCount());
+        assertEquals(-1, checker.getFailedLine());
+        assertTrue(checker.check(Arrays.asList("open", "write", "close")));
+    }
+
+    @Test
+    public void firstNonConformingEvent() throws IOException, InterruptedException {
+        final TraceConformanceChecker checker = checker(SPEC);
+        assertFalse(check(checker, "open\nread\nread\nwrite\nclose\n"));
+        assertEquals(4, checker.getEventCount());
+        assertEquals(4, checker.getFailedLine());
+        assertEquals("write", checker.getFailedLabel());
+        assertEquals(new TreeSet<String>(Arrays.asList("close", "read")), checker.getExpectedLabels());
+
+        // the same log, but in one line and without a newline at the end
+        assertFalse(check(checker, "open read write"));
+        assertEquals(3, checker.getEventCount());
+        assertEquals(1, checker.getFailedLine());
+
+        assertFalse(checker.check(Arrays.asList("open", "close", "close")));
+        assertEquals(3, checker.getFailedLine());
+        assertEquals(new TreeSet<String>(Arrays.asList("open")), checker.getExpectedLabels());
+    }
+
+    @Test
+    public void valuePassing() throws IOException, InterruptedException {
+        final TraceConformanceChecker checker = checker(
+            "X[n] := when (n < 3) inc.X[n+1] + out!n.X[0];\nX[0]");
+        assertTrue(check(checker, "inc inc out!2 out!0 inc out!1"));
+        assertFalse(check(checker, "inc inc inc inc"));
+        assertEquals(4, checker.getEventCount());
+        assertEquals(new TreeSet<String>(Arrays.asList("out!3")), checker.getExpectedLabels());
+    }
+
+    @Test
+    public void longLog() throws IOException, InterruptedException {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100000; ++i)
+            sb.append(i % 2 == 0 ? "open read\nread close\n" : "open write close\n");
+        final TraceConformanceChecker checker = checker(SPEC);
+        assertTrue(check(checker, sb.toString()));
+        assertEquals(350000, checker.getEventCount());
+    }
+
+}
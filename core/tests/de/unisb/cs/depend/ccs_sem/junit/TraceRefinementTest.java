@@ -0,0 +1,94 @@
+package de.unisb.cs.depend.ccs_sem.junit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.unisb.cs.depend.ccs_sem.evaluators.SequentialEvaluator;
+import de.unisb.cs.depend.ccs_sem.parser.CCSParser;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.Expression;
+import de.unisb.cs.depend.ccs_sem.semantics.expressions.ExpressionRepository;
+import de.unisb.cs.depend.ccs_sem.semantics.types.Program;
+import de.unisb.cs.depend.ccs_sem.semantics.types.Transition;
+import de.unisb.cs.depend.ccs_sem.utils.TraceRefinementChecker;
+
+
+public class TraceRefinementTest {
+
+    private static final String SPEC =
+        "Spec := open.(i.Read + i.Write);\n"
+        + "Read := read.Read + close.Spec;\n"
+        + "Write := write.Write + close.Spec;\n"
+        + "Spec";
+
+    private TraceRefinementChecker checker;
+
+    @Before
+    public void initialize() {
+        ExpressionRepository.reset();
+        checker = new TraceRefinementChecker(new SequentialEvaluator());
+    }
+
+    @After
+    public void cleanUp() {
+        ExpressionRepository.reset();
+    }
+
+    private static Expression parse(String code) {
+        final Program program = new CCSParser().parse(code);
+        assertNotNull(program);
+        return program.getMainExpression();
+    }
+
+    private static String labels(List<Transition> trace) {
+        final StringBuilder sb = new StringBuilder();
+        for (final Transition trans: trace)
+            sb.append(trans.getAction().getLabel()).append(' ');
+        return sb.toString().trim();
+    }
+
+    @Test
+    public void refinement() throws InterruptedException {
+        final Expression spec = parse(SPEC);
+        assertNull(checker.check(parse("I := open.read.read.close.I;\nI"), spec));
+        assertNull(checker.check(parse("I := open.(read.close.I + write.close.I);\nI"), spec));
+        assertNull(checker.check(parse("0"), spec));
+        // tau steps of the implementation are ignored
+        assertNull(checker.check(parse("I := open.i.write.i.close.I;\nI"), spec));
+        assertNull(checker.check(spec, spec));
+    }
+
+    @Test
+    public void violation() throws InterruptedException {
+        final Expression spec = parse(SPEC);
+        final List<Transition> trace = checker.check(
+            parse("I := open.read.close.open.read.write.0;\nI"), spec);
+        assertNotNull(trace);
+        assertEquals("open read close open read write", labels(trace));
+        assertEquals(trace, checker.getTrace());
+        assertEquals(new TreeSet<String>(Arrays.asList("close", "read")), checker.getAllowedLabels());
+
+        // the trace is a shortest one (tau steps count as steps)
+        assertEquals("open i close close",
+            labels(checker.check(parse("I := open.(write.close.I + i.close.close.0);\nI"), spec)));
+    }
+
+    @Test
+    public void equivalence() throws InterruptedException {
+        assertNull(checker.checkEquivalence(parse("a.(b.0 + c.0)"), parse("a.b.0 + a.c.0")));
+        assertNull(checker.checkEquivalence(parse("X := a.i.X;\nX"), parse("Y := a.a.Y;\nY")));
+        assertEquals("a c", labels(checker.checkEquivalence(parse("a.(b.0 + c.0)"),
+            parse("a.b.0 + a.d.0"))));
+        // only the other direction is violated
+        assertEquals("a c", labels(checker.checkEquivalence(parse("a.b.0"), parse("a.b.0 + a.c.0"))));
+    }
+
+}
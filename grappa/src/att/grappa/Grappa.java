@@ -360,6 +360,14 @@ public abstract class Grappa implements att.grappa.GrappaConstants {
      */
     public static double edgeLabelsScaleCutoff = 0.5;
 
+    /**
+     * When the transform scale applied when drawing in a GrappaPanel is less
+     * than this value, then edges are drawn as plain lines without arrow
+     * heads.
+     *
+     */
+    public static double arrowHeadsScaleCutoff = 0.3;
+
     /**
      * When the transform scale applied when drawing in a GrappaPanel is less
      * than this value, then subgraph labels are suppressed.
@@ -50,6 +50,8 @@ public class GrappaLine implements GrappaConstants, Cloneable, Shape {
     private GeneralPath path = null;
     // fatter path for contains and intersects tests
     private GeneralPath testpath = null;
+    // the line without arrow heads, built on demand
+    private GeneralPath linepath = null;
     // arrow head info
     private int arrow = NONE_ARROW_EDGE;
     // the point set for this line (not including arrow heads)
@@ -150,6 +152,35 @@ public class GrappaLine implements GrappaConstants, Cloneable, Shape {
         return (gpts[0].distance(pt) < gpts[gpts.length - 1].distance(pt));
     }
 
+    /**
+     * Get the path of this line without its arrow heads. Drawing it is
+     * cheaper than drawing the line itself, which is used when the line is
+     * too small for the arrow heads to be seen.
+     *
+     * @return the path through the points of this line.
+     */
+    Shape getLinePath() {
+        if (linepath == null) {
+            final GrappaPoint[] grpts = gpts;
+            final GeneralPath grpath = new GeneralPath(windingRule, grpts.length);
+            int pts = 0;
+            grpath.moveTo((float) grpts[pts].x, (float) grpts[pts++].y);
+            if ((arrow & HEAD_ARROW_EDGE) != 0)
+                grpath.lineTo((float) grpts[pts].x, (float) grpts[pts++].y);
+            while (pts < grpts.length) {
+                if (pts + 3 <= grpts.length) {
+                    grpath.curveTo((float) grpts[pts].x, (float) grpts[pts++].y,
+                        (float) grpts[pts].x, (float) grpts[pts++].y,
+                        (float) grpts[pts].x, (float) grpts[pts++].y);
+                } else {
+                    grpath.lineTo((float) grpts[pts].x, (float) grpts[pts++].y);
+                }
+            }
+            linepath = grpath;
+        }
+        return (linepath);
+    }
+
     /**
      * Provides a string representation of this object consistent with Grappa
      * attributes.
@@ -473,6 +504,7 @@ public class GrappaLine implements GrappaConstants, Cloneable, Shape {
         this.gpts = grpts;
         this.path = grpath;
         this.testpath = grtestpath;
+        this.linepath = null;
         this.arrow = type;
     }
 
@@ -495,6 +527,7 @@ public class GrappaLine implements GrappaConstants, Cloneable, Shape {
         try {
             final GrappaLine copy = (GrappaLine) super.clone();
             copy.path = (GeneralPath) path.clone();
+            copy.linepath = null;
             if (gpts != null) {
                 copy.gpts = gpts.clone();
             }
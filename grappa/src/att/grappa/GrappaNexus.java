@@ -1223,6 +1223,8 @@ public class GrappaNexus implements GrappaConstants, Cloneable, ImageObserver,
                 || !newbox.equals(oldbox)) {
             // bounding box has changed so null out existing bboxes of enclosing subgraphs
             Subgraph prnt = element.getSubgraph();
+            if (prnt != null && !element.isSubgraph())
+                prnt.boundsChanged();
             while (prnt != null) {
                 if (prnt.grappaNexus != null) {
                     prnt.grappaNexus.bbox = null;
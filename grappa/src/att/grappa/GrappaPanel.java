@@ -47,6 +47,7 @@ public class GrappaPanel extends javax.swing.JPanel implements
     private final Subgraph subgraph;
     private final GrappaBacker backer;
     private boolean nodeLabels, edgeLabels, subgLabels;
+    private boolean arrowHeads;
     private AffineTransform transform = null;
     private AffineTransform oldTransform = null;
     private AffineTransform inverseTransform = null;
@@ -215,6 +216,7 @@ public class GrappaPanel extends javax.swing.JPanel implements
         subgLabels = subgraph.getShowSubgraphLabels();
         nodeLabels = subgraph.getShowNodeLabels();
         edgeLabels = subgraph.getShowEdgeLabels();
+        arrowHeads = true;
         if (Grappa.useAntiAliasing) {
             g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
                 RenderingHints.VALUE_ANTIALIAS_ON);
@@ -320,6 +322,10 @@ public class GrappaPanel extends javax.swing.JPanel implements
             subgLabels = false;
         }
 
+        if (scaleInfo < Grappa.arrowHeadsScaleCutoff) {
+            arrowHeads = false;
+        }
+
         try {
             inverseTransform = transform.createInverse();
         } catch (final NoninvertibleTransformException nite) {
@@ -651,10 +657,14 @@ public class GrappaPanel extends javax.swing.JPanel implements
                     paintSubgraph(g2d, subsubg, clipper, bkgdColor);
             }
 
-            final Enumeration<Node> enm2 = subg.nodeElements();
-            while (enm2.hasMoreElements()) {
-                final Node node = enm2.nextElement();
-                if (node == null || !node.reserve())
+            // only look at the nodes and edges that may intersect the clip
+            final SpatialIndex index = subg.getSpatialIndex();
+            final int[] inClip = index.query(clipper.getBounds2D());
+            int next = 0;
+
+            for (; next < inClip.length && inClip[next] < index.getNodeCount(); next++) {
+                final Node node = (Node) index.getElement(inClip[next]);
+                if (!node.reserve())
                     continue;
                 if ((grappaNexus = node.grappaNexus) != null && node.visible
                         && !grappaNexus.style.invis
@@ -716,10 +726,9 @@ public class GrappaPanel extends javax.swing.JPanel implements
                 node.release();
             }
 
-            final Enumeration<Edge> enm3 = subg.edgeElements();
-            while (enm3.hasMoreElements()) {
-                final Edge edge = enm3.nextElement();
-                if (edge == null || !edge.reserve())
+            for (; next < inClip.length; next++) {
+                final Edge edge = (Edge) index.getElement(inClip[next]);
+                if (!edge.reserve())
                     continue;
                 if ((grappaNexus = edge.grappaNexus) != null && edge.visible
                         && !grappaNexus.style.invis
@@ -727,33 +736,33 @@ public class GrappaPanel extends javax.swing.JPanel implements
                     grappaNexus.drawImage(g2d);
                     if ((edge.highlight & DELETION_MASK) == DELETION_MASK) {
                         g2d.setPaint(deletionStyle.line_color);
-                        grappaNexus.fill(g2d);
+                        fillEdge(g2d, grappaNexus);
                         if (GrappaStyle.defaultStroke != deletionStyle.stroke) {
                             g2d.setStroke(deletionStyle.stroke);
-                            grappaNexus.draw(g2d);
+                            drawEdge(g2d, grappaNexus);
                             g2d.setStroke(GrappaStyle.defaultStroke);
                         } else {
-                            grappaNexus.draw(g2d);
+                            drawEdge(g2d, grappaNexus);
                         }
                     } else if ((edge.highlight & SELECTION_MASK) == SELECTION_MASK) {
                         g2d.setPaint(selectionStyle.line_color);
-                        grappaNexus.fill(g2d);
+                        fillEdge(g2d, grappaNexus);
                         if (GrappaStyle.defaultStroke != selectionStyle.stroke) {
                             g2d.setStroke(selectionStyle.stroke);
-                            grappaNexus.draw(g2d);
+                            drawEdge(g2d, grappaNexus);
                             g2d.setStroke(GrappaStyle.defaultStroke);
                         } else {
-                            grappaNexus.draw(g2d);
+                            drawEdge(g2d, grappaNexus);
                         }
                     } else {
                         g2d.setPaint(grappaNexus.color);
-                        grappaNexus.fill(g2d);
+                        fillEdge(g2d, grappaNexus);
                         if (GrappaStyle.defaultStroke != grappaNexus.style.stroke) {
                             g2d.setStroke(grappaNexus.style.stroke);
-                            grappaNexus.draw(g2d);
+                            drawEdge(g2d, grappaNexus);
                             g2d.setStroke(GrappaStyle.defaultStroke);
                         } else {
-                            grappaNexus.draw(g2d);
+                            drawEdge(g2d, grappaNexus);
                         }
                     }
                     if (grappaNexus.lstr != null && edgeLabels) {
@@ -772,6 +781,20 @@ public class GrappaPanel extends javax.swing.JPanel implements
         subg.release();
     }
 
+    // fills the arrow heads of an edge, unless they are too small to be seen
+    private void fillEdge(Graphics2D g2d, GrappaNexus grappaNexus) {
+        if (arrowHeads || !(grappaNexus.shape instanceof GrappaLine))
+            grappaNexus.fill(g2d);
+    }
+
+    // draws an edge, without its arrow heads if they are too small to be seen
+    private void drawEdge(Graphics2D g2d, GrappaNexus grappaNexus) {
+        if (arrowHeads || !(grappaNexus.shape instanceof GrappaLine))
+            grappaNexus.draw(g2d);
+        else
+            g2d.draw(((GrappaLine) grappaNexus.shape).getLinePath());
+    }
+
     private Element findContainingElement(Subgraph subg, Point2D pt) {
         return (findContainingElement(subg, pt, null));
     }
@@ -802,11 +825,17 @@ public class GrappaPanel extends javax.swing.JPanel implements
 
         if (bb.contains(pt)) {
 
+            // only look at the nodes and edges whose bounds contain the point
+            final SpatialIndex index = subg.getSpatialIndex();
+            final int[] hits = index.query(pt.getX(), pt.getY(), 0, 0);
+            int firstEdge = 0;
+            while (firstEdge < hits.length && hits[firstEdge] < index.getNodeCount())
+                firstEdge++;
+
             if ((Grappa.elementSelection & EDGE) == EDGE) {
-                enm = subg.edgeElements();
                 Edge edge;
-                while (enm.hasMoreElements()) {
-                    edge = (Edge) enm.nextElement();
+                for (int i = firstEdge; i < hits.length; i++) {
+                    edge = (Edge) index.getElement(hits[i]);
                     if ((grappaNexus = edge.grappaNexus) == null
                             || !edge.selectable)
                         continue;
@@ -824,10 +853,9 @@ public class GrappaPanel extends javax.swing.JPanel implements
             }
 
             if ((Grappa.elementSelection & NODE) == NODE) {
-                enm = subg.nodeElements();
                 Node node;
-                while (enm.hasMoreElements()) {
-                    node = (Node) enm.nextElement();
+                for (int i = 0; i < firstEdge; i++) {
+                    node = (Node) index.getElement(hits[i]);
                     if ((grappaNexus = node.grappaNexus) == null
                             || !node.selectable)
                         continue;
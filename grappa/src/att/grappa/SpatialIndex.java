@@ -0,0 +1,241 @@
+package att.grappa;
+
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+import java.util.Enumeration;
+
+/**
+ * A static R-tree over the bounding boxes of the nodes and edges of one
+ * subgraph (not including those of its subgraphs). It is used by
+ * GrappaPanel to find the elements that intersect the clip when painting
+ * and the elements under the mouse pointer, without looking at every
+ * element of the subgraph.
+ *
+ * The tree is bulk-loaded with the Sort-Tile-Recursive algorithm and never
+ * changes afterwards; the subgraph builds a new one when its elements or
+ * their bounds have changed.
+ *
+ * @see Subgraph#getSpatialIndex()
+ */
+final class SpatialIndex {
+
+    // the maximal number of children of a tree node
+    private static final int CAPACITY = 16;
+
+    private static final int NODE_OR_EDGE =
+            GrappaConstants.NODE | GrappaConstants.EDGE;
+
+    private final int stamp;
+
+    // the indexed nodes, followed by the indexed edges, in enumeration order
+    private final Element[] elements;
+    private final int nodeCount;
+
+    // the boxes of the tree, level by level; level 0 are the elements (in
+    // tile order), the entry j of level k covers the entries
+    // j*CAPACITY .. (j+1)*CAPACITY-1 of level k-1
+    private final double[][] minX;
+    private final double[][] minY;
+    private final double[][] maxX;
+    private final double[][] maxY;
+    // the position (in elements) of every entry of level 0
+    private final int[] position;
+
+    /**
+     * Builds the index of the current nodes and edges of the given subgraph.
+     *
+     * @param subg
+     *            the subgraph to index.
+     * @param stamp
+     *            the change stamp of the subgraph the index reflects.
+     */
+    SpatialIndex(Subgraph subg, int stamp) {
+        this.stamp = stamp;
+
+        int count = 0;
+        final Element[] elems =
+                new Element[subg.countOfLocalElements(NODE_OR_EDGE)];
+        final Rectangle2D[] bounds = new Rectangle2D[elems.length];
+        int nodes = 0;
+        for (int type = 0; type < 2; ++type) {
+            final Enumeration<? extends Element> enm =
+                    type == 0 ? subg.nodeElements() : subg.edgeElements();
+            while (enm.hasMoreElements() && count < elems.length) {
+                final Element elem = enm.nextElement();
+                // elements without a shape are neither drawn nor selected
+                if (elem == null || elem.grappaNexus == null)
+                    continue;
+                bounds[count] = elem.grappaNexus.rawBounds2D();
+                elems[count++] = elem;
+            }
+            if (type == 0)
+                nodes = count;
+        }
+        if (count < elems.length) {
+            elements = new Element[count];
+            System.arraycopy(elems, 0, elements, 0, count);
+        } else {
+            elements = elems;
+        }
+        nodeCount = nodes;
+
+        // sort the entries into vertical slices by their center x, and every
+        // slice by the center y
+        final long[] keys = new long[count];
+        for (int i = 0; i < count; ++i)
+            keys[i] = sortKey(bounds[i].getCenterX(), i);
+        Arrays.sort(keys);
+        final int leaves = (count + CAPACITY - 1) / CAPACITY;
+        final int sliceSize =
+                CAPACITY * (int) Math.ceil(Math.sqrt(Math.max(1, leaves)));
+        for (int start = 0; start < count; start += sliceSize) {
+            final int end = Math.min(start + sliceSize, count);
+            for (int i = start; i < end; ++i) {
+                final int elem = (int) keys[i];
+                keys[i] = sortKey(bounds[elem].getCenterY(), elem);
+            }
+            Arrays.sort(keys, start, end);
+        }
+
+        int levels = 1;
+        for (int n = count; n > 1; n = (n + CAPACITY - 1) / CAPACITY)
+            ++levels;
+        minX = new double[levels][];
+        minY = new double[levels][];
+        maxX = new double[levels][];
+        maxY = new double[levels][];
+
+        position = new int[count];
+        minX[0] = new double[count];
+        minY[0] = new double[count];
+        maxX[0] = new double[count];
+        maxY[0] = new double[count];
+        for (int i = 0; i < count; ++i) {
+            final int elem = position[i] = (int) keys[i];
+            minX[0][i] = bounds[elem].getMinX();
+            minY[0][i] = bounds[elem].getMinY();
+            maxX[0][i] = bounds[elem].getMaxX();
+            maxY[0][i] = bounds[elem].getMaxY();
+        }
+
+        for (int level = 1; level < levels; ++level) {
+            final int children = minX[level - 1].length;
+            final int n = (children + CAPACITY - 1) / CAPACITY;
+            minX[level] = new double[n];
+            minY[level] = new double[n];
+            maxX[level] = new double[n];
+            maxY[level] = new double[n];
+            for (int j = 0; j < n; ++j) {
+                final int end = Math.min((j + 1) * CAPACITY, children);
+                double x1 = Double.POSITIVE_INFINITY;
+                double y1 = Double.POSITIVE_INFINITY;
+                double x2 = Double.NEGATIVE_INFINITY;
+                double y2 = Double.NEGATIVE_INFINITY;
+                for (int c = j * CAPACITY; c < end; ++c) {
+                    x1 = Math.min(x1, minX[level - 1][c]);
+                    y1 = Math.min(y1, minY[level - 1][c]);
+                    x2 = Math.max(x2, maxX[level - 1][c]);
+                    y2 = Math.max(y2, maxY[level - 1][c]);
+                }
+                minX[level][j] = x1;
+                minY[level][j] = y1;
+                maxX[level][j] = x2;
+                maxY[level][j] = y2;
+            }
+        }
+    }
+
+    // a key that sorts by the coordinate and then by the element
+    private static long sortKey(double coord, int elem) {
+        // map the coordinate to an int preserving its order
+        final int c = (int) Math.max(Integer.MIN_VALUE + 1,
+            Math.min(Integer.MAX_VALUE, Math.round(coord * 16)));
+        return ((long) c << 32) | elem;
+    }
+
+    /**
+     * Get the change stamp of the subgraph this index was built for.
+     *
+     * @return the change stamp.
+     */
+    int getStamp() {
+        return stamp;
+    }
+
+    /**
+     * Get the number of indexed nodes. The nodes are at the positions
+     * <TT>0</TT> to <TT>getNodeCount()-1</TT>, the edges follow.
+     *
+     * @return the number of indexed nodes.
+     */
+    int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Get the indexed element at the given position.
+     *
+     * @param pos
+     *            a position returned by query().
+     * @return the element at that position.
+     */
+    Element getElement(int pos) {
+        return elements[pos];
+    }
+
+    /**
+     * Finds the elements whose bounding box (at the time the index was
+     * built) intersects the given rectangle. Boxes that only touch the
+     * rectangle count as intersecting, so a point can be looked up as an
+     * empty rectangle.
+     *
+     * @return the positions of the elements, in ascending order (i.e. the
+     *         nodes first and in enumeration order).
+     */
+    int[] query(double x, double y, double width, double height) {
+        final Result result = new Result();
+        final int top = minX.length - 1;
+        for (int e = 0; e < minX[top].length; ++e)
+            query(top, e, x, y, x + width, y + height, result);
+        final int[] positions = new int[result.count];
+        System.arraycopy(result.positions, 0, positions, 0, result.count);
+        Arrays.sort(positions);
+        return positions;
+    }
+
+    int[] query(Rectangle2D rect) {
+        return query(rect.getX(), rect.getY(), rect.getWidth(), rect.getHeight());
+    }
+
+    // looks up the entry e of the given level and its subtree
+    private void query(int level, int e, double x1, double y1, double x2,
+            double y2, Result result) {
+        if (minX[level][e] > x2 || maxX[level][e] < x1
+                || minY[level][e] > y2 || maxY[level][e] < y1)
+            return;
+        if (level == 0) {
+            result.add(position[e]);
+            return;
+        }
+        final int end = Math.min((e + 1) * CAPACITY, minX[level - 1].length);
+        for (int c = e * CAPACITY; c < end; ++c)
+            query(level - 1, c, x1, y1, x2, y2, result);
+    }
+
+    private static class Result {
+
+        private int[] positions = new int[16];
+        private int count = 0;
+
+        private void add(int pos) {
+            if (count == positions.length) {
+                final int[] newPositions = new int[2 * count];
+                System.arraycopy(positions, 0, newPositions, 0, count);
+                positions = newPositions;
+            }
+            positions[count++] = pos;
+        }
+
+    }
+
+}
@@ -46,6 +46,11 @@ public class Subgraph extends Element implements Comparator<Object> {
     // for cluster subgraphs
     private boolean cluster = false;
 
+    // spatial index of the nodes and edges, and a stamp that changes
+    // whenever they or their bounds change
+    private volatile SpatialIndex spatialIndex = null;
+    private volatile int boundsStamp = 0;
+
     /**
      * Reference to the current selection (or vector of selections). Normally
      * set and used by a GrappaAdapter.
@@ -1255,6 +1260,7 @@ public class Subgraph extends Element implements Comparator<Object> {
             nodedict = new Hashtable<String, Node>();
         }
         nodedict.put(newNode.getName(), newNode);
+        boundsChanged();
     }
 
     /**
@@ -1268,6 +1274,7 @@ public class Subgraph extends Element implements Comparator<Object> {
     public Node removeNode(String nodeName) {
         if (nodedict == null)
             return (null);
+        boundsChanged();
         return ((nodedict.remove(nodeName)));
     }
 
@@ -1284,6 +1291,7 @@ public class Subgraph extends Element implements Comparator<Object> {
             edgedict = new Hashtable<String, Edge>();
         }
         edgedict.put(newEdge.getName(), newEdge);
+        boundsChanged();
     }
 
     /**
@@ -1297,6 +1305,7 @@ public class Subgraph extends Element implements Comparator<Object> {
     public Edge removeEdge(String edgeName) {
         if (edgedict == null)
             return (null);
+        boundsChanged();
         return ((edgedict.remove(edgeName)));
     }
 
@@ -2344,6 +2353,32 @@ public class Subgraph extends Element implements Comparator<Object> {
     // End PatchWork stuff
     //
 
+    /**
+     * Invalidates the spatial index of this subgraph. Called when a node or
+     * edge is added or removed, or when the bounding box of one of them
+     * changes.
+     */
+    void boundsChanged() {
+        ++boundsStamp;
+    }
+
+    /**
+     * Get the spatial index of the nodes and edges in this subgraph (not
+     * including those of its subgraphs). The index is built on demand and
+     * rebuilt after the elements or their bounds have changed.
+     *
+     * @return the current spatial index of this subgraph.
+     */
+    SpatialIndex getSpatialIndex() {
+        final int stamp = boundsStamp;
+        SpatialIndex index = spatialIndex;
+        if (index == null || index.getStamp() != stamp) {
+            index = new SpatialIndex(this, stamp);
+            spatialIndex = index;
+        }
+        return index;
+    }
+
     /**
      * Get an enumeration of the node elements in this subgraph.
      *
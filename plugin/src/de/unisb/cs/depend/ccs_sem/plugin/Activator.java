@@ -4,6 +4,7 @@ import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
 import org.osgi.framework.BundleContext;
 
+import de.unisb.cs.depend.ccs_sem.evaluators.EvaluatorPool;
 import de.unisb.cs.depend.ccs_sem.semantics.expressions.Expression;
 
 /**
@@ -44,6 +45,7 @@ public class Activator extends AbstractUIPlugin {
      */
     @Override
     public void stop(BundleContext context) throws Exception {
+        EvaluatorPool.shutdown();
         plugin = null;
         super.stop(context);
     }
@@ -37,6 +37,7 @@ public class MyPreferenceStore {
     private static final String PREFERENCE_UNGUARDED_ERROR_TYPE_KEY = "unguardedErrorType";
     
     private static final String PREFERENCE_MAX_GRAPH_SIZE = "maxGraphSize";
+    private static final String PREFERENCE_LAYOUT_WITH_DOT = "layoutWithDot";
     
     private static final String PREFERENCE_TAU_SEMANTICS = "tauSemantics";
 
@@ -51,6 +52,7 @@ public class MyPreferenceStore {
         preferenceStore.setDefault(PREFERENCE_UNREGULAR_ERROR_TYPE_KEY, ParsingProblem.WARNING);
         preferenceStore.setDefault(PREFERENCE_UNGUARDED_ERROR_TYPE_KEY, ParsingProblem.ERROR);
         preferenceStore.setDefault(PREFERENCE_MAX_GRAPH_SIZE, 300);
+        preferenceStore.setDefault(PREFERENCE_LAYOUT_WITH_DOT, false);
         preferenceStore.setDefault(PREFERENCE_TAU_SEMANTICS, false);
     }
 
@@ -90,6 +92,14 @@ public class MyPreferenceStore {
     	return getStore().getInt(getMaxGraphSizeKey());
     }
     
+    public static String getLayoutWithDotKey() {
+        return PREFERENCE_LAYOUT_WITH_DOT;
+    }
+
+    public static boolean getLayoutWithDot() {
+        return getStore().getBoolean(getLayoutWithDotKey());
+    }
+
     public static String getTauSemanticsKey() {
     	return PREFERENCE_TAU_SEMANTICS;
     }
@@ -40,6 +40,10 @@ public class CCSDocument extends Document implements IDocumentListener {
     private final Lock lock = new ReentrantLock(true);
     private ParseStatus lastResult;
 
+    // the region that changed since the last parsing result was accepted
+    private int damageOffset = Integer.MAX_VALUE;
+    private int unchangedSuffixLength = Integer.MAX_VALUE;
+
     public CCSDocument() {
         super();
         addDocumentListener(this);
@@ -53,6 +57,8 @@ public class CCSDocument extends Document implements IDocumentListener {
             if (result.getDocModCount() == getModificationStamp()) {
                 modStampOfCachedResult = result.getDocModCount();
                 lastResult = result;
+                damageOffset = Integer.MAX_VALUE;
+                unchangedSuffixLength = Integer.MAX_VALUE;
                 updated = true;
             }
         } finally {
@@ -82,6 +88,10 @@ public class CCSDocument extends Document implements IDocumentListener {
     }
 
     public synchronized void documentChanged(DocumentEvent event) {
+        final int insertedLength = event.getText() == null ? 0 : event.getText().length();
+        damageOffset = Math.min(damageOffset, event.getOffset());
+        unchangedSuffixLength = Math.min(unchangedSuffixLength,
+            getLength() - event.getOffset() - insertedLength);
         unlock(); // locked in documentAboutToBeChanged
         reparsingJob = new ParseCCSProgramJob(this);
         reparsingJob.addJobChangeListener(jobDoneListener);
@@ -136,4 +146,24 @@ public class CCSDocument extends Document implements IDocumentListener {
         return lastResult;
     }
 
+    /**
+     * Must only be called while holding the lock (see {@link #lock()}).
+     *
+     * @return the offset of the first character that changed since the
+     *         text of the last parse result (see {@link #getLastParseResult()})
+     */
+    public int getDamageOffset() {
+        return Math.min(damageOffset, getLength());
+    }
+
+    /**
+     * Must only be called while holding the lock (see {@link #lock()}).
+     *
+     * @return the number of characters at the end of the document that
+     *         did not change since the text of the last parse result
+     */
+    public int getUnchangedSuffixLength() {
+        return Math.min(unchangedSuffixLength, getLength() - getDamageOffset());
+    }
+
 }
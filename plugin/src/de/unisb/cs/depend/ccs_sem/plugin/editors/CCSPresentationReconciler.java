@@ -199,11 +199,6 @@ public class CCSPresentationReconciler implements IPresentationReconciler,
             createPresentationJob.cancel();
         createPresentationJob = new CreatePresentationJob(result);
         createPresentationJob.schedule();
-        try { // DEBUG less concurrency for debugging
-			createPresentationJob.join();
-		} catch (InterruptedException e) {
-			e.printStackTrace();
-		}
     }
 
     public static void updateMarkers(IResource res,
@@ -43,6 +43,23 @@ public class GraphHelper {
         // prohibit instantiation
     }
 
+    /**
+     * Lays out the graph, in-process by a {@link LayeredLayout}, or using
+     * the dot tool if this is configured in the preferences.
+     *
+     * @return <code>true</code> if the graph could be laid out
+     */
+    public static boolean layoutGraph(Graph graph, boolean showDialogOnError) throws InterruptedException {
+        if (MyPreferenceStore.getLayoutWithDot())
+            return filterGraph(graph, showDialogOnError);
+        new LayeredLayout().layout(graph);
+        return true;
+    }
+
+    public static boolean layoutGraph(Graph graph) throws InterruptedException {
+        return layoutGraph(graph, true);
+    }
+
     public static boolean filterGraph(Graph graph) throws InterruptedException {
         return filterGraph(graph, true);
     }
@@ -85,7 +85,7 @@ public class GrappaFrame extends Composite {
             node.setAttribute(GrappaConstants.SHAPE_ATTR, "plaintext");
             graph.addNode(node);
             try {
-                GraphHelper.filterGraph(graph);
+                GraphHelper.layoutGraph(graph);
             } catch (final InterruptedException ignore) {
                 // reset interrupted flag
                 Thread.currentThread().interrupt();
@@ -0,0 +1,1189 @@
+package de.unisb.cs.depend.ccs_sem.plugin.grappa;
+
+import java.awt.Font;
+import java.awt.font.FontRenderContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import att.grappa.Edge;
+import att.grappa.Element;
+import att.grappa.Graph;
+import att.grappa.GraphEnumeration;
+import att.grappa.GrappaBox;
+import att.grappa.GrappaConstants;
+import att.grappa.GrappaLine;
+import att.grappa.GrappaPoint;
+import att.grappa.Node;
+
+
+/**
+ * A layered ("Sugiyama style") layout for grappa graphs that runs
+ * in-process, so that a graph can be displayed without piping it through the
+ * external dot tool. The layout is done in the usual phases:
+ * <ol>
+ * <li>cycles are broken by numbering the nodes in breadth first order from
+ * the root node of the graph, and reversing the edges that lead to a node
+ * with a smaller number,</li>
+ * <li>the nodes are assigned to ranks by a longest path layering, and edges
+ * spanning several ranks are split into chains of dummy vertices; edge labels
+ * get their own dummy vertex in the middle of the edge, like in dot,</li>
+ * <li>the crossings are reduced by barycenter sweeps. Several runs starting
+ * from different initial orders are done in parallel, and the one with the
+ * fewest crossings is kept,</li>
+ * <li>the coordinates along the ranks are assigned like proposed by Brandes
+ * and K&ouml;pf: the four alignments are computed in parallel and
+ * combined.</li>
+ * </ol>
+ * All phases work on int-indexed arrays. The result is written directly into
+ * the graph, using the same attributes that dot writes (the position of
+ * nodes and edges, the label positions of edges, the size of the nodes and
+ * the bounding box of the graph).
+ *
+ * Only the "rankdir" attribute of the graph ("TB" or "LR") and the labels,
+ * fonts and shapes of the nodes and edges are taken into account.
+ */
+public class LayeredLayout {
+
+    // all distances in points; the separations are the defaults of dot
+    private static final double RANK_SEPARATION = 36;
+    private static final double NODE_SEPARATION = 18;
+    private static final double MARGIN = 8;
+    // the space around node labels (the default margin of dot)
+    private static final double LABEL_MARGIN_BREADTH = 16;
+    private static final double LABEL_MARGIN_DEPTH = 8;
+    // the distance between nested self loops
+    private static final double LOOP_SEPARATION = 12;
+    private static final double POINTS_PER_INCH = 72;
+
+    private static final FontRenderContext FONT_RENDER_CONTEXT =
+        new FontRenderContext(null, true, true);
+
+    private static final Comparator<Element> CREATION_ORDER = new Comparator<Element>() {
+        public int compare(Element e1, Element e2) {
+            return e1.getId() < e2.getId() ? -1 : e1.getId() == e2.getId() ? 0 : 1;
+        }
+    };
+
+    private int sweeps = 12;
+    private int trials = 4;
+    private int threads = 0;
+
+    public int getSweeps() {
+        return sweeps;
+    }
+
+    /**
+     * @param sweeps the maximum number of barycenter sweeps of every run of
+     *               the crossing minimization
+     */
+    public void setSweeps(int sweeps) {
+        if (sweeps < 0)
+            throw new IllegalArgumentException("sweeps must not be negative");
+        this.sweeps = sweeps;
+    }
+
+    public int getTrials() {
+        return trials;
+    }
+
+    /**
+     * @param trials the number of runs of the crossing minimization, each
+     *               starting from another initial order
+     */
+    public void setTrials(int trials) {
+        if (trials < 1)
+            throw new IllegalArgumentException("Need at least one trial");
+        this.trials = trials;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * @param threads the number of threads to use, or <code>0</code> for one
+     *                per available processor
+     */
+    public void setThreads(int threads) {
+        if (threads < 0)
+            throw new IllegalArgumentException("threads must not be negative");
+        this.threads = threads;
+    }
+
+    /**
+     * Lays out the given graph and stores the positions in it.
+     *
+     * @throws InterruptedException if the layout is interrupted
+     */
+    public void layout(Graph graph) throws InterruptedException {
+        final int processors = Runtime.getRuntime().availableProcessors();
+        final int threadCount = Math.max(1, Math.min(Math.max(trials, 4),
+            threads == 0 ? processors : threads));
+        final ExecutorService executor = Executors.newFixedThreadPool(threadCount,
+            new ThreadFactory() {
+                private int count = 0;
+                public synchronized Thread newThread(Runnable r) {
+                    final Thread thread = new Thread(r, "layeredLayout-" + count++);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        try {
+            final Layering layering = new Layering(graph);
+            layering.orderLayers(executor);
+            layering.assignCoordinates(executor);
+            layering.store();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static <T> List<T> invokeAll(ExecutorService executor,
+            List<Callable<T>> tasks) throws InterruptedException {
+        final List<Future<T>> futures = new ArrayList<Future<T>>(tasks.size());
+        try {
+            for (final Callable<T> task: tasks)
+                futures.add(executor.submit(task));
+            final List<T> results = new ArrayList<T>(tasks.size());
+            for (final Future<T> future: futures)
+                results.add(future.get());
+            return results;
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof InterruptedException)
+                throw (InterruptedException) e.getCause();
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new IllegalStateException("Error during the layout.", e.getCause());
+        } finally {
+            for (final Future<T> future: futures)
+                future.cancel(true);
+        }
+    }
+
+    /**
+     * The state of one layout. The "breadth" of a vertex is its extent along
+     * the ranks, the "depth" its extent across them (the width and height
+     * for top-down layouts, and the other way round for left-right layouts).
+     */
+    private class Layering {
+
+        private final Graph graph;
+        private final boolean leftToRight;
+        private final Map<String, Font> fonts = new HashMap<String, Font>();
+        private int minLength;
+
+        // the nodes of the graph are the first vertices
+        private final Node[] nodes;
+        private final int nodeCount;
+        private final int[] nodeShape;
+        private final double[] nodeWidth;
+        private final double[] nodeHeight;
+        private final int rootNode;
+
+        // the edges between different nodes
+        private final Edge[] edges;
+        private final int[] edgeFrom;
+        private final int[] edgeTo;
+        private final boolean[] edgeReversed;
+        private final double[] labelBreadth;
+        private final double[] labelDepth;
+        // the dummy vertices of edge e are chain[chainStart[e]..chainStart[e+1]-1]
+        private int[] chainStart;
+        private int[] chain;
+
+        // the self loops
+        private final Edge[] loops;
+        private final int[] loopNode;
+        private final double[] loopLabelBreadth;
+
+        // the vertices (nodes and dummies)
+        private int vertexCount;
+        private int[] rank;
+        private double[] leftExtent;
+        private double[] rightExtent;
+        private double[] depth;
+
+        // the segments between vertices on neighbouring ranks
+        private int[] segUpper;
+        private int[] segLower;
+        private int[] upStart;
+        private int[] upSegs;
+        private int[] downStart;
+        private int[] downSegs;
+
+        // the order of the vertices on every rank
+        private int[][] layers;
+        private int[] pos;
+
+        private double[] breadthCoord;
+        private double[] rankCoord;
+        private double[] loopReach;
+
+        public Layering(Graph graph) throws InterruptedException {
+            this.graph = graph;
+            leftToRight = "LR".equals(graph.getAttributeValue(GrappaConstants.RANKDIR_ATTR));
+
+            // the dictionaries of grappa are hash tables, restore the creation order
+            final List<Node> nodeList = new ArrayList<Node>();
+            final List<Edge> edgeList = new ArrayList<Edge>();
+            final List<Edge> loopList = new ArrayList<Edge>();
+            final GraphEnumeration enm = graph.elements(GrappaConstants.NODE | GrappaConstants.EDGE);
+            while (enm.hasMoreElements()) {
+                final Element elem = enm.nextGraphElement();
+                if (elem.isNode())
+                    nodeList.add((Node) elem);
+                else if (((Edge) elem).getHead() == ((Edge) elem).getTail())
+                    loopList.add((Edge) elem);
+                else
+                    edgeList.add((Edge) elem);
+            }
+            Collections.sort(nodeList, CREATION_ORDER);
+            Collections.sort(edgeList, CREATION_ORDER);
+            Collections.sort(loopList, CREATION_ORDER);
+
+            nodeCount = nodeList.size();
+            nodes = nodeList.toArray(new Node[nodeCount]);
+            nodeShape = new int[nodeCount];
+            nodeWidth = new double[nodeCount];
+            nodeHeight = new double[nodeCount];
+            final Map<Node, Integer> nodeNumbers = new IdentityHashMap<Node, Integer>();
+            final Object root = graph.getAttributeValue("root");
+            int rootNumber = -1;
+            for (int i = 0; i < nodeCount; ++i) {
+                nodeNumbers.put(nodes[i], i);
+                measureNode(i);
+                if (rootNumber == -1 && nodes[i].getName().equals(root))
+                    rootNumber = i;
+            }
+            rootNode = rootNumber;
+
+            edges = edgeList.toArray(new Edge[edgeList.size()]);
+            edgeFrom = new int[edges.length];
+            edgeTo = new int[edges.length];
+            edgeReversed = new boolean[edges.length];
+            labelBreadth = new double[edges.length];
+            labelDepth = new double[edges.length];
+            boolean hasLabels = false;
+            for (int e = 0; e < edges.length; ++e) {
+                edgeFrom[e] = nodeNumbers.get(edges[e].getTail());
+                edgeTo[e] = nodeNumbers.get(edges[e].getHead());
+                final double[] size = getLabelSize(edges[e]);
+                if (size != null) {
+                    labelBreadth[e] = getBreadth(size[0], size[1]);
+                    labelDepth[e] = getDepth(size[0], size[1]);
+                    hasLabels = true;
+                }
+            }
+
+            loops = loopList.toArray(new Edge[loopList.size()]);
+            loopNode = new int[loops.length];
+            loopLabelBreadth = new double[loops.length];
+            for (int l = 0; l < loops.length; ++l) {
+                loopNode[l] = nodeNumbers.get(loops[l].getHead());
+                final double[] size = getLabelSize(loops[l]);
+                if (size != null)
+                    loopLabelBreadth[l] = getBreadth(size[0], size[1]);
+            }
+
+            breakCycles();
+            // the labels get the rank between the ranks of the nodes
+            minLength = hasLabels ? 2 : 1;
+            assignRanks();
+            createVertices();
+        }
+
+        private double getBreadth(double width, double height) {
+            return leftToRight ? height : width;
+        }
+
+        private double getDepth(double width, double height) {
+            return leftToRight ? width : height;
+        }
+
+        private GrappaPoint getPoint(double breadth, double depth) {
+            return leftToRight ? new GrappaPoint(depth, breadth) : new GrappaPoint(breadth, depth);
+        }
+
+        // determines the size of the node like dot does
+        private void measureNode(int node) {
+            final Node n = nodes[node];
+            final Integer shape = (Integer) n.getAttributeValue(GrappaConstants.SHAPE_ATTR);
+            nodeShape[node] = shape == null ? GrappaConstants.OVAL_SHAPE : shape.intValue();
+            double width = 0;
+            double height = 0;
+            final double[] size = getLabelSize(n);
+            if (size != null) {
+                width = size[0] + LABEL_MARGIN_BREADTH;
+                height = size[1] + LABEL_MARGIN_DEPTH;
+                if (!isBox(nodeShape[node])) {
+                    width *= Math.sqrt(2);
+                    height *= Math.sqrt(2);
+                }
+            }
+            final Double minWidth = (Double) n.getAttributeValue(GrappaConstants.WIDTH_ATTR);
+            final Double minHeight = (Double) n.getAttributeValue(GrappaConstants.HEIGHT_ATTR);
+            if (minWidth != null)
+                width = Math.max(width, minWidth.doubleValue() * POINTS_PER_INCH);
+            if (minHeight != null)
+                height = Math.max(height, minHeight.doubleValue() * POINTS_PER_INCH);
+            nodeWidth[node] = width;
+            nodeHeight[node] = height;
+        }
+
+        private boolean isBox(int shape) {
+            return shape == GrappaConstants.BOX_SHAPE || shape == GrappaConstants.PLAINTEXT_SHAPE
+                || shape == GrappaConstants.RECORD_SHAPE || shape == GrappaConstants.MRECORD_SHAPE
+                || shape == GrappaConstants.ROUNDEDBOX_SHAPE || shape == GrappaConstants.MSQUARE_SHAPE;
+        }
+
+        // returns the width and height of the label of the element, or null
+        private double[] getLabelSize(Element elem) {
+            String label = (String) elem.getAttributeValue(GrappaConstants.LABEL_ATTR);
+            if (label == null)
+                return null;
+            if (label.equals("\\N"))
+                label = elem.getName();
+            if (label.length() == 0)
+                return null;
+
+            final Font font = getFont(elem);
+            final String[] lines = label.split("\\\\[nlr]|\n");
+            double width = 0;
+            for (final String line: lines)
+                width = Math.max(width, font.getStringBounds(line, FONT_RENDER_CONTEXT).getWidth());
+            final double height = lines.length * font.getSize2D() * 1.2;
+            return new double[] { width, height };
+        }
+
+        // the same font as the one used by GrappaNexus to draw the label
+        private Font getFont(Element elem) {
+            final String name = (String) elem.getAttributeValue(GrappaConstants.FONTNAME_ATTR);
+            final Integer style = (Integer) elem.getAttributeValue(GrappaConstants.FONTSTYLE_ATTR);
+            final Integer size = (Integer) elem.getAttributeValue(GrappaConstants.FONTSIZE_ATTR);
+            final Integer adjustment = (Integer) graph
+                .getGrappaAttributeValue(GrappaConstants.GRAPPA_FONTSIZE_ADJUSTMENT_ATTR);
+            final int fontStyle = style == null ? Font.PLAIN : style.intValue();
+            final int fontSize = (size == null ? 14 : size.intValue())
+                + (adjustment == null ? 0 : adjustment.intValue());
+            final String key = name + "/" + fontStyle + "/" + fontSize;
+            Font font = fonts.get(key);
+            if (font == null)
+                fonts.put(key, font = new Font(name, fontStyle, fontSize));
+            return font;
+        }
+
+        // numbers the nodes in breadth first order, starting at the root,
+        // and reverses the edges leading back to an earlier node
+        private void breakCycles() throws InterruptedException {
+            final int[] outStart = new int[nodeCount + 1];
+            for (final int from: edgeFrom)
+                ++outStart[from + 1];
+            for (int i = 0; i < nodeCount; ++i)
+                outStart[i + 1] += outStart[i];
+            final int[] outEdges = new int[edges.length];
+            final int[] fill = outStart.clone();
+            for (int e = 0; e < edges.length; ++e)
+                outEdges[fill[edgeFrom[e]]++] = e;
+
+            final int[] number = new int[nodeCount];
+            Arrays.fill(number, -1);
+            final int[] queue = new int[nodeCount];
+            int head = 0;
+            int tail = 0;
+            // the root node (if given) first, then all nodes in creation order
+            for (int i = rootNode == -1 ? 0 : -1; i < nodeCount; ++i) {
+                final int start = i == -1 ? rootNode : i;
+                if (number[start] != -1)
+                    continue;
+                if (Thread.interrupted())
+                    throw new InterruptedException();
+                number[start] = tail;
+                queue[tail++] = start;
+                while (head < tail) {
+                    final int node = queue[head++];
+                    for (int j = outStart[node]; j < outStart[node + 1]; ++j) {
+                        final int to = edgeTo[outEdges[j]];
+                        if (number[to] == -1) {
+                            number[to] = tail;
+                            queue[tail++] = to;
+                        }
+                    }
+                }
+            }
+            for (int e = 0; e < edges.length; ++e)
+                edgeReversed[e] = number[edgeTo[e]] < number[edgeFrom[e]];
+        }
+
+        private int getUpper(int e) {
+            return edgeReversed[e] ? edgeTo[e] : edgeFrom[e];
+        }
+
+        private int getLower(int e) {
+            return edgeReversed[e] ? edgeFrom[e] : edgeTo[e];
+        }
+
+        // longest path layering, then the sources are moved down to their successors
+        private void assignRanks() {
+            rank = new int[nodeCount];
+            final int[] inDegree = new int[nodeCount];
+            final int[] outStart = new int[nodeCount + 1];
+            for (int e = 0; e < edges.length; ++e) {
+                ++inDegree[getLower(e)];
+                ++outStart[getUpper(e) + 1];
+            }
+            for (int i = 0; i < nodeCount; ++i)
+                outStart[i + 1] += outStart[i];
+            final int[] outEdges = new int[edges.length];
+            final int[] fill = outStart.clone();
+            for (int e = 0; e < edges.length; ++e)
+                outEdges[fill[getUpper(e)]++] = e;
+
+            // topological order
+            final int[] order = new int[nodeCount];
+            final int[] remaining = inDegree.clone();
+            int head = 0;
+            int tail = 0;
+            for (int node = 0; node < nodeCount; ++node)
+                if (remaining[node] == 0)
+                    order[tail++] = node;
+            while (head < tail) {
+                final int node = order[head++];
+                for (int i = outStart[node]; i < outStart[node + 1]; ++i) {
+                    final int to = getLower(outEdges[i]);
+                    rank[to] = Math.max(rank[to], rank[node] + minLength);
+                    if (--remaining[to] == 0)
+                        order[tail++] = to;
+                }
+            }
+            assert tail == nodeCount;
+
+            for (int node = 0; node < nodeCount; ++node) {
+                if (inDegree[node] != 0 || node == rootNode || outStart[node] == outStart[node + 1])
+                    continue;
+                int minRank = Integer.MAX_VALUE;
+                for (int i = outStart[node]; i < outStart[node + 1]; ++i)
+                    minRank = Math.min(minRank, rank[getLower(outEdges[i])]);
+                rank[node] = minRank - minLength;
+            }
+        }
+
+        private void createVertices() {
+            chainStart = new int[edges.length + 1];
+            for (int e = 0; e < edges.length; ++e)
+                chainStart[e + 1] = chainStart[e] + rank[getLower(e)] - rank[getUpper(e)] - 1;
+            chain = new int[chainStart[edges.length]];
+            vertexCount = nodeCount + chain.length;
+
+            final int[] nodeRank = rank;
+            rank = Arrays.copyOf(nodeRank, vertexCount);
+            leftExtent = new double[vertexCount];
+            rightExtent = new double[vertexCount];
+            depth = new double[vertexCount];
+            for (int node = 0; node < nodeCount; ++node) {
+                leftExtent[node] = rightExtent[node] = getBreadth(nodeWidth[node], nodeHeight[node]) / 2;
+                depth[node] = getDepth(nodeWidth[node], nodeHeight[node]);
+            }
+            reserveLoops();
+
+            segUpper = new int[edges.length + chain.length];
+            segLower = new int[segUpper.length];
+            int vertex = nodeCount;
+            int seg = 0;
+            for (int e = 0; e < edges.length; ++e) {
+                int upper = getUpper(e);
+                final int labelIndex = chainStart[e] + (chainStart[e + 1] - chainStart[e] - 1) / 2;
+                for (int i = chainStart[e]; i < chainStart[e + 1]; ++i) {
+                    chain[i] = vertex;
+                    rank[vertex] = rank[upper] + 1;
+                    if (i == labelIndex && labelBreadth[e] > 0) {
+                        // the edge passes the label on its left side
+                        rightExtent[vertex] = labelBreadth[e] + 2;
+                        depth[vertex] = labelDepth[e];
+                    }
+                    segUpper[seg] = upper;
+                    segLower[seg++] = vertex;
+                    upper = vertex++;
+                }
+                segUpper[seg] = upper;
+                segLower[seg++] = getLower(e);
+            }
+
+            upStart = new int[vertexCount + 1];
+            downStart = new int[vertexCount + 1];
+            for (int s = 0; s < segUpper.length; ++s) {
+                ++downStart[segUpper[s] + 1];
+                ++upStart[segLower[s] + 1];
+            }
+            for (int v = 0; v < vertexCount; ++v) {
+                downStart[v + 1] += downStart[v];
+                upStart[v + 1] += upStart[v];
+            }
+            upSegs = new int[segUpper.length];
+            downSegs = new int[segUpper.length];
+            final int[] upFill = upStart.clone();
+            final int[] downFill = downStart.clone();
+            for (int s = 0; s < segUpper.length; ++s) {
+                downSegs[downFill[segUpper[s]]++] = s;
+                upSegs[upFill[segLower[s]]++] = s;
+            }
+        }
+
+        // self loops are drawn on the right side of their node, nested
+        // into each other, with their labels beside them
+        private void reserveLoops() {
+            loopReach = new double[loops.length];
+            for (int l = 0; l < loops.length; ++l) {
+                final int node = loopNode[l];
+                loopReach[l] = rightExtent[node] + LOOP_SEPARATION;
+                rightExtent[node] = loopReach[l] + (loopLabelBreadth[l] > 0 ? loopLabelBreadth[l] + 2 : 0);
+            }
+        }
+
+        // phase 3: crossing minimization
+
+        public void orderLayers(ExecutorService executor) throws InterruptedException {
+            int maxRank = -1;
+            for (int v = 0; v < vertexCount; ++v)
+                maxRank = Math.max(maxRank, rank[v]);
+            final int[] layerSize = new int[maxRank + 1];
+            for (int v = 0; v < vertexCount; ++v)
+                ++layerSize[rank[v]];
+
+            final List<Callable<Ordering>> tasks = new ArrayList<Callable<Ordering>>(trials);
+            for (int t = 0; t < trials; ++t) {
+                final int trial = t;
+                tasks.add(new Callable<Ordering>() {
+                    public Ordering call() throws InterruptedException {
+                        final Ordering ordering = new Ordering(layerSize, trial);
+                        ordering.minimizeCrossings();
+                        return ordering;
+                    }
+                });
+            }
+            Ordering best = null;
+            for (final Ordering ordering: invokeAll(executor, tasks))
+                if (best == null || ordering.bestCrossings < best.bestCrossings)
+                    best = ordering;
+            layers = best.best;
+            pos = new int[vertexCount];
+            for (final int[] layer: layers)
+                for (int k = 0; k < layer.length; ++k)
+                    pos[layer[k]] = k;
+        }
+
+        /**
+         * One run of the crossing minimization, with its own arrays.
+         */
+        private class Ordering {
+
+            private final int[][] order;
+            private final int[] position;
+            private int[][] best;
+            private long bestCrossings;
+            private int[] tree = new int[1];
+
+            public Ordering(int[] layerSize, int trial) {
+                order = new int[layerSize.length][];
+                for (int r = 0; r < layerSize.length; ++r)
+                    order[r] = new int[layerSize[r]];
+                position = new int[vertexCount];
+                final int[] fill = new int[layerSize.length];
+                if (trial % 2 == 0) {
+                    // depth first order, like dot's initial order
+                    final boolean[] visited = new boolean[vertexCount];
+                    final int[] stack = new int[vertexCount];
+                    final int[] vertices = new int[vertexCount];
+                    for (int v = 0; v < vertexCount; ++v)
+                        vertices[v] = v;
+                    if (trial > 0)
+                        shuffle(vertices, new Random(trial));
+                    for (final int start: vertices) {
+                        if (visited[start])
+                            continue;
+                        int top = 0;
+                        stack[0] = start;
+                        visited[start] = true;
+                        while (top >= 0) {
+                            final int v = stack[top--];
+                            order[rank[v]][fill[rank[v]]++] = v;
+                            // push in reverse order, so the first segment is visited first
+                            for (int i = downStart[v + 1] - 1; i >= downStart[v]; --i) {
+                                final int w = segLower[downSegs[i]];
+                                if (!visited[w]) {
+                                    visited[w] = true;
+                                    stack[++top] = w;
+                                }
+                            }
+                        }
+                    }
+                } else {
+                    // breadth first order
+                    final boolean[] visited = new boolean[vertexCount];
+                    final int[] queue = new int[vertexCount];
+                    int head = 0;
+                    int tail = 0;
+                    for (int start = 0; start < vertexCount; ++start) {
+                        if (visited[start])
+                            continue;
+                        visited[start] = true;
+                        queue[tail++] = start;
+                        while (head < tail) {
+                            final int v = queue[head++];
+                            order[rank[v]][fill[rank[v]]++] = v;
+                            for (int i = downStart[v]; i < downStart[v + 1]; ++i) {
+                                final int w = segLower[downSegs[i]];
+                                if (!visited[w]) {
+                                    visited[w] = true;
+                                    queue[tail++] = w;
+                                }
+                            }
+                        }
+                    }
+                    if (trial > 1)
+                        for (final int[] layer: order)
+                            shuffle(layer, new Random(trial));
+                }
+                updatePositions(order);
+            }
+
+            private void shuffle(int[] array, Random random) {
+                for (int i = array.length - 1; i > 0; --i) {
+                    final int j = random.nextInt(i + 1);
+                    final int tmp = array[i];
+                    array[i] = array[j];
+                    array[j] = tmp;
+                }
+            }
+
+            private void updatePositions(int[][] layerOrder) {
+                for (final int[] layer: layerOrder)
+                    for (int k = 0; k < layer.length; ++k)
+                        position[layer[k]] = k;
+            }
+
+            public void minimizeCrossings() throws InterruptedException {
+                best = copy(order);
+                bestCrossings = countCrossings();
+                for (int sweep = 0; sweep < sweeps && bestCrossings > 0; ++sweep) {
+                    if (Thread.interrupted())
+                        throw new InterruptedException();
+                    if (sweep % 2 == 0) {
+                        for (int r = 1; r < order.length; ++r)
+                            sortByBarycenter(r, upStart, upSegs, segUpper);
+                    } else {
+                        for (int r = order.length - 2; r >= 0; --r)
+                            sortByBarycenter(r, downStart, downSegs, segLower);
+                    }
+                    final long crossings = countCrossings();
+                    if (crossings < bestCrossings) {
+                        bestCrossings = crossings;
+                        best = copy(order);
+                    }
+                }
+            }
+
+            private int[][] copy(int[][] layerOrder) {
+                final int[][] copy = new int[layerOrder.length][];
+                for (int r = 0; r < layerOrder.length; ++r)
+                    copy[r] = layerOrder[r].clone();
+                return copy;
+            }
+
+            // sorts the rank by the barycenters of the neighbours on the
+            // fixed neighbouring rank; vertices without neighbours keep their
+            // position
+            private void sortByBarycenter(int r, int[] start, int[] segs, int[] other) {
+                final int[] layer = order[r];
+                final long[] keys = new long[layer.length];
+                for (int k = 0; k < layer.length; ++k) {
+                    final int v = layer[k];
+                    double barycenter = k;
+                    if (start[v + 1] > start[v]) {
+                        long sum = 0;
+                        for (int i = start[v]; i < start[v + 1]; ++i)
+                            sum += position[other[segs[i]]];
+                        barycenter = (double) sum / (start[v + 1] - start[v]);
+                    }
+                    // fixed point barycenter, the old position breaks ties
+                    keys[k] = Math.round(barycenter * 1024) << 32 | k;
+                }
+                Arrays.sort(keys);
+                final int[] sorted = new int[layer.length];
+                for (int k = 0; k < layer.length; ++k)
+                    sorted[k] = layer[(int) keys[k]];
+                System.arraycopy(sorted, 0, layer, 0, layer.length);
+                for (int k = 0; k < layer.length; ++k)
+                    position[layer[k]] = k;
+            }
+
+            // counts the crossings between all neighbouring ranks with an
+            // accumulator tree (Barth, Juenger and Mutzel)
+            private long countCrossings() {
+                long crossings = 0;
+                int[] heads = new int[4];
+                for (int r = 0; r + 1 < order.length; ++r) {
+                    int firstIndex = 1;
+                    while (firstIndex < order[r + 1].length)
+                        firstIndex <<= 1;
+                    final int treeSize = 2 * firstIndex - 1;
+                    --firstIndex;
+                    if (tree.length < treeSize)
+                        tree = new int[treeSize];
+                    else
+                        Arrays.fill(tree, 0, treeSize, 0);
+
+                    for (final int v: order[r]) {
+                        final int degree = downStart[v + 1] - downStart[v];
+                        if (heads.length < degree)
+                            heads = new int[degree];
+                        for (int i = 0; i < degree; ++i)
+                            heads[i] = position[segLower[downSegs[downStart[v] + i]]];
+                        Arrays.sort(heads, 0, degree);
+                        for (int i = 0; i < degree; ++i) {
+                            int index = heads[i] + firstIndex;
+                            ++tree[index];
+                            while (index > 0) {
+                                if (index % 2 == 1)
+                                    crossings += tree[index + 1];
+                                index = (index - 1) / 2;
+                                ++tree[index];
+                            }
+                        }
+                    }
+                }
+                return crossings;
+            }
+
+        }
+
+        // phase 4: coordinate assignment
+
+        public void assignCoordinates(ExecutorService executor) throws InterruptedException {
+            final boolean[] marked = markTypeOneConflicts();
+
+            final List<Callable<double[]>> tasks = new ArrayList<Callable<double[]>>(4);
+            for (int variant = 0; variant < 4; ++variant) {
+                final boolean down = (variant & 1) != 0;
+                final boolean right = (variant & 2) != 0;
+                tasks.add(new Callable<double[]>() {
+                    public double[] call() throws InterruptedException {
+                        return alignAndCompact(marked, down, right);
+                    }
+                });
+            }
+            final List<double[]> xs = invokeAll(executor, tasks);
+
+            // align all layouts to the narrowest one and take the average median
+            final double[] min = new double[4];
+            final double[] max = new double[4];
+            int narrowest = 0;
+            for (int variant = 0; variant < 4; ++variant) {
+                min[variant] = Double.POSITIVE_INFINITY;
+                max[variant] = Double.NEGATIVE_INFINITY;
+                for (final double x: xs.get(variant)) {
+                    min[variant] = Math.min(min[variant], x);
+                    max[variant] = Math.max(max[variant], x);
+                }
+                if (max[variant] - min[variant] < max[narrowest] - min[narrowest])
+                    narrowest = variant;
+            }
+            breadthCoord = new double[vertexCount];
+            final double[] values = new double[4];
+            for (int v = 0; v < vertexCount; ++v) {
+                for (int variant = 0; variant < 4; ++variant) {
+                    final boolean right = (variant & 2) != 0;
+                    values[variant] = xs.get(variant)[v] + (right
+                        ? max[narrowest] - max[variant] : min[narrowest] - min[variant]);
+                }
+                Arrays.sort(values);
+                breadthCoord[v] = (values[1] + values[2]) / 2;
+            }
+            // the average median may violate the separation in rare cases
+            for (final int[] layer: layers)
+                for (int k = 1; k < layer.length; ++k)
+                    breadthCoord[layer[k]] = Math.max(breadthCoord[layer[k]],
+                        breadthCoord[layer[k - 1]] + getSeparation(layer[k - 1], layer[k], false));
+
+            // the coordinates of the ranks
+            rankCoord = new double[layers.length];
+            // with edge labels, every edge spans (at least) two ranks
+            final double separation = RANK_SEPARATION / minLength;
+            double last = 0;
+            double lastDepth = 0;
+            for (int r = 0; r < layers.length; ++r) {
+                double rankDepth = 0;
+                for (final int v: layers[r])
+                    rankDepth = Math.max(rankDepth, depth[v]);
+                rankCoord[r] = r == 0 ? rankDepth / 2
+                    : last + lastDepth / 2 + separation + rankDepth / 2;
+                last = rankCoord[r];
+                lastDepth = rankDepth;
+            }
+        }
+
+        private double getSeparation(int left, int right, boolean mirrored) {
+            return (mirrored ? leftExtent[left] : rightExtent[left])
+                + (mirrored ? rightExtent[right] : leftExtent[right]) + NODE_SEPARATION;
+        }
+
+        private boolean isInner(int seg) {
+            return segUpper[seg] >= nodeCount && segLower[seg] >= nodeCount;
+        }
+
+        // marks the segments that cross an inner segment (between two dummy
+        // vertices), so that the long edges are drawn straight
+        private boolean[] markTypeOneConflicts() {
+            final boolean[] marked = new boolean[segUpper.length];
+            for (int r = 0; r + 1 < layers.length; ++r) {
+                final int[] upper = layers[r];
+                final int[] lower = layers[r + 1];
+                int k0 = 0;
+                int l = 0;
+                for (int l1 = 0; l1 < lower.length; ++l1) {
+                    final int v = lower[l1];
+                    final int inner = v >= nodeCount && isInner(upSegs[upStart[v]])
+                        ? upSegs[upStart[v]] : -1;
+                    if (l1 == lower.length - 1 || inner != -1) {
+                        final int k1 = inner != -1 ? pos[segUpper[inner]] : upper.length - 1;
+                        for (; l <= l1; ++l) {
+                            final int w = lower[l];
+                            for (int i = upStart[w]; i < upStart[w + 1]; ++i) {
+                                final int seg = upSegs[i];
+                                final int k = pos[segUpper[seg]];
+                                if ((k < k0 || k > k1) && !isInner(seg))
+                                    marked[seg] = true;
+                            }
+                        }
+                        k0 = k1;
+                    }
+                }
+            }
+            return marked;
+        }
+
+        // one of the four layouts of Brandes and Koepf: the vertices are
+        // aligned with their median neighbours above (or below), preferring
+        // the left (or right) one, and the resulting blocks are placed as
+        // far left (or right) as possible
+        private double[] alignAndCompact(boolean[] marked, boolean down, boolean right)
+                throws InterruptedException {
+            final int[] hpos = new int[vertexCount];
+            for (final int[] layer: layers)
+                for (int k = 0; k < layer.length; ++k)
+                    hpos[layer[k]] = right ? layer.length - 1 - k : k;
+            final int[] start = down ? downStart : upStart;
+            final int[] segs = down ? downSegs : upSegs;
+            final int[] other = down ? segLower : segUpper;
+
+            final int[] root = new int[vertexCount];
+            final int[] align = new int[vertexCount];
+            for (int v = 0; v < vertexCount; ++v)
+                root[v] = align[v] = v;
+            int[] neighbours = new int[4];
+            for (int i = 1; i < layers.length; ++i) {
+                if (Thread.interrupted())
+                    throw new InterruptedException();
+                final int[] layer = layers[down ? layers.length - 1 - i : i];
+                int r = -1;
+                for (int j = 0; j < layer.length; ++j) {
+                    final int v = layer[right ? layer.length - 1 - j : j];
+                    final int d = start[v + 1] - start[v];
+                    if (d == 0)
+                        continue;
+                    if (neighbours.length < d)
+                        neighbours = new int[d];
+                    // the segments, sorted by the position of the neighbour
+                    for (int n = 0; n < d; ++n) {
+                        final int seg = segs[start[v] + n];
+                        int m = n;
+                        for (; m > 0 && hpos[other[neighbours[m - 1]]] > hpos[other[seg]]; --m)
+                            neighbours[m] = neighbours[m - 1];
+                        neighbours[m] = seg;
+                    }
+                    for (int m = (d - 1) / 2; m <= d / 2; ++m) {
+                        if (align[v] != v)
+                            break;
+                        final int seg = neighbours[m];
+                        final int u = other[seg];
+                        if (!marked[seg] && r < hpos[u]) {
+                            align[u] = v;
+                            root[v] = root[u];
+                            align[v] = root[v];
+                            r = hpos[u];
+                        }
+                    }
+                }
+            }
+
+            // horizontal compaction: every block is placed as far left as
+            // its left neighbours allow; blocks that are not pushed by each
+            // other form classes (identified by their sink), which are
+            // shifted towards each other afterwards
+            final int[] leftNeighbour = new int[vertexCount];
+            for (final int[] layer: layers)
+                for (int k = 0; k < layer.length; ++k)
+                    leftNeighbour[right ? layer[layer.length - 1 - k] : layer[k]] =
+                        k == 0 ? -1 : leftOf(layer, k, right);
+            final int[] sink = new int[vertexCount];
+            final double[] shift = new double[vertexCount];
+            final double[] x = new double[vertexCount];
+            final boolean[] placed = new boolean[vertexCount];
+            for (int v = 0; v < vertexCount; ++v)
+                sink[v] = v;
+            Arrays.fill(shift, Double.POSITIVE_INFINITY);
+            // place_block of Brandes and Koepf without recursion: the stack
+            // holds the blocks being placed and their current vertex
+            final int[] stackBlock = new int[vertexCount];
+            final int[] stackVertex = new int[vertexCount];
+            for (int block = 0; block < vertexCount; ++block) {
+                if (root[block] != block || placed[block])
+                    continue;
+                if (Thread.interrupted())
+                    throw new InterruptedException();
+                int top = 0;
+                stackBlock[0] = block;
+                stackVertex[0] = block;
+                placed[block] = true;
+                while (top >= 0) {
+                    final int v = stackBlock[top];
+                    final int w = stackVertex[top];
+                    final int left = leftNeighbour[w];
+                    if (left != -1) {
+                        final int u = root[left];
+                        if (!placed[u]) {
+                            // place the left block first, then come back to w
+                            placed[u] = true;
+                            ++top;
+                            stackBlock[top] = u;
+                            stackVertex[top] = u;
+                            continue;
+                        }
+                        if (sink[v] == v)
+                            sink[v] = sink[u];
+                        final double delta = getSeparation(left, w, right);
+                        if (sink[v] != sink[u])
+                            shift[sink[u]] = Math.min(shift[sink[u]], x[v] - x[u] - delta);
+                        else
+                            x[v] = Math.max(x[v], x[u] + delta);
+                    }
+                    if (align[w] == v)
+                        --top;
+                    else
+                        stackVertex[top] = align[w];
+                }
+            }
+
+            final double[] result = new double[vertexCount];
+            for (int v = 0; v < vertexCount; ++v) {
+                result[v] = x[root[v]];
+                final double s = shift[sink[root[v]]];
+                if (s < Double.POSITIVE_INFINITY)
+                    result[v] += s;
+                if (right)
+                    result[v] = -result[v];
+            }
+            return result;
+        }
+
+        // the vertex at position k-1 in the direction of the layout
+        private int leftOf(int[] layer, int k, boolean right) {
+            return right ? layer[layer.length - k] : layer[k - 1];
+        }
+
+        // phase 5: storing the layout in the graph
+
+        public void store() {
+            double minBreadth = Double.POSITIVE_INFINITY;
+            double maxBreadth = Double.NEGATIVE_INFINITY;
+            for (int v = 0; v < vertexCount; ++v) {
+                minBreadth = Math.min(minBreadth, breadthCoord[v] - leftExtent[v]);
+                maxBreadth = Math.max(maxBreadth, breadthCoord[v] + rightExtent[v]);
+            }
+            double maxDepth = 0;
+            for (int v = 0; v < vertexCount; ++v)
+                maxDepth = Math.max(maxDepth, rankCoord[rank[v]] + depth[v] / 2);
+            if (vertexCount == 0)
+                minBreadth = maxBreadth = 0;
+            for (int v = 0; v < vertexCount; ++v)
+                breadthCoord[v] += MARGIN - minBreadth;
+            for (int r = 0; r < rankCoord.length; ++r)
+                rankCoord[r] += MARGIN;
+
+            for (int node = 0; node < nodeCount; ++node) {
+                nodes[node].setAttribute(GrappaConstants.POS_ATTR,
+                    getPoint(breadthCoord[node], rankCoord[rank[node]]));
+                nodes[node].setAttribute(GrappaConstants.WIDTH_ATTR,
+                    Double.valueOf(nodeWidth[node] / POINTS_PER_INCH));
+                nodes[node].setAttribute(GrappaConstants.HEIGHT_ATTR,
+                    Double.valueOf(nodeHeight[node] / POINTS_PER_INCH));
+            }
+            for (int e = 0; e < edges.length; ++e)
+                storeEdge(e);
+            for (int l = 0; l < loops.length; ++l)
+                storeLoop(l);
+
+            final double width = maxBreadth - minBreadth + 2 * MARGIN;
+            final double height = maxDepth + 2 * MARGIN;
+            graph.setAttribute(GrappaConstants.BBOX_ATTR, leftToRight
+                ? new GrappaBox(0, 0, height, width) : new GrappaBox(0, 0, width, height));
+        }
+
+        private int getArrowType(Edge edge) {
+            final Integer dir = (Integer) edge.getAttributeValue(GrappaConstants.DIR_ATTR);
+            if (dir != null)
+                return dir.intValue();
+            return graph.isDirected() ? GrappaLine.TAIL_ARROW_EDGE : GrappaLine.NONE_ARROW_EDGE;
+        }
+
+        private void storeEdge(int e) {
+            // the points (breadth, depth) from the tail to the head
+            final int dummies = chainStart[e + 1] - chainStart[e];
+            final double[] b = new double[dummies + 2];
+            final double[] d = new double[dummies + 2];
+            for (int i = 0; i < b.length; ++i) {
+                final int v = i == 0 ? getUpper(e) : i == b.length - 1 ? getLower(e)
+                    : chain[chainStart[e] + i - 1];
+                final int index = edgeReversed[e] ? b.length - 1 - i : i;
+                b[index] = breadthCoord[v];
+                d[index] = rankCoord[rank[v]];
+            }
+            final int last = b.length - 1;
+            final double[] start = clip(edgeFrom[e], b[0], d[0], b[1], d[1]);
+            final double[] end = clip(edgeTo[e], b[last], d[last], b[last - 1], d[last - 1]);
+            b[0] = start[0];
+            d[0] = start[1];
+            b[last] = end[0];
+            d[last] = end[1];
+
+            final int arrowType = getArrowType(edges[e]);
+            edges[e].setAttribute(GrappaConstants.POS_ATTR,
+                new GrappaLine(getCurve(b, d, arrowType), arrowType));
+
+            if (labelBreadth[e] > 0) {
+                final int labelVertex = chain[chainStart[e] + (dummies - 1) / 2];
+                edges[e].setAttribute(GrappaConstants.LP_ATTR, getPoint(
+                    breadthCoord[labelVertex] + 2 + labelBreadth[e] / 2,
+                    rankCoord[rank[labelVertex]]));
+            }
+        }
+
+        // the point where the line from the center of the node towards
+        // (toB, toD) leaves the node
+        private double[] clip(int node, double b, double d, double toB, double toD) {
+            final double halfBreadth = getBreadth(nodeWidth[node], nodeHeight[node]) / 2;
+            final double halfDepth = getDepth(nodeWidth[node], nodeHeight[node]) / 2;
+            final double db = toB - b;
+            final double dd = toD - d;
+            if (db == 0 && dd == 0)
+                return new double[] { b, d };
+            double t;
+            if (isBox(nodeShape[node])) {
+                t = Math.min(db == 0 ? Double.POSITIVE_INFINITY : halfBreadth / Math.abs(db),
+                    dd == 0 ? Double.POSITIVE_INFINITY : halfDepth / Math.abs(dd));
+            } else {
+                t = 1 / Math.sqrt(db * db / (halfBreadth * halfBreadth)
+                    + dd * dd / (halfDepth * halfDepth));
+            }
+            t = Math.min(t, 1);
+            return new double[] { b + t * db, d + t * dd };
+        }
+
+        // a cubic bezier curve through the given points (Catmull-Rom spline),
+        // with the tips of the arrows as separate points like in dot's output
+        private GrappaPoint[] getCurve(double[] b, double[] d, int arrowType) {
+            final int last = b.length - 1;
+            final boolean tailArrow = (arrowType & GrappaLine.HEAD_ARROW_EDGE) != 0;
+            final boolean headArrow = (arrowType & GrappaLine.TAIL_ARROW_EDGE) != 0;
+            final double[] tailTip = { b[0], d[0] };
+            final double[] headTip = { b[last], d[last] };
+            if (tailArrow)
+                shorten(b, d, 0, 1);
+            if (headArrow)
+                shorten(b, d, last, last - 1);
+
+            final List<GrappaPoint> points = new ArrayList<GrappaPoint>(3 * b.length + 1);
+            if (tailArrow)
+                points.add(getPoint(tailTip[0], tailTip[1]));
+            points.add(getPoint(b[0], d[0]));
+            for (int i = 0; i < last; ++i) {
+                final int prev = Math.max(i - 1, 0);
+                final int next = Math.min(i + 2, last);
+                // keeping the control points between the end points avoids
+                // overshooting curves
+                final double low = Math.min(b[i], b[i + 1]);
+                final double high = Math.max(b[i], b[i + 1]);
+                points.add(getPoint(clamp(b[i] + (b[i + 1] - b[prev]) / 6, low, high),
+                    d[i] + (d[i + 1] - d[prev]) / 6));
+                points.add(getPoint(clamp(b[i + 1] - (b[next] - b[i]) / 6, low, high),
+                    d[i + 1] - (d[next] - d[i]) / 6));
+                points.add(getPoint(b[i + 1], d[i + 1]));
+            }
+            if (headArrow)
+                points.add(getPoint(headTip[0], headTip[1]));
+            return points.toArray(new GrappaPoint[points.size()]);
+        }
+
+        private double clamp(double value, double low, double high) {
+            return Math.max(low, Math.min(high, value));
+        }
+
+        // moves point i towards point j by the length of an arrow
+        private void shorten(double[] b, double[] d, int i, int j) {
+            final double length = Math.hypot(b[j] - b[i], d[j] - d[i]);
+            if (length <= GrappaLine.arrowLength)
+                return;
+            final double t = GrappaLine.arrowLength / length;
+            b[i] += t * (b[j] - b[i]);
+            d[i] += t * (d[j] - d[i]);
+        }
+
+        private void storeLoop(int l) {
+            final int node = loopNode[l];
+            final double b = breadthCoord[node];
+            final double d = rankCoord[rank[node]];
+            final double halfDepth = getDepth(nodeWidth[node], nodeHeight[node]) / 2;
+            final double[] start = clip(node, b, d, b + 1, d - 0.6);
+            final double[] end = clip(node, b, d, b + 1, d + 0.6);
+            // the control points for a curve reaching loopReach[l]
+            final double reach = b + (loopReach[l] - (start[0] - b) / 4) / 0.75;
+            final double[] pb = { start[0], reach, reach, end[0] };
+            final double[] pd = { start[1], d - halfDepth, d + halfDepth, end[1] };
+
+            final int arrowType = getArrowType(loops[l]);
+            final List<GrappaPoint> points = new ArrayList<GrappaPoint>(6);
+            if ((arrowType & GrappaLine.HEAD_ARROW_EDGE) != 0) {
+                points.add(getPoint(pb[0], pd[0]));
+                shorten(pb, pd, 0, 1);
+            }
+            final boolean headArrow = (arrowType & GrappaLine.TAIL_ARROW_EDGE) != 0;
+            final GrappaPoint tip = getPoint(pb[3], pd[3]);
+            if (headArrow)
+                shorten(pb, pd, 3, 2);
+            for (int i = 0; i < 4; ++i)
+                points.add(getPoint(pb[i], pd[i]));
+            if (headArrow)
+                points.add(tip);
+            loops[l].setAttribute(GrappaConstants.POS_ATTR,
+                new GrappaLine(points.toArray(new GrappaPoint[points.size()]), arrowType));
+
+            if (loopLabelBreadth[l] > 0)
+                loops[l].setAttribute(GrappaConstants.LP_ATTR,
+                    getPoint(b + loopReach[l] + 2 + loopLabelBreadth[l] / 2, d));
+        }
+
+    }
+
+}
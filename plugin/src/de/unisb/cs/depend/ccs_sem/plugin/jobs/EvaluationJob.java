@@ -7,6 +7,7 @@ import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
@@ -14,12 +15,15 @@ import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.ISchedulingRule;
 import org.eclipse.core.runtime.jobs.Job;
 
+import de.unisb.cs.depend.ccs_sem.evaluators.EvaluationBudget;
 import de.unisb.cs.depend.ccs_sem.evaluators.EvaluationMonitor;
 import de.unisb.cs.depend.ccs_sem.evaluators.Evaluator;
+import de.unisb.cs.depend.ccs_sem.evaluators.ParallelEvaluator;
 import de.unisb.cs.depend.ccs_sem.exceptions.LexException;
 import de.unisb.cs.depend.ccs_sem.exceptions.ParseException;
 import de.unisb.cs.depend.ccs_sem.lexer.CCSLexer;
 import de.unisb.cs.depend.ccs_sem.lexer.tokens.categories.Token;
+import de.unisb.cs.depend.ccs_sem.metrics.StripedCounter;
 import de.unisb.cs.depend.ccs_sem.parser.CCSParser;
 import de.unisb.cs.depend.ccs_sem.parser.IParsingProblemListener;
 import de.unisb.cs.depend.ccs_sem.parser.ParsingProblem;
@@ -32,9 +36,14 @@ public class EvaluationJob extends Job {
 
     protected final boolean minimize;
     protected boolean reset;
+    protected Program previousProgram = null;
+    protected EvaluationBudget budget = null;
 
     protected final String ccsCode;
 
+    // the evaluator of the running job, to cancel it
+    private volatile Evaluator evaluator = null;
+
     private static final ISchedulingRule rule = new IdentityRule();
 
     private final static int WORK_LEXING = 1;
@@ -54,7 +63,29 @@ public class EvaluationJob extends Job {
     }
     
     public void setResetEval(boolean r) {
-    	reset = true;
+    	reset = r;
+    }
+
+    /**
+     * Sets the program that was evaluated before. All process variables that
+     * did not change since then (and do not depend on changed ones) are
+     * taken over together with their evaluation.
+     * Is ignored if the evaluation is reset (see {@link #setResetEval(boolean)}).
+     *
+     * @param previousProgram the previously evaluated program, or <code>null</code>
+     */
+    public void setPreviousProgram(Program previousProgram) {
+        this.previousProgram = previousProgram;
+    }
+
+    /**
+     * Sets the limits for the evaluation. If a limit is hit, the evaluation
+     * stops and the partial LTS is shown (with a warning).
+     *
+     * @param budget the limits, or <code>null</code> for an unlimited evaluation
+     */
+    public void setBudget(EvaluationBudget budget) {
+        this.budget = budget;
     }
 
     @Override
@@ -79,6 +110,7 @@ public class EvaluationJob extends Job {
                 throw new RuntimeException(e);
             } catch (final TimeoutException e) {
                 if (monitor.isCanceled()) {
+                    cancelEvaluation();
                     status.cancel(true);
                     try {
                         executingThread.join();
@@ -92,6 +124,17 @@ public class EvaluationJob extends Job {
         }
     }
 
+    @Override
+    protected void canceling() {
+        cancelEvaluation();
+    }
+
+    private void cancelEvaluation() {
+        final Evaluator eval = evaluator;
+        if (eval instanceof ParallelEvaluator)
+            ((ParallelEvaluator) eval).cancel();
+    }
+
     public boolean isMinimize() {
         return minimize;
     }
@@ -102,8 +145,9 @@ public class EvaluationJob extends Job {
         private String error;
         private final String prefix;
         private final IProgressMonitor monitor;
-        private int states = 0;
-        private int transitions = 0;
+        // the monitor is called from all worker threads, so don't synchronize here
+        private final AtomicInteger states = new AtomicInteger(0);
+        private final StripedCounter transitions = new StripedCounter();
         private final int outputNum;
 
         public EvalMonitor(IProgressMonitor monitor, String prefix, int outputNum) {
@@ -120,22 +164,22 @@ public class EvaluationJob extends Job {
             this.error = errorString;
         }
 
-        public synchronized void newState() {
-            ++states;
-            if (states % outputNum == 0) {
-                monitor.subTask(prefix + states + " States, " + transitions + " Transitions");
+        public void newState() {
+            final int totalStates = states.incrementAndGet();
+            if (totalStates % outputNum == 0) {
+                monitor.subTask(prefix + totalStates + " States, " + transitions + " Transitions");
             }
         }
 
-        public synchronized void newTransitions(int count) {
-            transitions += count;
+        public void newTransitions(int count) {
+            transitions.add(count);
         }
 
         public void ready() {
             monitor.subTask(prefix + " ready");
         }
 
-        public synchronized void newState(int numTransitions) {
+        public void newState(int numTransitions) {
             newTransitions(numTransitions);
             newState();
         }
@@ -187,7 +231,7 @@ public class EvaluationJob extends Job {
                             errorsOccured.set(true);
                     }
                 });
-                ccsProgram = parser.parse(tokens);
+                ccsProgram = parser.parse(tokens, reset ? null : previousProgram);
                 monitor.worked(WORK_PARSING);
 
                 if (monitor.isCanceled())
@@ -212,15 +256,23 @@ public class EvaluationJob extends Job {
 
                 monitor.subTask("Evaluating...");
                 final Evaluator evaluator = Globals.getDefaultEvaluator();
+                EvaluationJob.this.evaluator = evaluator;
+                // the job may have been cancelled before the evaluator was set
+                if (monitor.isCanceled())
+                    cancelEvaluation();
                 final EvalMonitor evalMonitor = new EvalMonitor(monitor, "Evaluating... ", 100);
                 if( reset ) {
                 	ccsProgram.resetEvaluation();
                 }
-                if (!ccsProgram.evaluate(evaluator, evalMonitor)) {
+                if (!ccsProgram.evaluate(evaluator, evalMonitor, budget)) {
                     final String error = evalMonitor.getErrorString();
                     return new EvaluationStatus(IStatus.ERROR,
                         "Error evaluating: " + error);
                 }
+                if (ccsProgram.isTruncated())
+                    warning = "Evaluation stopped: the " + budget.getExceededLimit()
+                        + " was hit. " + ccsProgram.getFrontier().size()
+                        + " states were not explored.";
                 monitor.worked(WORK_EVALUATING);
 
                 if (monitor.isCanceled())
@@ -139,18 +139,20 @@ public class GraphUpdateJob extends Job {
             }
 
             monitor.worked(WORK_CREATE_GRAPH);
-            // check weather graph is too large
+            // check weather graph is too large for dot (the in-process
+            // layout handles large graphs)
+            final boolean layoutWithDot = MyPreferenceStore.getLayoutWithDot();
             long size = 0;
             Enumeration<Node> nodes = graph.nodeElements();
             while(nodes.hasMoreElements() ) {
             	nodes.nextElement();
             	size++;
             }
-            if( size > MyPreferenceStore.getMaxGraphSize() && 
+            if( layoutWithDot && size > MyPreferenceStore.getMaxGraphSize() && 
             		MyPreferenceStore.getMaxGraphSize() != 0 ) {
             	return new GraphUpdateStatus(IStatus.ERROR,
             			"The Graph is too large. (More than "+MyPreferenceStore.getMaxGraphSize()+" Nodes)\n"+
-            			"You can change the limit in the CCS-Preferences. (exact size of current graph is: "+size+")");            	
+            			"You can change the limit in the CCS-Preferences, or layout the graph without dot. (exact size of current graph is: "+size+")");            	
             }
 
             if (monitor.isCanceled())
@@ -159,7 +161,7 @@ public class GraphUpdateJob extends Job {
             monitor.subTask("Layouting graph...");
             final FutureTask<Boolean> filterTask = new FutureTask<Boolean>(new Callable<Boolean>() {
                 public Boolean call() throws Exception {
-                    return GraphHelper.filterGraph(graph, true);
+                    return GraphHelper.layoutGraph(graph, true);
                 }
             });
             new Thread(filterTask, "layout graph").start();
@@ -10,6 +10,7 @@ import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.ISchedulingRule;
 import org.eclipse.core.runtime.jobs.Job;
 
+import de.unisb.cs.depend.ccs_sem.lexer.IncrementalCCSLexer;
 import de.unisb.cs.depend.ccs_sem.lexer.LoggingCCSLexer;
 import de.unisb.cs.depend.ccs_sem.lexer.tokens.Identifier;
 import de.unisb.cs.depend.ccs_sem.lexer.tokens.categories.Token;
@@ -67,26 +68,44 @@ public class ParseCCSProgramJob extends Job {
 
         Program ccsProgram = null;
         final ParsingResult result = new ParsingResult();
+        String text = null;
+        IncrementalCCSLexer incrementalLexer = null;
         if (input == null) {
             if (ccsDocument == null)
                 return new ParseStatus(IStatus.ERROR,
                     "Neither input nor ccsDocument set in parseCCSProgramJob");
+            final ParsingResult previousResult;
+            final int damageOffset;
+            final int unchangedSuffixLength;
             ccsDocument.lock();
             try {
                 docModCount = ccsDocument.getModificationStamp();
-                input = new StringReader(ccsDocument.get());
+                text = ccsDocument.get();
+                final ParseStatus lastResult = ccsDocument.getLastParseResult();
+                previousResult = lastResult == null ? null : lastResult.getParsingResult();
+                damageOffset = ccsDocument.getDamageOffset();
+                unchangedSuffixLength = ccsDocument.getUnchangedSuffixLength();
             } finally {
                 ccsDocument.unlock();
             }
+            if (previousResult != null) {
+                // only lex and parse the part of the text that changed
+                final int removedLength = previousResult.inputLength - damageOffset - unchangedSuffixLength;
+                incrementalLexer = new IncrementalCCSLexer(result, previousResult,
+                    damageOffset, removedLength, text.length() - damageOffset - unchangedSuffixLength);
+            } else
+                input = new StringReader(text);
         }
         monitor.subTask("Lexing...");
-        final List<Token> tokens = new LoggingCCSLexer(result).lex(input);
+        final List<Token> tokens = incrementalLexer != null
+            ? incrementalLexer.lex(text)
+            : new LoggingCCSLexer(result).lex(input);
         monitor.worked(WORK_LEXING);
 
         // only continue if lexing was successfull
         if (tokens != null) {
             monitor.subTask("Parsing...");
-            ccsProgram = new LoggingCCSParser(result).parse(tokens);
+            ccsProgram = new LoggingCCSParser(result, incrementalLexer).parse(tokens);
             monitor.worked(WORK_PARSING);
 
             if (ccsProgram != null) {
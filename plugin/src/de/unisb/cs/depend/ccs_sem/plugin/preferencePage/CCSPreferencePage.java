@@ -103,9 +103,16 @@ public class CCSPreferencePage
             getFieldEditorParent());
         addField(ungardedErrorTypeEditor);
         
+        // graphs are laid out in-process, unless dot is requested
+        final BooleanFieldEditor layoutWithDotEditor = new BooleanFieldEditor(
+            MyPreferenceStore.getLayoutWithDotKey(),
+            "Layout graphs with dot (slower for large graphs)",
+            getFieldEditorParent());
+        addField(layoutWithDotEditor);
+
         // Maximal Graph Size
         maxGraphSizeFieldEditor = new StringFieldEditor(MyPreferenceStore.getMaxGraphSizeKey(),
-        		"Maximal displayed graph size\n(0 for unlimited)",
+        		"Maximal graph size for dot\n(0 for unlimited)",
         		getFieldEditorParent());
         addField(maxGraphSizeFieldEditor);
         
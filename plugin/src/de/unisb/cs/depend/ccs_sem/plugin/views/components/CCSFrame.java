@@ -14,11 +14,14 @@ import de.unisb.cs.depend.ccs_sem.plugin.grappa.GrappaFrame;
 import de.unisb.cs.depend.ccs_sem.plugin.jobs.EvaluationJob;
 import de.unisb.cs.depend.ccs_sem.plugin.jobs.EvaluationJob.EvaluationStatus;
 import de.unisb.cs.depend.ccs_sem.plugin.utils.ISemanticDependend;
+import de.unisb.cs.depend.ccs_sem.semantics.types.Program;
 
 public class CCSFrame extends SashForm implements ISemanticDependend{
 
     protected final GrappaFrame gFrame;
     private EvaluationJob evaluationJob;
+    // the last successfully evaluated program, its evaluation is reused
+    private volatile Program lastProgram = null;
     private final CCSEditor ccsEditor;
     private boolean minimize = false;
     protected final OptionsTab optionsTab;
@@ -68,6 +71,8 @@ public class CCSFrame extends SashForm implements ISemanticDependend{
                 final IStatus result = event.getResult();
                 if (result instanceof EvaluationStatus) {
                     final EvaluationStatus evalStatus = (EvaluationStatus) result;
+                    if (evalStatus.getCcsProgram() != null)
+                        lastProgram = evalStatus.getCcsProgram();
                     optionsTab.update(evalStatus);
                     informationTab.update(evalStatus);
                     stateListTab.update(evalStatus);
@@ -78,6 +83,7 @@ public class CCSFrame extends SashForm implements ISemanticDependend{
         });
         
         evaluationJob.setResetEval(resetEval);
+        evaluationJob.setPreviousProgram(lastProgram);
         return evaluationJob;
     }
 
@@ -1,8 +1,7 @@
 package de.unisb.cs.depend.ccs_sem.plugin.views.simulation;
 
 import java.util.HashMap;
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.List;
 
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.custom.SashForm;
@@ -20,16 +19,13 @@ import org.eclipse.ui.IWorkbenchPartSite;
 import org.eclipse.ui.part.PageBook;
 import org.eclipse.ui.part.ViewPart;
 
-import de.unisb.cs.depend.ccs_sem.evaluators.Evaluator;
 import de.unisb.cs.depend.ccs_sem.plugin.editors.CCSDocument;
 import de.unisb.cs.depend.ccs_sem.plugin.editors.CCSEditor;
 import de.unisb.cs.depend.ccs_sem.plugin.jobs.ParseCCSProgramJob.ParseStatus;
 import de.unisb.cs.depend.ccs_sem.semantics.expressions.Expression;
-import de.unisb.cs.depend.ccs_sem.semantics.expressions.ParallelExpression;
-import de.unisb.cs.depend.ccs_sem.semantics.expressions.RestrictExpression;
-import de.unisb.cs.depend.ccs_sem.semantics.expressions.adapters.TopMostExpression;
 import de.unisb.cs.depend.ccs_sem.semantics.types.Transition;
-import de.unisb.cs.depend.ccs_sem.utils.Globals;
+import de.unisb.cs.depend.ccs_sem.utils.SimulationEngine;
+import de.unisb.cs.depend.ccs_sem.utils.SimulationEngine.Step;
 
 public class ChooseActionView extends ViewPart implements IUndoListener, SelectionListener {
 
@@ -43,9 +39,9 @@ public class ChooseActionView extends ViewPart implements IUndoListener, Selecti
 	private TraceView traceView;
 	private TopLevelGraphView topLevelGraphView;
 	
-	private LinkedList<Expression> parallelExps;
-	private LinkedList<LinkedList<Expression>> history;
-	private LinkedList<LinkedList<Integer>> processNoHistory;
+	// keeps the current processes and the history, and evaluates their
+	// successors in the background
+	private SimulationEngine engine;
 	private HashMap<Integer,Transition> listToTransMap;
 	private HashMap<Integer,Integer> indexToProcessNr;
 		
@@ -115,10 +111,8 @@ public class ChooseActionView extends ViewPart implements IUndoListener, Selecti
 	}
 	
 	public ChooseActionView() {
-		history = new LinkedList<LinkedList<Expression>> ();
 		listToTransMap = new HashMap<Integer, Transition> ();
 		indexToProcessNr = new HashMap<Integer,Integer> ();
-		processNoHistory = new LinkedList<LinkedList<Integer>> ();
 	}
 	
 	@Override
@@ -158,12 +152,8 @@ public class ChooseActionView extends ViewPart implements IUndoListener, Selecti
 		
 		// init TopLevelGraphView
 		if( topLevelGraphView != null ) {
-			Iterator<Expression> iter = parallelExps.iterator();
-			Expression temp;
-			for(int i=0; i<parallelExps.size(); i++) {
-				temp = iter.next();
-								
-				topLevelGraphView.addProcess(i, temp);
+			for(int i=0; i<engine.getComponentCount(); i++) {
+				topLevelGraphView.addProcess(i, engine.getComponent(i));
 			}
 		}
 	}
@@ -183,61 +173,36 @@ public class ChooseActionView extends ViewPart implements IUndoListener, Selecti
 		ParseStatus status = doc.reparseIfNecessary();
 		Expression mainExp = status.getParsedProgram().getMainExpression();
 		
-		// Get the parallel Expressions
-		if(mainExp instanceof TopMostExpression) {
-			mainExp = ((TopMostExpression) mainExp).getInnerExpression();	
+		// the engine splits the main expression into the parallel processes
+		if( engine != null ) {
+			engine.dispose();
 		}
-		if (mainExp instanceof RestrictExpression) {
-			Iterator<Expression> iter = ((RestrictExpression) mainExp).getChildren().iterator();
-			mainExp = iter.next(); // restrict expression has exactly one child
-		}
-		Evaluator evaluator = Globals.getDefaultEvaluator();
-		try {
-			evaluator.evaluate(mainExp);
-		} catch (InterruptedException e1) {
-			e1.printStackTrace();
-		}
-		parallelExps = new LinkedList<Expression>();
-		LinkedList<Expression> toCheck = new LinkedList<Expression> ();
-		toCheck.add(mainExp);
-		
-		while(!toCheck.isEmpty()) {
-			 Expression exp = toCheck.poll();
-			 if (exp instanceof ParallelExpression) {
-				ParallelExpression para = (ParallelExpression) exp;
-				toCheck.addAll(para.getChildren());
-			} else {
-				parallelExps.add(exp);
-			}
-		}
-
-		mainExp.resetEval();
-		try {
-			for( Expression e : parallelExps ) {
-				evaluator.evaluate(e);
-			}
-		} catch(InterruptedException e) { e.printStackTrace(); }
-		
-		history.add(parallelExps);
+		engine = new SimulationEngine(mainExp);
 		
 		fillList();
 	}
 	
 	private void fillList() {		
-		int i=0;
-		for(Expression e : parallelExps) {
+		for(int i=0; i<engine.getComponentCount(); i++) {
 			listToTransMap.put(table.getItemCount(),null); // the process+i
 			indexToProcessNr.put(table.getItemCount(), -1); // the "process i" doesn't belong to any process 
 			addToTable( process+i+":" );
 
-			for(Transition t : e.getTransitions() ) {
+			List<Transition> transitions;
+			try {
+				// usually already evaluated by the engine in the background
+				transitions = engine.getTransitions(i);
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+				continue;
+			}
+			for(Transition t : transitions ) {
 				// Before add the next element -> getItemCount = nr of next added item
 				listToTransMap.put(table.getItemCount(),t);
 				indexToProcessNr.put(table.getItemCount(), i);
 				
 				addToTable( "  " + t.getAction().toString() );
 			}
-			i++;
 		}
 	}
 	
@@ -253,21 +218,29 @@ public class ChooseActionView extends ViewPart implements IUndoListener, Selecti
 	public void setFocus() {
 		myPageBook.setFocus();
 	}
+	
+	@Override
+	public void dispose() {
+		if( engine != null ) {
+			engine.dispose();
+		}
+		super.dispose();
+	}
 
 	public void notifyUndo() {
-		if( history.size() == 0 )
+		if( engine == null )
 			return;
 		
-		history.removeLast();
-		parallelExps = history.getLast();
+		Step undone = engine.undo();
+		if( undone == null )
+			return;
 			
 		refillList();
 		
 		if( topLevelGraphView != null ) {
-			for( int i : processNoHistory.getLast() ) {
+			for( int i : undone.getChangedComponents() ) {
 				topLevelGraphView.undo(i);				
 			}
-			processNoHistory.removeLast();
 		}
 	}
 
@@ -299,46 +272,16 @@ public class ChooseActionView extends ViewPart implements IUndoListener, Selecti
 		Transition t1 = listToTransMap.get(i);
 		Transition t2 = listToTransMap.get(j);
 		
-		if( t1 == null || t2 == null || !t1.isSynchronizableWith(t2) )
+		if( t1 == null || t2 == null || !t1.isSynchronizableWith(t2)
+				|| indexToProcessNr.get(i).equals(indexToProcessNr.get(j)) )
 			return;
 		
 		
-		// Make the next process for i
-		int prozessNr = indexToProcessNr.get(i);
-		LinkedList<Expression> next = new LinkedList<Expression> (parallelExps);
-		next.remove(prozessNr);
-		Expression target1 = t1.getTarget();
-		if( !target1.isEvaluated() ) {
-			try {
-				Globals.getDefaultEvaluator().evaluate(target1);
-			} catch (InterruptedException e) {
-				e.printStackTrace();
-			}
-		}
-		next.add(prozessNr, target1);
+		// the targets are evaluated by refillList (if not prefetched yet)
+		Step step = engine.doSynchronousAction(
+				indexToProcessNr.get(i), t1, indexToProcessNr.get(j), t2);
 		
-		// the same for j
-		prozessNr = indexToProcessNr.get(j);
-		next.remove(prozessNr);
-		Expression target2 = t2.getTarget();
-		if( !target2.isEvaluated() ) {
-			try {
-				Globals.getDefaultEvaluator().evaluate(target2);
-			} catch (InterruptedException e) {
-				e.printStackTrace();
-			}
-		}
-		next.add(prozessNr, target2);
-		
-		// procChanged
-		history.add(next);
-		LinkedList<Integer> procsChanged = new LinkedList<Integer> ();
-		procsChanged.add( indexToProcessNr.get(i) );
-		procsChanged.add( indexToProcessNr.get(j) );
-		processNoHistory.addLast(procsChanged);
-		parallelExps = next;
-		
-		reportToTrace( "i (" + t1.getAction().toString() +")" );
+		reportToTrace( step.getLabel() );
 		topLevelGraphView.doAction(
 				indexToProcessNr.get(i), t1);
 		topLevelGraphView.doAction(
@@ -350,23 +293,7 @@ public class ChooseActionView extends ViewPart implements IUndoListener, Selecti
 	private void doAction(int selectedItem) {
 		Transition t = listToTransMap.get(selectedItem);
 		
-		int prozessNr = indexToProcessNr.get(selectedItem);
-		LinkedList<Expression> next = new LinkedList<Expression> (parallelExps);
-		next.remove(prozessNr);
-		Expression target = t.getTarget();
-		if( !target.isEvaluated() ) {
-			try {
-				Globals.getDefaultEvaluator().evaluate(target);
-			} catch (InterruptedException e) {
-				e.printStackTrace();
-			}
-		}
-		next.add(prozessNr, target);
-		history.add(next);
-		LinkedList<Integer> procsChanged = new LinkedList<Integer> ();
-		procsChanged.add( indexToProcessNr.get(selectedItem) );
-		processNoHistory.addLast(procsChanged);
-		parallelExps = next;
+		engine.doAction(indexToProcessNr.get(selectedItem), t);
 		
 		reportToTrace( table.getItem(selectedItem).getText() );
 		topLevelGraphView.doAction(